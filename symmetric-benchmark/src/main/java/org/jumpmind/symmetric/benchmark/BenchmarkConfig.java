@@ -0,0 +1,319 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.commons.lang.StringUtils;
+import org.jumpmind.properties.TypedProperties;
+
+/**
+ * Settings for a {@link ReplicationBenchmark} run. Every setting can be passed
+ * as a property prefixed with <code>benchmark.</code> Properties prefixed with
+ * <code>benchmark.engine.</code> are handed to every engine with the prefix
+ * removed, which makes it possible to compare runs with different SymmetricDS
+ * parameters.
+ */
+public class BenchmarkConfig {
+
+    public static final String PREFIX = "benchmark.";
+
+    public static final String ENGINE_PARAMETER_PREFIX = PREFIX + "engine.";
+
+    public enum Topology {
+        /** Clients capture changes and push them to the server */
+        PUSH,
+        /** The server captures changes and every client pulls them */
+        PULL,
+        /** Clients push their changes and pull the server's changes */
+        BIDIRECTIONAL
+    }
+
+    private int nodes = 3;
+
+    private Topology topology = Topology.PUSH;
+
+    private String database = "h2";
+
+    private String dbUrl;
+
+    private int tables = 4;
+
+    private int rowsPerRound = 250;
+
+    private int rounds = 10;
+
+    private int warmupRounds = 2;
+
+    private int[] dmlWeights = { 60, 30, 10 };
+
+    private int commitRows = 50;
+
+    private int roundIntervalMs = 0;
+
+    private int batchSize = 1000;
+
+    private Boolean concurrentLoad;
+
+    private int syncIntervalMs = 50;
+
+    private int timeoutSeconds = 900;
+
+    private String directory = "target/benchmark";
+
+    private String reportFile;
+
+    private Properties engineParameters = new Properties();
+
+    public static BenchmarkConfig fromProperties(Properties properties) {
+        TypedProperties p = new TypedProperties();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(PREFIX)) {
+                p.setProperty(key.substring(PREFIX.length()), properties.getProperty(key));
+            }
+        }
+
+        BenchmarkConfig config = new BenchmarkConfig();
+        config.nodes = p.getInt("nodes", config.nodes);
+        config.topology = Topology.valueOf(p.get("topology", config.topology.name()).toUpperCase());
+        config.database = p.get("database", config.database).toLowerCase();
+        config.dbUrl = p.get("db.url", null);
+        config.tables = p.getInt("tables", config.tables);
+        config.rowsPerRound = p.getInt("rows.per.round", config.rowsPerRound);
+        config.rounds = p.getInt("rounds", config.rounds);
+        config.warmupRounds = p.getInt("warmup.rounds", config.warmupRounds);
+        String weights = p.get("dml.weights", null);
+        if (StringUtils.isNotBlank(weights)) {
+            String[] tokens = weights.split(",");
+            if (tokens.length != 3) {
+                throw new IllegalArgumentException(
+                        "The dml weights should be three comma separated numbers for insert, update and delete.  Found: " + weights);
+            }
+            config.dmlWeights = new int[] { Integer.parseInt(tokens[0].trim()), Integer.parseInt(tokens[1].trim()),
+                    Integer.parseInt(tokens[2].trim()) };
+        }
+        config.commitRows = p.getInt("commit.rows", config.commitRows);
+        config.roundIntervalMs = p.getInt("round.interval.ms", config.roundIntervalMs);
+        config.batchSize = p.getInt("batch.size", config.batchSize);
+        if (p.containsKey("concurrent.load")) {
+            config.concurrentLoad = p.is("concurrent.load");
+        }
+        config.syncIntervalMs = p.getInt("sync.interval.ms", config.syncIntervalMs);
+        config.timeoutSeconds = p.getInt("timeout.seconds", config.timeoutSeconds);
+        config.directory = p.get("dir", config.directory);
+        config.reportFile = p.get("report", null);
+
+        for (String key : p.stringPropertyNames()) {
+            if (key.startsWith("engine.")) {
+                config.engineParameters.setProperty(key.substring("engine.".length()), p.getProperty(key));
+            }
+        }
+
+        if (config.nodes < 2) {
+            throw new IllegalArgumentException("A benchmark needs at least 2 nodes");
+        }
+        if (!config.database.equals("h2") && !config.database.equals("sqlite") && config.dbUrl == null) {
+            throw new IllegalArgumentException("Unsupported database '" + config.database
+                    + "'.  Use h2 or sqlite, or provide a db.url with a {name} token");
+        }
+        return config;
+    }
+
+    /**
+     * @return the JDBC url for the named engine
+     */
+    public String getDbUrl(String name) {
+        String url = dbUrl;
+        if (url == null) {
+            if (database.equals("sqlite")) {
+                url = "jdbc:sqlite:{dir}/{name}.sqlite";
+            } else {
+                url = "jdbc:h2:file:{dir}/{name};LOCK_TIMEOUT=60000;MVCC=TRUE";
+            }
+        }
+        return url.replace("{dir}", directory).replace("{name}", name);
+    }
+
+    public String getDbDriver() {
+        return database.equals("sqlite") ? "org.sqlite.JDBC" : "org.h2.Driver";
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+        map.put("nodes", nodes);
+        map.put("topology", topology.name().toLowerCase());
+        map.put("database", database);
+        map.put("tables", tables);
+        map.put("rowsPerRound", rowsPerRound);
+        map.put("rounds", rounds);
+        map.put("warmupRounds", warmupRounds);
+        map.put("dmlWeights", dmlWeights[0] + "," + dmlWeights[1] + "," + dmlWeights[2]);
+        map.put("commitRows", commitRows);
+        map.put("roundIntervalMs", roundIntervalMs);
+        map.put("batchSize", batchSize);
+        map.put("concurrentLoad", isConcurrentLoad());
+        map.put("syncIntervalMs", syncIntervalMs);
+        for (String key : engineParameters.stringPropertyNames()) {
+            map.put(ENGINE_PARAMETER_PREFIX + key, engineParameters.getProperty(key));
+        }
+        return map;
+    }
+
+    public int getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(int nodes) {
+        this.nodes = nodes;
+    }
+
+    public Topology getTopology() {
+        return topology;
+    }
+
+    public void setTopology(Topology topology) {
+        this.topology = topology;
+    }
+
+    public String getDatabase() {
+        return database;
+    }
+
+    public void setDatabase(String database) {
+        this.database = database;
+    }
+
+    public int getTables() {
+        return tables;
+    }
+
+    public void setTables(int tables) {
+        this.tables = tables;
+    }
+
+    public int getRowsPerRound() {
+        return rowsPerRound;
+    }
+
+    public void setRowsPerRound(int rowsPerRound) {
+        this.rowsPerRound = rowsPerRound;
+    }
+
+    public int getRounds() {
+        return rounds;
+    }
+
+    public void setRounds(int rounds) {
+        this.rounds = rounds;
+    }
+
+    public int getWarmupRounds() {
+        return warmupRounds;
+    }
+
+    public void setWarmupRounds(int warmupRounds) {
+        this.warmupRounds = warmupRounds;
+    }
+
+    public int[] getDmlWeights() {
+        return dmlWeights;
+    }
+
+    public void setDmlWeights(int[] dmlWeights) {
+        this.dmlWeights = dmlWeights;
+    }
+
+    public int getCommitRows() {
+        return commitRows;
+    }
+
+    public void setCommitRows(int commitRows) {
+        this.commitRows = commitRows;
+    }
+
+    public int getRoundIntervalMs() {
+        return roundIntervalMs;
+    }
+
+    public void setRoundIntervalMs(int roundIntervalMs) {
+        this.roundIntervalMs = roundIntervalMs;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Whether changes are captured while the previous changes are being
+     * synchronized. SQLite only allows one writer at a time, so it defaults to
+     * capturing and synchronizing in turns.
+     */
+    public boolean isConcurrentLoad() {
+        return concurrentLoad != null ? concurrentLoad : !database.equals("sqlite");
+    }
+
+    public void setConcurrentLoad(boolean concurrentLoad) {
+        this.concurrentLoad = concurrentLoad;
+    }
+
+    public int getSyncIntervalMs() {
+        return syncIntervalMs;
+    }
+
+    public void setSyncIntervalMs(int syncIntervalMs) {
+        this.syncIntervalMs = syncIntervalMs;
+    }
+
+    public int getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    public void setTimeoutSeconds(int timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public String getReportFile() {
+        return reportFile != null ? reportFile : directory + "/benchmark-report.json";
+    }
+
+    public void setReportFile(String reportFile) {
+        this.reportFile = reportFile;
+    }
+
+    public Properties getEngineParameters() {
+        return engineParameters;
+    }
+
+}
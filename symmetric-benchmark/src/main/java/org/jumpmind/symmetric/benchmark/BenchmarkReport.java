@@ -0,0 +1,233 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringEscapeUtils;
+import org.jumpmind.exception.IoException;
+import org.jumpmind.symmetric.Version;
+
+/**
+ * Collects the measurements of a {@link ReplicationBenchmark} run and writes
+ * them as JSON so results can be compared between releases.
+ */
+public class BenchmarkReport {
+
+    public static final String PHASE_CAPTURE = "capture";
+    public static final String PHASE_ROUTE = "route";
+    public static final String PHASE_PUSH = "push";
+    public static final String PHASE_PULL = "pull";
+    public static final String PHASE_EXTRACT = "extract";
+    public static final String PHASE_TRANSPORT = "transport";
+    public static final String PHASE_LOAD = "load";
+
+    static final int[] PERCENTILES = { 50, 90, 95, 99 };
+
+    private Map<String, Object> config;
+
+    private Date startTime = new Date();
+
+    private long elapsedMillis;
+
+    private long capturedRows;
+
+    private long deliveredRows;
+
+    private long batches;
+
+    private long errorBatches;
+
+    private long bytes;
+
+    private Map<String, Long> phaseMillis = new LinkedHashMap<String, Long>();
+
+    private List<Long> batchLatencies = new ArrayList<Long>();
+
+    public BenchmarkReport(Map<String, Object> config) {
+        this.config = config;
+        for (String phase : new String[] { PHASE_CAPTURE, PHASE_ROUTE, PHASE_PUSH, PHASE_PULL, PHASE_EXTRACT,
+                PHASE_TRANSPORT, PHASE_LOAD }) {
+            phaseMillis.put(phase, 0l);
+        }
+    }
+
+    public synchronized void addPhaseTime(String phase, long millis) {
+        Long total = phaseMillis.get(phase);
+        phaseMillis.put(phase, total == null ? millis : total + millis);
+    }
+
+    public synchronized void addBatch(long rows, long byteCount, boolean error) {
+        batches++;
+        deliveredRows += rows;
+        bytes += byteCount;
+        if (error) {
+            errorBatches++;
+        }
+    }
+
+    public synchronized void addBatchLatency(long millis) {
+        batchLatencies.add(Math.max(0, millis));
+    }
+
+    public synchronized void addCapturedRows(long rows) {
+        capturedRows += rows;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public long getCapturedRows() {
+        return capturedRows;
+    }
+
+    public long getDeliveredRows() {
+        return deliveredRows;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    public long getErrorBatches() {
+        return errorBatches;
+    }
+
+    public Map<String, Long> getPhaseMillis() {
+        return phaseMillis;
+    }
+
+    public double getCapturedRowsPerSecond() {
+        return perSecond(capturedRows);
+    }
+
+    public double getDeliveredRowsPerSecond() {
+        return perSecond(deliveredRows);
+    }
+
+    protected double perSecond(long count) {
+        return elapsedMillis > 0 ? count * 1000d / elapsedMillis : 0;
+    }
+
+    /**
+     * @return the latency percentiles in milliseconds, including min, max and
+     *         mean, from capturing the first row of a batch until the batch
+     *         was loaded at its target
+     */
+    public synchronized Map<String, Object> getLatencyPercentiles() {
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+        long[] sorted = new long[batchLatencies.size()];
+        long sum = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = batchLatencies.get(i);
+            sum += sorted[i];
+        }
+        Arrays.sort(sorted);
+        map.put("samples", sorted.length);
+        if (sorted.length > 0) {
+            map.put("min", sorted[0]);
+            map.put("mean", Math.round((double) sum / sorted.length));
+            for (int percentile : PERCENTILES) {
+                int rank = (int) Math.ceil(percentile / 100d * sorted.length);
+                map.put("p" + percentile, sorted[Math.max(0, rank - 1)]);
+            }
+            map.put("max", sorted[sorted.length - 1]);
+        }
+        return map;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+        map.put("version", Version.version());
+        map.put("startTime", new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ").format(startTime));
+        map.put("javaVersion", System.getProperty("java.version"));
+        map.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        map.put("config", config);
+        map.put("elapsedMillis", elapsedMillis);
+        map.put("capturedRows", capturedRows);
+        map.put("deliveredRows", deliveredRows);
+        map.put("batches", batches);
+        map.put("errorBatches", errorBatches);
+        map.put("bytes", bytes);
+        map.put("capturedRowsPerSecond", round(getCapturedRowsPerSecond()));
+        map.put("deliveredRowsPerSecond", round(getDeliveredRowsPerSecond()));
+        map.put("phaseMillis", new LinkedHashMap<String, Long>(phaseMillis));
+        map.put("latencyMillis", getLatencyPercentiles());
+        return map;
+    }
+
+    public static double round(double value) {
+        return Math.round(value * 100) / 100d;
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        appendJson(json, toMap(), "");
+        json.append("\n");
+        return json.toString();
+    }
+
+    public void write(File file) {
+        try {
+            FileUtils.writeStringToFile(file, toJson(), "UTF-8");
+        } catch (IOException e) {
+            throw new IoException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected static void appendJson(StringBuilder json, Object value, String indent) {
+        if (value instanceof Map) {
+            Map<String, Object> map = (Map<String, Object>) value;
+            json.append("{");
+            String nestedIndent = indent + "  ";
+            boolean first = true;
+            for (Map.Entry<String, Object> entry : map.entrySet()) {
+                json.append(first ? "\n" : ",\n").append(nestedIndent);
+                json.append("\"").append(StringEscapeUtils.escapeJava(entry.getKey())).append("\": ");
+                appendJson(json, entry.getValue(), nestedIndent);
+                first = false;
+            }
+            json.append(first ? "" : "\n" + indent).append("}");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            json.append(value);
+        } else if (value == null) {
+            json.append("null");
+        } else {
+            json.append("\"").append(StringEscapeUtils.escapeJava(value.toString())).append("\"");
+        }
+    }
+
+}
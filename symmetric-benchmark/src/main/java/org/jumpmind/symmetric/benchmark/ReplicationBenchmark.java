@@ -0,0 +1,538 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.jumpmind.db.model.Column;
+import org.jumpmind.db.model.Table;
+import org.jumpmind.db.platform.IDatabasePlatform;
+import org.jumpmind.db.sql.ISqlRowMapper;
+import org.jumpmind.db.sql.Row;
+import org.jumpmind.db.util.BasicDataSourcePropertyConstants;
+import org.jumpmind.symmetric.ClientSymmetricEngine;
+import org.jumpmind.symmetric.ISymmetricEngine;
+import org.jumpmind.symmetric.benchmark.BenchmarkConfig.Topology;
+import org.jumpmind.symmetric.common.Constants;
+import org.jumpmind.symmetric.common.ParameterConstants;
+import org.jumpmind.symmetric.common.SystemConstants;
+import org.jumpmind.symmetric.common.TableConstants;
+import org.jumpmind.symmetric.io.data.DbFill;
+import org.jumpmind.symmetric.model.Channel;
+import org.jumpmind.symmetric.model.NodeGroup;
+import org.jumpmind.symmetric.model.NodeGroupLink;
+import org.jumpmind.symmetric.model.NodeGroupLinkAction;
+import org.jumpmind.symmetric.model.RemoteNodeStatuses;
+import org.jumpmind.symmetric.model.Router;
+import org.jumpmind.symmetric.model.Trigger;
+import org.jumpmind.symmetric.model.TriggerRouter;
+import org.jumpmind.symmetric.service.IConfigurationService;
+import org.jumpmind.symmetric.service.ITriggerRouterService;
+import org.jumpmind.util.AppUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a server and a number of clients in one JVM, connected with the
+ * internal transport, and measures how fast changes generated by
+ * {@link DbFill} are captured, routed, extracted, transported and loaded.
+ * <p>
+ * Arguments are either <code>name=value</code> settings (the
+ * <code>benchmark.</code> prefix is optional) or the path to a properties file.
+ * See {@link BenchmarkConfig} for the settings. The report is written as JSON
+ * to <code>benchmark.report</code>.
+ */
+public class ReplicationBenchmark {
+
+    static final Logger log = LoggerFactory.getLogger(ReplicationBenchmark.class);
+
+    public static final String CHANNEL_ID = "benchmark";
+
+    public static final String SERVER_GROUP_ID = "server";
+
+    public static final String CLIENT_GROUP_ID = "client";
+
+    public static final String TABLE_PREFIX = "bench_";
+
+    protected BenchmarkConfig config;
+
+    protected ISymmetricEngine server;
+
+    protected List<ISymmetricEngine> clients = new ArrayList<ISymmetricEngine>();
+
+    protected ExecutorService executor;
+
+    public ReplicationBenchmark(BenchmarkConfig config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Properties properties = new Properties();
+        properties.putAll(System.getProperties());
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index > 0) {
+                String key = arg.substring(0, index);
+                if (!key.startsWith(BenchmarkConfig.PREFIX)) {
+                    key = BenchmarkConfig.PREFIX + key;
+                }
+                properties.setProperty(key, arg.substring(index + 1));
+            } else {
+                InputStream is = new FileInputStream(arg);
+                try {
+                    properties.load(is);
+                } finally {
+                    IOUtils.closeQuietly(is);
+                }
+            }
+        }
+
+        BenchmarkConfig config = BenchmarkConfig.fromProperties(properties);
+        BenchmarkReport report = new ReplicationBenchmark(config).run();
+        File reportFile = new File(config.getReportFile());
+        report.write(reportFile);
+        log.info("Captured {} rows and delivered {} rows in {} batches over {} ms ({} delivered rows/sec).  Latency in ms: {}",
+                new Object[] { report.getCapturedRows(), report.getDeliveredRows(), report.getBatches(),
+                        report.getElapsedMillis(), BenchmarkReport.round(report.getDeliveredRowsPerSecond()),
+                        report.getLatencyPercentiles() });
+        log.info("Wrote the benchmark report to {}", reportFile.getAbsolutePath());
+        System.exit(report.getErrorBatches() > 0 ? 1 : 0);
+    }
+
+    public BenchmarkReport run() {
+        BenchmarkReport report = new BenchmarkReport(config.toMap());
+        executor = Executors.newCachedThreadPool();
+        try {
+            setup();
+
+            if (config.getWarmupRounds() > 0) {
+                log.info("Running {} warm up rounds", config.getWarmupRounds());
+                runRounds(config.getWarmupRounds(), new BenchmarkReport(config.toMap()));
+            }
+
+            Map<ISymmetricEngine, long[]> lastIds = getLastIds();
+            log.info("Running {} measured rounds", config.getRounds());
+            long ts = System.currentTimeMillis();
+            runRounds(config.getRounds(), report);
+            report.setElapsedMillis(System.currentTimeMillis() - ts);
+
+            collectStatistics(lastIds, report);
+            return report;
+        } finally {
+            executor.shutdownNow();
+            shutdown();
+        }
+    }
+
+    protected void setup() {
+        File directory = new File(config.getDirectory());
+        FileUtils.deleteQuietly(directory);
+        directory.mkdirs();
+        System.setProperty(SystemConstants.SYSPROP_WAIT_FOR_DATABASE, "false");
+
+        server = createEngine(SERVER_GROUP_ID, SERVER_GROUP_ID, null);
+        if (!server.start(false)) {
+            throw new IllegalStateException("The server engine failed to start");
+        }
+        configureServer();
+        server.syncTriggers();
+
+        for (int i = 1; i < config.getNodes(); i++) {
+            ISymmetricEngine client = createEngine("client" + i, CLIENT_GROUP_ID, server.getSyncUrl());
+            clients.add(client);
+            if (!client.start(false)) {
+                throw new IllegalStateException("The " + client.getEngineName() + " engine failed to start");
+            }
+            client.getRegistrationService().registerWithServer();
+            if (!client.isRegistered()) {
+                throw new IllegalStateException(client.getEngineName() + " failed to register with the server");
+            }
+            client.syncTriggers();
+        }
+        log.info("Started a server and {} clients with a {} topology on {}",
+                new Object[] { clients.size(), config.getTopology().name().toLowerCase(), config.getDatabase() });
+    }
+
+    protected ISymmetricEngine createEngine(String name, String nodeGroupId, String registrationUrl) {
+        Properties properties = new Properties();
+        properties.setProperty(ParameterConstants.ENGINE_NAME, name);
+        properties.setProperty(ParameterConstants.NODE_GROUP_ID, nodeGroupId);
+        properties.setProperty(ParameterConstants.EXTERNAL_ID, name);
+        properties.setProperty(ParameterConstants.SYNC_URL, Constants.PROTOCOL_INTERNAL + "://" + name);
+        properties.setProperty(ParameterConstants.REGISTRATION_URL, registrationUrl != null ? registrationUrl : "");
+        properties.setProperty(ParameterConstants.TRANSPORT_TYPE, Constants.PROTOCOL_INTERNAL);
+        properties.setProperty(BasicDataSourcePropertyConstants.DB_POOL_DRIVER, config.getDbDriver());
+        properties.setProperty(BasicDataSourcePropertyConstants.DB_POOL_URL, config.getDbUrl(name));
+        properties.setProperty(BasicDataSourcePropertyConstants.DB_POOL_USER, config.getDatabase().equals("h2") ? "sa" : "");
+        properties.setProperty(BasicDataSourcePropertyConstants.DB_POOL_PASSWORD, "");
+        properties.setProperty("java.io.tmpdir", new File(config.getDirectory(), "tmp").getAbsolutePath());
+        properties.setProperty(ParameterConstants.AUTO_INSERT_REG_SVR_IF_NOT_FOUND, "true");
+        properties.setProperty(ParameterConstants.AUTO_REGISTER_ENABLED, "true");
+        properties.setProperty(ParameterConstants.AUTO_RELOAD_ENABLED, "false");
+        properties.setProperty(ParameterConstants.REGISTRATION_NUMBER_OF_ATTEMPTS, "3");
+        properties.setProperty(ParameterConstants.CLUSTER_LOCKING_ENABLED, "false");
+        properties.setProperty(ParameterConstants.FILE_SYNC_ENABLE, "false");
+        for (String job : new String[] { ParameterConstants.START_PULL_JOB, ParameterConstants.START_PUSH_JOB,
+                ParameterConstants.START_PURGE_JOB, ParameterConstants.START_ROUTE_JOB,
+                ParameterConstants.START_HEARTBEAT_JOB, ParameterConstants.START_SYNCTRIGGERS_JOB,
+                ParameterConstants.START_STATISTIC_FLUSH_JOB, ParameterConstants.START_STAGE_MGMT_JOB,
+                ParameterConstants.START_WATCHDOG_JOB, ParameterConstants.START_MONITOR_JOB,
+                ParameterConstants.START_OFFLINE_PULL_JOB, ParameterConstants.START_OFFLINE_PUSH_JOB,
+                ParameterConstants.START_REFRESH_CACHE_JOB, ParameterConstants.START_FILE_SYNC_TRACKER_JOB,
+                ParameterConstants.START_FILE_SYNC_PUSH_JOB, ParameterConstants.START_FILE_SYNC_PULL_JOB,
+                ParameterConstants.INITIAL_LOAD_EXTRACT_JOB_START }) {
+            properties.setProperty(job, "false");
+        }
+        properties.putAll(config.getEngineParameters());
+
+        ISymmetricEngine engine = new ClientSymmetricEngine(properties);
+        IDatabasePlatform platform = engine.getDatabasePlatform();
+        Table[] tables = createTableModels();
+        platform.alterCaseToMatchDatabaseDefaultCase(tables);
+        platform.createTables(true, false, tables);
+
+        /*
+         * Seed the tables before triggers are installed so that updates and
+         * deletes have rows to work with
+         */
+        createDbFill(platform, new int[] { 1, 0, 0 }).fillTables(getTableNames(platform));
+        return engine;
+    }
+
+    protected Table[] createTableModels() {
+        Table[] tables = new Table[config.getTables()];
+        for (int i = 0; i < tables.length; i++) {
+            Table table = new Table(TABLE_PREFIX + (i + 1));
+            table.addColumn(new Column("id", true, Types.INTEGER, 0, 0));
+            table.addColumn(new Column("name", false, Types.VARCHAR, 50, 0));
+            table.addColumn(new Column("amount", false, Types.DECIMAL, 12, 2));
+            table.addColumn(new Column("description", false, Types.VARCHAR, 255, 0));
+            table.addColumn(new Column("last_update_time", false, Types.TIMESTAMP, 0, 0));
+            tables[i] = table;
+        }
+        return tables;
+    }
+
+    protected void configureServer() {
+        IConfigurationService configurationService = server.getConfigurationService();
+        configurationService.saveNodeGroup(new NodeGroup(CLIENT_GROUP_ID));
+        configurationService.saveNodeGroupLink(new NodeGroupLink(CLIENT_GROUP_ID, SERVER_GROUP_ID, NodeGroupLinkAction.P));
+        configurationService.saveNodeGroupLink(new NodeGroupLink(SERVER_GROUP_ID, CLIENT_GROUP_ID, NodeGroupLinkAction.W));
+        configurationService.saveChannel(new Channel(CHANNEL_ID, 1, config.getBatchSize(), 100, true, 0, false), true);
+
+        List<Router> routers = new ArrayList<Router>();
+        if (config.getTopology() != Topology.PULL) {
+            routers.add(new Router("client_2_server", CLIENT_GROUP_ID, SERVER_GROUP_ID, "default"));
+        }
+        if (config.getTopology() != Topology.PUSH) {
+            routers.add(new Router("server_2_client", SERVER_GROUP_ID, CLIENT_GROUP_ID, "default"));
+        }
+
+        ITriggerRouterService triggerRouterService = server.getTriggerRouterService();
+        for (Router router : routers) {
+            triggerRouterService.saveRouter(router);
+        }
+        for (Table table : createTableModels()) {
+            Trigger trigger = new Trigger(table.getName(), CHANNEL_ID);
+            triggerRouterService.saveTrigger(trigger);
+            for (Router router : routers) {
+                triggerRouterService.saveTriggerRouter(new TriggerRouter(trigger, router));
+            }
+        }
+    }
+
+    protected List<ISymmetricEngine> getSourceEngines() {
+        switch (config.getTopology()) {
+            case PUSH:
+                return clients;
+            case PULL:
+                return Collections.singletonList(server);
+            default:
+                List<ISymmetricEngine> engines = new ArrayList<ISymmetricEngine>(clients);
+                engines.add(server);
+                return engines;
+        }
+    }
+
+    protected List<ISymmetricEngine> getTargetEngines(ISymmetricEngine source) {
+        return source == server ? clients : Collections.singletonList(server);
+    }
+
+    protected void runRounds(final int rounds, final BenchmarkReport report) {
+        List<ISymmetricEngine> sources = getSourceEngines();
+        if (config.isConcurrentLoad()) {
+            List<Future<?>> loads = new ArrayList<Future<?>>();
+            for (final ISymmetricEngine source : sources) {
+                loads.add(executor.submit(new Runnable() {
+                    public void run() {
+                        for (int i = 0; i < rounds; i++) {
+                            fill(source, report);
+                            AppUtils.sleep(config.getRoundIntervalMs());
+                        }
+                    }
+                }));
+            }
+            synchronize(loads, report);
+        } else {
+            for (int i = 0; i < rounds; i++) {
+                for (ISymmetricEngine source : sources) {
+                    fill(source, report);
+                }
+                synchronize(new ArrayList<Future<?>>(), report);
+                AppUtils.sleep(config.getRoundIntervalMs());
+            }
+        }
+    }
+
+    protected void fill(ISymmetricEngine source, BenchmarkReport report) {
+        IDatabasePlatform platform = source.getDatabasePlatform();
+        DbFill dbFill = createDbFill(platform, config.getDmlWeights());
+        long ts = System.currentTimeMillis();
+        dbFill.fillTables(getTableNames(platform));
+        report.addPhaseTime(BenchmarkReport.PHASE_CAPTURE, System.currentTimeMillis() - ts);
+    }
+
+    protected DbFill createDbFill(IDatabasePlatform platform, int[] dmlWeights) {
+        DbFill dbFill = new DbFill(platform);
+        dbFill.setRecordCount(config.getRowsPerRound());
+        dbFill.setDmlWeight(dmlWeights);
+        dbFill.setMaxRowsCommit(config.getCommitRows());
+        dbFill.setContinueOnError(true);
+        return dbFill;
+    }
+
+    protected String[] getTableNames(IDatabasePlatform platform) {
+        String[] tableNames = new String[config.getTables()];
+        for (int i = 0; i < tableNames.length; i++) {
+            tableNames[i] = platform.alterCaseToMatchDatabaseDefaultCase(TABLE_PREFIX + (i + 1));
+        }
+        return tableNames;
+    }
+
+    /**
+     * Routes and sends changes until the loads are done and every batch on the
+     * benchmark channel was sent.
+     */
+    protected void synchronize(List<Future<?>> loads, BenchmarkReport report) {
+        long timeoutTime = System.currentTimeMillis() + config.getTimeoutSeconds() * 1000l;
+        while (true) {
+            boolean loading = isLoading(loads);
+
+            for (ISymmetricEngine source : getSourceEngines()) {
+                long ts = System.currentTimeMillis();
+                source.route();
+                report.addPhaseTime(BenchmarkReport.PHASE_ROUTE, System.currentTimeMillis() - ts);
+            }
+
+            boolean processed = false;
+            if (config.getTopology() != Topology.PULL) {
+                processed |= transport(BenchmarkReport.PHASE_PUSH, report);
+            }
+            if (config.getTopology() != Topology.PUSH) {
+                processed |= transport(BenchmarkReport.PHASE_PULL, report);
+            }
+
+            boolean unsent = false;
+            for (ISymmetricEngine source : getSourceEngines()) {
+                unsent |= source.getOutgoingBatchService().countOutgoingBatchesUnsent(CHANNEL_ID) > 0;
+            }
+
+            if (!loading && !unsent) {
+                break;
+            } else if (System.currentTimeMillis() > timeoutTime) {
+                throw new IllegalStateException("Timed out after " + config.getTimeoutSeconds()
+                        + " seconds waiting for the benchmark changes to synchronize");
+            } else if (!processed) {
+                AppUtils.sleep(config.getSyncIntervalMs());
+            }
+        }
+    }
+
+    protected boolean isLoading(List<Future<?>> loads) {
+        for (Future<?> load : loads) {
+            if (!load.isDone()) {
+                return true;
+            }
+        }
+        for (Future<?> load : loads) {
+            try {
+                load.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Failed to generate the benchmark changes", e.getCause());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Has every client push or pull at the same time.
+     * 
+     * @return true if any data was sent
+     */
+    protected boolean transport(final String phase, BenchmarkReport report) {
+        List<Future<RemoteNodeStatuses>> futures = new ArrayList<Future<RemoteNodeStatuses>>();
+        long ts = System.currentTimeMillis();
+        for (final ISymmetricEngine client : clients) {
+            futures.add(executor.submit(new Callable<RemoteNodeStatuses>() {
+                public RemoteNodeStatuses call() throws Exception {
+                    RemoteNodeStatuses statuses = phase.equals(BenchmarkReport.PHASE_PUSH) ? client.push() : client.pull();
+                    statuses.waitForComplete(config.getTimeoutSeconds() * 1000l);
+                    return statuses;
+                }
+            }));
+        }
+
+        boolean processed = false;
+        for (Future<RemoteNodeStatuses> future : futures) {
+            try {
+                RemoteNodeStatuses statuses = future.get();
+                processed |= statuses.wasDataProcessed();
+                if (statuses.errorOccurred()) {
+                    log.warn("A {} reported an error", phase);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Failed to " + phase, e.getCause());
+            }
+        }
+        report.addPhaseTime(phase, System.currentTimeMillis() - ts);
+        return processed;
+    }
+
+    /**
+     * @return the last data id and the last batch id on the benchmark channel
+     *         for each source
+     */
+    protected Map<ISymmetricEngine, long[]> getLastIds() {
+        Map<ISymmetricEngine, long[]> lastIds = new HashMap<ISymmetricEngine, long[]>();
+        for (ISymmetricEngine source : getSourceEngines()) {
+            String prefix = source.getTablePrefix();
+            long lastDataId = source.getSqlTemplate().queryForLong(
+                    "select max(data_id) from " + TableConstants.getTableName(prefix, TableConstants.SYM_DATA));
+            long lastBatchId = source.getSqlTemplate().queryForLong(
+                    "select max(batch_id) from " + TableConstants.getTableName(prefix, TableConstants.SYM_OUTGOING_BATCH)
+                            + " where channel_id=?", CHANNEL_ID);
+            lastIds.put(source, new long[] { lastDataId, lastBatchId });
+        }
+        return lastIds;
+    }
+
+    /**
+     * Reads the batches created while measuring. Latency is the time from
+     * capturing the first row of a batch until the target recorded the batch
+     * as loaded.
+     */
+    protected void collectStatistics(Map<ISymmetricEngine, long[]> lastIds, final BenchmarkReport report) {
+        for (ISymmetricEngine source : getSourceEngines()) {
+            String prefix = source.getTablePrefix();
+            long lastDataId = lastIds.get(source)[0];
+            long lastBatchId = lastIds.get(source)[1];
+
+            report.addCapturedRows(source.getSqlTemplate().queryForLong(
+                    "select count(*) from " + TableConstants.getTableName(prefix, TableConstants.SYM_DATA)
+                            + " where channel_id=? and data_id > ?", CHANNEL_ID, lastDataId));
+
+            source.getSqlTemplate().query(
+                    "select status, data_event_count, byte_count, extract_millis, network_millis, load_millis from "
+                            + TableConstants.getTableName(prefix, TableConstants.SYM_OUTGOING_BATCH)
+                            + " where channel_id=? and batch_id > ?", new ISqlRowMapper<Object>() {
+                        public Object mapRow(Row row) {
+                            report.addBatch(row.getLong("data_event_count"), row.getLong("byte_count"),
+                                    !"OK".equals(row.getString("status")));
+                            report.addPhaseTime(BenchmarkReport.PHASE_EXTRACT, row.getLong("extract_millis"));
+                            report.addPhaseTime(BenchmarkReport.PHASE_TRANSPORT, row.getLong("network_millis"));
+                            report.addPhaseTime(BenchmarkReport.PHASE_LOAD, row.getLong("load_millis"));
+                            return null;
+                        }
+                    }, CHANNEL_ID, lastBatchId);
+
+            final Map<Long, Date> captureTimes = new HashMap<Long, Date>();
+            source.getSqlTemplate().query(
+                    "select e.batch_id, min(d.create_time) as capture_time from "
+                            + TableConstants.getTableName(prefix, TableConstants.SYM_DATA_EVENT) + " e inner join "
+                            + TableConstants.getTableName(prefix, TableConstants.SYM_DATA)
+                            + " d on d.data_id=e.data_id where e.batch_id > ? and d.channel_id=? group by e.batch_id",
+                    new ISqlRowMapper<Object>() {
+                        public Object mapRow(Row row) {
+                            captureTimes.put(row.getLong("batch_id"), row.getDateTime("capture_time"));
+                            return null;
+                        }
+                    }, lastBatchId, CHANNEL_ID);
+
+            String sourceNodeId = source.getNodeService().findIdentityNodeId();
+            for (ISymmetricEngine target : getTargetEngines(source)) {
+                target.getSqlTemplate().query(
+                        "select batch_id, last_update_time from "
+                                + TableConstants.getTableName(target.getTablePrefix(), TableConstants.SYM_INCOMING_BATCH)
+                                + " where node_id=? and channel_id=? and status='OK' and batch_id > ?",
+                        new ISqlRowMapper<Object>() {
+                            public Object mapRow(Row row) {
+                                Date captureTime = captureTimes.get(row.getLong("batch_id"));
+                                Date loadTime = row.getDateTime("last_update_time");
+                                if (captureTime != null && loadTime != null) {
+                                    report.addBatchLatency(loadTime.getTime() - captureTime.getTime());
+                                }
+                                return null;
+                            }
+                        }, sourceNodeId, CHANNEL_ID, lastBatchId);
+            }
+        }
+    }
+
+    protected void shutdown() {
+        List<ISymmetricEngine> engines = new ArrayList<ISymmetricEngine>(clients);
+        if (server != null) {
+            engines.add(server);
+        }
+        for (ISymmetricEngine engine : engines) {
+            try {
+                engine.destroy();
+            } catch (Exception e) {
+                log.warn("Failed to stop " + engine.getEngineName(), e);
+            }
+        }
+        clients.clear();
+        server = null;
+    }
+
+}
@@ -0,0 +1,92 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.benchmark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.jumpmind.symmetric.benchmark.BenchmarkConfig.Topology;
+import org.junit.Test;
+
+public class BenchmarkTest {
+
+    @Test
+    public void testConfigFromProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("benchmark.nodes", "5");
+        properties.setProperty("benchmark.topology", "bidirectional");
+        properties.setProperty("benchmark.database", "sqlite");
+        properties.setProperty("benchmark.dml.weights", "80, 15, 5");
+        properties.setProperty("benchmark.dir", "target/bench");
+        properties.setProperty("benchmark.engine.routing.peek.ahead.window.after.max.size", "5000");
+        properties.setProperty("rounds", "99");
+
+        BenchmarkConfig config = BenchmarkConfig.fromProperties(properties);
+        assertEquals(5, config.getNodes());
+        assertEquals(Topology.BIDIRECTIONAL, config.getTopology());
+        assertEquals(10, config.getRounds());
+        assertEquals(80, config.getDmlWeights()[0]);
+        assertEquals(5, config.getDmlWeights()[2]);
+        assertFalse(config.isConcurrentLoad());
+        assertEquals("jdbc:sqlite:target/bench/client1.sqlite", config.getDbUrl("client1"));
+        assertEquals("org.sqlite.JDBC", config.getDbDriver());
+        assertEquals("5000", config.getEngineParameters().getProperty("routing.peek.ahead.window.after.max.size"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConfigNeedsTwoNodes() {
+        Properties properties = new Properties();
+        properties.setProperty("benchmark.nodes", "1");
+        BenchmarkConfig.fromProperties(properties);
+    }
+
+    @Test
+    public void testReport() {
+        BenchmarkReport report = new BenchmarkReport(new HashMap<String, Object>());
+        for (int i = 1; i <= 100; i++) {
+            report.addBatchLatency(i);
+        }
+        report.addBatch(600, 10000, false);
+        report.addBatch(400, 8000, true);
+        report.addCapturedRows(1000);
+        report.setElapsedMillis(2000);
+
+        Map<String, Object> latency = report.getLatencyPercentiles();
+        assertEquals(100, latency.get("samples"));
+        assertEquals(1l, latency.get("min"));
+        assertEquals(50l, latency.get("p50"));
+        assertEquals(99l, latency.get("p99"));
+        assertEquals(100l, latency.get("max"));
+        assertEquals(1000, report.getDeliveredRows());
+        assertEquals(1, report.getErrorBatches());
+        assertEquals(500d, report.getDeliveredRowsPerSecond(), 0.001);
+
+        String json = report.toJson();
+        assertTrue(json.contains("\"deliveredRows\": 1000"));
+        assertTrue(json.contains("\"p90\": 90"));
+    }
+
+}
@@ -110,6 +110,12 @@ public class DbCompareCommand extends AbstractCommandLauncher {
             }
         }
 
+        if (line.hasOption(OPTION_HASH_COMPARE)) {
+            config.setUseHashCompare(Boolean.valueOf(line.getOptionValue(OPTION_HASH_COMPARE)));
+        }
+        config.setThreadCount(parseInt(line, OPTION_THREADS, config.getThreadCount()));
+        config.setRangeSize(parseInt(line, OPTION_RANGE_SIZE, config.getRangeSize()));
+
         ISymmetricEngine sourceEngine = new ClientSymmetricEngine(sourceProperies);
         ISymmetricEngine targetEngine = new ClientSymmetricEngine(targetProperties);
 
@@ -119,6 +125,18 @@ public class DbCompareCommand extends AbstractCommandLauncher {
         return false;
     }
 
+    protected int parseInt(CommandLine line, String option, int defaultValue) throws ParseException {
+        String arg = line.getOptionValue(option);
+        if (!StringUtils.isEmpty(arg)) {
+            try {
+                return Integer.parseInt(arg.trim());
+            } catch (Exception ex) {
+                throw new ParseException("Failed to parse arg [" + arg + "] " + ex);
+            }
+        }
+        return defaultValue;
+    }
+
     public static void main(String[] args) throws Exception {
         new DbCompareCommand().execute(args);
     }
@@ -140,6 +158,12 @@ public class DbCompareCommand extends AbstractCommandLauncher {
     
     private static final String OPTION_CONFIG_PROPERTIES = "config";
 
+    private static final String OPTION_HASH_COMPARE = "hash-compare";
+
+    private static final String OPTION_THREADS = "threads";
+
+    private static final String OPTION_RANGE_SIZE = "range-size";
+
     @Override
     protected void printHelp(CommandLine cmd, Options options) {
         System.out.println(app + " version " + Version.version());
@@ -157,6 +181,9 @@ public class DbCompareCommand extends AbstractCommandLauncher {
         addOption(options, null, OPTION_OUTPUT_SQL, true);
         addOption(options, null, OPTION_NUMERIC_SCALE, true);
         addOption(options, null, OPTION_CONFIG_PROPERTIES, true);
+        addOption(options, null, OPTION_HASH_COMPARE, true);
+        addOption(options, null, OPTION_THREADS, true);
+        addOption(options, null, OPTION_RANGE_SIZE, true);
     }
 
     protected Map<String, String> parseWhereClauses(CommandLine line) {
@@ -38,6 +38,8 @@ public class JobManager implements IJobManager {
     private List<IJob> jobs;
     
     private ThreadPoolTaskScheduler taskScheduler;
+
+    private RouteEventTrigger routeEventTrigger;
     
     public JobManager(ISymmetricEngine engine) {
         
@@ -47,8 +49,10 @@ public class JobManager implements IJobManager {
         this.taskScheduler.initialize();
         
         this.jobs = new ArrayList<IJob>();
-        this.jobs.add(new RouterJob(engine, taskScheduler));
-        this.jobs.add(new PushJob(engine, taskScheduler));
+        RouterJob routerJob = new RouterJob(engine, taskScheduler);
+        PushJob pushJob = new PushJob(engine, taskScheduler);
+        this.jobs.add(routerJob);
+        this.jobs.add(pushJob);
         this.jobs.add(new PullJob(engine, taskScheduler));
         this.jobs.add(new OfflinePushJob(engine, taskScheduler));
         this.jobs.add(new OfflinePullJob(engine, taskScheduler));
@@ -66,6 +70,9 @@ public class JobManager implements IJobManager {
         this.jobs.add(new InitialLoadExtractorJob(engine,taskScheduler));
         this.jobs.add(new MonitorJob(engine, taskScheduler));
         this.jobs.add(new ReportStatusJob(engine, taskScheduler));
+
+        this.routeEventTrigger = new RouteEventTrigger(engine, routerJob, pushJob, taskScheduler);
+        engine.getExtensionService().addExtensionPoint("routeEventTrigger", routeEventTrigger);
     }
 
     @Override
@@ -91,6 +98,7 @@ public class JobManager implements IJobManager {
                 log.info("Job {} not configured for auto start", job.getName());
             }
         }
+        routeEventTrigger.start();
     }
     
     @Override
@@ -99,11 +107,13 @@ public class JobManager implements IJobManager {
             if (job.isAutoStartConfigured() && !job.isStarted()) {
                 job.start();
             }
-        }        
+        }
+        routeEventTrigger.start();
     }
 
     @Override
     public synchronized void stopJobs() {
+        routeEventTrigger.stop();
         for (IJob job : jobs) {
             job.stop();
         }      
@@ -0,0 +1,203 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.job;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.jumpmind.symmetric.ISymmetricEngine;
+import org.jumpmind.symmetric.common.ParameterConstants;
+import org.jumpmind.symmetric.ext.IDataRoutedListener;
+import org.jumpmind.symmetric.service.IParameterService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/*
+ * Runs the route job as soon as the router service knows there is new data to
+ * route, then pushes to the nodes that received new batches. The scheduled
+ * route and push jobs keep running as a fallback.
+ */
+public class RouteEventTrigger implements IDataRoutedListener {
+
+    static final Logger log = LoggerFactory.getLogger(RouteEventTrigger.class);
+
+    static final long JOIN_TIMEOUT_MS = 30000;
+
+    private ISymmetricEngine engine;
+
+    private IJob routeJob;
+
+    private IJob pushJob;
+
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    private TriggerThread thread;
+
+    private Set<String> nodeIdsToPush = new HashSet<String>();
+
+    private boolean pushScheduled;
+
+    public RouteEventTrigger(ISymmetricEngine engine, IJob routeJob, IJob pushJob,
+            ThreadPoolTaskScheduler taskScheduler) {
+        this.engine = engine;
+        this.routeJob = routeJob;
+        this.pushJob = pushJob;
+        this.taskScheduler = taskScheduler;
+    }
+
+    public synchronized void start() {
+        if (thread == null && isEnabled()) {
+            thread = new TriggerThread(String.format("%s-route-trigger", engine
+                    .getParameterService().getEngineName().toLowerCase()));
+            thread.start();
+            log.info("Started event driven routing");
+        }
+    }
+
+    /**
+     * Stop the trigger thread and wait for it to finish, so a following
+     * {@link #start()} never runs alongside the old thread.
+     */
+    public void stop() {
+        TriggerThread stoppedThread = null;
+        synchronized (this) {
+            if (thread != null) {
+                stoppedThread = thread;
+                stoppedThread.stopped = true;
+                stoppedThread.interrupt();
+                thread = null;
+            }
+        }
+        /*
+         * Join outside of the lock because a route that is in progress calls
+         * dataRouted(), which needs it
+         */
+        if (stoppedThread != null && stoppedThread != Thread.currentThread()) {
+            try {
+                stoppedThread.join(JOIN_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (stoppedThread.isAlive()) {
+                log.warn("The route trigger thread did not stop within {} ms", JOIN_TIMEOUT_MS);
+            }
+            log.info("Stopped event driven routing");
+        }
+    }
+
+    protected void run(TriggerThread thread) {
+        MDC.put("engineName", engine.getEngineName());
+        boolean dataToRoute = false;
+        while (!thread.stopped) {
+            try {
+                long probePeriodMs = engine.getParameterService().getLong(
+                        ParameterConstants.ROUTING_EVENT_DRIVEN_PROBE_PERIOD_MS, 500);
+                if (!isEnabled()) {
+                    Thread.sleep(probePeriodMs);
+                    continue;
+                }
+
+                if (!dataToRoute) {
+                    dataToRoute = engine.getRouterService().waitForDataToRoute(probePeriodMs);
+                }
+
+                if (dataToRoute) {
+                    /*
+                     * The job does not run when it is already running, paused
+                     * or the engine is not started. Keep the data flagged and
+                     * try again after the probe period.
+                     */
+                    if (routeJob.isStarted() && !routeJob.isPaused() && routeJob.invoke(false)) {
+                        dataToRoute = false;
+                    } else {
+                        Thread.sleep(probePeriodMs);
+                    }
+                }
+            } catch (InterruptedException ex) {
+                if (!thread.stopped) {
+                    log.warn("The route trigger was interrupted");
+                }
+            } catch (Throwable ex) {
+                log.error("", ex);
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                }
+            }
+        }
+    }
+
+    public void dataRouted(Set<String> nodeIds) {
+        if (isEnabled() && pushJob.isStarted() && !pushJob.isPaused()) {
+            synchronized (this) {
+                nodeIdsToPush.addAll(nodeIds);
+                if (!pushScheduled) {
+                    pushScheduled = true;
+                    taskScheduler.execute(new Runnable() {
+                        public void run() {
+                            push();
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    protected void push() {
+        Set<String> nodeIds = null;
+        synchronized (this) {
+            nodeIds = new HashSet<String>(nodeIdsToPush);
+            nodeIdsToPush.clear();
+            pushScheduled = false;
+        }
+        try {
+            MDC.put("engineName", engine.getEngineName());
+            if (engine.isStarted() && nodeIds.size() > 0) {
+                engine.getPushService().pushData(false, nodeIds);
+            }
+        } catch (Throwable ex) {
+            log.error("", ex);
+        }
+    }
+
+    protected boolean isEnabled() {
+        IParameterService parameterService = engine.getParameterService();
+        return parameterService.is(ParameterConstants.ROUTING_EVENT_DRIVEN_ENABLED);
+    }
+
+    class TriggerThread extends Thread {
+
+        volatile boolean stopped;
+
+        TriggerThread(String name) {
+            super(name);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            RouteEventTrigger.this.run(this);
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.service.jmx;
+
+import org.jumpmind.extension.IBuiltInExtensionPoint;
+import org.jumpmind.symmetric.ISymmetricEngine;
+import org.jumpmind.symmetric.ext.ISymmetricEngineAware;
+import org.jumpmind.symmetric.model.Node;
+import org.jumpmind.symmetric.model.NodeSecurity;
+import org.jumpmind.symmetric.service.INodeService;
+import org.jumpmind.symmetric.util.VersionedCache;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+@ManagedResource(description = "The management interface for the node and node security caches")
+public class CacheManagementService implements IBuiltInExtensionPoint, ISymmetricEngineAware {
+
+    private INodeService nodeService;
+
+    public CacheManagementService() {
+    }
+
+    public void setSymmetricEngine(ISymmetricEngine engine) {
+        this.nodeService = engine.getNodeService();
+    }
+
+    @ManagedOperation(description = "Flush the node, node security and node group link caches")
+    public void flushNodeCaches() {
+        nodeService.flushNodeCache();
+        nodeService.flushNodeAuthorizedCache();
+        nodeService.flushNodeGroupCache();
+    }
+
+    @ManagedAttribute(description = "The number of entries in the node cache")
+    public int getNodeCacheSize() {
+        return getNodeCache().getSize();
+    }
+
+    @ManagedAttribute(description = "The number of node cache reads that were served from the cache")
+    public long getNodeCacheHits() {
+        return getNodeCache().getHitCount();
+    }
+
+    @ManagedAttribute(description = "The number of node cache reads that had to load the cache first")
+    public long getNodeCacheMisses() {
+        return getNodeCache().getMissCount();
+    }
+
+    @ManagedAttribute(description = "The number of node cache refreshes that found no changes")
+    public long getNodeCacheUnchangedRefreshes() {
+        return getNodeCache().getUnchangedRefreshCount();
+    }
+
+    @ManagedAttribute(description = "The number of node cache refreshes that loaded only the changed nodes")
+    public long getNodeCacheDeltaRefreshes() {
+        return getNodeCache().getDeltaRefreshCount();
+    }
+
+    @ManagedAttribute(description = "The number of node cache refreshes that loaded all nodes")
+    public long getNodeCacheFullRefreshes() {
+        return getNodeCache().getFullRefreshCount();
+    }
+
+    @ManagedAttribute(description = "The time in milliseconds of the last node cache refresh")
+    public long getNodeCacheLastRefreshTimeMs() {
+        return getNodeCache().getLastRefreshTimeMs();
+    }
+
+    @ManagedAttribute(description = "The total time in milliseconds spent refreshing the node cache")
+    public long getNodeCacheTotalRefreshTimeMs() {
+        return getNodeCache().getTotalRefreshTimeMs();
+    }
+
+    @ManagedAttribute(description = "The number of entries in the node security cache")
+    public int getNodeSecurityCacheSize() {
+        return getNodeSecurityCache().getSize();
+    }
+
+    @ManagedAttribute(description = "The number of node security cache reads that were served from the cache")
+    public long getNodeSecurityCacheHits() {
+        return getNodeSecurityCache().getHitCount();
+    }
+
+    @ManagedAttribute(description = "The number of node security cache reads that had to load the cache first")
+    public long getNodeSecurityCacheMisses() {
+        return getNodeSecurityCache().getMissCount();
+    }
+
+    @ManagedAttribute(description = "The number of node security cache refreshes that found no changes")
+    public long getNodeSecurityCacheUnchangedRefreshes() {
+        return getNodeSecurityCache().getUnchangedRefreshCount();
+    }
+
+    @ManagedAttribute(description = "The number of node security cache refreshes that loaded only the changed entries")
+    public long getNodeSecurityCacheDeltaRefreshes() {
+        return getNodeSecurityCache().getDeltaRefreshCount();
+    }
+
+    @ManagedAttribute(description = "The number of node security cache refreshes that loaded all entries")
+    public long getNodeSecurityCacheFullRefreshes() {
+        return getNodeSecurityCache().getFullRefreshCount();
+    }
+
+    @ManagedAttribute(description = "The time in milliseconds of the last node security cache refresh")
+    public long getNodeSecurityCacheLastRefreshTimeMs() {
+        return getNodeSecurityCache().getLastRefreshTimeMs();
+    }
+
+    @ManagedAttribute(description = "The total time in milliseconds spent refreshing the node security cache")
+    public long getNodeSecurityCacheTotalRefreshTimeMs() {
+        return getNodeSecurityCache().getTotalRefreshTimeMs();
+    }
+
+    protected VersionedCache<String, Node> getNodeCache() {
+        return nodeService.getNodeCache();
+    }
+
+    protected VersionedCache<String, NodeSecurity> getNodeSecurityCache() {
+        return nodeService.getNodeSecurityCache();
+    }
+
+}
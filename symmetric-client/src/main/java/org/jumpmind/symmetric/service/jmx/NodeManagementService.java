@@ -43,6 +43,7 @@ import org.jumpmind.symmetric.ext.ISymmetricEngineAware;
 import org.jumpmind.symmetric.model.Node;
 import org.jumpmind.symmetric.service.IDataExtractorService;
 import org.jumpmind.symmetric.transport.ConcurrentConnectionManager.NodeConnectionStatistics;
+import org.jumpmind.symmetric.transport.ConcurrentConnectionManager.ReservationStatistics;
 import org.jumpmind.util.FormatUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -175,6 +176,72 @@ public class NodeManagementService implements IBuiltInExtensionPoint, ISymmetric
         return out.toString();
     }
 
+    @ManagedAttribute(description = "Get the number of connection reservations granted across all connection pools")
+    public long getConnectionReservationsGranted() {
+        long count = 0;
+        for (ReservationStatistics stats : getReservationStatisticsByPool().values()) {
+            count += stats.getGrantedCount();
+        }
+        return count;
+    }
+
+    @ManagedAttribute(description = "Get the number of connection reservations rejected across all connection pools")
+    public long getConnectionReservationsRejected() {
+        long count = 0;
+        for (ReservationStatistics stats : getReservationStatisticsByPool().values()) {
+            count += stats.getRejectedCount();
+        }
+        return count;
+    }
+
+    @ManagedAttribute(description = "Get the number of timed out connection reservations that have been removed across all connection pools")
+    public long getConnectionReservationsTimedOut() {
+        long count = 0;
+        for (ReservationStatistics stats : getReservationStatisticsByPool().values()) {
+            count += stats.getTimedOutCount();
+        }
+        return count;
+    }
+
+    @ManagedAttribute(description = "Get the longest time in microseconds a request waited to reserve a connection")
+    public long getConnectionReservationMaxWaitMicros() {
+        long max = 0;
+        for (ReservationStatistics stats : getReservationStatisticsByPool().values()) {
+            max = Math.max(max, stats.getMaxWaitTimeMicros());
+        }
+        return max;
+    }
+
+    @ManagedAttribute(description = "Get connection reservation statistics for each connection pool")
+    public String getConnectionReservationStatisticsAsText() {
+        String lineFeed = "\n";
+        if (engine.getParameterService().getString(ParameterConstants.JMX_LINE_FEED).equals("html")) {
+            lineFeed = "</br>";
+        }
+        StringBuilder out = new StringBuilder();
+        out.append("                                 POOL   ACTIVE    GRANTED   REJECTED   RELEASED  TIMED OUT  AVG WAIT US  MAX WAIT US");
+        out.append(lineFeed);
+        Map<String, ReservationStatistics> statsByPool = getReservationStatisticsByPool();
+        for (String pool : statsByPool.keySet()) {
+            ReservationStatistics stats = statsByPool.get(pool);
+            out.append(StringUtils.leftPad(pool, 37));
+            out.append(StringUtils.leftPad(Integer.toString(engine.getConcurrentConnectionManager()
+                    .getReservationCount(pool)), 9));
+            out.append(StringUtils.leftPad(Long.toString(stats.getGrantedCount()), 11));
+            out.append(StringUtils.leftPad(Long.toString(stats.getRejectedCount()), 11));
+            out.append(StringUtils.leftPad(Long.toString(stats.getReleasedCount()), 11));
+            out.append(StringUtils.leftPad(Long.toString(stats.getTimedOutCount()), 11));
+            out.append(StringUtils.leftPad(Long.toString(stats.getAverageWaitTimeMicros()), 13));
+            out.append(StringUtils.leftPad(Long.toString(stats.getMaxWaitTimeMicros()), 13));
+            out.append(lineFeed);
+        }
+        return out.toString();
+    }
+
+    protected Map<String, ReservationStatistics> getReservationStatisticsByPool() {
+        return engine.getConcurrentConnectionManager().getReservationStatisticsByPool();
+    }
+
     @ManagedOperation(description = "Clean up both incoming and outgoing resources that are older than the passed in number of milliseconds")
     @ManagedOperationParameters({ @ManagedOperationParameter(name = "timeToLiveInMS", description = "The number of milliseconds old a resource should be before it is cleaned up") })
     public long cleanStaging(long timeToLiveInMS) {
@@ -0,0 +1,96 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.service.jmx;
+
+import org.jumpmind.extension.IBuiltInExtensionPoint;
+import org.jumpmind.symmetric.ISymmetricEngine;
+import org.jumpmind.symmetric.ext.ISymmetricEngineAware;
+import org.jumpmind.symmetric.statistic.Histogram;
+import org.jumpmind.symmetric.statistic.IStatisticManager;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+@ManagedResource(description = "The management interface for routing statistics")
+public class StatisticManagementService implements IBuiltInExtensionPoint, ISymmetricEngineAware {
+
+    private IStatisticManager statisticManager;
+
+    public StatisticManagementService() {
+    }
+
+    public void setSymmetricEngine(ISymmetricEngine engine) {
+        this.statisticManager = engine.getStatisticManager();
+    }
+
+    @ManagedAttribute(description = "The number of data gaps found by each gap detection, counted by bucket")
+    public String getDataGapCountHistogram() {
+        return getDataGapCount().toString();
+    }
+
+    @ManagedAttribute(description = "The number of gap detections that were run")
+    public long getDataGapDetections() {
+        return getDataGapCount().getCount();
+    }
+
+    @ManagedAttribute(description = "The average number of data gaps found by a gap detection")
+    public long getDataGapCountAverage() {
+        return getDataGapCount().getAverage();
+    }
+
+    @ManagedAttribute(description = "The largest number of data gaps found by a gap detection")
+    public long getDataGapCountMax() {
+        return getDataGapCount().getMax();
+    }
+
+    @ManagedAttribute(description = "The number of data gaps found by the last gap detection")
+    public long getDataGapCountLast() {
+        return getDataGapCount().getLast();
+    }
+
+    @ManagedAttribute(description = "The time in milliseconds taken by each gap detection, counted by bucket")
+    public String getDataGapDetectMillisHistogram() {
+        return getDataGapDetectMillis().toString();
+    }
+
+    @ManagedAttribute(description = "The average time in milliseconds taken by a gap detection")
+    public long getDataGapDetectMillisAverage() {
+        return getDataGapDetectMillis().getAverage();
+    }
+
+    @ManagedAttribute(description = "The longest time in milliseconds taken by a gap detection")
+    public long getDataGapDetectMillisMax() {
+        return getDataGapDetectMillis().getMax();
+    }
+
+    @ManagedAttribute(description = "The time in milliseconds taken by the last gap detection")
+    public long getDataGapDetectMillisLast() {
+        return getDataGapDetectMillis().getLast();
+    }
+
+    protected Histogram getDataGapCount() {
+        return statisticManager.getDataGapCountHistogram();
+    }
+
+    protected Histogram getDataGapDetectMillis() {
+        return statisticManager.getDataGapDetectMillisHistogram();
+    }
+
+}
@@ -0,0 +1,94 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jumpmind.db.sql.ISqlTemplate;
+import org.jumpmind.symmetric.io.DbCompareReport.TableReport;
+import org.jumpmind.symmetric.service.impl.AbstractServiceTest;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class DbCompareTest extends AbstractServiceTest {
+
+    static final String TABLE = "test_db_compare";
+
+    static final int ROWS = 5000;
+
+    @BeforeClass
+    public static void setupTable() throws Exception {
+        setup();
+        ISqlTemplate sqlTemplate = engine.getDatabasePlatform().getSqlTemplate();
+        try {
+            sqlTemplate.update("drop table " + TABLE);
+        } catch (Exception ex) {
+        }
+        sqlTemplate.update("create table " + TABLE + " (id integer not null primary key, name varchar(50), amount decimal(10,2))");
+        for (int i = 1; i <= ROWS; i++) {
+            sqlTemplate.update("insert into " + TABLE + " values(?,?,?)", i, "name " + i, i / 3.0);
+        }
+    }
+
+    @Test
+    public void testCompareRows() throws Exception {
+        assertReport(compare(false));
+    }
+
+    @Test
+    public void testCompareUsingDigests() throws Exception {
+        DbCompareReport report = compare(true);
+        assertReport(report);
+        assertTrue(report.getPhaseTimes().containsKey(DbCompareReport.PHASE_DIGESTS));
+        assertTrue(report.getPhaseTimes().containsKey(DbCompareReport.PHASE_ROWS));
+    }
+
+    protected void assertReport(DbCompareReport report) {
+        assertEquals(1, report.getTableReports().size());
+        TableReport tableReport = report.getTableReports().get(0);
+        assertEquals(ROWS, tableReport.getSourceRows());
+        assertEquals(ROWS - 3, tableReport.getTargetRows());
+        assertEquals(ROWS - 3, tableReport.getMatchedRows());
+        assertEquals(3, tableReport.getMissingRows());
+        assertEquals(0, tableReport.getExtraRows());
+        assertEquals(0, tableReport.getDifferentRows());
+    }
+
+    protected DbCompareReport compare(boolean useHashCompare) {
+        DbCompareConfig config = new DbCompareConfig();
+        config.setUseSymmetricConfig(false);
+        config.setIncludedTableNames(Arrays.asList(TABLE));
+        config.setUseHashCompare(useHashCompare);
+        config.setThreadCount(4);
+        config.setRangeSize(1000);
+        config.setMinRangeSize(100);
+        Map<String, String> whereClauses = new HashMap<String, String>();
+        whereClauses.put(TABLE + ".target." + DbCompareConfig.WHERE_CLAUSE, "id not in (7, 2500, 4999)");
+        config.setWhereClauses(whereClauses);
+        return new DbCompare(getSymmetricEngine(), getSymmetricEngine(), config).compare();
+    }
+
+}
@@ -331,7 +331,7 @@ abstract public class AbstractSymmetricEngine implements ISymmetricEngine {
         this.concurrentConnectionManager = new ConcurrentConnectionManager(parameterService,
                 statisticManager);
         this.purgeService = new PurgeService(parameterService, symmetricDialect, clusterService,
-                statisticManager, extensionService);
+                statisticManager, extensionService, nodeService);
         this.transformService = new TransformService(parameterService, symmetricDialect,
                 configurationService, extensionService);
         this.loadFilterService = new LoadFilterService(parameterService, symmetricDialect,
@@ -734,9 +734,18 @@ abstract public class AbstractSymmetricEngine implements ISymmetricEngine {
         if (routerService != null) {
         	routerService.stop();
         }
+        if (dataExtractorService != null) {
+            dataExtractorService.stop();
+        }
+        if (acknowledgeService != null) {
+            acknowledgeService.stop();
+        }
         if (nodeCommunicationService != null) {
         	nodeCommunicationService.stop();
         }
+        if (fileSyncService != null) {
+            fileSyncService.stop();
+        }
         
         if (statisticManager != null) {
             List<ProcessInfo> infos = statisticManager.getProcessInfos();
@@ -136,6 +136,9 @@ final public class ParameterConstants {
     public final static String INITIAL_LOAD_CONCAT_CSV_IN_SQL_ENABLED = "initial.load.concat.csv.in.sql.enabled";
     public final static String INITIAL_LOAD_EXTRACT_THREAD_COUNT_PER_SERVER = "initial.load.extract.thread.per.server.count";
     public final static String INITIAL_LOAD_EXTRACT_TIMEOUT_MS = "initial.load.extract.timeout.ms";
+    public final static String INITIAL_LOAD_EXTRACT_RANGE_COUNT = "initial.load.extract.range.count";
+    public final static String INITIAL_LOAD_EXTRACT_RANGE_MIN_BATCHES = "initial.load.extract.range.min.batches";
+    public final static String INITIAL_LOAD_EXTRACT_RANGE_SCAN_MAX_ROWS = "initial.load.extract.range.scan.max.rows";
     public final static String INITIAL_LOAD_EXTRACT_JOB_START = "start.initial.load.extract.job";
     public final static String INITIAL_LOAD_SCHEMA_DUMP_COMMAND = "initial.load.schema.dump.command";
     public final static String INITIAL_LOAD_SCHEMA_LOAD_COMMAND = "initial.load.schema.load.command";
@@ -161,6 +164,8 @@ final public class ParameterConstants {
     public final static String ROUTING_MAX_GAPS_TO_QUALIFY_IN_SQL = "routing.max.gaps.to.qualify.in.sql";
     public final static String ROUTING_PEEK_AHEAD_MEMORY_THRESHOLD = "routing.peek.ahead.memory.threshold.percent";
     public final static String ROUTING_PEEK_AHEAD_WINDOW = "routing.peek.ahead.window.after.max.size";
+    public final static String ROUTING_SUBSELECT_BATCH_SIZE = "routing.subselect.batch.size";
+    public final static String ROUTING_SUBSELECT_CACHE_SIZE = "routing.subselect.cache.size";
     public final static String ROUTING_STALE_DATA_ID_GAP_TIME = "routing.stale.dataid.gap.time.ms";
     public final static String ROUTING_STALE_GAP_BUSY_EXPIRE_TIME = "routing.stale.gap.busy.expire.time.ms";
     public final static String ROUTING_LARGEST_GAP_SIZE = "routing.largest.gap.size";
@@ -173,12 +178,17 @@ final public class ParameterConstants {
     public final static String ROUTING_DETECT_INVALID_GAPS = "routing.detect.invalid.gaps";
     public final static String ROUTING_QUERY_CHANNELS_FIRST = "routing.query.channels.first";
     public final static String ROUTING_MAX_GAP_CHANGES = "routing.max.gap.changes";
+    public final static String ROUTING_CHANNEL_THREAD_COUNT_PER_SERVER = "routing.channel.thread.count.per.server";
+    public final static String ROUTING_EVENT_DRIVEN_ENABLED = "routing.event.driven.enabled";
+    public final static String ROUTING_EVENT_DRIVEN_PROBE_PERIOD_MS = "routing.event.driven.probe.period.ms";
 
     public final static String INCOMING_BATCH_SKIP_DUPLICATE_BATCHES_ENABLED = "incoming.batches.skip.duplicates";
     @Deprecated
     public final static String INCOMING_BATCH_DELETE_ON_LOAD = "incoming.batch.delete.on.load";
     public final static String INCOMING_BATCH_RECORD_OK_ENABLED = "incoming.batches.record.ok.enabled";
+    public final static String INCOMING_BATCH_INDEX_MAX_SIZE = "incoming.batches.index.max.size";
     public final static String DATA_LOADER_ENABLED = "dataloader.enable";
+    public final static String DATA_LOADER_CHANNEL_THREAD_COUNT = "dataloader.channel.thread.count";
     public final static String DATA_LOADER_APPLY_CHANGES_ONLY = "dataloader.apply.changes.only";
     public final static String DATA_LOADER_IGNORE_MISSING_TABLES = "dataloader.ignore.missing.tables";
     public final static String DATA_LOADER_FIT_TO_COLUMN = "dataloader.fit.to.column";
@@ -197,6 +207,7 @@ final public class ParameterConstants {
 
     public final static String DATA_EXTRACTOR_ENABLED = "dataextractor.enable";
     public final static String DATA_EXTRACTOR_TEXT_COLUMN_EXPRESSION = "dataextractor.text.column.expression";
+    public final static String DATA_EXTRACTOR_THREAD_COUNT_PER_SERVER = "dataextractor.thread.per.server.count";
     public final static String OUTGOING_BATCH_MAX_BATCHES_TO_SELECT = "outgoing.batches.max.to.select";
 
     public final static String DBDIALECT_ORACLE_USE_TRANSACTION_VIEW = "oracle.use.transaction.view";
@@ -224,6 +235,8 @@ final public class ParameterConstants {
     public final static String CACHE_TIMEOUT_GROUPLETS_IN_MS = "cache.grouplets.time.ms";
     public final static String CACHE_TIMEOUT_NODE_SECURITY_IN_MS = "cache.node.security.time.ms";
     public final static String CACHE_TIMEOUT_NODE_IN_MS = "cache.node.time.ms";
+    public final static String CACHE_FULL_RELOAD_NODE_IN_MS = "cache.node.full.reload.time.ms";
+    public final static String CACHE_REFRESH_OVERLAP_NODE_IN_MS = "cache.node.refresh.overlap.ms";
     public final static String CACHE_TIMEOUT_TRIGGER_ROUTER_IN_MS = "cache.trigger.router.time.ms";
     public final static String CACHE_TIMEOUT_CHANNEL_IN_MS = "cache.channel.time.ms";
     public final static String CACHE_TIMEOUT_NODE_GROUP_LINK_IN_MS = "cache.node.group.link.time.ms";
@@ -268,6 +281,8 @@ final public class ParameterConstants {
     public final static String PURGE_MAX_NUMBER_OF_DATA_IDS = "job.purge.max.num.data.to.delete.in.tx";
     public final static String PURGE_MAX_NUMBER_OF_BATCH_IDS = "job.purge.max.num.batches.to.delete.in.tx";
     public final static String PURGE_MAX_NUMBER_OF_EVENT_BATCH_IDS = "job.purge.max.num.data.event.batches.to.delete.in.tx";
+    public final static String PURGE_THREAD_COUNT = "job.purge.thread.count";
+    public final static String PURGE_TARGET_STATEMENT_TIME_MS = "job.purge.target.statement.time.ms";
 
     public final static String JMX_LINE_FEED = "jmx.line.feed";
 
@@ -312,6 +327,14 @@ final public class ParameterConstants {
     
     public final static String FILE_SYNC_FAST_SCAN = "file.sync.fast.scan";
     
+    public final static String FILE_SYNC_USE_WATCH_SERVICE = "file.sync.use.watch.service";
+    
+    public final static String FILE_SYNC_DELTA_ENABLED = "file.sync.delta.enabled";
+    
+    public final static String FILE_SYNC_DELTA_BLOCK_SIZE = "file.sync.delta.block.size";
+    
+    public final static String FILE_SYNC_DELTA_SIGNATURE_VERSIONS = "file.sync.delta.signature.versions";
+    
     public final static String FILE_SYNC_USE_CRC = "file.sync.use.crc";
     
     public final static String FILE_SYNC_PREVENT_PING_BACK = "file.sync.prevent.ping.back";
@@ -326,6 +349,8 @@ final public class ParameterConstants {
     
     public final static String BSH_TRANSFORM_GLOBAL_SCRIPT = "bsh.transform.global.script";
     
+    public final static String BSH_COMPILE_SCRIPTS = "bsh.compile.scripts";
+    
     public final static String MSSQL_ROW_LEVEL_LOCKS_ONLY = "mssql.allow.only.row.level.locks.on.runtime.tables";
     
     public final static String MSSQL_USE_NTYPES_FOR_SYNC = "mssql.use.ntypes.for.sync";
@@ -352,6 +377,10 @@ final public class ParameterConstants {
     
     public final static String SYNC_TRIGGERS_THREAD_COUNT_PER_SERVER = "sync.triggers.thread.count.per.server";
 
+    public final static String SYNC_TRIGGERS_BULK_READ_THRESHOLD = "sync.triggers.bulk.read.threshold";
+
+    public final static String SYNC_TRIGGERS_PERSIST_TABLE_MODEL = "sync.triggers.persist.table.model";
+
     public static final String SMTP_HOST = "smtp.host";
     public static final String SMTP_TRANSPORT = "smtp.transport";
     public static final String SMTP_PORT = "smtp.port";
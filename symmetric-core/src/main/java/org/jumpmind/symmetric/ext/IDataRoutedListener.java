@@ -0,0 +1,43 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.ext;
+
+import java.util.Set;
+
+import org.jumpmind.extension.IExtensionPoint;
+
+/**
+ * Notified after the router has committed new outgoing batches. This is the
+ * hook that lets data be pushed as soon as it has been routed instead of
+ * waiting for the next run of the push job.
+ */
+public interface IDataRoutedListener extends IExtensionPoint {
+
+    /**
+     * Called after a routing run that created outgoing batches. This is called
+     * on the routing thread, so implementations should hand off any real work.
+     * 
+     * @param nodeIds
+     *            The ids of the nodes that have new batches ready to be sent
+     */
+    public void dataRouted(Set<String> nodeIds);
+
+}
@@ -0,0 +1,551 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.file;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Block level deltas for file sync, in the style of rsync. A
+ * {@link Signature} holds a weak rolling checksum and a strong checksum for
+ * each block of the last version of a file that was sent. The new version of
+ * the file is scanned with the rolling checksum to find blocks that still
+ * exist, and the delta is made of references to those blocks plus the bytes
+ * that changed. The target rebuilds the file from its copy of the last version
+ * and the delta.
+ */
+public class FileSyncDelta {
+
+    public static final String DELTA_EXTENSION = ".sym-delta";
+
+    private static final int SIGNATURE_MAGIC = 0x53594d53;
+
+    private static final int DELTA_MAGIC = 0x53594d44;
+
+    private static final byte OP_END = 0;
+
+    private static final byte OP_COPY = 1;
+
+    private static final byte OP_DATA = 2;
+
+    private static final int MAX_LITERAL_LENGTH = 64 * 1024;
+
+    private FileSyncDelta() {
+    }
+
+    /**
+     * Write the delta between the file the signature was built from and the
+     * new file.
+     * 
+     * @param newSignature
+     *            when not null, is updated with every byte of the new file so
+     *            the signature of the new file is built in the same pass
+     * @return the number of bytes written to the delta
+     */
+    public static long writeDelta(Signature basis, File newFile, OutputStream os, SignatureBuilder newSignature) throws IOException {
+        CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(os));
+        DataOutputStream out = new DataOutputStream(counter);
+        out.writeInt(DELTA_MAGIC);
+        out.writeInt(basis.getBlockSize());
+
+        int blockSize = basis.getBlockSize();
+        Map<Integer, List<Integer>> blocksByWeak = new HashMap<Integer, List<Integer>>();
+        BitSet weakFilter = new BitSet(1 << 16);
+        for (int i = 0; i < basis.getBlockCount(); i++) {
+            int weak = basis.getWeakChecksum(i);
+            List<Integer> blocks = blocksByWeak.get(weak);
+            if (blocks == null) {
+                blocks = new ArrayList<Integer>(1);
+                blocksByWeak.put(weak, blocks);
+            }
+            blocks.add(i);
+            weakFilter.set(filterIndex(weak));
+        }
+
+        MessageDigest md5 = getMessageDigest();
+        byte[] window = new byte[blockSize];
+        byte[] literal = new byte[MAX_LITERAL_LENGTH];
+        int literalLength = 0;
+        int pendingCopyBlock = -1;
+        int pendingCopyCount = 0;
+
+        InputStream is = new BufferedInputStream(new FileInputStream(newFile));
+        try {
+            int start = 0;
+            int length = fill(is, window, 0, blockSize, newSignature);
+            boolean eof = length < blockSize;
+            int a = 0;
+            int b = 0;
+            for (int i = 0; i < length; i++) {
+                int x = window[i] & 0xff;
+                a += x;
+                b += (length - i) * x;
+            }
+
+            while (length > 0) {
+                int weak = (a & 0xffff) | ((b & 0xffff) << 16);
+                int match = -1;
+                if (weakFilter.get(filterIndex(weak))) {
+                    List<Integer> blocks = blocksByWeak.get(weak);
+                    if (blocks != null) {
+                        long strong = -1;
+                        for (Integer block : blocks) {
+                            if (basis.getBlockLength(block) == length) {
+                                if (strong == -1) {
+                                    strong = strongChecksum(md5, window, start, length);
+                                }
+                                if (basis.getStrongChecksum(block) == strong) {
+                                    match = block;
+                                    break;
+                                }
+                            }
+                        }
+                    }
+                }
+
+                if (match >= 0) {
+                    if (literalLength > 0) {
+                        writeLiteral(out, literal, literalLength);
+                        literalLength = 0;
+                    }
+                    if (pendingCopyBlock >= 0 && pendingCopyBlock + pendingCopyCount == match) {
+                        pendingCopyCount++;
+                    } else {
+                        writeCopy(out, pendingCopyBlock, pendingCopyCount);
+                        pendingCopyBlock = match;
+                        pendingCopyCount = 1;
+                    }
+                    start = 0;
+                    length = eof ? 0 : fill(is, window, 0, blockSize, newSignature);
+                    eof = eof || length < blockSize;
+                    a = 0;
+                    b = 0;
+                    for (int i = 0; i < length; i++) {
+                        int x = window[i] & 0xff;
+                        a += x;
+                        b += (length - i) * x;
+                    }
+                } else {
+                    writeCopy(out, pendingCopyBlock, pendingCopyCount);
+                    pendingCopyBlock = -1;
+                    pendingCopyCount = 0;
+
+                    int out0 = window[start] & 0xff;
+                    literal[literalLength++] = window[start];
+                    if (literalLength == literal.length) {
+                        writeLiteral(out, literal, literalLength);
+                        literalLength = 0;
+                    }
+
+                    int next = eof ? -1 : is.read();
+                    if (next >= 0) {
+                        if (newSignature != null) {
+                            newSignature.update((byte) next);
+                        }
+                        // the window is a ring, the new byte takes the place of the one rolling out
+                        window[start] = (byte) next;
+                        start = (start + 1) % blockSize;
+                        a = a - out0 + next;
+                        b = b - blockSize * out0 + a;
+                    } else {
+                        eof = true;
+                        a = a - out0;
+                        b = b - length * out0;
+                        start = (start + 1) % blockSize;
+                        length--;
+                    }
+                }
+            }
+
+            if (literalLength > 0) {
+                writeLiteral(out, literal, literalLength);
+            }
+            writeCopy(out, pendingCopyBlock, pendingCopyCount);
+            out.writeByte(OP_END);
+            out.flush();
+            return counter.getCount();
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
+    }
+
+    /**
+     * Rebuild the target file from its current content and a delta. The
+     * target is only replaced once the rebuilt file has the expected length
+     * and checksum.
+     * 
+     * @param basisCrc32Checksum
+     *            the checksum of the version the delta was computed against
+     */
+    public static void patch(File targetFile, File deltaFile, long basisCrc32Checksum, long crc32Checksum, long length)
+            throws IOException {
+        if (!targetFile.isFile() || FileUtils.checksumCRC32(targetFile) != basisCrc32Checksum) {
+            throw new IOException("Cannot apply the delta for " + targetFile.getAbsolutePath()
+                    + " because it is not the version the delta was computed from");
+        }
+
+        File tmpFile = new File(targetFile.getParentFile(), targetFile.getName() + ".sym-tmp");
+        RandomAccessFile basis = new RandomAccessFile(targetFile, "r");
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(deltaFile)));
+        CRC32 crc = new CRC32();
+        OutputStream os = null;
+        try {
+            os = new BufferedOutputStream(new FileOutputStream(tmpFile));
+            if (in.readInt() != DELTA_MAGIC) {
+                throw new IOException("The file " + deltaFile.getAbsolutePath() + " is not a delta");
+            }
+            int blockSize = in.readInt();
+            byte[] buffer = new byte[Math.max(blockSize, MAX_LITERAL_LENGTH)];
+            long written = 0;
+            byte op = in.readByte();
+            while (op != OP_END) {
+                if (op == OP_COPY) {
+                    long position = (long) in.readInt() * blockSize;
+                    long remaining = Math.min((long) in.readInt() * blockSize, basis.length() - position);
+                    basis.seek(position);
+                    while (remaining > 0) {
+                        int count = basis.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                        if (count < 0) {
+                            throw new IOException("Unexpected end of " + targetFile.getAbsolutePath());
+                        }
+                        os.write(buffer, 0, count);
+                        crc.update(buffer, 0, count);
+                        remaining -= count;
+                        written += count;
+                    }
+                } else if (op == OP_DATA) {
+                    int count = in.readInt();
+                    in.readFully(buffer, 0, count);
+                    os.write(buffer, 0, count);
+                    crc.update(buffer, 0, count);
+                    written += count;
+                } else {
+                    throw new IOException("Unexpected operation " + op + " in " + deltaFile.getAbsolutePath());
+                }
+                op = in.readByte();
+            }
+            os.close();
+            os = null;
+
+            if (written != length || crc.getValue() != crc32Checksum) {
+                throw new IOException("The file rebuilt from the delta for " + targetFile.getAbsolutePath()
+                        + " does not match the source file");
+            }
+        } catch (IOException e) {
+            IOUtils.closeQuietly(os);
+            FileUtils.deleteQuietly(tmpFile);
+            throw e;
+        } finally {
+            IOUtils.closeQuietly(in);
+            basis.close();
+        }
+
+        if (!targetFile.delete() || !tmpFile.renameTo(targetFile)) {
+            FileUtils.copyFile(tmpFile, targetFile);
+            FileUtils.deleteQuietly(tmpFile);
+        }
+    }
+
+    public static Signature readSignature(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != SIGNATURE_MAGIC) {
+                throw new IOException("The file " + file.getAbsolutePath() + " is not a signature");
+            }
+            int blockSize = in.readInt();
+            long length = in.readLong();
+            long crc32Checksum = in.readLong();
+            int blockCount = in.readInt();
+            int[] weak = new int[blockCount];
+            long[] strong = new long[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                weak[i] = in.readInt();
+                strong[i] = in.readLong();
+            }
+            return new Signature(blockSize, length, crc32Checksum, weak, strong);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    public static void writeSignature(Signature signature, File file) throws IOException {
+        file.getParentFile().mkdirs();
+        // several batches can be extracted at once, so each writer gets its own temporary file
+        File tmpFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+        try {
+            out.writeInt(SIGNATURE_MAGIC);
+            out.writeInt(signature.getBlockSize());
+            out.writeLong(signature.getLength());
+            out.writeLong(signature.getCrc32Checksum());
+            out.writeInt(signature.getBlockCount());
+            for (int i = 0; i < signature.getBlockCount(); i++) {
+                out.writeInt(signature.getWeakChecksum(i));
+                out.writeLong(signature.getStrongChecksum(i));
+            }
+        } finally {
+            IOUtils.closeQuietly(out);
+        }
+        if ((file.exists() && !file.delete()) || !tmpFile.renameTo(file)) {
+            tmpFile.delete();
+            throw new IOException("Failed to write the signature " + file.getAbsolutePath());
+        }
+    }
+
+    public static Signature createSignature(File file, int blockSize) throws IOException {
+        SignatureBuilder builder = new SignatureBuilder(blockSize);
+        InputStream is = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[64 * 1024];
+            int count = 0;
+            while ((count = is.read(buffer)) >= 0) {
+                builder.update(buffer, 0, count);
+            }
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
+        return builder.build();
+    }
+
+    static int weakChecksum(byte[] buffer, int offset, int length) {
+        int a = 0;
+        int b = 0;
+        for (int i = 0; i < length; i++) {
+            int x = buffer[offset + i] & 0xff;
+            a += x;
+            b += (length - i) * x;
+        }
+        return (a & 0xffff) | ((b & 0xffff) << 16);
+    }
+
+    static long strongChecksum(MessageDigest md5, byte[] ring, int start, int length) {
+        md5.reset();
+        int firstLength = Math.min(length, ring.length - start);
+        md5.update(ring, start, firstLength);
+        if (firstLength < length) {
+            md5.update(ring, 0, length - firstLength);
+        }
+        byte[] digest = md5.digest();
+        long strong = 0;
+        for (int i = 0; i < 8; i++) {
+            strong = (strong << 8) | (digest[i] & 0xff);
+        }
+        return strong;
+    }
+
+    static MessageDigest getMessageDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int filterIndex(int weak) {
+        return (weak ^ (weak >>> 16)) & 0xffff;
+    }
+
+    private static int fill(InputStream is, byte[] buffer, int offset, int length, SignatureBuilder builder) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int count = is.read(buffer, offset + total, length - total);
+            if (count < 0) {
+                break;
+            }
+            total += count;
+        }
+        if (builder != null && total > 0) {
+            builder.update(buffer, offset, total);
+        }
+        return total;
+    }
+
+    private static void writeLiteral(DataOutputStream out, byte[] literal, int length) throws IOException {
+        out.writeByte(OP_DATA);
+        out.writeInt(length);
+        out.write(literal, 0, length);
+    }
+
+    private static void writeCopy(DataOutputStream out, int block, int count) throws IOException {
+        if (block >= 0 && count > 0) {
+            out.writeByte(OP_COPY);
+            out.writeInt(block);
+            out.writeInt(count);
+        }
+    }
+
+    /**
+     * The checksums of the blocks of one version of a file.
+     */
+    public static class Signature {
+
+        private int blockSize;
+        private long length;
+        private long crc32Checksum;
+        private int[] weakChecksums;
+        private long[] strongChecksums;
+
+        public Signature(int blockSize, long length, long crc32Checksum, int[] weakChecksums, long[] strongChecksums) {
+            this.blockSize = blockSize;
+            this.length = length;
+            this.crc32Checksum = crc32Checksum;
+            this.weakChecksums = weakChecksums;
+            this.strongChecksums = strongChecksums;
+        }
+
+        public int getBlockSize() {
+            return blockSize;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public long getCrc32Checksum() {
+            return crc32Checksum;
+        }
+
+        public int getBlockCount() {
+            return weakChecksums.length;
+        }
+
+        public int getBlockLength(int block) {
+            return (int) Math.min(blockSize, length - (long) block * blockSize);
+        }
+
+        public int getWeakChecksum(int block) {
+            return weakChecksums[block];
+        }
+
+        public long getStrongChecksum(int block) {
+            return strongChecksums[block];
+        }
+    }
+
+    /**
+     * Builds a {@link Signature} from the bytes of a file as they are read.
+     */
+    public static class SignatureBuilder {
+
+        private int blockSize;
+        private byte[] block;
+        private int blockLength;
+        private long length;
+        private CRC32 crc = new CRC32();
+        private MessageDigest md5 = getMessageDigest();
+        private List<Integer> weakChecksums = new ArrayList<Integer>();
+        private List<Long> strongChecksums = new ArrayList<Long>();
+
+        public SignatureBuilder(int blockSize) {
+            this.blockSize = blockSize;
+            this.block = new byte[blockSize];
+        }
+
+        public void update(byte b) {
+            block[blockLength++] = b;
+            length++;
+            if (blockLength == blockSize) {
+                endBlock();
+            }
+        }
+
+        public void update(byte[] buffer, int offset, int count) {
+            while (count > 0) {
+                int length = Math.min(count, blockSize - blockLength);
+                System.arraycopy(buffer, offset, block, blockLength, length);
+                blockLength += length;
+                this.length += length;
+                offset += length;
+                count -= length;
+                if (blockLength == blockSize) {
+                    endBlock();
+                }
+            }
+        }
+
+        public Signature build() {
+            if (blockLength > 0) {
+                endBlock();
+            }
+            int[] weak = new int[weakChecksums.size()];
+            long[] strong = new long[strongChecksums.size()];
+            for (int i = 0; i < weak.length; i++) {
+                weak[i] = weakChecksums.get(i);
+                strong[i] = strongChecksums.get(i);
+            }
+            return new Signature(blockSize, length, crc.getValue(), weak, strong);
+        }
+
+        private void endBlock() {
+            crc.update(block, 0, blockLength);
+            weakChecksums.add(weakChecksum(block, 0, blockLength));
+            strongChecksums.add(strongChecksum(md5, block, 0, blockLength));
+            blockLength = 0;
+        }
+    }
+
+    static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
+}
@@ -22,19 +22,25 @@ package org.jumpmind.symmetric.file;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.commons.lang.StringUtils;
 import org.jumpmind.db.model.Table;
 import org.jumpmind.exception.IoException;
+import org.jumpmind.symmetric.file.FileSyncDelta.Signature;
+import org.jumpmind.symmetric.file.FileSyncDelta.SignatureBuilder;
 import org.jumpmind.symmetric.io.data.Batch;
 import org.jumpmind.symmetric.io.data.CsvData;
 import org.jumpmind.symmetric.io.data.DataContext;
@@ -68,6 +74,10 @@ public class FileSyncZipDataWriter implements IDataWriter {
     protected List<FileSnapshot> snapshotEvents;
     protected DataContext context;
     protected INodeService nodeService;
+    protected File signatureDir;
+    protected int deltaBlockSize;
+    protected int signatureVersions;
+    protected boolean fullFilesOnly;
 
     public FileSyncZipDataWriter(long maxBytesToSync, IFileSyncService fileSyncService,
             INodeService nodeService, IStagedResource stagedResource) {
@@ -77,6 +87,30 @@ public class FileSyncZipDataWriter implements IDataWriter {
         this.nodeService = nodeService;
     }
 
+    /**
+     * Send modified files as block level deltas against the version the target
+     * has. The signatures of the versions that were sent are kept in the
+     * signature directory by checksum, so every target node that has one of
+     * the recent versions gets a delta, no matter in which order the batches
+     * for the nodes are extracted.
+     * 
+     * @param signatureVersions
+     *            the number of versions of a file to keep signatures for
+     */
+    public void setDeltaEnabled(File signatureDir, int deltaBlockSize, int signatureVersions) {
+        this.signatureDir = signatureDir;
+        this.deltaBlockSize = deltaBlockSize;
+        this.signatureVersions = signatureVersions;
+    }
+
+    /**
+     * Send whole files for the next batch, which is used when a batch is
+     * retried because the target could not apply a delta.
+     */
+    public void setFullFilesOnly(boolean fullFilesOnly) {
+        this.fullFilesOnly = fullFilesOnly;
+    }
+
     public void open(DataContext context) {
         this.context = context;
     }
@@ -147,6 +181,7 @@ public class FileSyncZipDataWriter implements IDataWriter {
 
     public void end(Batch batch, boolean inError) {
 
+        Delta delta = null;
         try {
             if (!inError) {
                 if (zos == null) {
@@ -209,6 +244,20 @@ public class FileSyncZipDataWriter implements IDataWriter {
                             entryName.append("/");
                         }
 
+                        LastEventType previousEventForEntry = entries.get(entryName.toString());
+                        boolean process = true;
+                        if (previousEventForEntry != null) {
+                            if ((previousEventForEntry == eventType)
+                                    || (previousEventForEntry == LastEventType.CREATE && eventType == LastEventType.MODIFY)) {
+                                process = false;
+                            }
+                        }
+
+                        delta = null;
+                        if (process && eventType == LastEventType.MODIFY && !fullFilesOnly) {
+                            delta = createDelta(snapshot, file);
+                        }
+
                         if (StringUtils.isNotBlank(fileTrigger.getBeforeCopyScript())) {
                             command.append(fileTrigger.getBeforeCopyScript()).append("\n");
                         }
@@ -257,11 +306,20 @@ public class FileSyncZipDataWriter implements IDataWriter {
                                     } 
                                     
                                     command.append("  if (processFile) {\n");
-                                    command.append("    if (sourceFile.isDirectory()) {\n");
-                                    command.append("      org.apache.commons.io.FileUtils.copyDirectory(sourceFile, targetFile, true);\n");                                    
-                                    command.append("    } else {\n");
-                                    command.append("      org.apache.commons.io.FileUtils.copyFile(sourceFile, targetFile, true);\n");                                    
-                                    command.append("    }\n");
+                                    if (delta != null) {
+                                        // rebuild the file from the version on the target and the changed blocks
+                                        command.append("    org.jumpmind.symmetric.file.FileSyncDelta.patch(targetFile, new java.io.File(sourceFile.getPath() + \"")
+                                                .append(FileSyncDelta.DELTA_EXTENSION).append("\"), ").append(snapshot.getOldCrc32Checksum())
+                                                .append("L, ").append(delta.signature.getCrc32Checksum()).append("L, ")
+                                                .append(delta.signature.getLength()).append("L);\n");
+                                        command.append("    targetFile.setLastModified(").append(file.lastModified()).append("L);\n");
+                                    } else {
+                                        command.append("    if (sourceFile.isDirectory()) {\n");
+                                        command.append("      org.apache.commons.io.FileUtils.copyDirectory(sourceFile, targetFile, true);\n");                                    
+                                        command.append("    } else {\n");
+                                        command.append("      org.apache.commons.io.FileUtils.copyFile(sourceFile, targetFile, true);\n");                                    
+                                        command.append("    }\n");
+                                    }
                                     command.append("  }\n");
                                     command.append("  fileList.put(").append(targetFile)
                                             .append(",\"");
@@ -285,31 +343,48 @@ public class FileSyncZipDataWriter implements IDataWriter {
                             command.append(fileTrigger.getAfterCopyScript()).append("\n");
                         }
 
-                        LastEventType previousEventForEntry = entries.get(entryName.toString());
-                        boolean process = true;
-                        if (previousEventForEntry != null) {
-                            if ((previousEventForEntry == eventType)
-                                    || (previousEventForEntry == LastEventType.CREATE && eventType == LastEventType.MODIFY)) {
-                                process = false;
-                            }
-                        }
-                        
-                        
                         if (process) {
                             if (eventType != LastEventType.DELETE) {
-                                if (file.exists()) {
+                                if (delta != null) {
+                                    byteCount += delta.file.length();
+                                    ZipEntry entry = new ZipEntry(entryName.toString() + FileSyncDelta.DELTA_EXTENSION);
+                                    entry.setSize(delta.file.length());
+                                    entry.setTime(file.lastModified());
+                                    zos.putNextEntry(entry);
+                                    FileInputStream fis = new FileInputStream(delta.file);
+                                    try {
+                                        IOUtils.copy(fis, zos);
+                                    } finally {
+                                        IOUtils.closeQuietly(fis);
+                                        FileUtils.deleteQuietly(delta.file);
+                                    }
+                                    zos.closeEntry();
+                                    entries.put(entryName.toString(), eventType);
+                                    saveSignature(snapshot, delta.signature);
+                                } else if (file.exists()) {
                                     byteCount += file.length();
                                     ZipEntry entry = new ZipEntry(entryName.toString());
                                     entry.setSize(file.length());
                                     entry.setTime(file.lastModified());
                                     zos.putNextEntry(entry);
                                     if (file.isFile()) {
+                                        SignatureBuilder signature = signatureDir != null ? new SignatureBuilder(deltaBlockSize) : null;
                                         FileInputStream fis = new FileInputStream(file);
                                         try {
-                                            IOUtils.copy(fis, zos);
+                                            byte[] buffer = new byte[4096];
+                                            int count = 0;
+                                            while ((count = fis.read(buffer)) >= 0) {
+                                                zos.write(buffer, 0, count);
+                                                if (signature != null) {
+                                                    signature.update(buffer, 0, count);
+                                                }
+                                            }
                                         } finally {
                                             IOUtils.closeQuietly(fis);
                                         }
+                                        if (signature != null) {
+                                            saveSignature(snapshot, signature.build());
+                                        }
                                     }
                                     zos.closeEntry();
                                     entries.put(entryName.toString(), eventType);
@@ -318,6 +393,8 @@ public class FileSyncZipDataWriter implements IDataWriter {
                                             "Could not find the {} file to package for synchronization.  Skipping it.",
                                             file.getAbsolutePath());
                                 }
+                            } else if (signatureDir != null) {
+                                FileUtils.deleteQuietly(getSignatureDir(snapshot));
                             }
 
                             command.append("}\n\n");
@@ -347,8 +424,118 @@ public class FileSyncZipDataWriter implements IDataWriter {
             }
         } catch (IOException e) {
             throw new IoException(e);
+        } finally {
+            if (delta != null) {
+                FileUtils.deleteQuietly(delta.file);
+            }
+        }
+
+    }
+
+    /**
+     * @return the delta of the file against the signature of the version the
+     *         target has, or null when there is no signature for that version
+     *         or the delta is not smaller than the file
+     */
+    protected Delta createDelta(FileSnapshot snapshot, File file) {
+        if (signatureDir == null || !file.isFile()) {
+            return null;
+        }
+        File signatureFile = getSignatureFile(snapshot, snapshot.getOldCrc32Checksum());
+        if (!signatureFile.exists()) {
+            return null;
+        }
+        // other target nodes may still need this version, so keep it with the newest
+        signatureFile.setLastModified(System.currentTimeMillis());
+        File deltaFile = null;
+        Delta delta = null;
+        try {
+            Signature basis = FileSyncDelta.readSignature(signatureFile);
+            if (basis.getCrc32Checksum() != snapshot.getOldCrc32Checksum()
+                    || basis.getBlockSize() != deltaBlockSize) {
+                return null;
+            }
+            deltaFile = File.createTempFile("filesync", FileSyncDelta.DELTA_EXTENSION);
+            SignatureBuilder signature = new SignatureBuilder(deltaBlockSize);
+            FileOutputStream os = new FileOutputStream(deltaFile);
+            long deltaSize = 0;
+            try {
+                deltaSize = FileSyncDelta.writeDelta(basis, file, os, signature);
+            } finally {
+                IOUtils.closeQuietly(os);
+            }
+            Signature newSignature = signature.build();
+            if (deltaSize >= newSignature.getLength()) {
+                return null;
+            }
+            delta = new Delta(deltaFile, newSignature);
+            log.debug("Sending {} bytes of changes for {} instead of {} bytes", new Object[] { deltaSize, file.getAbsolutePath(),
+                    delta.signature.getLength() });
+            return delta;
+        } catch (IOException e) {
+            log.warn("Failed to create a delta for {}.  The whole file will be sent.  {}", file.getAbsolutePath(), e.getMessage());
+            return null;
+        } finally {
+            if (delta == null) {
+                FileUtils.deleteQuietly(deltaFile);
+            }
         }
+    }
 
+    protected void saveSignature(FileSnapshot snapshot, Signature signature) {
+        if (signatureDir != null) {
+            File signatureFile = getSignatureFile(snapshot, signature.getCrc32Checksum());
+            try {
+                if (signatureFile.exists()) {
+                    // already saved while extracting the batch for another node
+                    signatureFile.setLastModified(System.currentTimeMillis());
+                } else {
+                    FileSyncDelta.writeSignature(signature, signatureFile);
+                }
+                removeOldSignatures(signatureFile);
+            } catch (IOException e) {
+                log.warn("Failed to save the signature {}.  {}", signatureFile.getAbsolutePath(), e.getMessage());
+                FileUtils.deleteQuietly(signatureFile);
+            }
+        }
+    }
+
+    /**
+     * Keep the signatures of the most recently sent or used versions. A target
+     * node that is further behind is sent the whole file.
+     */
+    protected void removeOldSignatures(final File latest) {
+        File[] files = latest.getParentFile().listFiles();
+        if (files != null && files.length > signatureVersions) {
+            // modification times can be as coarse as a second, so the latest always sorts first
+            Arrays.sort(files, new Comparator<File>() {
+                public int compare(File o1, File o2) {
+                    if (o1.equals(latest) || o2.equals(latest)) {
+                        return o1.equals(o2) ? 0 : (o1.equals(latest) ? -1 : 1);
+                    }
+                    long diff = o2.lastModified() - o1.lastModified();
+                    return diff > 0 ? 1 : (diff < 0 ? -1 : 0);
+                }
+            });
+            for (int i = Math.max(signatureVersions, 1); i < files.length; i++) {
+                if (files[i].getName().endsWith(".sig")) {
+                    FileUtils.deleteQuietly(files[i]);
+                }
+            }
+        }
+    }
+
+    protected File getSignatureDir(FileSnapshot snapshot) {
+        StringBuilder path = new StringBuilder(snapshot.getTriggerId()).append("/").append(snapshot.getRouterId()).append("/");
+        if (!snapshot.getRelativeDir().equals(".")) {
+            path.append(snapshot.getRelativeDir()).append("/");
+        }
+        path.append(snapshot.getFileName()).append(".sigs");
+        return new File(signatureDir, path.toString());
+    }
+
+    protected File getSignatureFile(FileSnapshot snapshot, long crc32Checksum) {
+        return new File(getSignatureDir(snapshot), crc32Checksum + ".sig");
     }
 
     public void finish() {
@@ -370,5 +557,16 @@ public class FileSyncZipDataWriter implements IDataWriter {
     public boolean readyToSend() {
         return byteCount > maxBytesToSync;
     }
+
+    static class Delta {
+
+        File file;
+        Signature signature;
+
+        Delta(File file, Signature signature) {
+            this.file = file;
+            this.signature = signature;
+        }
+    }
     
 }
@@ -22,6 +22,9 @@ package org.jumpmind.symmetric.file;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 import org.apache.commons.io.monitor.FileAlterationListenerAdaptor;
 import org.apache.commons.io.monitor.FileAlterationObserver;
@@ -46,6 +49,8 @@ public class FileTriggerTracker {
     private SnapshotUpdater currentListener;
     private ProcessInfo processInfo;
     private ISymmetricEngine engine;
+    private FileTriggerWatcher watcher;
+    private Set<File> filesWaitingForCtlFile = new LinkedHashSet<File>();
     protected boolean useCrc;
 
     long startTime = System.currentTimeMillis();
@@ -54,18 +59,35 @@ public class FileTriggerTracker {
     
     public FileTriggerTracker(FileTriggerRouter fileTriggerRouter, DirectorySnapshot lastSnapshot, ProcessInfo processInfo,
             boolean useCrc, ISymmetricEngine engine) {
+        this(fileTriggerRouter, lastSnapshot, processInfo, useCrc, false, engine);
+    }
+
+    /**
+     * @param useWatchService
+     *            when true changes are tracked with a {@link FileTriggerWatcher}
+     *            instead of scanning the directories on each call to
+     *            {@link #trackChanges()}. The tracker should then be kept
+     *            between runs and closed when it is no longer needed.
+     */
+    public FileTriggerTracker(FileTriggerRouter fileTriggerRouter, DirectorySnapshot lastSnapshot, ProcessInfo processInfo,
+            boolean useCrc, boolean useWatchService, ISymmetricEngine engine) {
         this.fileTriggerRouter = fileTriggerRouter;
         this.processInfo = processInfo;
         this.useCrc = useCrc;
         this.engine = engine;
         
         changesSinceLastSnapshot = new DirectorySnapshot(fileTriggerRouter);
-        fileObserver = new FileAlterationObserver(fileTriggerRouter.getFileTrigger().getBaseDir(), fileTriggerRouter.getFileTrigger()
-                .createIOFileFilter());
         currentListener = new SnapshotUpdater(changesSinceLastSnapshot);
-        fileObserver.addListener(currentListener);
         try {
-            fileObserver.initialize();
+            if (useWatchService) {
+                // start watching before the snapshot is taken so no change is missed
+                watcher = new FileTriggerWatcher(fileTriggerRouter);
+            } else {
+                fileObserver = new FileAlterationObserver(fileTriggerRouter.getFileTrigger().getBaseDir(), fileTriggerRouter.getFileTrigger()
+                        .createIOFileFilter());
+                fileObserver.addListener(currentListener);
+                fileObserver.initialize();
+            }
             if (lastSnapshot == null) {
                 lastSnapshot = new DirectorySnapshot(fileTriggerRouter);
             }
@@ -74,27 +96,93 @@ public class FileTriggerTracker {
             takeFullSnapshot(currentSnapshot);
             changesSinceLastSnapshot.addAll(lastSnapshot.diff(currentSnapshot));
         } catch (RuntimeException e) {
+            close();
             throw e;
         } catch (IOException e) {
+            close();
             throw new IoException(e);
         } catch (Exception e) {
+            close();
             throw new RuntimeException(e);
         }
     }
 
     protected void pollForChanges() {
-        if (fileObserver != null) {
+        if (watcher != null) {
+            try {
+                if (!watcher.pollEvents(currentListener)) {
+                    scanForChanges();
+                }
+            } catch (IOException e) {
+                throw new IoException(e);
+            }
+            checkFilesWaitingForCtlFile();
+        } else if (fileObserver != null) {
             fileObserver.checkAndNotify();
         }
     }
 
+    /**
+     * Replace the changes collected since the last snapshot with the difference
+     * between the last snapshot and a full scan of the directory. Directories
+     * created while events were lost are registered with the watcher first,
+     * so later changes in them are reported.
+     */
+    protected void scanForChanges() throws IOException {
+        log.info("Scanning {} for changes", fileTriggerRouter.getFileTrigger().getBaseDir());
+        if (watcher != null) {
+            watcher.registerDirectories();
+        }
+        DirectorySnapshot currentSnapshot = new DirectorySnapshot(fileTriggerRouter);
+        takeFullSnapshot(currentSnapshot);
+        changesSinceLastSnapshot.clear();
+        changesSinceLastSnapshot.addAll(lastSnapshot.diff(currentSnapshot));
+    }
+
+    protected void checkFilesWaitingForCtlFile() {
+        Iterator<File> i = filesWaitingForCtlFile.iterator();
+        while (i.hasNext()) {
+            File file = i.next();
+            if (!file.exists()) {
+                i.remove();
+            } else if (engine.getFileSyncService().getControleFile(file).exists()) {
+                log.debug("Control file detected for: {}", file.getAbsolutePath());
+                currentListener.addSnapshot(file, LastEventType.CREATE);
+                i.remove();
+            }
+        }
+    }
+
+    public void setProcessInfo(ProcessInfo processInfo) {
+        this.processInfo = processInfo;
+        this.startTime = System.currentTimeMillis();
+        this.ts = startTime;
+    }
+
+    public FileTriggerRouter getFileTriggerRouter() {
+        return fileTriggerRouter;
+    }
+
+    public boolean isUsingWatchService() {
+        return watcher != null;
+    }
+
+    synchronized public void close() {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+    }
+
     synchronized public DirectorySnapshot trackChanges() {
         pollForChanges();
         DirectorySnapshot changes = changesSinceLastSnapshot;
         changesSinceLastSnapshot = new DirectorySnapshot(fileTriggerRouter);
         SnapshotUpdater newListener = new SnapshotUpdater(changesSinceLastSnapshot);
-        fileObserver.addListener(newListener);
-        fileObserver.removeListener(currentListener);
+        if (fileObserver != null) {
+            fileObserver.addListener(newListener);
+            fileObserver.removeListener(currentListener);
+        }
         currentListener = newListener;
         lastSnapshot.merge(changes);
         long runTime = (System.currentTimeMillis() - startTime) / 1000;
@@ -141,6 +229,9 @@ public class FileTriggerTracker {
                 if (ctlFile.exists()) {
                     log.debug("Control file detected: {}", ctlFile.getAbsolutePath());
                     addSnapshot(file, LastEventType.CREATE);
+                } else if (watcher != null) {
+                    // a watched file is not reported again, so check for the control file on the next runs 
+                    filesWaitingForCtlFile.add(file);
                 }
             }
         }
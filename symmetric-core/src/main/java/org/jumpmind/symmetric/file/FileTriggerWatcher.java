@@ -0,0 +1,280 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.file;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.filefilter.IOFileFilter;
+import org.apache.commons.io.monitor.FileAlterationListener;
+import org.jumpmind.symmetric.model.FileSnapshot.LastEventType;
+import org.jumpmind.symmetric.model.FileTriggerRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches the base directory of a file trigger, and its sub directories when
+ * the trigger is recursive, with a {@link WatchService}. Events queue up
+ * between calls to {@link #pollEvents(FileAlterationListener)}, so changes are
+ * found without scanning the directories.
+ */
+public class FileTriggerWatcher implements Closeable {
+
+    final protected Logger log = LoggerFactory.getLogger(getClass());
+
+    private FileTriggerRouter fileTriggerRouter;
+    private IOFileFilter fileFilter;
+    private boolean recurse;
+    private Path baseDir;
+    private WatchService watchService;
+    private Map<WatchKey, Path> watchedDirectories = new HashMap<WatchKey, Path>();
+    private Set<Path> directories = new HashSet<Path>();
+    private boolean directoryRemoved;
+
+    public FileTriggerWatcher(FileTriggerRouter fileTriggerRouter) throws IOException {
+        this.fileTriggerRouter = fileTriggerRouter;
+        this.fileFilter = fileTriggerRouter.getFileTrigger().createIOFileFilter();
+        this.recurse = fileTriggerRouter.getFileTrigger().isRecurse();
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.baseDir = Paths.get(fileTriggerRouter.getFileTrigger().getBaseDir());
+        registerDirectories();
+        log.debug("Watching {} directories for file trigger router {}", directories.size(), fileTriggerRouter);
+    }
+
+    /**
+     * Pass the changes since the last poll to the listener. A file that
+     * changed more than once is reported once.
+     * 
+     * @return false if the watch service lost events or a watched directory
+     *         was deleted or moved away, in which case nothing is passed to
+     *         the listener and the caller needs to scan the directories
+     *         instead. No delete events are sent for the files of a directory
+     *         that was moved.
+     */
+    public boolean pollEvents(FileAlterationListener listener) throws IOException {
+        Map<File, WatchedChange> changes = new LinkedHashMap<File, WatchedChange>();
+        boolean overflow = false;
+        directoryRemoved = false;
+        WatchKey key = null;
+        while ((key = watchService.poll()) != null) {
+            Path dir = watchedDirectories.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    overflow = true;
+                } else if (dir != null) {
+                    handleEvent(event.kind(), dir.resolve((Path) event.context()), changes);
+                }
+            }
+            if (!key.reset()) {
+                directories.remove(watchedDirectories.remove(key));
+            }
+        }
+
+        if (overflow) {
+            log.info("The watch service lost events for file trigger router {}", fileTriggerRouter);
+            return false;
+        } else if (directoryRemoved) {
+            log.debug("A watched directory was deleted or moved for file trigger router {}", fileTriggerRouter);
+            return false;
+        }
+
+        for (Map.Entry<File, WatchedChange> entry : changes.entrySet()) {
+            File file = entry.getKey();
+            WatchedChange change = entry.getValue();
+            if (change.lastEventType == LastEventType.CREATE) {
+                if (change.directory) {
+                    listener.onDirectoryCreate(file);
+                } else {
+                    listener.onFileCreate(file);
+                }
+            } else if (change.lastEventType == LastEventType.MODIFY) {
+                if (!change.directory) {
+                    listener.onFileChange(file);
+                }
+            } else if (change.directory) {
+                listener.onDirectoryDelete(file);
+            } else {
+                listener.onFileDelete(file);
+            }
+        }
+        return true;
+    }
+
+    protected void handleEvent(WatchEvent.Kind<?> kind, Path path, Map<File, WatchedChange> changes) throws IOException {
+        File file = path.toFile();
+        if (kind == ENTRY_CREATE) {
+            if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                if (recurse) {
+                    // files can be created before the new directory is registered, so look for them too
+                    registerAll(path, changes);
+                }
+            } else if (fileFilter.accept(file)) {
+                record(changes, file, false, LastEventType.CREATE);
+            }
+        } else if (kind == ENTRY_MODIFY) {
+            if (!Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS) && fileFilter.accept(file)) {
+                record(changes, file, false, LastEventType.MODIFY);
+            }
+        } else if (kind == ENTRY_DELETE) {
+            if (directories.contains(path)) {
+                unregisterAll(path);
+                directoryRemoved = true;
+            } else if (fileFilter.accept(file)) {
+                record(changes, file, false, LastEventType.DELETE);
+            }
+        }
+    }
+
+    protected void record(Map<File, WatchedChange> changes, File file, boolean directory, LastEventType lastEventType) {
+        WatchedChange change = changes.get(file);
+        if (change == null) {
+            changes.put(file, new WatchedChange(directory, lastEventType));
+        } else if (change.lastEventType == LastEventType.CREATE) {
+            if (lastEventType == LastEventType.DELETE) {
+                // created and deleted since the last poll
+                changes.remove(file);
+            }
+        } else if (change.lastEventType == LastEventType.DELETE) {
+            if (lastEventType == LastEventType.CREATE) {
+                change.lastEventType = LastEventType.MODIFY;
+            }
+        } else if (lastEventType == LastEventType.DELETE) {
+            change.lastEventType = LastEventType.DELETE;
+        }
+        change = changes.get(file);
+        if (change != null) {
+            change.directory = directory;
+        }
+    }
+
+    /**
+     * Register the base directory, and every sub directory when the trigger is
+     * recursive. Directories that are already watched keep their watch key.
+     * Called after the watch service lost events, because directories created
+     * in the meantime were never reported.
+     */
+    public void registerDirectories() throws IOException {
+        if (recurse) {
+            registerAll(baseDir, null);
+        } else {
+            register(baseDir);
+        }
+    }
+
+    protected void registerAll(Path start, final Map<File, WatchedChange> changes) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                register(dir);
+                if (changes != null) {
+                    record(changes, dir.toFile(), true, LastEventType.CREATE);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (changes != null && !attrs.isDirectory() && fileFilter.accept(file.toFile())) {
+                    record(changes, file.toFile(), false, LastEventType.CREATE);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException ex) throws IOException {
+                log.debug("Unable to visit " + file, ex);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Stop watching a directory that was deleted or moved and its sub
+     * directories. A moved directory is still watched at its new location
+     * otherwise.
+     */
+    protected void unregisterAll(Path dir) {
+        Iterator<Map.Entry<WatchKey, Path>> i = watchedDirectories.entrySet().iterator();
+        while (i.hasNext()) {
+            Map.Entry<WatchKey, Path> entry = i.next();
+            if (entry.getValue().startsWith(dir)) {
+                entry.getKey().cancel();
+                directories.remove(entry.getValue());
+                i.remove();
+            }
+        }
+    }
+
+    protected void register(Path dir) throws IOException {
+        WatchKey key = dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        watchedDirectories.put(key, dir);
+        directories.add(dir);
+    }
+
+    public int getWatchedDirectoryCount() {
+        return directories.size();
+    }
+
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.debug("Failed to close the watch service", e);
+        }
+        watchedDirectories.clear();
+        directories.clear();
+    }
+
+    static class WatchedChange {
+
+        boolean directory;
+        LastEventType lastEventType;
+
+        WatchedChange(boolean directory, LastEventType lastEventType) {
+            this.directory = directory;
+            this.lastEventType = lastEventType;
+        }
+    }
+
+}
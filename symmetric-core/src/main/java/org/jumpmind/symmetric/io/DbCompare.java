@@ -22,10 +22,18 @@ package org.jumpmind.symmetric.io;
 
 import java.io.Closeable;
 import java.io.OutputStream;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.io.IOUtils;
@@ -34,6 +42,7 @@ import org.apache.commons.lang.time.DurationFormatUtils;
 import org.jumpmind.db.model.Column;
 import org.jumpmind.db.model.Table;
 import org.jumpmind.db.platform.DatabaseInfo;
+import org.jumpmind.db.platform.DatabaseNamesConstants;
 import org.jumpmind.db.platform.IDatabasePlatform;
 import org.jumpmind.db.sql.DmlStatement;
 import org.jumpmind.db.sql.DmlStatement.DmlType;
@@ -68,6 +77,10 @@ public class DbCompare {
     private ISymmetricEngine targetEngine;
     private DbCompareConfig config;
     private DbValueComparator dbValueComparator;
+    private ExecutorService rangeExecutor;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
 
     public DbCompare(ISymmetricEngine sourceEngine, ISymmetricEngine targetEngine, DbCompareConfig config) {
         this.config = config;
@@ -79,23 +92,47 @@ public class DbCompare {
     public DbCompareReport compare() {
         dbValueComparator.setNumericScale(config.getNumericScale());
 
-        OutputStream sqlDiffOutput = getSqlDiffOutputStream();
+        final OutputStream sqlDiffOutput = getSqlDiffOutputStream();
         
-        DbCompareReport report = new DbCompareReport();
-        long start = System.currentTimeMillis();
+        final DbCompareReport report = new DbCompareReport();
+        final long start = System.currentTimeMillis();
         List<DbCompareTables> tablesToCompare = getTablesToCompare();
         report.printReportHeader(System.out);
-        for (DbCompareTables tables : tablesToCompare) {
-            try {
-                TableReport tableReport = compareTables(tables, sqlDiffOutput);
-                report.addTableReport(tableReport);
-                long elapsed = System.currentTimeMillis() - start;
-                log.info("Completed table {}.  Elapsed time: {}", tableReport, 
-                        DurationFormatUtils.formatDurationWords((elapsed), true, true));
-                report.printTableReport(tableReport, System.out);               
-            } catch (Exception e) {
-                log.error("Exception while comparing " + tables.getSourceTable() + 
-                        " to " + tables.getTargetTable(), e);
+
+        int threadCount = Math.max(1, config.getThreadCount());
+        ExecutorService tableExecutor = Executors.newFixedThreadPool(threadCount, new CompareThreadFactory("dbcompare-table-"));
+        if (config.isUseHashCompare()) {
+            rangeExecutor = Executors.newFixedThreadPool(threadCount, new CompareThreadFactory("dbcompare-range-"));
+        }
+
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>(tablesToCompare.size());
+            for (final DbCompareTables tables : tablesToCompare) {
+                futures.add(tableExecutor.submit(new Runnable() {
+                    public void run() {
+                        try {
+                            TableReport tableReport = compareTables(tables, sqlDiffOutput);
+                            report.addTableReport(tableReport);
+                            long elapsed = System.currentTimeMillis() - start;
+                            log.info("Completed table {}.  Elapsed time: {}", tableReport, 
+                                    DurationFormatUtils.formatDurationWords((elapsed), true, true));
+                            report.printTableReport(tableReport, System.out);               
+                        } catch (Exception e) {
+                            log.error("Exception while comparing " + tables.getSourceTable() + 
+                                    " to " + tables.getTargetTable(), e);
+                        }
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                getResult(future);
+            }
+        } finally {
+            tableExecutor.shutdown();
+            if (rangeExecutor != null) {
+                rangeExecutor.shutdown();
+                rangeExecutor = null;
             }
         }
 
@@ -140,32 +177,127 @@ public class DbCompare {
     
 
     protected TableReport compareTables(DbCompareTables tables, OutputStream sqlDiffOutput) {
-        String sourceSelect = getSourceComparisonSQL(tables, sourceEngine.getDatabasePlatform());
-        String targetSelect = getTargetComparisonSQL(tables, targetEngine.getDatabasePlatform());
+        long startTime = System.currentTimeMillis();
+
+        DbCompareDiffWriter diffWriter = null;
+        OutputStream stream = null;
+        if (sqlDiffOutput != null) {
+            diffWriter = new DbCompareDiffWriter(targetEngine, tables, sqlDiffOutput);
+        } else {
+            stream = getSqlDiffOutputStream(tables);
+            diffWriter = new DbCompareDiffWriter(targetEngine, tables, stream);
+        }
+
+        try {
+            TableReport tableReport = null;
+            if (config.isUseHashCompare()) {
+                tableReport = compareTablesUsingDigests(tables, diffWriter);
+            } else {
+                tableReport = newTableReport(tables);
+                compareRows(tables, diffWriter, null, tableReport);
+                tableReport.addPhaseTime(DbCompareReport.PHASE_ROWS, System.currentTimeMillis() - startTime);
+            }
+            tableReport.addPhaseTime(DbCompareReport.PHASE_TOTAL, System.currentTimeMillis() - startTime);
+            return tableReport;
+        } finally {
+            if (stream != null) {                
+                IOUtils.closeQuietly(stream);
+            }
+        }
+    }
+
+    protected TableReport newTableReport(DbCompareTables tables) {
+        TableReport tableReport = new TableReport();
+        tableReport.setSourceTable(tables.getSourceTable().getName());
+        tableReport.setTargetTable(tables.getTargetTable().getName());
+        return tableReport;
+    }
+
+    /**
+     * Compare the table by computing a digest of each primary key range on
+     * both sides. Only the ranges with different digests are split further and
+     * eventually compared row by row. Ranges are compared in parallel.
+     */
+    protected TableReport compareTablesUsingDigests(final DbCompareTables tables, final DbCompareDiffWriter diffWriter) {
+        TableReport tableReport = newTableReport(tables);
+
+        long ts = System.currentTimeMillis();
+        List<PkRange> ranges = getPkRanges(tables);
+        tableReport.addPhaseTime(DbCompareReport.PHASE_RANGES, System.currentTimeMillis() - ts);
+        log.info("Comparing digests of {} ranges for table {}", ranges.size(), tables.getSourceTable().getName());
+
+        List<Future<TableReport>> futures = new ArrayList<Future<TableReport>>(ranges.size());
+        for (final PkRange range : ranges) {
+            futures.add(rangeExecutor.submit(new Callable<TableReport>() {
+                public TableReport call() {
+                    TableReport rangeReport = newTableReport(tables);
+                    compareRange(tables, diffWriter, range, null, null, rangeReport);
+                    return rangeReport;
+                }
+            }));
+        }
+
+        for (Future<TableReport> future : futures) {
+            tableReport.add(getResult(future));
+        }
+
+        return tableReport;
+    }
+
+    protected void compareRange(DbCompareTables tables, DbCompareDiffWriter diffWriter, PkRange range, 
+            RangeDigest sourceDigest, RangeDigest targetDigest, TableReport tableReport) {
+        long ts = System.currentTimeMillis();
+        if (sourceDigest == null) {
+            sourceDigest = getSourceDigest(tables, range);
+        }
+        if (targetDigest == null) {
+            targetDigest = getTargetDigest(tables, range);
+        }
+        tableReport.addPhaseTime(DbCompareReport.PHASE_DIGESTS, System.currentTimeMillis() - ts);
+
+        if (sourceDigest.equals(targetDigest)) {
+            tableReport.setSourceRows(tableReport.getSourceRows() + sourceDigest.getRowCount());
+            tableReport.setTargetRows(tableReport.getTargetRows() + targetDigest.getRowCount());
+            tableReport.setMatchedRows(tableReport.getMatchedRows() + sourceDigest.getRowCount());
+        } else if (range.isSplittable() 
+                && Math.max(sourceDigest.getRowCount(), targetDigest.getRowCount()) > config.getMinRangeSize()) {
+            /* 
+             * Digests are sums of row hashes, so the digest of the upper half
+             * is the digest of the range minus the digest of the lower half. 
+             */
+            PkRange lower = range.getLowerHalf();
+            ts = System.currentTimeMillis();
+            RangeDigest lowerSourceDigest = getSourceDigest(tables, lower);
+            RangeDigest lowerTargetDigest = getTargetDigest(tables, lower);
+            tableReport.addPhaseTime(DbCompareReport.PHASE_DIGESTS, System.currentTimeMillis() - ts);
+
+            compareRange(tables, diffWriter, lower, lowerSourceDigest, lowerTargetDigest, tableReport);
+            compareRange(tables, diffWriter, range.getUpperHalf(), sourceDigest.subtract(lowerSourceDigest),
+                    targetDigest.subtract(lowerTargetDigest), tableReport);
+        } else {
+            ts = System.currentTimeMillis();
+            compareRows(tables, diffWriter, range, tableReport);
+            tableReport.addPhaseTime(DbCompareReport.PHASE_ROWS, System.currentTimeMillis() - ts);
+        }
+    }
+
+    protected void compareRows(DbCompareTables tables, DbCompareDiffWriter diffWriter, PkRange range, TableReport tableReport) {
+        String sourceSelect = getSourceComparisonSQL(tables, sourceEngine.getDatabasePlatform(), range);
+        String targetSelect = getTargetComparisonSQL(tables, targetEngine.getDatabasePlatform(), range);
 
         CountingSqlReadCursor sourceCursor = new CountingSqlReadCursor(sourceEngine.getDatabasePlatform().
                 getSqlTemplate().queryForCursor(sourceSelect, defaultRowMapper));
         CountingSqlReadCursor targetCursor = new CountingSqlReadCursor(targetEngine.getDatabasePlatform().
                 getSqlTemplate().queryForCursor(targetSelect, defaultRowMapper));
 
-        TableReport tableReport = new TableReport();
-        tableReport.setSourceTable(tables.getSourceTable().getName());
-        tableReport.setTargetTable(tables.getTargetTable().getName());
+        int sourceRows = tableReport.getSourceRows();
+        int targetRows = tableReport.getTargetRows();
 
         Row sourceRow = sourceCursor.next();
         Row targetRow = targetCursor.next();
 
         int counter = 0;
         long startTime = System.currentTimeMillis();
-        
-        DbCompareDiffWriter diffWriter = null;
-        OutputStream stream = null;
-        if (sqlDiffOutput != null) {
-            diffWriter = new DbCompareDiffWriter(targetEngine, tables, sqlDiffOutput);
-        } else {
-            stream = getSqlDiffOutputStream(tables);
-            diffWriter = new DbCompareDiffWriter(targetEngine, tables, stream);
-        }
 
         try {        
             while (true) {  
@@ -208,18 +340,13 @@ public class DbCompare {
                                     tableReport.countExtraRow();
                                     targetRow = targetCursor.next();
                                 }
-                                tableReport.setSourceRows(sourceCursor.count);
-                                tableReport.setTargetRows(targetCursor.count);
+                                tableReport.setSourceRows(sourceRows + sourceCursor.count);
+                                tableReport.setTargetRows(targetRows + targetCursor.count);
             }
         } finally {
-            if (stream != null) {                
-                IOUtils.closeQuietly(stream);
-            }
             IOUtils.closeQuietly(sourceCursor);
             IOUtils.closeQuietly(targetCursor);
         }
-
-        return tableReport;
     }
 
     protected int comparePk(DbCompareTables tables, DbCompareRow sourceCompareRow, DbCompareRow targetCompareRow) {
@@ -233,13 +360,13 @@ public class DbCompare {
         return sourceCompareRow.comparePks(tables, targetCompareRow);
     }
 
-    protected String getSourceComparisonSQL(DbCompareTables tables, IDatabasePlatform platform) {
-        String whereClause = config.getSourceWhereClause(tables.getSourceTable().getName());
+    protected String getSourceComparisonSQL(DbCompareTables tables, IDatabasePlatform platform, PkRange range) {
+        String whereClause = getSourceWhereClause(tables, platform, range);
         return getComparisonSQL(tables.getSourceTable(),
                 tables.getSourceTable().getPrimaryKeyColumns(), platform, whereClause);
     }
 
-    protected String getTargetComparisonSQL(DbCompareTables tables, IDatabasePlatform platform) {
+    protected String getTargetComparisonSQL(DbCompareTables tables, IDatabasePlatform platform, PkRange range) {
         List<Column> mappedPkColumns = new ArrayList<Column>();
 
         for (Column sourcePkColumn : tables.getSourceTable().getPrimaryKeyColumns()) {
@@ -251,7 +378,7 @@ public class DbCompare {
             }
         }
         
-        String whereClause = config.getTargetWhereClause(tables.getTargetTable().getName());
+        String whereClause = getTargetWhereClause(tables, platform, range);
         return getComparisonSQL(tables.getTargetTable(), tables.getTargetTable().getPrimaryKeyColumns(), platform, whereClause);
     }
 
@@ -265,10 +392,259 @@ public class DbCompare {
         sql.append(whereClause).append(" ");
 
         sql.append(buildOrderBy(table, sortByColumns, platform));
-        log.info("Comparison SQL: {}", sql);
+        if (config.isUseHashCompare()) {
+            log.debug("Comparison SQL: {}", sql);
+        } else {
+            log.info("Comparison SQL: {}", sql);
+        }
         return sql.toString();
     }
 
+    protected String getSourceWhereClause(DbCompareTables tables, IDatabasePlatform platform, PkRange range) {
+        String whereClause = config.getSourceWhereClause(tables.getSourceTable().getName());
+        return getRangeWhereClause(tables.getSourceTable(), platform, whereClause, range);
+    }
+
+    protected String getTargetWhereClause(DbCompareTables tables, IDatabasePlatform platform, PkRange range) {
+        String whereClause = config.getTargetWhereClause(tables.getTargetTable().getName());
+        return getRangeWhereClause(tables.getTargetTable(), platform, whereClause, range);
+    }
+
+    protected String getRangeWhereClause(Table table, IDatabasePlatform platform, String whereClause, PkRange range) {
+        if (range == null || !range.isBounded()) {
+            return whereClause;
+        }
+        String columnName = quote(platform, table.getPrimaryKeyColumns()[0].getName());
+        return new StringBuilder("(").append(whereClause).append(") and ").append(columnName).append(" >= ")
+                .append(range.getLowerBound()).append(" and ").append(columnName).append(" < ")
+                .append(range.getUpperBound()).toString();
+    }
+
+    protected String quote(IDatabasePlatform platform, String name) {
+        String quote = platform.getDatabaseInfo().getDelimiterToken() == null ? "" : platform.getDatabaseInfo().getDelimiterToken();
+        return quote + name + quote;
+    }
+
+    /**
+     * Split the table into ranges of the first primary key column when it is
+     * an integer. Each range holds about {@link DbCompareConfig#getRangeSize()}
+     * rows when the keys are evenly distributed. Other tables are compared as
+     * a single range.
+     */
+    protected List<PkRange> getPkRanges(DbCompareTables tables) {
+        List<PkRange> ranges = new ArrayList<PkRange>();
+        Column sourcePkColumn = tables.getSourceTable().getPrimaryKeyColumns()[0];
+        Column targetPkColumn = tables.getTargetTable().getPrimaryKeyColumns()[0];
+        if (!isIntegerColumn(sourcePkColumn) || !isIntegerColumn(targetPkColumn)) {
+            ranges.add(new PkRange(null, null));
+            return ranges;
+        }
+
+        Row sourceBounds = queryForBounds(sourceEngine.getDatabasePlatform(), tables.getSourceTable(),
+                config.getSourceWhereClause(tables.getSourceTable().getName()));
+        Row targetBounds = queryForBounds(targetEngine.getDatabasePlatform(), tables.getTargetTable(),
+                config.getTargetWhereClause(tables.getTargetTable().getName()));
+
+        Long minValue = null;
+        Long maxValue = null;
+        for (Row bounds : new Row[] { sourceBounds, targetBounds }) {
+            if (bounds != null && bounds.get("min_value") != null) {
+                long min = bounds.getLong("min_value");
+                long max = bounds.getLong("max_value");
+                minValue = minValue == null ? min : Math.min(minValue, min);
+                maxValue = maxValue == null ? max : Math.max(maxValue, max);
+            }
+        }
+
+        if (minValue == null) {
+            ranges.add(new PkRange(null, null));
+            return ranges;
+        }
+
+        long rowCount = Math.max(sourceBounds.getLong("row_count"), targetBounds.getLong("row_count"));
+        int rangeSize = Math.max(1, config.getRangeSize());
+        long rangeCount = Math.max(1, (rowCount + rangeSize - 1) / rangeSize);
+        /* The span is computed as a double to stay clear of overflow for keys near the limits of a long */
+        double span = (double) maxValue - (double) minValue + 1;
+        long width = (long) Math.max(1, Math.ceil(span / rangeCount));
+
+        long lower = minValue;
+        while (true) {
+            if (lower > maxValue - width) {
+                ranges.add(new PkRange(lower, maxValue == Long.MAX_VALUE ? null : maxValue + 1));
+                break;
+            }
+            ranges.add(new PkRange(lower, lower + width));
+            lower += width;
+        }
+        return ranges;
+    }
+
+    protected Row queryForBounds(IDatabasePlatform platform, Table table, String whereClause) {
+        String columnName = quote(platform, table.getPrimaryKeyColumns()[0].getName());
+        String tableName = table.getQualifiedTableName(platform.getDatabaseInfo().getDelimiterToken(),
+                platform.getDatabaseInfo().getCatalogSeparator(), platform.getDatabaseInfo().getSchemaSeparator());
+        String sql = "select min(" + columnName + ") as min_value, max(" + columnName + ") as max_value, count(*) as row_count from "
+                + tableName + " where " + whereClause;
+        log.debug("Range SQL: {}", sql);
+        return platform.getSqlTemplate().queryForRow(sql);
+    }
+
+    protected boolean isIntegerColumn(Column column) {
+        switch (column.getMappedTypeCode()) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return true;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return column.getScale() == 0 && column.getSizeAsInt() > 0 && column.getSizeAsInt() <= 18;
+            default:
+                return false;
+        }
+    }
+
+    protected RangeDigest getSourceDigest(DbCompareTables tables, PkRange range) {
+        return getDigest(tables, range, true);
+    }
+
+    protected RangeDigest getTargetDigest(DbCompareTables tables, PkRange range) {
+        return getDigest(tables, range, false);
+    }
+
+    /**
+     * A digest is the row count and the sum of the hashes of the rows in the
+     * range. It is computed by the database when both sides are the same type
+     * of database with the same column types, otherwise the rows are streamed
+     * and hashed after normalizing their values the way
+     * {@link DbValueComparator} compares them.
+     */
+    protected RangeDigest getDigest(DbCompareTables tables, PkRange range, boolean isSource) {
+        ISymmetricEngine engine = isSource ? sourceEngine : targetEngine;
+        IDatabasePlatform platform = engine.getDatabasePlatform();
+        Table table = isSource ? tables.getSourceTable() : tables.getTargetTable();
+        String whereClause = isSource ? getSourceWhereClause(tables, platform, range) : getTargetWhereClause(tables, platform, range);
+
+        List<Column> sourceColumns = new ArrayList<Column>();
+        List<Column> targetColumns = new ArrayList<Column>();
+        for (Column sourceColumn : tables.getSourceTable().getColumns()) {
+            Column targetColumn = tables.getColumnMapping().get(sourceColumn);
+            if (targetColumn != null) {
+                sourceColumns.add(sourceColumn);
+                targetColumns.add(targetColumn);
+            }
+        }
+
+        if (isDatabaseDigestSupported(tables, sourceColumns, targetColumns)) {
+            List<Column> columns = isSource ? sourceColumns : targetColumns;
+            String sql = getDatabaseDigestSql(table, columns, platform, whereClause);
+            log.debug("Digest SQL: {}", sql);
+            Row row = platform.getSqlTemplate().queryForRow(sql);
+            return new RangeDigest(row.getInt("row_count"), row.getLong("row_digest"));
+        }
+
+        DmlStatement statement = platform.createDmlStatement(DmlType.SELECT,
+                table.getCatalog(), table.getSchema(), table.getName(),
+                null, table.getColumns(), null, null);
+        String sql = statement.getSql() + whereClause;
+        log.debug("Digest SQL: {}", sql);
+
+        int rowCount = 0;
+        long digest = 0;
+        ISqlReadCursor<Row> cursor = platform.getSqlTemplate().queryForCursor(sql, defaultRowMapper);
+        try {
+            Row row = null;
+            while ((row = cursor.next()) != null) {
+                DbCompareRow compareRow = new DbCompareRow(engine, dbValueComparator, table, row);
+                long hash = FNV_OFFSET_BASIS;
+                for (int i = 0; i < sourceColumns.size(); i++) {
+                    Column column = isSource ? sourceColumns.get(i) : targetColumns.get(i);
+                    String value = dbValueComparator.normalizeValue(sourceColumns.get(i), targetColumns.get(i), isSource, 
+                            compareRow.getRowValues().get(column.getName()));
+                    hash = hash(hash, value);
+                }
+                digest += mix(hash);
+                rowCount++;
+            }
+        } finally {
+            cursor.close();
+        }
+        return new RangeDigest(rowCount, digest);
+    }
+
+    protected boolean isDatabaseDigestSupported(DbCompareTables tables, List<Column> sourceColumns, List<Column> targetColumns) {
+        String sourceName = sourceEngine.getDatabasePlatform().getName();
+        if (tables.getTransform() != null || !sourceName.equals(targetEngine.getDatabasePlatform().getName())
+                || (!sourceName.equals(DatabaseNamesConstants.POSTGRESQL) && !sourceName.equals(DatabaseNamesConstants.MYSQL))) {
+            return false;
+        }
+        for (int i = 0; i < sourceColumns.size(); i++) {
+            if (sourceColumns.get(i).getMappedTypeCode() != targetColumns.get(i).getMappedTypeCode()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected String getDatabaseDigestSql(Table table, List<Column> columns, IDatabasePlatform platform, String whereClause) {
+        boolean postgres = platform.getName().equals(DatabaseNamesConstants.POSTGRESQL);
+        StringBuilder values = new StringBuilder();
+        for (Column column : columns) {
+            if (values.length() > 0) {
+                values.append(", ");
+            }
+            values.append("coalesce(cast(").append(quote(platform, column.getName())).append(postgres ? " as text)" : " as char)")
+                    .append(", '~')");
+        }
+        String rowHash = postgres ? "cast(hashtext(concat_ws('|', " + values + ")) as bigint)" : "crc32(concat_ws('|', " + values + "))";
+        String tableName = table.getQualifiedTableName(platform.getDatabaseInfo().getDelimiterToken(),
+                platform.getDatabaseInfo().getCatalogSeparator(), platform.getDatabaseInfo().getSchemaSeparator());
+        return "select count(*) as row_count, coalesce(sum(" + rowHash + "), 0) as row_digest from " + tableName + " where "
+                + whereClause;
+    }
+
+    protected static long hash(long hash, String value) {
+        if (value == null) {
+            hash ^= 0xff;
+            hash *= FNV_PRIME;
+        } else {
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= FNV_PRIME;
+            }
+        }
+        hash ^= 0x1f;
+        hash *= FNV_PRIME;
+        return hash;
+    }
+
+    /**
+     * Spread the bits of a row hash so sums of row hashes stay well distributed.
+     */
+    protected static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    protected <T> T getResult(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
     protected String buildOrderBy(Table table, Column[] sortByColumns, IDatabasePlatform platform) {
         DatabaseInfo databaseInfo = platform.getDatabaseInfo();
         String quote = databaseInfo.getDelimiterToken() == null ? "" : databaseInfo.getDelimiterToken(); 
@@ -522,6 +898,101 @@ public class DbCompare {
         }                
     }
 
+    /**
+     * A range of values of the first primary key column, from the lower bound
+     * inclusive to the upper bound exclusive. A range without bounds covers
+     * the whole table.
+     */
+    static class PkRange {
+
+        Long lowerBound;
+        Long upperBound;
+
+        PkRange(Long lowerBound, Long upperBound) {
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
+        }
+
+        boolean isBounded() {
+            return lowerBound != null;
+        }
+
+        boolean isSplittable() {
+            return isBounded() && upperBound != null && upperBound - lowerBound > 1;
+        }
+
+        Long getLowerBound() {
+            return lowerBound;
+        }
+
+        Long getUpperBound() {
+            return upperBound;
+        }
+
+        PkRange getLowerHalf() {
+            return new PkRange(lowerBound, lowerBound + (upperBound - lowerBound) / 2);
+        }
+
+        PkRange getUpperHalf() {
+            return new PkRange(lowerBound + (upperBound - lowerBound) / 2, upperBound);
+        }
+
+        @Override
+        public String toString() {
+            return "[" + lowerBound + ", " + upperBound + ")";
+        }
+    }
+
+    static class RangeDigest {
+
+        int rowCount;
+        long digest;
+
+        RangeDigest(int rowCount, long digest) {
+            this.rowCount = rowCount;
+            this.digest = digest;
+        }
+
+        int getRowCount() {
+            return rowCount;
+        }
+
+        RangeDigest subtract(RangeDigest other) {
+            return new RangeDigest(rowCount - other.rowCount, digest - other.digest);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof RangeDigest) {
+                RangeDigest other = (RangeDigest) obj;
+                return rowCount == other.rowCount && digest == other.digest;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (digest ^ (digest >>> 32)) * 31 + rowCount;
+        }
+    }
+
+    static class CompareThreadFactory implements ThreadFactory {
+
+        final AtomicInteger threadNumber = new AtomicInteger(1);
+        final String namePrefix;
+
+        CompareThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r);
+            t.setName(namePrefix + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
     class CountingSqlReadCursor implements ISqlReadCursor<Row>, Closeable {
 
         ISqlReadCursor<Row> wrapped;
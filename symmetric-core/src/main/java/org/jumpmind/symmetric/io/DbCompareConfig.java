@@ -35,6 +35,10 @@ public class DbCompareConfig {
     private List<String> excludedTableNames;
     private boolean useSymmetricConfig = true;
     private int numericScale = 3;
+    private boolean useHashCompare = false;
+    private int threadCount = 1;
+    private int rangeSize = 100000;
+    private int minRangeSize = 1000;
     private Map<String, String> whereClauses = new HashMap<String, String>();
     
     public String getSourceWhereClause(String tableName) {
@@ -92,6 +96,30 @@ public class DbCompareConfig {
     public void setNumericScale(int numericScale) {
         this.numericScale = numericScale;
     }
+    public boolean isUseHashCompare() {
+        return useHashCompare;
+    }
+    public void setUseHashCompare(boolean useHashCompare) {
+        this.useHashCompare = useHashCompare;
+    }
+    public int getThreadCount() {
+        return threadCount;
+    }
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+    public int getRangeSize() {
+        return rangeSize;
+    }
+    public void setRangeSize(int rangeSize) {
+        this.rangeSize = rangeSize;
+    }
+    public int getMinRangeSize() {
+        return minRangeSize;
+    }
+    public void setMinRangeSize(int minRangeSize) {
+        this.minRangeSize = minRangeSize;
+    }
     public Map<String, String> getWhereClauses() {
         return whereClauses;
     }
@@ -142,11 +142,14 @@ public class DbCompareDiffWriter {
     }
 
     protected void writeLine(String line) {
-        try {
-            stream.write(line.getBytes()); 
-            stream.write("\r\n".getBytes());
-        } catch (Exception ex) {
-            throw new RuntimeException("failed to write to stream '" + line + "'", ex);
+        // the stream can be shared by tables and ranges compared in parallel
+        synchronized (stream) {
+            try {
+                stream.write(line.getBytes()); 
+                stream.write("\r\n".getBytes());
+            } catch (Exception ex) {
+                throw new RuntimeException("failed to write to stream '" + line + "'", ex);
+            }
         }
     }
 }
@@ -22,22 +22,29 @@ package org.jumpmind.symmetric.io;
 
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class DbCompareReport {
 
+    public final static String PHASE_RANGES = "ranges";
+    public final static String PHASE_DIGESTS = "digests";
+    public final static String PHASE_ROWS = "rows";
+    public final static String PHASE_TOTAL = "total";
+
     private List<TableReport> tableReports;
     private final String TABLE_FORMAT = " %-30s%-30s%-13d%-13d%-13d%-13d%-13d%-13d%n";
 
-    public List<TableReport> getTableReports() {
+    public synchronized List<TableReport> getTableReports() {
         return tableReports;
     }
 
-    public void setTableReports(List<TableReport> tableReports) {
+    public synchronized void setTableReports(List<TableReport> tableReports) {
         this.tableReports = tableReports;
     }
     
-    public void addTableReport(TableReport tableReport) {
+    public synchronized void addTableReport(TableReport tableReport) {
         if (tableReports == null) {
             tableReports = new ArrayList<DbCompareReport.TableReport>();
         }
@@ -50,13 +57,42 @@ public class DbCompareReport {
         stream.format("+-----------------------------+-----------------------------+------------+------------+------------+------------+------------+------------+%n");
     }
     
-    public void printTableReport(TableReport report, PrintStream stream) {
+    /**
+     * @return the time in milliseconds spent in each phase summed across all
+     *         tables. Tables compared in parallel overlap, so the sum can
+     *         exceed the elapsed time of the comparison.
+     */
+    public synchronized Map<String, Long> getPhaseTimes() {
+        Map<String, Long> phaseTimes = new LinkedHashMap<String, Long>();
+        if (tableReports != null) {
+            for (TableReport tableReport : tableReports) {
+                for (Map.Entry<String, Long> entry : tableReport.getPhaseTimes().entrySet()) {
+                    Long time = phaseTimes.get(entry.getKey());
+                    phaseTimes.put(entry.getKey(), (time == null ? 0 : time) + entry.getValue());
+                }
+            }
+        }
+        return phaseTimes;
+    }
+
+    public synchronized void printTableReport(TableReport report, PrintStream stream) {
         stream.format(TABLE_FORMAT, report.getSourceTable(), report.getTargetTable(), report.getTargetRows(), 
                 report.getSourceRows(), report.getMatchedRows(), report.getDifferentRows(), report.getMissingRows(), report.getExtraRows());        
     }
 
     public void printReportFooter(PrintStream stream) {
         stream.format("+-----------------------------+-----------------------------+------------+------------+------------+------------+------------+------------+%n");
+        Map<String, Long> phaseTimes = getPhaseTimes();
+        if (!phaseTimes.isEmpty()) {
+            StringBuilder phases = new StringBuilder();
+            for (Map.Entry<String, Long> entry : phaseTimes.entrySet()) {
+                if (phases.length() > 0) {
+                    phases.append(", ");
+                }
+                phases.append(entry.getKey()).append("=").append(entry.getValue()).append("ms");
+            }
+            stream.format(" Phase times: %s%n", phases);
+        }
     }
         
     public static class TableReport {
@@ -68,6 +104,7 @@ public class DbCompareReport {
         private int differentRows;
         private int missingRows;
         private int extraRows;
+        private Map<String, Long> phaseTimes = new LinkedHashMap<String, Long>();
 
         public void countSourceRow() {
             sourceRows++;
@@ -88,6 +125,27 @@ public class DbCompareReport {
             extraRows++;
         }
 
+        public void addPhaseTime(String phase, long millis) {
+            Long time = phaseTimes.get(phase);
+            phaseTimes.put(phase, (time == null ? 0 : time) + millis);
+        }
+
+        /**
+         * Merge the counts and phase times of a report covering part of the
+         * same table into this report.
+         */
+        public void add(TableReport report) {
+            sourceRows += report.getSourceRows();
+            targetRows += report.getTargetRows();
+            matchedRows += report.getMatchedRows();
+            differentRows += report.getDifferentRows();
+            missingRows += report.getMissingRows();
+            extraRows += report.getExtraRows();
+            for (Map.Entry<String, Long> entry : report.getPhaseTimes().entrySet()) {
+                addPhaseTime(entry.getKey(), entry.getValue());
+            }
+        }
+
         public String getSourceTable() {
             return sourceTable;
         }
@@ -136,12 +194,18 @@ public class DbCompareReport {
         public void setExtraRows(int extraRows) {
             this.extraRows = extraRows;
         }
+        public Map<String, Long> getPhaseTimes() {
+            return phaseTimes;
+        }
+        public void setPhaseTimes(Map<String, Long> phaseTimes) {
+            this.phaseTimes = phaseTimes;
+        }
 
         @Override
         public String toString() {
             return "TableReport [sourceTable=" + sourceTable + ", targetTable=" + targetTable + ", sourceRows=" + sourceRows + ", targetRows="
                     + targetRows + ", matchedRows=" + matchedRows + ", differentRows=" + differentRows + ", missingRows=" + missingRows
-                    + ", extraRows=" + extraRows + "]";
+                    + ", extraRows=" + extraRows + ", phaseTimes=" + phaseTimes + "]";
 
         }
     }
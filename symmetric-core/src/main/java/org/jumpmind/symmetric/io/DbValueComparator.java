@@ -76,6 +76,50 @@ public class DbValueComparator {
         }
     }
 
+    /**
+     * Normalize a value so that two values which {@link #compareValues} would
+     * consider equal produce the same string. Used to hash rows when comparing
+     * digests instead of individual rows.
+     */
+    public String normalizeValue(Column sourceColumn, Column targetColumn, boolean isSource, String value) {
+        if (sourceColumn.isOfTextType()) {
+            if (value == null && stringNullEqualsEmptyString) {
+                value = "";
+            }
+            if (value != null && stringIgnoreWhiteSpace) {
+                value = value.trim();
+            }
+            return value;
+        } else if (value == null) {
+            return null;
+        } else if (sourceColumn.isOfNumericType()) {
+            if (StringUtils.isBlank(value)) {
+                return null;
+            }
+            try {
+                BigDecimal number = NumberUtils.createBigDecimal(value);
+                if (numericScale >= 0) {
+                    number = number.setScale(numericScale, BigDecimal.ROUND_HALF_UP);
+                }
+                return number.signum() == 0 ? "0" : number.stripTrailingZeros().toPlainString();
+            } catch (NumberFormatException ex) {
+                return value;
+            }
+        } else if (TypeMap.isDateTimeType(sourceColumn.getJdbcTypeCode())) {
+            Date date = isSource ? parseDate(sourceEngine, sourceColumn, value) : parseDate(targetEngine, targetColumn, value);
+            if (date == null) {
+                return value;
+            }
+            if (sourceColumn.getJdbcTypeCode() == Types.DATE
+                    || targetColumn.getJdbcTypeCode() == Types.DATE) {
+                date = DateUtils.truncate(date, Calendar.DATE);
+            }
+            return Long.toString(date.getTime());
+        } else {
+            return value;
+        }
+    }
+
     public int compareText(Column sourceColumn, Column targetColumn, String source, String target) {
         if (stringNullEqualsEmptyString) {
             if (source == null) {
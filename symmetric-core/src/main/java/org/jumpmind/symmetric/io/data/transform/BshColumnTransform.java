@@ -30,8 +30,12 @@ import static org.jumpmind.symmetric.common.Constants.DATA_CONTEXT_TARGET_NODE_E
 import static org.jumpmind.symmetric.common.Constants.DATA_CONTEXT_TARGET_NODE_GROUP_ID;
 import static org.jumpmind.symmetric.common.Constants.DATA_CONTEXT_TARGET_NODE_ID;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
 import org.jumpmind.db.platform.IDatabasePlatform;
@@ -41,10 +45,13 @@ import org.jumpmind.symmetric.common.ParameterConstants;
 import org.jumpmind.symmetric.io.data.DataContext;
 import org.jumpmind.symmetric.model.Data;
 import org.jumpmind.symmetric.service.IParameterService;
+import org.jumpmind.symmetric.util.BshScriptCompiler;
+import org.jumpmind.symmetric.util.ICompiledScript;
 import org.jumpmind.util.Context;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import bsh.EvalError;
 import bsh.Interpreter;
 import bsh.TargetError;
 
@@ -63,6 +70,37 @@ public class BshColumnTransform implements ISingleNewAndOldValueColumnTransform,
      */
     private static Map<String, Object> bshContext = new HashMap<String, Object>();
 
+    protected static final Map<String, String> VARIABLE_TYPES = new LinkedHashMap<String, String>();
+
+    static {
+        VARIABLE_TYPES.put("currentValue", "String");
+        VARIABLE_TYPES.put("oldValue", "String");
+        VARIABLE_TYPES.put("channelId", "String");
+        VARIABLE_TYPES.put("includeOn", "org.jumpmind.symmetric.io.data.transform.TransformColumn.IncludeOnType");
+        VARIABLE_TYPES.put("sourceDmlType", "org.jumpmind.symmetric.io.data.DataEventType");
+        VARIABLE_TYPES.put("sourceDmlTypeString", "String");
+        VARIABLE_TYPES.put("transformedData", "org.jumpmind.symmetric.io.data.transform.TransformedData");
+        VARIABLE_TYPES.put("transformColumn", "org.jumpmind.symmetric.io.data.transform.TransformColumn");
+        VARIABLE_TYPES.put("sourceSchemaName", "String");
+        VARIABLE_TYPES.put("sourceCatalogName", "String");
+        VARIABLE_TYPES.put("sourceTableName", "String");
+        VARIABLE_TYPES.put("log", "org.slf4j.Logger");
+        VARIABLE_TYPES.put("sqlTemplate", "org.jumpmind.db.sql.ISqlTemplate");
+        VARIABLE_TYPES.put("context", "org.jumpmind.symmetric.io.data.DataContext");
+        VARIABLE_TYPES.put("bshContext", "Map<String, Object>");
+        VARIABLE_TYPES.put(DATA_CONTEXT_ENGINE, "org.jumpmind.symmetric.ISymmetricEngine");
+        VARIABLE_TYPES.put(DATA_CONTEXT_TARGET_NODE, "org.jumpmind.symmetric.model.Node");
+        VARIABLE_TYPES.put(DATA_CONTEXT_TARGET_NODE_ID, "String");
+        VARIABLE_TYPES.put(DATA_CONTEXT_TARGET_NODE_GROUP_ID, "String");
+        VARIABLE_TYPES.put(DATA_CONTEXT_TARGET_NODE_EXTERNAL_ID, "String");
+        VARIABLE_TYPES.put(DATA_CONTEXT_SOURCE_NODE, "org.jumpmind.symmetric.model.Node");
+        VARIABLE_TYPES.put(DATA_CONTEXT_SOURCE_NODE_ID, "String");
+        VARIABLE_TYPES.put(DATA_CONTEXT_SOURCE_NODE_GROUP_ID, "String");
+        VARIABLE_TYPES.put(DATA_CONTEXT_SOURCE_NODE_EXTERNAL_ID, "String");
+    }
+
+    protected BshScriptCompiler scriptCompiler = new BshScriptCompiler();
+
     public BshColumnTransform(IParameterService parameterService) {
         this.parameterService = parameterService;
     }
@@ -84,65 +122,27 @@ public class BshColumnTransform implements ISingleNewAndOldValueColumnTransform,
             TransformColumn column, TransformedData data, Map<String, String> sourceValues,
             String newValue, String oldValue) throws IgnoreColumnException, IgnoreRowException {
         try {
-            Interpreter interpreter = getInterpreter(context);
-            interpreter.set("currentValue", newValue);
-            interpreter.set("oldValue", oldValue);
-            interpreter.set("channelId", context.getBatch().getChannelId());
-            interpreter.set("includeOn", column.getIncludeOn());
-            interpreter.set("sourceDmlType", data.getSourceDmlType());
-            interpreter.set("sourceDmlTypeString", data.getSourceDmlType().toString());
-            interpreter.set("transformedData", data);
-            interpreter.set("transformColumn", column);
-            Data csvData = (Data)context.get(Constants.DATA_CONTEXT_CURRENT_CSV_DATA);
-            if (csvData != null && csvData.getTriggerHistory() != null) {
-                interpreter.set("sourceSchemaName", csvData.getTriggerHistory().getSourceSchemaName());
-                interpreter.set("sourceCatalogName", csvData.getTriggerHistory().getSourceCatalogName());
-                interpreter.set("sourceTableName", csvData.getTriggerHistory().getSourceTableName());
-            }  
-            for (String columnName : sourceValues.keySet()) {
-                interpreter.set(columnName.toUpperCase(), sourceValues.get(columnName));
-                interpreter.set(columnName, sourceValues.get(columnName));
-            }
-           
+            Object result = null;
+            ICompiledScript script = null;
             String transformExpression = column.getTransformExpression();
             String globalScript = parameterService.getString(ParameterConstants.BSH_TRANSFORM_GLOBAL_SCRIPT);
-            String methodName = String.format("transform_%d()",
-                    Math.abs(transformExpression.hashCode() + (globalScript == null ? 0 : globalScript.hashCode())));
-            if (context.get(methodName) == null) {
-                interpreter.set("log", log);
-                interpreter.set("sqlTemplate", platform.getSqlTemplate());
-                interpreter.set("context", context);
-                interpreter.set("bshContext", bshContext);
-                interpreter.set(DATA_CONTEXT_ENGINE, context.get(DATA_CONTEXT_ENGINE));            
-                interpreter.set(DATA_CONTEXT_TARGET_NODE, context.get(DATA_CONTEXT_TARGET_NODE));
-                interpreter.set(DATA_CONTEXT_TARGET_NODE_ID, context.get(DATA_CONTEXT_TARGET_NODE_ID));
-                interpreter.set(DATA_CONTEXT_TARGET_NODE_GROUP_ID, context.get(DATA_CONTEXT_TARGET_NODE_GROUP_ID));
-                interpreter.set(DATA_CONTEXT_TARGET_NODE_EXTERNAL_ID, context.get(DATA_CONTEXT_TARGET_NODE_EXTERNAL_ID));            
-                interpreter.set(DATA_CONTEXT_SOURCE_NODE, context.get(DATA_CONTEXT_SOURCE_NODE));
-                interpreter.set(DATA_CONTEXT_SOURCE_NODE_ID, context.get(DATA_CONTEXT_SOURCE_NODE_ID));                                                    
-                interpreter.set(DATA_CONTEXT_SOURCE_NODE_GROUP_ID, context.get(DATA_CONTEXT_SOURCE_NODE_GROUP_ID));                                                    
-                interpreter.set(DATA_CONTEXT_SOURCE_NODE_EXTERNAL_ID, context.get(DATA_CONTEXT_SOURCE_NODE_EXTERNAL_ID));
-                
-                if (StringUtils.isNotBlank(globalScript)) {
-                    interpreter.eval(globalScript);
+            if (parameterService.is(ParameterConstants.BSH_COMPILE_SCRIPTS, false)) {
+                List<String> names = new ArrayList<String>();
+                List<Object> values = new ArrayList<Object>();
+                bindCompiledScriptVariables(names, values, platform, context, column, data, sourceValues,
+                        newValue, oldValue);
+                script = scriptCompiler.getCompiledScript("BshColumnTransformScript", globalScript,
+                        transformExpression, names, values, VARIABLE_TYPES);
+                if (script != null) {
+                    result = script.eval(values.toArray());
                 }
-                interpreter.eval(String.format("%s {\n%s\n}", methodName, transformExpression));
-                context.put(methodName, Boolean.TRUE);
             }
 
-            Object result = interpreter.eval(methodName);            
-            
-            if (csvData != null && csvData.getTriggerHistory() != null) {
-                interpreter.unset("sourceSchemaName");
-                interpreter.unset("sourceCatalogName");
-                interpreter.unset("sourceTableName");
-            }
-            
-            for (String columnName : sourceValues.keySet()) {
-                interpreter.unset(columnName.toUpperCase());
-                interpreter.unset(columnName);
+            if (script == null) {
+                result = interpret(platform, context, column, data, sourceValues, newValue, oldValue,
+                        transformExpression, globalScript);
             }
-            
+
             if (result == null) {
             	return null;
             }
@@ -174,6 +174,132 @@ public class BshColumnTransform implements ISingleNewAndOldValueColumnTransform,
         }
     }
 
+    protected Object interpret(IDatabasePlatform platform, DataContext context, TransformColumn column,
+            TransformedData data, Map<String, String> sourceValues, String newValue, String oldValue,
+            String transformExpression, String globalScript) throws EvalError {
+        Interpreter interpreter = getInterpreter(context);
+        interpreter.set("currentValue", newValue);
+        interpreter.set("oldValue", oldValue);
+        interpreter.set("channelId", context.getBatch().getChannelId());
+        interpreter.set("includeOn", column.getIncludeOn());
+        interpreter.set("sourceDmlType", data.getSourceDmlType());
+        interpreter.set("sourceDmlTypeString", data.getSourceDmlType().toString());
+        interpreter.set("transformedData", data);
+        interpreter.set("transformColumn", column);
+        Data csvData = (Data)context.get(Constants.DATA_CONTEXT_CURRENT_CSV_DATA);
+        if (csvData != null && csvData.getTriggerHistory() != null) {
+            interpreter.set("sourceSchemaName", csvData.getTriggerHistory().getSourceSchemaName());
+            interpreter.set("sourceCatalogName", csvData.getTriggerHistory().getSourceCatalogName());
+            interpreter.set("sourceTableName", csvData.getTriggerHistory().getSourceTableName());
+        }  
+        for (String columnName : sourceValues.keySet()) {
+            interpreter.set(columnName.toUpperCase(), sourceValues.get(columnName));
+            interpreter.set(columnName, sourceValues.get(columnName));
+        }
+       
+        String methodName = String.format("transform_%d()",
+                Math.abs(transformExpression.hashCode() + (globalScript == null ? 0 : globalScript.hashCode())));
+        if (context.get(methodName) == null) {
+            interpreter.set("log", log);
+            interpreter.set("sqlTemplate", platform.getSqlTemplate());
+            interpreter.set("context", context);
+            interpreter.set("bshContext", bshContext);
+            interpreter.set(DATA_CONTEXT_ENGINE, context.get(DATA_CONTEXT_ENGINE));            
+            interpreter.set(DATA_CONTEXT_TARGET_NODE, context.get(DATA_CONTEXT_TARGET_NODE));
+            interpreter.set(DATA_CONTEXT_TARGET_NODE_ID, context.get(DATA_CONTEXT_TARGET_NODE_ID));
+            interpreter.set(DATA_CONTEXT_TARGET_NODE_GROUP_ID, context.get(DATA_CONTEXT_TARGET_NODE_GROUP_ID));
+            interpreter.set(DATA_CONTEXT_TARGET_NODE_EXTERNAL_ID, context.get(DATA_CONTEXT_TARGET_NODE_EXTERNAL_ID));            
+            interpreter.set(DATA_CONTEXT_SOURCE_NODE, context.get(DATA_CONTEXT_SOURCE_NODE));
+            interpreter.set(DATA_CONTEXT_SOURCE_NODE_ID, context.get(DATA_CONTEXT_SOURCE_NODE_ID));                                                    
+            interpreter.set(DATA_CONTEXT_SOURCE_NODE_GROUP_ID, context.get(DATA_CONTEXT_SOURCE_NODE_GROUP_ID));                                                    
+            interpreter.set(DATA_CONTEXT_SOURCE_NODE_EXTERNAL_ID, context.get(DATA_CONTEXT_SOURCE_NODE_EXTERNAL_ID));
+            
+            if (StringUtils.isNotBlank(globalScript)) {
+                interpreter.eval(globalScript);
+            }
+            interpreter.eval(String.format("%s {\n%s\n}", methodName, transformExpression));
+            context.put(methodName, Boolean.TRUE);
+        }
+
+        Object result = interpreter.eval(methodName);
+        
+        if (csvData != null && csvData.getTriggerHistory() != null) {
+            interpreter.unset("sourceSchemaName");
+            interpreter.unset("sourceCatalogName");
+            interpreter.unset("sourceTableName");
+        }
+        
+        for (String columnName : sourceValues.keySet()) {
+            interpreter.unset(columnName.toUpperCase());
+            interpreter.unset(columnName);
+        }
+        return result;
+    }
+
+    protected void bindCompiledScriptVariables(List<String> names, List<Object> values, IDatabasePlatform platform,
+            DataContext context, TransformColumn column, TransformedData data, Map<String, String> sourceValues,
+            String newValue, String oldValue) {
+        Set<String> identifiers = scriptCompiler.getIdentifiers(column.getTransformExpression());
+        for (Map.Entry<String, String> sourceValue : sourceValues.entrySet()) {
+            String columnName = sourceValue.getKey();
+            bindCompiledScriptVariable(names, values, identifiers, columnName, sourceValue.getValue());
+            bindCompiledScriptVariable(names, values, identifiers, columnName.toUpperCase(), sourceValue.getValue());
+        }
+
+        Data csvData = (Data) context.get(Constants.DATA_CONTEXT_CURRENT_CSV_DATA);
+        for (String name : VARIABLE_TYPES.keySet()) {
+            if (identifiers.contains(name) && !names.contains(name)) {
+                Object value = null;
+                if (name.equals("currentValue")) {
+                    value = newValue;
+                } else if (name.equals("oldValue")) {
+                    value = oldValue;
+                } else if (name.equals("channelId")) {
+                    value = context.getBatch().getChannelId();
+                } else if (name.equals("includeOn")) {
+                    value = column.getIncludeOn();
+                } else if (name.equals("sourceDmlType")) {
+                    value = data.getSourceDmlType();
+                } else if (name.equals("sourceDmlTypeString")) {
+                    value = data.getSourceDmlType().toString();
+                } else if (name.equals("transformedData")) {
+                    value = data;
+                } else if (name.equals("transformColumn")) {
+                    value = column;
+                } else if (name.equals("sourceSchemaName")) {
+                    value = csvData != null && csvData.getTriggerHistory() != null ? csvData.getTriggerHistory()
+                            .getSourceSchemaName() : null;
+                } else if (name.equals("sourceCatalogName")) {
+                    value = csvData != null && csvData.getTriggerHistory() != null ? csvData.getTriggerHistory()
+                            .getSourceCatalogName() : null;
+                } else if (name.equals("sourceTableName")) {
+                    value = csvData != null && csvData.getTriggerHistory() != null ? csvData.getTriggerHistory()
+                            .getSourceTableName() : null;
+                } else if (name.equals("log")) {
+                    value = log;
+                } else if (name.equals("sqlTemplate")) {
+                    value = platform.getSqlTemplate();
+                } else if (name.equals("context")) {
+                    value = context;
+                } else if (name.equals("bshContext")) {
+                    value = bshContext;
+                } else {
+                    value = context.get(name);
+                }
+                names.add(name);
+                values.add(value);
+            }
+        }
+    }
+
+    protected void bindCompiledScriptVariable(List<String> names, List<Object> values, Set<String> identifiers,
+            String name, Object value) {
+        if (identifiers.contains(name) && !names.contains(name) && BshScriptCompiler.isVariableName(name)) {
+            names.add(name);
+            values.add(value);
+        }
+    }
+
     protected Interpreter getInterpreter(Context context) {
         Interpreter interpreter = (Interpreter) context.get(INTERPRETER_KEY);
         if (interpreter == null) {
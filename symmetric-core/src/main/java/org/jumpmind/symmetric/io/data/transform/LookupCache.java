@@ -0,0 +1,292 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.io.data.transform;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Caches the results of a lookup transform. The cache is configured by a
+ * comment at the start of the transform expression:
+ * 
+ * <pre>
+ * /* cache=lru size=1000 ttl=60000 *&#47; select name from store where code=:STORE_CODE
+ * /* cache=preload key=STORE_CODE ttl=600000 *&#47; select code, name from store
+ * </pre>
+ * 
+ * An lru cache remembers the value returned for the most recently used
+ * combinations of bind variables. A preload cache selects the whole lookup
+ * table once, keyed by the first column, and looks up the value of the key
+ * column (which defaults to the source column of the transform). A ttl of 0
+ * means the cached values never expire on their own.
+ * <p>
+ * Cached values are only invalidated when a batch that was loaded into a
+ * table referenced by the lookup sql commits. Lookups on the extract side are
+ * never invalidated that way, so a ttl of 0 there keeps the values until the
+ * engine restarts. Use a ttl with extract transforms.
+ */
+public class LookupCache {
+
+    public enum Mode {
+        LRU, PRELOAD
+    }
+
+    public static final int DEFAULT_SIZE = 1000;
+
+    public static final long DEFAULT_TTL_IN_MS = 60000;
+
+    private static final Pattern OPTIONS_PATTERN = Pattern.compile(
+            "^\\s*/\\*\\s*(cache\\s*=.*?)\\*/(.*)$", Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern BIND_VARIABLE_PATTERN = Pattern.compile(":(\\w+)");
+
+    private Mode mode = Mode.LRU;
+
+    private int maxSize = DEFAULT_SIZE;
+
+    private long ttlInMs = DEFAULT_TTL_IN_MS;
+
+    private String keyColumn;
+
+    private String sql;
+
+    private String lowerCaseSql;
+
+    private List<String> bindVariables = new ArrayList<String>();
+
+    private Map<List<Object>, CachedValue> recentValues;
+
+    private Map<String, String> preloadedValues;
+
+    private long preloadTime;
+
+    private long generation;
+
+    protected LookupCache() {
+    }
+
+    /**
+     * @return a cache configured from the options comment at the start of the
+     *         expression or null if the expression does not ask to be cached
+     */
+    public static LookupCache parse(String expression) {
+        Matcher matcher = OPTIONS_PATTERN.matcher(expression);
+        if (!matcher.matches()) {
+            return null;
+        }
+
+        LookupCache cache = new LookupCache();
+        String[] options = matcher.group(1).trim().split("[\\s,]+");
+        for (String option : options) {
+            String name = StringUtils.substringBefore(option, "=").trim();
+            String value = StringUtils.substringAfter(option, "=").trim();
+            if (name.equalsIgnoreCase("cache")) {
+                cache.mode = Mode.valueOf(value.toUpperCase());
+            } else if (name.equalsIgnoreCase("size")) {
+                cache.maxSize = Integer.parseInt(value);
+            } else if (name.equalsIgnoreCase("ttl")) {
+                cache.ttlInMs = Long.parseLong(value);
+            } else if (name.equalsIgnoreCase("key")) {
+                cache.keyColumn = value;
+            } else {
+                throw new IllegalArgumentException(String.format(
+                        "Unknown lookup cache option '%s' in: %s", option, expression));
+            }
+        }
+
+        cache.sql = matcher.group(2).trim();
+        cache.lowerCaseSql = cache.sql.toLowerCase();
+        Matcher bindMatcher = BIND_VARIABLE_PATTERN.matcher(cache.sql);
+        while (bindMatcher.find()) {
+            cache.bindVariables.add(bindMatcher.group(1));
+        }
+
+        final int maxEntries = cache.maxSize;
+        cache.recentValues = new LinkedHashMap<List<Object>, CachedValue>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, CachedValue> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        return cache;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getTtlInMs() {
+        return ttlInMs;
+    }
+
+    public String getKeyColumn() {
+        return keyColumn;
+    }
+
+    /**
+     * @return the lookup sql without the options comment
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Build the lru key from the values of the bind variables used by the
+     * lookup sql.
+     */
+    public List<Object> buildKey(Map<String, Object> namedParams) {
+        List<Object> key = new ArrayList<Object>(bindVariables.size());
+        for (String bindVariable : bindVariables) {
+            key.add(namedParams.get(bindVariable));
+        }
+        return key;
+    }
+
+    /**
+     * @return the cached value holder or null if the key is not cached or
+     *         expired. The holder's value may be null when the lookup found no
+     *         row.
+     */
+    public synchronized CachedValue get(List<Object> key) {
+        CachedValue value = recentValues.get(key);
+        if (value != null && isExpired(value.getCacheTime())) {
+            recentValues.remove(key);
+            value = null;
+        }
+        return value;
+    }
+
+    /**
+     * @return the number of times the cache has been cleared. Record it before
+     *         querying a value and pass it to {@link #put} or
+     *         {@link #setPreloadedValues} so a value read before the cache was
+     *         cleared is not cached.
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    public synchronized void put(List<Object> key, String value, long generation) {
+        if (this.generation == generation) {
+            recentValues.put(key, new CachedValue(value, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * @return the preloaded lookup table or null if it needs to be loaded
+     */
+    public synchronized Map<String, String> getPreloadedValues() {
+        if (preloadedValues != null && isExpired(preloadTime)) {
+            preloadedValues = null;
+        }
+        return preloadedValues;
+    }
+
+    public synchronized void setPreloadedValues(Map<String, String> preloadedValues,
+            long generation) {
+        if (this.generation == generation) {
+            this.preloadedValues = preloadedValues;
+            this.preloadTime = System.currentTimeMillis();
+        }
+    }
+
+    public synchronized int size() {
+        return preloadedValues != null ? preloadedValues.size() : recentValues.size();
+    }
+
+    public synchronized void clear() {
+        generation++;
+        recentValues.clear();
+        preloadedValues = null;
+    }
+
+    /**
+     * @return true if the lookup sql references one of the (lower case) table
+     *         names
+     */
+    public boolean references(Collection<String> tableNames) {
+        if (tableNames != null) {
+            Iterator<String> i = tableNames.iterator();
+            while (i.hasNext()) {
+                if (references(i.next())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    protected boolean references(String tableName) {
+        int index = lowerCaseSql.indexOf(tableName);
+        while (index >= 0) {
+            int end = index + tableName.length();
+            if ((index == 0 || !isNamePart(lowerCaseSql.charAt(index - 1)))
+                    && (end == lowerCaseSql.length() || !isNamePart(lowerCaseSql.charAt(end)))) {
+                return true;
+            }
+            index = lowerCaseSql.indexOf(tableName, index + 1);
+        }
+        return false;
+    }
+
+    protected boolean isNamePart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    protected boolean isExpired(long cacheTime) {
+        return ttlInMs > 0 && System.currentTimeMillis() - cacheTime > ttlInMs;
+    }
+
+    public static class CachedValue {
+
+        private String value;
+
+        private long cacheTime;
+
+        public CachedValue(String value, long cacheTime) {
+            this.value = value;
+            this.cacheTime = cacheTime;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public long getCacheTime() {
+            return cacheTime;
+        }
+    }
+
+}
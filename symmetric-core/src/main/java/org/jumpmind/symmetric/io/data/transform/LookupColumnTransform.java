@@ -22,30 +22,82 @@ package org.jumpmind.symmetric.io.data.transform;
 
 import static org.apache.commons.lang.StringUtils.isNotBlank;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
+import org.jumpmind.db.model.Table;
 import org.jumpmind.db.platform.IDatabasePlatform;
+import org.jumpmind.db.sql.ISqlRowMapper;
 import org.jumpmind.db.sql.ISqlTransaction;
+import org.jumpmind.db.sql.Row;
 import org.jumpmind.db.sql.mapper.StringMapper;
 import org.jumpmind.extension.IBuiltInExtensionPoint;
 import org.jumpmind.symmetric.common.Constants;
+import org.jumpmind.symmetric.io.data.CsvData;
 import org.jumpmind.symmetric.io.data.DataContext;
+import org.jumpmind.symmetric.io.data.writer.DatabaseWriterFilterAdapter;
 import org.jumpmind.symmetric.model.Data;
 import org.jumpmind.util.FormatUtils;
 import org.jumpmind.util.LinkedCaseInsensitiveMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class LookupColumnTransform implements ISingleValueColumnTransform, IBuiltInExtensionPoint {
+/**
+ * Looks up the target value with sql. The results can be cached by starting
+ * the expression with an options comment as described by {@link LookupCache}.
+ * Cached lookups are invalidated when a batch that wrote to a table referenced
+ * by the lookup sql commits. Until then, lookups made while loading that batch
+ * bypass the cache so they see the batch's uncommitted changes. A preload
+ * lookup in that situation is preloaded once in the batch's transaction and
+ * reused for the rest of the batch. A value read before a commit cleared the
+ * cache is not cached. Extract side lookups are only refreshed by their ttl.
+ */
+public class LookupColumnTransform extends DatabaseWriterFilterAdapter implements
+        ISingleValueColumnTransform, IBuiltInExtensionPoint {
 
     protected final Logger log = LoggerFactory.getLogger(getClass());
 
     public static final String NAME = "lookup";
 
+    protected static final String WRITTEN_TABLES = LookupColumnTransform.class.getSimpleName()
+            + ".writtenTables";
+
+    protected static final String BATCH_PRELOADS = LookupColumnTransform.class.getSimpleName()
+            + ".batchPreloads";
+
+    protected static final int MAX_CACHES = 100;
+
     protected static final StringMapper lookupColumnRowMapper = new StringMapper();
 
+    protected static final ISqlRowMapper<String[]> preloadRowMapper = new ISqlRowMapper<String[]>() {
+        public String[] mapRow(Row row) {
+            String[] keyValue = new String[2];
+            int index = 0;
+            for (String columnName : row.keySet()) {
+                if (index < keyValue.length) {
+                    keyValue[index++] = row.getString(columnName);
+                }
+            }
+            return keyValue;
+        }
+    };
+
+    protected Map<String, LookupCache> caches = Collections
+            .synchronizedMap(new LinkedHashMap<String, LookupCache>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, LookupCache> eldest) {
+                    return size() > MAX_CACHES;
+                }
+            });
+
     public String getName() {
         return NAME;
     }
@@ -67,9 +119,43 @@ public class LookupColumnTransform implements ISingleValueColumnTransform, IBuil
         String lookupValue = null;
 
         if (StringUtils.isNotBlank(sql)) {
+            LookupCache cache = getLookupCache(sql);
+            boolean useCache = false;
+            if (cache != null) {
+                sql = cache.getSql();
+                useCache = !cache.references(getWrittenTables(context));
+            }
+
             ISqlTransaction transaction = context.findTransaction();
-            List<String> values = null;
             LinkedCaseInsensitiveMap<Object> namedParams = new LinkedCaseInsensitiveMap<Object>(sourceValues);
+            if (cache != null && cache.getMode() == LookupCache.Mode.PRELOAD) {
+                Map<String, String> values = null;
+                if (useCache) {
+                    values = cache.getPreloadedValues();
+                    if (values == null) {
+                        long generation = cache.getGeneration();
+                        values = preload(platform, transaction, sql);
+                        cache.setPreloadedValues(values, generation);
+                    }
+                } else {
+                    Map<LookupCache, Map<String, String>> batchPreloads = getBatchPreloads(context);
+                    values = batchPreloads.get(cache);
+                    if (values == null) {
+                        values = preload(platform, transaction, sql);
+                        batchPreloads.put(cache, values);
+                    }
+                }
+                String keyColumn = cache.getKeyColumn() != null ? cache.getKeyColumn() : column
+                        .getSourceColumnName();
+                lookupValue = values.get(namedParams.get(keyColumn));
+                if (lookupValue == null) {
+                    log.info(
+                            "Expected a single row, but the preloaded lookup had no row for target column {} on transform {}",
+                            column.getTargetColumnName(), column.getTransformId());
+                }
+                return lookupValue;
+            }
+
             if (data.getOldSourceValues() != null && sql.contains(":OLD_")) {
                 for (Map.Entry<String, String> oldColumn : data.getOldSourceValues().entrySet()) {
                     namedParams.put("OLD_" + oldColumn.getKey().toUpperCase(), oldColumn.getValue());
@@ -80,25 +166,22 @@ public class LookupColumnTransform implements ISingleValueColumnTransform, IBuil
                     namedParams.put("TRM_" + transformedCol.getKey().toUpperCase(), transformedCol.getValue());
                 }
             }
-            if (transaction != null) {
-                values = transaction.query(sql, lookupColumnRowMapper, namedParams);
-            } else {
-                values = platform.getSqlTemplate().query(sql, lookupColumnRowMapper, namedParams);
+
+            List<Object> key = null;
+            long generation = 0;
+            if (useCache) {
+                key = cache.buildKey(namedParams);
+                LookupCache.CachedValue cachedValue = cache.get(key);
+                if (cachedValue != null) {
+                    return cachedValue.getValue();
+                }
+                generation = cache.getGeneration();
             }
 
-            int rowCount = values.size();
-
-            if (rowCount == 1) {
-                lookupValue = values.get(0);
-            } else if (rowCount > 1) {
-                lookupValue = values.get(0);
-                log.warn(
-                        "Expected a single row, but returned multiple rows from lookup for target column {} on transform {} ",
-                        column.getTargetColumnName(), column.getTransformId());
-            } else if (values.size() == 0) {
-                log.info(
-                        "Expected a single row, but returned no rows from lookup for target column {} on transform {}",
-                        column.getTargetColumnName(), column.getTransformId());
+            lookupValue = lookup(platform, transaction, column, sql, namedParams);
+
+            if (useCache) {
+                cache.put(key, lookupValue, generation);
             }
         } else {
             log.warn(
@@ -107,7 +190,118 @@ public class LookupColumnTransform implements ISingleValueColumnTransform, IBuil
         }
         return lookupValue;
     }
-    
+
+    protected String lookup(IDatabasePlatform platform, ISqlTransaction transaction,
+            TransformColumn column, String sql, Map<String, Object> namedParams) {
+        String lookupValue = null;
+        List<String> values = null;
+        if (transaction != null) {
+            values = transaction.query(sql, lookupColumnRowMapper, namedParams);
+        } else {
+            values = platform.getSqlTemplate().query(sql, lookupColumnRowMapper, namedParams);
+        }
+
+        int rowCount = values.size();
+
+        if (rowCount == 1) {
+            lookupValue = values.get(0);
+        } else if (rowCount > 1) {
+            lookupValue = values.get(0);
+            log.warn(
+                    "Expected a single row, but returned multiple rows from lookup for target column {} on transform {} ",
+                    column.getTargetColumnName(), column.getTransformId());
+        } else if (values.size() == 0) {
+            log.info(
+                    "Expected a single row, but returned no rows from lookup for target column {} on transform {}",
+                    column.getTargetColumnName(), column.getTransformId());
+        }
+        return lookupValue;
+    }
+
+    protected Map<String, String> preload(IDatabasePlatform platform, ISqlTransaction transaction,
+            String sql) {
+        Map<String, Object> noParams = new HashMap<String, Object>(0);
+        List<String[]> rows = null;
+        if (transaction != null) {
+            rows = transaction.query(sql, preloadRowMapper, noParams);
+        } else {
+            rows = platform.getSqlTemplate().query(sql, preloadRowMapper, noParams);
+        }
+
+        Map<String, String> values = new HashMap<String, String>(rows.size());
+        for (String[] row : rows) {
+            if (!values.containsKey(row[0])) {
+                values.put(row[0], row[1]);
+            }
+        }
+        log.debug("Preloaded {} rows for lookup: {}", values.size(), sql);
+        return values;
+    }
+
+    protected LookupCache getLookupCache(String expression) {
+        LookupCache cache = null;
+        if (expression.trim().startsWith("/*")) {
+            cache = caches.get(expression);
+            if (cache == null) {
+                cache = LookupCache.parse(expression);
+                if (cache != null) {
+                    caches.put(expression, cache);
+                }
+            }
+        }
+        return cache;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Map<LookupCache, Map<String, String>> getBatchPreloads(DataContext context) {
+        Map<LookupCache, Map<String, String>> batchPreloads = (Map<LookupCache, Map<String, String>>) context
+                .get(BATCH_PRELOADS);
+        if (batchPreloads == null) {
+            batchPreloads = new HashMap<LookupCache, Map<String, String>>();
+            context.put(BATCH_PRELOADS, batchPreloads);
+        }
+        return batchPreloads;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Set<String> getWrittenTables(DataContext context) {
+        return (Set<String>) context.get(WRITTEN_TABLES);
+    }
+
+    @Override
+    public void afterWrite(DataContext context, Table table, CsvData data) {
+        if (caches.size() > 0) {
+            Set<String> tables = getWrittenTables(context);
+            if (tables == null) {
+                tables = new HashSet<String>();
+                context.put(WRITTEN_TABLES, tables);
+            }
+            tables.add(table.getName().toLowerCase());
+        }
+    }
+
+    @Override
+    public void batchCommitted(DataContext context) {
+        Set<String> tables = getWrittenTables(context);
+        if (tables != null) {
+            synchronized (caches) {
+                for (LookupCache cache : caches.values()) {
+                    if (cache.references(tables)) {
+                        cache.clear();
+                    }
+                }
+            }
+            context.remove(WRITTEN_TABLES);
+        }
+        context.remove(BATCH_PRELOADS);
+    }
+
+    @Override
+    public void batchRolledback(DataContext context) {
+        context.remove(WRITTEN_TABLES);
+        context.remove(BATCH_PRELOADS);
+    }
+
     protected String doTokenReplacementOnSql(DataContext context, String sql) {
         if (isNotBlank(sql)) {
             Data csvData = (Data) context.get(Constants.DATA_CONTEXT_CURRENT_CSV_DATA);
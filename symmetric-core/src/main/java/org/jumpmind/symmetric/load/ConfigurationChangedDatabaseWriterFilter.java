@@ -20,6 +20,8 @@
  */
 package org.jumpmind.symmetric.load;
 
+import java.util.Arrays;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -41,6 +43,7 @@ import org.jumpmind.symmetric.model.IncomingBatch;
 import org.jumpmind.symmetric.model.NodeSecurity;
 import org.jumpmind.symmetric.service.INodeService;
 import org.jumpmind.symmetric.service.IParameterService;
+import org.jumpmind.util.FormatUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -84,6 +87,15 @@ public class ConfigurationChangedDatabaseWriterFilter extends DatabaseWriterFilt
     final String CTX_KEY_FLUSH_NODE_NEEDED = "FlushNode."
             + ConfigurationChangedDatabaseWriterFilter.class.getSimpleName() + hashCode();
 
+    final String CTX_KEY_RELOAD_NODE_SECURITY_NEEDED = "ReloadNodeSecurity."
+            + ConfigurationChangedDatabaseWriterFilter.class.getSimpleName() + hashCode();
+
+    final String CTX_KEY_RELOAD_NODE_NEEDED = "ReloadNode."
+            + ConfigurationChangedDatabaseWriterFilter.class.getSimpleName() + hashCode();
+
+    final String CTX_KEY_LOAD_TIME = "LoadTime."
+            + ConfigurationChangedDatabaseWriterFilter.class.getSimpleName() + hashCode();
+
     final String CTX_KEY_RESTART_JOBMANAGER_NEEDED = "RestartJobManager."
             + ConfigurationChangedDatabaseWriterFilter.class.getSimpleName() + hashCode();
     
@@ -110,10 +122,53 @@ public class ConfigurationChangedDatabaseWriterFilter extends DatabaseWriterFilt
                 context.put(CTX_KEY_REINITIALIZED, Boolean.TRUE);
             }
         } 
+
+        if ((data.getDataEventType() == DataEventType.INSERT || data.getDataEventType() == DataEventType.UPDATE)
+                && (matchesTable(table, TableConstants.SYM_NODE) || matchesTable(table, TableConstants.SYM_NODE_SECURITY))) {
+            stampLastUpdateTime(context, table, data);
+        }
         
         return true;
     }
 
+    /**
+     * The node caches look for changed rows by last_update_time, so a loaded
+     * row is stamped with the database time the batch was loaded at instead of
+     * the time it changed on the node that sent it. Rows from older versions
+     * that do not send last_update_time can not be found that way, so the
+     * cache is reloaded in full instead.
+     */
+    private void stampLastUpdateTime(DataContext context, Table table, CsvData data) {
+        int index = table.getColumnIndex("last_update_time");
+        String[] rowData = data.getParsedData(CsvData.ROW_DATA);
+        if (index >= 0 && rowData != null && index < rowData.length) {
+            Date loadTime = (Date) context.get(CTX_KEY_LOAD_TIME);
+            if (loadTime == null) {
+                loadTime = new Date(engine.getSymmetricDialect().getDatabaseTime());
+                context.put(CTX_KEY_LOAD_TIME, loadTime);
+            }
+            rowData = Arrays.copyOf(rowData, rowData.length);
+            rowData[index] = FormatUtils.TIMESTAMP_FORMATTER.format(loadTime);
+            data.putParsedData(CsvData.ROW_DATA, rowData);
+        } else if (matchesTable(table, TableConstants.SYM_NODE)) {
+            context.put(CTX_KEY_RELOAD_NODE_NEEDED, true);
+        } else {
+            context.put(CTX_KEY_RELOAD_NODE_SECURITY_NEEDED, true);
+        }
+    }
+
+    @Override
+    public void batchComplete(DataContext context) {
+        context.remove(CTX_KEY_LOAD_TIME);
+    }
+
+    @Override
+    public void batchRolledback(DataContext context) {
+        context.remove(CTX_KEY_LOAD_TIME);
+        context.remove(CTX_KEY_RELOAD_NODE_SECURITY_NEEDED);
+        context.remove(CTX_KEY_RELOAD_NODE_NEEDED);
+    }
+
     @Override
     public void afterWrite(DataContext context, Table table, CsvData data) {
         recordSyncNeeded(context, table, data);
@@ -355,13 +410,23 @@ public class ConfigurationChangedDatabaseWriterFilter extends DatabaseWriterFilt
 
         if (context.get(CTX_KEY_FLUSH_NODE_SECURITY_NEEDED) != null) {
             log.info("About to refresh the cache of node security because new configuration came through the data loader");
-            nodeService.flushNodeAuthorizedCache();
+            if (context.get(CTX_KEY_RELOAD_NODE_SECURITY_NEEDED) != null) {
+                nodeService.flushNodeAuthorizedCache();
+                context.remove(CTX_KEY_RELOAD_NODE_SECURITY_NEEDED);
+            } else {
+                nodeService.getNodeSecurityCache().expire();
+            }
             context.remove(CTX_KEY_FLUSH_NODE_SECURITY_NEEDED);
         }
 
         if (context.get(CTX_KEY_FLUSH_NODE_NEEDED) != null) {
             log.info("About to refresh the cache of nodes because new configuration came through the data loader");
-            nodeService.flushNodeCache();
+            if (context.get(CTX_KEY_RELOAD_NODE_NEEDED) != null) {
+                nodeService.flushNodeCache();
+                context.remove(CTX_KEY_RELOAD_NODE_NEEDED);
+            } else {
+                nodeService.getNodeCache().expire();
+            }
             context.remove(CTX_KEY_FLUSH_NODE_NEEDED);
         }
 
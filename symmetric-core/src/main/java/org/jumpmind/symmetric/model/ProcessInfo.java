@@ -156,6 +156,15 @@ public class ProcessInfo implements Serializable, Comparable<ProcessInfo>, Clone
         this.currentDataCount = dataCount;
     }
 
+    /**
+     * @return the number of data processed per second since the current batch
+     *         was started
+     */
+    public long getCurrentDataCountPerSecond() {
+        long elapsedMs = System.currentTimeMillis() - getCurrentBatchStartTime().getTime();
+        return elapsedMs > 0 ? currentDataCount * 1000 / elapsedMs : 0;
+    }
+
     public long getBatchCount() {
         return batchCount;
     }
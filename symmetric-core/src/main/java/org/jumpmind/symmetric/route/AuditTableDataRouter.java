@@ -25,6 +25,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.jumpmind.db.model.Column;
 import org.jumpmind.db.model.Table;
@@ -54,7 +55,7 @@ public class AuditTableDataRouter extends AbstractDataRouter implements IBuiltIn
 
     private ISymmetricEngine engine;
 
-    private Map<String, Table> auditTables = new HashMap<String, Table>();
+    private Map<String, Table> auditTables = new ConcurrentHashMap<String, Table>();
 
     public AuditTableDataRouter(ISymmetricEngine engine) {
         this.engine = engine;
@@ -74,10 +75,19 @@ public class AuditTableDataRouter extends AbstractDataRouter implements IBuiltIn
             String tableName = table.getFullyQualifiedTableName();
             Table auditTable = auditTables.get(tableName);
             if (auditTable == null) {
-                auditTable = toAuditTable(table);
-                auditTables.put(tableName, auditTable);
-                if (parameterService.is(ParameterConstants.AUTO_CONFIGURE_DATABASE)) {
-                    platform.alterTables(true, auditTable);
+                /*
+                 * Channels are routed in parallel, so only one thread may
+                 * create the audit table before it is handed out to others
+                 */
+                synchronized (auditTables) {
+                    auditTable = auditTables.get(tableName);
+                    if (auditTable == null) {
+                        auditTable = toAuditTable(table);
+                        if (parameterService.is(ParameterConstants.AUTO_CONFIGURE_DATABASE)) {
+                            platform.alterTables(true, auditTable);
+                        }
+                        auditTables.put(tableName, auditTable);
+                    }
                 }
             }
             DatabaseInfo dbInfo = platform.getDatabaseInfo();
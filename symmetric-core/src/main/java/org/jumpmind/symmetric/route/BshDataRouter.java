@@ -20,17 +20,23 @@
  */
 package org.jumpmind.symmetric.route;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.jumpmind.extension.IBuiltInExtensionPoint;
 import org.jumpmind.symmetric.ISymmetricEngine;
+import org.jumpmind.symmetric.common.ParameterConstants;
 import org.jumpmind.symmetric.model.DataMetaData;
 import org.jumpmind.symmetric.model.Node;
 import org.jumpmind.symmetric.model.TriggerRouter;
+import org.jumpmind.symmetric.util.BshScriptCompiler;
+import org.jumpmind.symmetric.util.ICompiledScript;
 
 import bsh.EvalError;
 import bsh.Interpreter;
@@ -47,6 +53,10 @@ import bsh.TargetError;
  * using upper case. Also bound to the interpreter is a {@link Collection} of
  * targetNodes. The script is expected to add the the list of target nodes a
  * list of the node_ids that should be routed to.
+ * <P/>
+ * When {@link ParameterConstants#BSH_COMPILE_SCRIPTS} is enabled, expressions
+ * that are also valid Java are compiled by the {@link BshScriptCompiler} and
+ * only the variables the expression refers to are bound for each row.
  */
 public class BshDataRouter extends AbstractDataRouter implements IBuiltInExtensionPoint {
 
@@ -54,6 +64,21 @@ public class BshDataRouter extends AbstractDataRouter implements IBuiltInExtensi
 
     final String INTERPRETER_KEY = String.format("%d.BshInterpreter", hashCode());
 
+    protected static final Map<String, String> VARIABLE_TYPES = new LinkedHashMap<String, String>();
+
+    static {
+        VARIABLE_TYPES.put("log", "org.slf4j.Logger");
+        VARIABLE_TYPES.put("initialLoad", "Boolean");
+        VARIABLE_TYPES.put("dataMetaData", "org.jumpmind.symmetric.model.DataMetaData");
+        VARIABLE_TYPES.put("nodes", "Set<org.jumpmind.symmetric.model.Node>");
+        VARIABLE_TYPES.put("nodeIds", "Set<String>");
+        VARIABLE_TYPES.put("identityNodeId", "String");
+        VARIABLE_TYPES.put("targetNodes", "Set<String>");
+        VARIABLE_TYPES.put("engine", "org.jumpmind.symmetric.ISymmetricEngine");
+    }
+
+    protected BshScriptCompiler scriptCompiler = new BshScriptCompiler();
+
     public BshDataRouter(ISymmetricEngine engine) {
         this.engine = engine;
     }
@@ -61,13 +86,23 @@ public class BshDataRouter extends AbstractDataRouter implements IBuiltInExtensi
     public Set<String> routeToNodes(SimpleRouterContext context, DataMetaData dataMetaData,
             Set<Node> nodes, boolean initialLoad, boolean initialLoadSelectUsed,
             TriggerRouter triggerRouter) {
+        Map<String, Object> params = getDataObjectMap(dataMetaData, engine.getSymmetricDialect(),
+                true);
+        if (engine.getParameterService().is(ParameterConstants.BSH_COMPILE_SCRIPTS, false)) {
+            Set<String> targetNodes = routeWithCompiledScript(context, dataMetaData, params, nodes,
+                    initialLoad);
+            if (targetNodes != null) {
+                return targetNodes;
+            }
+        }
+        
         try {
             long ts = System.currentTimeMillis();
             Interpreter interpreter = getInterpreter(context);
             context.incrementStat(System.currentTimeMillis() - ts, "bsh.init.ms");
             HashSet<String> targetNodes = new HashSet<String>();
             ts = System.currentTimeMillis();
-            bind(interpreter, dataMetaData, nodes, targetNodes, initialLoad);
+            bind(interpreter, dataMetaData, params, nodes, targetNodes, initialLoad);
             context.incrementStat(System.currentTimeMillis() - ts, "bsh.bind.ms");
             ts = System.currentTimeMillis();
             Object returnValue = interpreter.eval(dataMetaData.getRouter().getRouterExpression());
@@ -87,6 +122,78 @@ public class BshDataRouter extends AbstractDataRouter implements IBuiltInExtensi
         }
     }
 
+    /**
+     * @return the target nodes or null if the router expression could not be
+     *         compiled and has to be interpreted
+     */
+    protected Set<String> routeWithCompiledScript(SimpleRouterContext context, DataMetaData dataMetaData,
+            Map<String, Object> params, Set<Node> nodes, boolean initialLoad) {
+        long ts = System.currentTimeMillis();
+        String expression = dataMetaData.getRouter().getRouterExpression();
+        Set<String> identifiers = scriptCompiler.getIdentifiers(expression);
+        HashSet<String> targetNodes = new HashSet<String>();
+        List<String> names = new ArrayList<String>();
+        List<Object> values = new ArrayList<Object>();
+        if (params != null) {
+            for (Map.Entry<String, Object> param : params.entrySet()) {
+                if (identifiers.contains(param.getKey())
+                        && BshScriptCompiler.isVariableName(param.getKey())) {
+                    names.add(param.getKey());
+                    values.add(param.getValue());
+                }
+            }
+        }
+
+        for (String name : VARIABLE_TYPES.keySet()) {
+            if (identifiers.contains(name) && !names.contains(name)) {
+                names.add(name);
+                values.add(getVariable(name, dataMetaData, nodes, targetNodes, initialLoad));
+            }
+        }
+
+        ICompiledScript script = scriptCompiler.getCompiledScript("BshDataRouterScript", null,
+                expression, names, values, VARIABLE_TYPES);
+        context.incrementStat(System.currentTimeMillis() - ts, "bsh.bind.ms");
+        if (script == null) {
+            return null;
+        }
+
+        ts = System.currentTimeMillis();
+        Object returnValue = null;
+        try {
+            returnValue = script.eval(values.toArray());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Routing script failed", e);
+        }
+        context.incrementStat(System.currentTimeMillis() - ts, "bsh.eval.ms");
+        return eval(returnValue, nodes, targetNodes);
+    }
+
+    protected Object getVariable(String name, DataMetaData dataMetaData, Set<Node> nodes,
+            Set<String> targetNodes, boolean initialLoad) {
+        if (name.equals("log")) {
+            return log;
+        } else if (name.equals("initialLoad")) {
+            return initialLoad;
+        } else if (name.equals("dataMetaData")) {
+            return dataMetaData;
+        } else if (name.equals("nodes")) {
+            return nodes;
+        } else if (name.equals("nodeIds")) {
+            return toNodeIds(nodes, null);
+        } else if (name.equals("identityNodeId")) {
+            return engine.getNodeService().findIdentityNodeId();
+        } else if (name.equals("targetNodes")) {
+            return targetNodes;
+        } else if (name.equals("engine")) {
+            return engine;
+        } else {
+            return null;
+        }
+    }
+
     protected Interpreter getInterpreter(SimpleRouterContext context) {
         Interpreter interpreter = (Interpreter) context.getContextCache().get(INTERPRETER_KEY);
         if (interpreter == null) {
@@ -120,8 +227,8 @@ public class BshDataRouter extends AbstractDataRouter implements IBuiltInExtensi
         }
     }
 
-    protected void bind(Interpreter interpreter, DataMetaData dataMetaData, Set<Node> nodes,
-            Set<String> targetNodes, boolean initialLoad) throws EvalError {
+    protected void bind(Interpreter interpreter, DataMetaData dataMetaData, Map<String, Object> params,
+            Set<Node> nodes, Set<String> targetNodes, boolean initialLoad) throws EvalError {
         interpreter.set("log", log);
         interpreter.set("initialLoad", initialLoad);
         interpreter.set("dataMetaData", dataMetaData);
@@ -130,8 +237,6 @@ public class BshDataRouter extends AbstractDataRouter implements IBuiltInExtensi
         interpreter.set("identityNodeId", engine.getNodeService().findIdentityNodeId());
         interpreter.set("targetNodes", targetNodes);
         interpreter.set("engine", engine);
-        Map<String, Object> params = getDataObjectMap(dataMetaData, engine.getSymmetricDialect(),
-                true);
         if (params != null) {
             for (String param : params.keySet()) {
                 interpreter.set(param, params.get(param));
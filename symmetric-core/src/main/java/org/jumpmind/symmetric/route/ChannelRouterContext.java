@@ -51,6 +51,7 @@ public class ChannelRouterContext extends SimpleRouterContext {
     public static final String STAT_REREAD_DATA_MS = "data.reread.time.ms";
     public static final String STAT_ENQUEUE_DATA_MS = "data.enqueue.time.ms";
     public static final String STAT_ENQUEUE_EOD_MS = "data.enqueue.eod.time.ms";
+    public static final String STAT_PEEK_AHEAD_MS = "data.peek.ahead.time.ms";
     public static final String STAT_DATA_EVENTS_INSERTED = "data.events.insert.count";
     public static final String STAT_DATA_ROUTED_COUNT = "data.routed.count";
     public static final String STAT_ROUTE_TOTAL_TIME = "total.time.ms";
@@ -71,10 +72,12 @@ public class ChannelRouterContext extends SimpleRouterContext {
     private long dataReadCount;
     private long peekAheadFillCount;
     private long maxPeekAheadQueueSize;
+    private long maxPeekAheadTransactionCount;
     private List<DataGap> dataGaps = new ArrayList<DataGap>();
     private Set<String> transactions = new HashSet<String>();
     private long lastDataId = -1;
-    private List<Long> dataIds = new ArrayList<Long>();
+    private DataIdList dataIds = new DataIdList();
+    private IDataToRouteReader dataToRouteReader;
 
     public ChannelRouterContext(String nodeId, NodeChannel channel, ISqlTransaction transaction)
             throws SQLException {
@@ -152,6 +155,7 @@ public class ChannelRouterContext extends SimpleRouterContext {
         if (log.isDebugEnabled()) {
             log.debug(channel.getChannelId() + ", startDataId=" + startDataId + ", endDataId=" + endDataId + 
                     ", dataReadCount=" + dataReadCount + ", peekAheadFillCount=" + peekAheadFillCount +
+                    ", maxPeekAheadQueueSize=" + maxPeekAheadQueueSize + ", maxPeekAheadTransactionCount=" + maxPeekAheadTransactionCount +
                     ", transactions=" + transactions.toString() + ", dataGaps=" + dataGaps.toString()); 
         }
     }
@@ -244,6 +248,14 @@ public class ChannelRouterContext extends SimpleRouterContext {
         this.maxPeekAheadQueueSize = maxPeekAheadQueueSize;
     }
 
+    public long getMaxPeekAheadTransactionCount() {
+        return maxPeekAheadTransactionCount;
+    }
+
+    public void setMaxPeekAheadTransactionCount(long maxPeekAheadTransactionCount) {
+        this.maxPeekAheadTransactionCount = maxPeekAheadTransactionCount;
+    }
+
     public void incrementPeekAheadFillCount(long peekAheadFillCount) {
         this.peekAheadFillCount += peekAheadFillCount;
     }
@@ -274,8 +286,24 @@ public class ChannelRouterContext extends SimpleRouterContext {
         return onlyDefaultRoutersAssigned;
     }
 
-    public List<Long> getDataIds() {
+    public DataIdList getDataIds() {
         return dataIds;
     }
+
+    public void setDataToRouteReader(IDataToRouteReader dataToRouteReader) {
+        this.dataToRouteReader = dataToRouteReader;
+    }
+
+    /**
+     * @return up to maxCount of the data that will be routed next. Routers can
+     *         use this to look up what they need for several rows at once.
+     */
+    public List<Data> peekAhead(int maxCount) {
+        if (dataToRouteReader != null) {
+            return dataToRouteReader.peekAhead(maxCount);
+        } else {
+            return new ArrayList<Data>(0);
+        }
+    }
     
 }
@@ -263,6 +263,9 @@ public class DataGapDetector {
     public void addDataIds(List<Long> dataIds) {
     }
 
+    public void addDataIds(DataIdList dataIds) {
+    }
+
     public void setIsAllDataRead(boolean isAllDataRead) {
     }
     
@@ -21,14 +21,12 @@
 package org.jumpmind.symmetric.route;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.jumpmind.db.sql.ISqlRowMapper;
 import org.jumpmind.db.sql.ISqlTemplate;
@@ -72,13 +70,13 @@ public class DataGapFastDetector extends DataGapDetector implements ISqlRowMappe
     
     protected List<DataGap> gaps;
     
-    protected List<Long> dataIds;
+    protected DataIdList dataIds;
     
     protected boolean isAllDataRead = true;
     
     protected long maxDataToSelect;
 
-    protected boolean isFullGapAnalysis = true;
+    protected volatile boolean isFullGapAnalysis = true;
     
     protected long lastBusyExpireRunTime;
 
@@ -92,6 +90,11 @@ public class DataGapFastDetector extends DataGapDetector implements ISqlRowMappe
     
     protected boolean useInMemoryGaps;
 
+    /**
+     * The single gap that stands in for the in-memory gaps in sym_data_gap
+     */
+    protected DataGap inMemoryGap;
+
     public DataGapFastDetector(IDataService dataService, IParameterService parameterService, IContextService contextService,
             ISymmetricDialect symmetricDialect, IRouterService routerService, IStatisticManager statisticManager, INodeService nodeService) {
         this.dataService = dataService;
@@ -138,8 +141,8 @@ public class DataGapFastDetector extends DataGapDetector implements ISqlRowMappe
 
     protected void reset() {
         isAllDataRead = true;
-        dataIds = new ArrayList<Long>();
-        gapsAll = new HashSet<DataGap>();
+        dataIds = new DataIdList();
+        gapsAll = new TreeSet<DataGap>();
         gapsAdded = new HashSet<DataGap>();
         gapsDeleted = new HashSet<DataGap>();
     }
@@ -190,23 +193,19 @@ public class DataGapFastDetector extends DataGapDetector implements ISqlRowMappe
             int rangeChecked = 0;
             int expireChecked = 0;
             gapsAll.addAll(gaps);
-            Map<DataGap, List<Long>> dataIdMap = getDataIdMap();
-
-            if (System.currentTimeMillis() - ts > 30000) {
-                log.info("It took {}ms to map {} data IDs into {} gaps", new Object[] { System.currentTimeMillis() - ts,
-                        dataIds.size(), gaps.size() });
-            }
+            dataIds.sort();
 
             for (final DataGap dataGap : gaps) {
                 final boolean lastGap = dataGap.equals(gaps.get(gaps.size() - 1));
                 lastDataId = -1;
-                List<Long> ids = dataIdMap.get(dataGap);
+                int startIndex = dataIds.indexOfFirstAtLeast(dataGap.getStartId());
+                int endIndex = dataIds.indexOfFirstAtLeast(dataGap.getEndId() + 1);
                 
-                dataIdCount += ids.size();
+                dataIdCount += endIndex - startIndex;
                 rangeChecked += dataGap.getEndId() - dataGap.getStartId();
                 
                 // if we found data in the gap
-                if (ids.size() > 0) {
+                if (endIndex > startIndex) {
                     gapsDeleted.add(dataGap);
                     gapsAll.remove(dataGap);
 
@@ -243,8 +242,8 @@ public class DataGapFastDetector extends DataGapDetector implements ISqlRowMappe
                     }
                 }
 
-                for (Number number : ids) {
-                    long dataId = number.longValue();
+                for (int i = startIndex; i < endIndex; i++) {
+                    long dataId = dataIds.get(i);
                     processInfo.incrementCurrentDataCount();
                     if (lastDataId == -1 && dataGap.getStartId() + dataIdIncrementBy <= dataId) {
                         // there was a new gap at the start
@@ -287,6 +286,7 @@ public class DataGapFastDetector extends DataGapDetector implements ISqlRowMappe
             if (updateTimeInMs > 10000) {
                 log.info("Detecting gaps took {} ms", updateTimeInMs);
             }
+            statisticManager.addDataGapStats(gaps.size(), dataIdCount, updateTimeInMs);
             processInfo.setStatus(Status.OK);
         } catch (RuntimeException ex) {
             processInfo.setStatus(Status.ERROR);
@@ -327,31 +327,42 @@ public class DataGapFastDetector extends DataGapDetector implements ISqlRowMappe
         if (totalGapChanges > 0) {
             ISqlTransaction transaction = null;
             gaps = new ArrayList<DataGap>(gapsAll);
-            Collections.sort(gaps);
             try {
                 transaction = sqlTemplate.startSqlTransaction();
                 int maxGapChanges = parameterService.getInt(ParameterConstants.ROUTING_MAX_GAP_CHANGES);
+                boolean isInMemory = useInMemoryGaps;
+                DataGap persistedGap = inMemoryGap;
                 if (!parameterService.is(ParameterConstants.CLUSTER_LOCKING_ENABLED) && (totalGapChanges > maxGapChanges || useInMemoryGaps)) {
-                    dataService.deleteAllDataGaps(transaction);
                     if (useInMemoryGaps && totalGapChanges <= maxGapChanges) {
                         log.info("There are {} data gap changes, which is within the max of {}, so switching to database", 
                                 totalGapChanges, maxGapChanges);
-                        useInMemoryGaps = false;
-                        printStats = insertDataGaps(transaction, ts, printStats);
+                        dataService.deleteAllDataGaps(transaction);
+                        isInMemory = false;
+                        persistedGap = null;
+                        printStats = insertDataGaps(transaction, gaps, ts, printStats);
                     } else {
+                        DataGap newGap = new DataGap(gaps.get(0).getStartId(), gaps.get(gaps.size() - 1).getEndId());
                         if (!useInMemoryGaps) {
                             log.info("There are {} data gap changes, which exceeds the max of {}, so switching to in-memory", 
                                     totalGapChanges, maxGapChanges);
-                            useInMemoryGaps = true;
-                        }   
-                        DataGap newGap = new DataGap(gaps.get(0).getStartId(), gaps.get(gaps.size() - 1).getEndId());
-                        dataService.insertDataGap(transaction, newGap);
+                            dataService.deleteAllDataGaps(transaction);
+                            isInMemory = true;
+                            persistedGap = null;
+                        } else if (persistedGap != null && !persistedGap.equals(newGap)) {
+                            dataService.deleteDataGap(transaction, persistedGap);
+                        }
+                        if (!newGap.equals(persistedGap)) {
+                            dataService.insertDataGap(transaction, newGap);
+                            persistedGap = newGap;
+                        }
                     }
                 } else {
                     printStats = deleteDataGaps(transaction, ts, printStats);
-                    printStats = insertDataGaps(transaction, ts, printStats);
+                    printStats = insertDataGaps(transaction, gapsAdded, ts, printStats);
                 }
                 transaction.commit();
+                useInMemoryGaps = isInMemory;
+                inMemoryGap = persistedGap;
             } catch (Error ex) {
                 if (transaction != null) {
                     transaction.rollback();
@@ -385,14 +396,14 @@ public class DataGapFastDetector extends DataGapDetector implements ISqlRowMappe
         return printStats;
     }
 
-    protected long insertDataGaps(ISqlTransaction transaction, long ts, long printStats) {
+    protected long insertDataGaps(ISqlTransaction transaction, Collection<DataGap> gapsToInsert, long ts, long printStats) {
         int counter = 0;
-        for (DataGap dataGap : gapsAdded) {
+        for (DataGap dataGap : gapsToInsert) {
             dataService.insertDataGap(transaction, dataGap);
             counter++;
             if (System.currentTimeMillis() - printStats > 30000) {
                 log.info("The data gap detection has been running for {}ms, inserted {} of {} new gaps", new Object[] {
-                        System.currentTimeMillis() - ts, counter, gapsDeleted.size() });
+                        System.currentTimeMillis() - ts, counter, gapsToInsert.size() });
                 printStats = System.currentTimeMillis();
             }
         }
@@ -415,34 +426,6 @@ public class DataGapFastDetector extends DataGapDetector implements ISqlRowMappe
         }
     }
 
-    protected Map<DataGap, List<Long>> getDataIdMap() {
-        HashMap<DataGap, List<Long>> map = new HashMap<DataGap, List<Long>>();
-        Collections.sort(dataIds);
-
-        Iterator<Long> iterator = dataIds.iterator();
-        long dataId = -1;
-        if (iterator.hasNext()) {
-            dataId = iterator.next().longValue();
-        }
-
-        for (DataGap gap : gaps) {
-            List<Long> idList = map.get(gap);
-            if (idList == null) {
-                idList = new ArrayList<Long>();
-                map.put(gap, idList);
-            }
-
-            do {
-                if (dataId >= gap.getStartId() && dataId <= gap.getEndId()) {
-                    idList.add(dataId);
-                } else {
-                    break;
-                }
-            } while (iterator.hasNext() && (dataId = iterator.next().longValue()) != -1);
-        }
-        return map;
-    }
-    
     protected void fixOverlappingGaps(List<DataGap> gaps, ProcessInfo processInfo) {
         try {
             ISqlTransaction transaction = null;
@@ -514,11 +497,16 @@ public class DataGapFastDetector extends DataGapDetector implements ISqlRowMappe
         return gaps;
     }
     
-    public void addDataIds(List<Long> dataIds) {
+    public synchronized void addDataIds(List<Long> dataIds) {
+        this.dataIds.addAll(dataIds);
+    }
+
+    @Override
+    public synchronized void addDataIds(DataIdList dataIds) {
         this.dataIds.addAll(dataIds);
     }
     
-    public void setIsAllDataRead(boolean isAllDataRead) {
+    public synchronized void setIsAllDataRead(boolean isAllDataRead) {
         this.isAllDataRead &= isAllDataRead;
     }
 
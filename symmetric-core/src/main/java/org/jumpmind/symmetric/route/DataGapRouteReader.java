@@ -25,18 +25,18 @@ import static org.apache.commons.lang.StringUtils.isNotBlank;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import org.jumpmind.db.platform.DatabaseNamesConstants;
+import org.jumpmind.db.sql.AbstractIndexedRowMapper;
 import org.jumpmind.db.sql.ISqlReadCursor;
-import org.jumpmind.db.sql.ISqlRowMapper;
 import org.jumpmind.db.sql.ISqlTemplate;
+import org.jumpmind.db.sql.IndexedRow;
 import org.jumpmind.db.sql.Row;
 import org.jumpmind.symmetric.ISymmetricEngine;
 import org.jumpmind.symmetric.SymmetricException;
@@ -90,7 +90,7 @@ public class DataGapRouteReader implements IDataToRouteReader {
     
     protected String lastTransactionId = null;
     
-    protected static Map<String, Boolean> lastSelectUsedGreaterThanQueryByEngineName = new HashMap<String, Boolean>(); 
+    protected static Map<String, Boolean> lastSelectUsedGreaterThanQueryByEngineName = new ConcurrentHashMap<String, Boolean>(); 
 
     public DataGapRouteReader(ChannelRouterContext context, ISymmetricEngine engine) {
         this.engine = engine;
@@ -131,10 +131,11 @@ public class DataGapRouteReader implements IDataToRouteReader {
                         ProcessType.ROUTER_READER));
         processInfo.setCurrentChannelId(context.getChannel().getChannelId());
         try {
-            int lastPeekAheadIndex = 0;
+            long lastTransactionSeq = -1;
             int dataCount = 0;
             long maxDataToRoute = context.getChannel().getMaxDataToRoute();
-            List<Data> peekAheadQueue = new ArrayList<Data>(peekAheadCount);
+            PeekAheadQueue peekAheadQueue = new PeekAheadQueue(peekAheadCount);
+            List<Data> transactionData = new ArrayList<Data>();
             boolean transactional = !context.getChannel().getBatchAlgorithm()
                     .equals(NonTransactionalBatchAlgorithm.NAME)
                     || !symmetricDialect.supportsTransactionId();
@@ -152,39 +153,44 @@ public class DataGapRouteReader implements IDataToRouteReader {
                 
                 while (peekAheadQueue.size() > 0 && lastTransactionId == null &&
                         dataCount < maxDataToRoute) {
-                    Data data = peekAheadQueue.remove(0);
+                    Data data = peekAheadQueue.poll();
                     copyToQueue(data);
                     dataCount++;
                     processInfo.incrementCurrentDataCount();
                     processInfo.setCurrentTableName(data.getTableName());
                     lastTransactionId = data.getTransactionId();
+                    lastTransactionSeq = peekAheadQueue.getLastPolledSeq();
                     context.addTransaction(lastTransactionId);
                     dataWithSameTransactionIdCount++;
                 }
 
                 if (lastTransactionId != null && peekAheadQueue.size() > 0) {
-                    Iterator<Data> datas = peekAheadQueue.iterator();
-                    int index = 0;
-                    while (datas.hasNext() && (dataCount < maxDataToRoute || transactional)) {
-                        Data data = datas.next();                        
-                        if (lastTransactionId.equals(data.getTransactionId())) {
-                            dataWithSameTransactionIdCount++;
-                            datas.remove();
-                            copyToQueue(data);
-                            dataCount++;
-                            processInfo.incrementCurrentDataCount();
-                            processInfo.setCurrentTableName(data.getTableName());
-                            lastPeekAheadIndex = index;
-                        } else {
-                            context.addTransaction(data.getTransactionId());
-                            index++;
-                        }
-                        
+                    long ts = System.currentTimeMillis();
+                    int maxCount = transactional ? Integer.MAX_VALUE : (int) Math.max(maxDataToRoute - dataCount, 0);
+                    long lastSeq = peekAheadQueue.drainTransaction(lastTransactionId, transactionData, maxCount);
+                    context.incrementStat(System.currentTimeMillis() - ts,
+                            ChannelRouterContext.STAT_PEEK_AHEAD_MS);
+                    if (lastSeq >= 0) {
+                        lastTransactionSeq = lastSeq;
+                    }
+                    for (Data data : transactionData) {
+                        dataWithSameTransactionIdCount++;
+                        copyToQueue(data);
+                        dataCount++;
+                        processInfo.incrementCurrentDataCount();
+                        processInfo.setCurrentTableName(data.getTableName());
                     }
+                    transactionData.clear();
 
-                    if (dataWithSameTransactionIdCount == 0 || peekAheadQueue.size()-lastPeekAheadIndex > peekAheadCount) {
+                    /*
+                     * Stop waiting for more of the transaction when nothing
+                     * new was found or when a full window of data has been
+                     * read since its last row
+                     */
+                    if (dataWithSameTransactionIdCount == 0
+                            || peekAheadQueue.getLastReadSeq() - lastTransactionSeq > peekAheadCount) {
                         lastTransactionId = null;
-                        lastPeekAheadIndex = 0;
+                        lastTransactionSeq = -1;
                     }
 
                 } 
@@ -336,10 +342,15 @@ public class DataGapRouteReader implements IDataToRouteReader {
 
         this.currentGap = dataGaps.remove(0);
 
-        return sqlTemplate.queryForCursor(sql, new ISqlRowMapper<Data>() {
+        return sqlTemplate.queryForCursor(sql, new AbstractIndexedRowMapper<Data>() {
+            @Override
             public Data mapRow(Row row) {
                 return engine.getDataService().mapData(row);
             }
+
+            public Data mapRow(IndexedRow row) {
+                return engine.getDataService().mapData(row);
+            }
         }, args, types);
 
     }
@@ -374,7 +385,7 @@ public class DataGapRouteReader implements IDataToRouteReader {
                 select, channel);
     }
 
-    protected boolean fillPeekAheadQueue(List<Data> peekAheadQueue, int peekAheadCount,
+    protected boolean fillPeekAheadQueue(PeekAheadQueue peekAheadQueue, int peekAheadCount,
             ISqlReadCursor<Data> cursor) throws SQLException {
         boolean moreData = true;
         int dataCount = 0;
@@ -386,6 +397,7 @@ public class DataGapRouteReader implements IDataToRouteReader {
             if (data != null) {
                 if (process(data)) {
                     peekAheadQueue.add(data);
+                    context.addTransaction(data.getTransactionId());
                     peekAheadSizeInBytes += data.getSizeInBytes();                    
                     dataCount++;
                     context.incrementStat(System.currentTimeMillis() - ts,
@@ -412,6 +424,10 @@ public class DataGapRouteReader implements IDataToRouteReader {
         if (context.getMaxPeekAheadQueueSize() < size) {
             context.setMaxPeekAheadQueueSize(size);
         }
+        int transactionCount = peekAheadQueue.getTransactionCount();
+        if (context.getMaxPeekAheadTransactionCount() < transactionCount) {
+            context.setMaxPeekAheadTransactionCount(transactionCount);
+        }
         return moreData && reading;
     }
 
@@ -436,6 +452,17 @@ public class DataGapRouteReader implements IDataToRouteReader {
         }
     }
 
+    public List<Data> peekAhead(int maxCount) {
+        List<Data> list = new ArrayList<Data>(Math.min(maxCount, dataQueue.size()));
+        for (Data data : dataQueue) {
+            if (list.size() >= maxCount || data instanceof EOD) {
+                break;
+            }
+            list.add(data);
+        }
+        return list;
+    }
+
     public BlockingQueue<Data> getDataQueue() {
         return dataQueue;
     }
@@ -0,0 +1,132 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.route;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A growable list of data ids that is backed by a primitive array so that
+ * tracking routed data does not box each id.
+ */
+public class DataIdList {
+
+    protected long[] dataIds;
+
+    protected int size;
+
+    public DataIdList() {
+        this(16);
+    }
+
+    public DataIdList(int initialCapacity) {
+        dataIds = new long[Math.max(1, initialCapacity)];
+    }
+
+    public void add(long dataId) {
+        ensureCapacity(size + 1);
+        dataIds[size++] = dataId;
+    }
+
+    public void addAll(DataIdList list) {
+        ensureCapacity(size + list.size);
+        System.arraycopy(list.dataIds, 0, dataIds, size, list.size);
+        size += list.size;
+    }
+
+    public void addAll(List<Long> list) {
+        ensureCapacity(size + list.size());
+        for (Long dataId : list) {
+            dataIds[size++] = dataId;
+        }
+    }
+
+    public long get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return dataIds[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Sort the data ids in ascending order and remove any duplicates.
+     */
+    public void sort() {
+        Arrays.sort(dataIds, 0, size);
+        int unique = 0;
+        for (int i = 0; i < size; i++) {
+            if (unique == 0 || dataIds[unique - 1] != dataIds[i]) {
+                dataIds[unique++] = dataIds[i];
+            }
+        }
+        size = unique;
+    }
+
+    /**
+     * @return The index of the first data id that is greater than or equal to
+     *         the data id passed in, or the size of the list if there is none.
+     *         The list must be sorted.
+     */
+    public int indexOfFirstAtLeast(long dataId) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (dataIds[mid] < dataId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    protected void ensureCapacity(int capacity) {
+        if (capacity > dataIds.length) {
+            dataIds = Arrays.copyOf(dataIds, Math.max(capacity, dataIds.length * 2));
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(dataIds[i]);
+        }
+        return sb.append("]").toString();
+    }
+
+}
@@ -20,6 +20,8 @@
  */
 package org.jumpmind.symmetric.route;
 
+import java.util.List;
+
 import org.jumpmind.symmetric.model.Data;
 
 public interface IDataToRouteReader extends Runnable {
@@ -30,4 +32,10 @@ public interface IDataToRouteReader extends Runnable {
 
     public abstract void setReading(boolean reading);
 
+    /**
+     * @return up to maxCount of the data that has been read but not taken yet,
+     *         in the order it will be taken
+     */
+    public abstract List<Data> peekAhead(int maxCount);
+
 }
\ No newline at end of file
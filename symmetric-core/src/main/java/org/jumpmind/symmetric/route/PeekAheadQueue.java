@@ -0,0 +1,215 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.route;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jumpmind.symmetric.model.Data;
+
+/**
+ * The peek ahead window used by {@link DataGapRouteReader}. Rows are held in
+ * a ring buffer in the order they were read and are also indexed by
+ * transaction id, so the reader can take the oldest row or drain every row of
+ * one transaction without scanning the whole window.
+ */
+public class PeekAheadQueue {
+
+    protected Data[] ring;
+
+    protected int mask;
+
+    protected long headSeq;
+
+    protected long tailSeq;
+
+    protected int size;
+
+    protected long lastPolledSeq = -1;
+
+    protected Map<String, TransactionRows> rowsByTransactionId = new HashMap<String, TransactionRows>();
+
+    public PeekAheadQueue(int initialCapacity) {
+        int capacity = 16;
+        while (capacity < initialCapacity) {
+            capacity <<= 1;
+        }
+        this.ring = new Data[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public void add(Data data) {
+        if (tailSeq - headSeq == ring.length) {
+            grow();
+        }
+        long seq = tailSeq++;
+        ring[(int) (seq & mask)] = data;
+        size++;
+        String transactionId = data.getTransactionId();
+        if (transactionId != null) {
+            TransactionRows rows = rowsByTransactionId.get(transactionId);
+            if (rows == null) {
+                rows = new TransactionRows();
+                rowsByTransactionId.put(transactionId, rows);
+            }
+            rows.add(seq);
+        }
+    }
+
+    /**
+     * Remove and return the oldest row in the window.
+     */
+    public Data poll() {
+        if (size == 0) {
+            return null;
+        }
+        skipDrainedRows();
+        long seq = headSeq;
+        Data data = take(seq);
+        lastPolledSeq = seq;
+        String transactionId = data.getTransactionId();
+        if (transactionId != null) {
+            TransactionRows rows = rowsByTransactionId.get(transactionId);
+            rows.removeFirst();
+            if (rows.isEmpty()) {
+                rowsByTransactionId.remove(transactionId);
+            }
+        }
+        skipDrainedRows();
+        return data;
+    }
+
+    /**
+     * Move up to maxCount rows of a transaction, oldest first, into the
+     * drained list.
+     * 
+     * @return the read sequence of the last row drained or -1 if the window
+     *         did not hold any rows for the transaction
+     */
+    public long drainTransaction(String transactionId, List<Data> drained, int maxCount) {
+        long lastSeq = -1;
+        TransactionRows rows = transactionId != null ? rowsByTransactionId.get(transactionId) : null;
+        if (rows != null) {
+            int count = 0;
+            while (!rows.isEmpty() && count < maxCount) {
+                lastSeq = rows.removeFirst();
+                drained.add(take(lastSeq));
+                count++;
+            }
+            if (rows.isEmpty()) {
+                rowsByTransactionId.remove(transactionId);
+            }
+            skipDrainedRows();
+        }
+        return lastSeq;
+    }
+
+    /**
+     * @return the read sequence of the row most recently returned by
+     *         {@link #poll()}
+     */
+    public long getLastPolledSeq() {
+        return lastPolledSeq;
+    }
+
+    /**
+     * @return the read sequence of the most recent row added to the window
+     */
+    public long getLastReadSeq() {
+        return tailSeq - 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getTransactionCount() {
+        return rowsByTransactionId.size();
+    }
+
+    public void clear() {
+        for (long seq = headSeq; seq < tailSeq; seq++) {
+            ring[(int) (seq & mask)] = null;
+        }
+        headSeq = tailSeq;
+        size = 0;
+        rowsByTransactionId.clear();
+    }
+
+    protected Data take(long seq) {
+        int slot = (int) (seq & mask);
+        Data data = ring[slot];
+        ring[slot] = null;
+        size--;
+        return data;
+    }
+
+    protected void skipDrainedRows() {
+        while (headSeq < tailSeq && ring[(int) (headSeq & mask)] == null) {
+            headSeq++;
+        }
+    }
+
+    protected void grow() {
+        Data[] newRing = new Data[ring.length << 1];
+        int newMask = newRing.length - 1;
+        for (long seq = headSeq; seq < tailSeq; seq++) {
+            newRing[(int) (seq & newMask)] = ring[(int) (seq & mask)];
+        }
+        ring = newRing;
+        mask = newMask;
+    }
+
+    static class TransactionRows {
+
+        long[] seqs = new long[4];
+
+        int start;
+
+        int end;
+
+        void add(long seq) {
+            if (end == seqs.length) {
+                if (start > 0) {
+                    System.arraycopy(seqs, start, seqs, 0, end - start);
+                    end -= start;
+                    start = 0;
+                }
+                if (end == seqs.length) {
+                    long[] newSeqs = new long[seqs.length << 1];
+                    System.arraycopy(seqs, 0, newSeqs, 0, end);
+                    seqs = newSeqs;
+                }
+            }
+            seqs[end++] = seq;
+        }
+
+        long removeFirst() {
+            return seqs[start++];
+        }
+
+        boolean isEmpty() {
+            return start == end;
+        }
+    }
+
+}
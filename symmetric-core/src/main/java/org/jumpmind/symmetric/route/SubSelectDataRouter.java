@@ -20,28 +20,36 @@
  */
 package org.jumpmind.symmetric.route;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
+import org.jumpmind.db.sql.ISqlRowMapper;
 import org.jumpmind.db.sql.ISqlTemplate;
 import org.jumpmind.db.sql.InvalidSqlException;
+import org.jumpmind.db.sql.NamedParameterUtils;
+import org.jumpmind.db.sql.Row;
 import org.jumpmind.db.sql.mapper.StringMapper;
 import org.jumpmind.extension.IBuiltInExtensionPoint;
+import org.jumpmind.symmetric.common.ParameterConstants;
 import org.jumpmind.symmetric.db.ISymmetricDialect;
+import org.jumpmind.symmetric.model.Data;
 import org.jumpmind.symmetric.model.DataMetaData;
 import org.jumpmind.symmetric.model.Node;
 import org.jumpmind.symmetric.model.TriggerRouter;
 import org.jumpmind.util.FormatUtils;
+import org.jumpmind.util.LinkedCaseInsensitiveMap;
 
 /**
  * This data router is invoked when the router_type is 'subselect'. The
  * router_expression is always a SQL expression that is used to find the list of
- * nodes a row of data will be routed to. This router should never be used for
- * high throughput tables because it makes a call back to the database for each
- * row that is routed.
+ * nodes a row of data will be routed to. The expression is run against the
+ * database, so this router costs more than the routers that only look at the
+ * row of data itself.
  * <P/>
  * The query that is used to select the nodes is as follows:
  * <P/>
@@ -59,13 +67,26 @@ import org.jumpmind.util.FormatUtils;
  * <code>
  * c.external_id in (select home_store from employee where employee_id in (:EMPLOYEE_ID, :OLD_EMPLOYEE_ID))
  * </code>
+ * <P/>
+ * The selected nodes are cached by the values of the parameters the expression
+ * uses for as long as the channel is being routed, up to
+ * {@link ParameterConstants#ROUTING_SUBSELECT_CACHE_SIZE} entries. When a row is
+ * not in the cache, the rows that are queued up to be routed next are resolved
+ * with it, up to {@link ParameterConstants#ROUTING_SUBSELECT_BATCH_SIZE} rows at
+ * a time. They are resolved in one query that combines a copy of the above
+ * statement for each row with union all. When either parameter is 0, the query
+ * is run for each row that is routed.
  */
 public class SubSelectDataRouter extends AbstractDataRouter implements IBuiltInExtensionPoint {
 
     private static final String SQL = "select c.node_id from $(prefixName)_node c where c.node_group_id=:NODE_GROUP_ID and c.sync_enabled=1 and ";
 
+    private static final int MAX_PARAMETERS_PER_QUERY = 1000;
+
     private ISymmetricDialect symmetricDialect;
 
+    final String CACHE_KEY = String.format("%d.SubSelectCache", hashCode());
+
     public SubSelectDataRouter(ISymmetricDialect symmetricDialect) {
         this.symmetricDialect = symmetricDialect;
     }
@@ -78,15 +99,23 @@ public class SubSelectDataRouter extends AbstractDataRouter implements IBuiltInE
         Set<String> nodeIds = null;
         if (!StringUtils.isBlank(subSelect) && !initialLoadSelectUsed) {
             try {
-                Map<String, Object> sqlParams = getDataObjectMap(dataMetaData, symmetricDialect, true);
-                sqlParams.put("NODE_GROUP_ID", dataMetaData.getRouter().getNodeGroupLink()
-                        .getTargetNodeGroupId());
-                sqlParams.put("EXTERNAL_DATA", dataMetaData.getData().getExternalData());
-                ISqlTemplate template = symmetricDialect.getPlatform().getSqlTemplate();
-                List<String> ids = template.query(String.format("%s%s", sql, subSelect),
-                        new StringMapper(), sqlParams);
-                if (ids != null) {
-                    nodeIds = new HashSet<String>(ids);
+                Map<String, Object> sqlParams = getSqlParams(dataMetaData);
+                int batchSize = symmetricDialect.getParameterService().getInt(
+                        ParameterConstants.ROUTING_SUBSELECT_BATCH_SIZE, 100);
+                int cacheSize = symmetricDialect.getParameterService().getInt(
+                        ParameterConstants.ROUTING_SUBSELECT_CACHE_SIZE, 10000);
+                List<Object> cacheKey = batchSize > 0 && cacheSize > 0 ? getCacheKey(subSelect,
+                        sqlParams) : null;
+                if (cacheKey != null) {
+                    nodeIds = routeUsingCache(routingContext, dataMetaData, sql, subSelect, cacheKey,
+                            sqlParams, batchSize);
+                } else {
+                    ISqlTemplate template = symmetricDialect.getPlatform().getSqlTemplate();
+                    List<String> ids = template.query(String.format("%s%s", sql, subSelect),
+                            new StringMapper(), sqlParams);
+                    if (ids != null) {
+                        nodeIds = new HashSet<String>(ids);
+                    }
                 }
             } catch (InvalidSqlException ex) {
                 log.error("The subselect expression was invalid for the {} subselect router for the '{}' event for table '{}'",
@@ -103,4 +132,144 @@ public class SubSelectDataRouter extends AbstractDataRouter implements IBuiltInE
         return nodeIds;
     }
 
-}
\ No newline at end of file
+    protected Map<String, Object> getSqlParams(DataMetaData dataMetaData) {
+        Map<String, Object> sqlParams = getDataObjectMap(dataMetaData, symmetricDialect, true);
+        sqlParams.put("NODE_GROUP_ID", dataMetaData.getRouter().getNodeGroupLink()
+                .getTargetNodeGroupId());
+        sqlParams.put("EXTERNAL_DATA", dataMetaData.getData().getExternalData());
+        return sqlParams;
+    }
+
+    /**
+     * @return the values of the parameters used by the sub select or null if
+     *         one of them is missing
+     */
+    protected List<Object> getCacheKey(String subSelect, Map<String, Object> sqlParams) {
+        Set<String> names = NamedParameterUtils.getNamedParameters(subSelect);
+        List<Object> key = new ArrayList<Object>(names.size() + 2);
+        key.add(subSelect);
+        key.add(sqlParams.get("NODE_GROUP_ID"));
+        for (String name : names) {
+            if (!sqlParams.containsKey(name)) {
+                return null;
+            }
+            key.add(sqlParams.get(name));
+        }
+        return key;
+    }
+
+    protected Set<String> routeUsingCache(SimpleRouterContext routingContext,
+            DataMetaData dataMetaData, String sql, String subSelect, List<Object> cacheKey,
+            Map<String, Object> sqlParams, int batchSize) {
+        Map<List<Object>, Set<String>> cache = getCache(routingContext);
+        Set<String> nodeIds = cache.get(cacheKey);
+        if (nodeIds == null) {
+            Map<List<Object>, Map<String, Object>> rowsToResolve = new LinkedHashMap<List<Object>, Map<String, Object>>();
+            rowsToResolve.put(cacheKey, sqlParams);
+            if (routingContext instanceof ChannelRouterContext) {
+                int maxRows = Math.min(batchSize, MAX_PARAMETERS_PER_QUERY
+                        / (NamedParameterUtils.getNamedParameters(sql + subSelect).size()));
+                addQueuedRowsToResolve((ChannelRouterContext) routingContext, dataMetaData,
+                        subSelect, cache, rowsToResolve, batchSize, maxRows);
+            }
+            long ts = System.currentTimeMillis();
+            Map<List<Object>, Set<String>> resolved = selectNodeIds(sql, subSelect, rowsToResolve);
+            routingContext.incrementStat(System.currentTimeMillis() - ts, "subselect.query.ms");
+            routingContext.incrementStat(rowsToResolve.size(), "subselect.resolved.count");
+            nodeIds = resolved.get(cacheKey);
+            cache.putAll(resolved);
+        }
+        return new HashSet<String>(nodeIds);
+    }
+
+    protected void addQueuedRowsToResolve(ChannelRouterContext routingContext,
+            DataMetaData dataMetaData, String subSelect, Map<List<Object>, Set<String>> cache,
+            Map<List<Object>, Map<String, Object>> rowsToResolve, int batchSize, int maxRows) {
+        int triggerHistoryId = dataMetaData.getTriggerHistory().getTriggerHistoryId();
+        for (Data data : routingContext.peekAhead(batchSize)) {
+            if (rowsToResolve.size() >= maxRows) {
+                break;
+            }
+            if (data.getTriggerHistory() != null
+                    && data.getTriggerHistory().getTriggerHistoryId() == triggerHistoryId) {
+                try {
+                    Map<String, Object> sqlParams = getSqlParams(new DataMetaData(data,
+                            dataMetaData.getTable(), dataMetaData.getRouter(), dataMetaData
+                                    .getNodeChannel()));
+                    List<Object> key = getCacheKey(subSelect, sqlParams);
+                    if (key != null && !cache.containsKey(key) && !rowsToResolve.containsKey(key)) {
+                        rowsToResolve.put(key, sqlParams);
+                    }
+                } catch (RuntimeException ex) {
+                    log.debug("Not resolving data {} ahead of time: {}", data.getDataId(),
+                            ex.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Select the nodes for several rows at once by combining a copy of the
+     * query for each row with union all. Each copy selects the position of
+     * its row along with the node id.
+     */
+    protected Map<List<Object>, Set<String>> selectNodeIds(String sql, String subSelect,
+            Map<List<Object>, Map<String, Object>> rowsToResolve) {
+        List<List<Object>> keys = new ArrayList<List<Object>>(rowsToResolve.keySet());
+        Map<List<Object>, Set<String>> nodeIdsByKey = new LinkedHashMap<List<Object>, Set<String>>(
+                keys.size());
+        Set<String> names = NamedParameterUtils.getNamedParameters(sql + subSelect);
+        StringBuilder batchSql = new StringBuilder();
+        Map<String, Object> batchParams = new LinkedCaseInsensitiveMap<Object>();
+        for (int i = 0; i < keys.size(); i++) {
+            List<Object> key = keys.get(i);
+            nodeIdsByKey.put(key, new HashSet<String>());
+            if (i > 0) {
+                batchSql.append(" union all ");
+            }
+            String suffix = "_" + i;
+            batchSql.append("select ").append(i).append(" as batch_index,");
+            batchSql.append(NamedParameterUtils.appendToNamedParameters(
+                    sql.substring("select".length()) + subSelect, suffix));
+            Map<String, Object> sqlParams = rowsToResolve.get(key);
+            for (String name : names) {
+                batchParams.put(name + suffix, sqlParams.get(name));
+            }
+        }
+
+        ISqlTemplate template = symmetricDialect.getPlatform().getSqlTemplate();
+        List<Row> rows = template.query(batchSql.toString(), new ISqlRowMapper<Row>() {
+            public Row mapRow(Row row) {
+                return row;
+            }
+        }, batchParams);
+        for (Row row : rows) {
+            String nodeId = row.getString("node_id");
+            if (nodeId != null) {
+                nodeIdsByKey.get(keys.get(row.getInt("batch_index"))).add(nodeId);
+            }
+        }
+        return nodeIdsByKey;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Map<List<Object>, Set<String>> getCache(SimpleRouterContext routingContext) {
+        Map<List<Object>, Set<String>> cache = (Map<List<Object>, Set<String>>) routingContext
+                .getContextCache().get(CACHE_KEY);
+        if (cache == null) {
+            final int cacheSize = symmetricDialect.getParameterService().getInt(
+                    ParameterConstants.ROUTING_SUBSELECT_CACHE_SIZE, 10000);
+            cache = new LinkedHashMap<List<Object>, Set<String>>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<Object>, Set<String>> eldest) {
+                    return size() > cacheSize;
+                }
+            };
+            routingContext.getContextCache().put(CACHE_KEY, cache);
+        }
+        return cache;
+    }
+
+}
@@ -66,4 +66,6 @@ public interface IDataExtractorService {
     
     public void resetExtractRequest(OutgoingBatch batch);
 
+    public void stop();
+
 }
\ No newline at end of file
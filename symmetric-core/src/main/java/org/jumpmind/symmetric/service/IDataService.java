@@ -25,6 +25,7 @@ import java.util.List;
 
 import org.jumpmind.db.sql.ISqlReadCursor;
 import org.jumpmind.db.sql.ISqlTransaction;
+import org.jumpmind.db.sql.IndexedRow;
 import org.jumpmind.db.sql.Row;
 import org.jumpmind.symmetric.ext.IHeartbeatListener;
 import org.jumpmind.symmetric.io.data.Batch;
@@ -137,6 +138,8 @@ public interface IDataService {
     public Data createData(ISqlTransaction transaction, String catalogName, String schemaName, String tableName, String whereClause);
 
     public Data mapData(Row row);
+
+    public Data mapData(IndexedRow row);
     
     public List<Number> listDataIds(long batchId, String nodeId);
     
@@ -83,4 +83,9 @@ public interface IFileSyncService {
     
     public Object[] getStagingPathComponents(OutgoingBatch fileSyncBatch);
 
+    /**
+     * Close the watch services used to track file changes.
+     */
+    public void stop();
+
 }
@@ -35,6 +35,7 @@ import org.jumpmind.symmetric.model.NodeGroupLinkAction;
 import org.jumpmind.symmetric.model.NodeHost;
 import org.jumpmind.symmetric.model.NodeSecurity;
 import org.jumpmind.symmetric.model.NodeStatus;
+import org.jumpmind.symmetric.util.VersionedCache;
 
 /**
  * This service provides an API to access {@link Node}s and Node related
@@ -100,6 +101,10 @@ public interface INodeService {
     
     public void flushNodeGroupCache();
 
+    public VersionedCache<String, Node> getNodeCache();
+
+    public VersionedCache<String, NodeSecurity> getNodeSecurityCache();
+
     public boolean isRegistrationEnabled(String nodeId);
 
     public Node findIdentity();
@@ -116,6 +121,8 @@ public interface INodeService {
     
     public Map<String, Node> findAllNodesAsMap();
 
+    public Map<String, Node> findAllNodesAsMap(boolean useCache);
+
     public List<Node> findNodesToPull();
 
     public List<Node> findNodesToPushTo();
@@ -53,6 +53,8 @@ public interface IOutgoingBatchService {
 
     public OutgoingBatch findOutgoingBatch(long batchId, String nodeId);
 
+    public List<OutgoingBatch> findOutgoingBatches(List<Long> batchIds);
+
     public OutgoingBatches getOutgoingBatches(String nodeId, boolean includeDisabledChannels);
 
     public OutgoingBatches getOutgoingBatches(String nodeId, String channelId, boolean includeDisabledChannels);
@@ -80,11 +82,15 @@ public interface IOutgoingBatchService {
     public void updateOutgoingBatch(ISqlTransaction transaction, OutgoingBatch outgoingBatch);
 
     public void updateOutgoingBatches(List<OutgoingBatch> batches);
+
+    public void updateOutgoingBatches(ISqlTransaction transaction, List<OutgoingBatch> batches);
 
     public void insertOutgoingBatch(OutgoingBatch outgoingBatch);
     
     public void insertOutgoingBatch(ISqlTransaction transaction, OutgoingBatch outgoingBatch);
 
+    public void insertOutgoingBatches(ISqlTransaction transaction, List<OutgoingBatch> outgoingBatches);
+
     public int countOutgoingBatchesInError();
     
     public int countOutgoingBatchesUnsent();
@@ -22,6 +22,7 @@ package org.jumpmind.symmetric.service;
 
 import java.util.Date;
 import java.util.Map;
+import java.util.Set;
 
 import org.jumpmind.symmetric.model.Node;
 import org.jumpmind.symmetric.model.NodeGroupLinkAction;
@@ -41,6 +42,15 @@ public interface IPushService extends IOfflineDetectorService {
      * @return RemoteNodeStatuses the status of the push attempt(s)
      */
     public RemoteNodeStatuses pushData(boolean force);
+
+    /**
+     * Attempt to push data to the given nodes only. This is used to push right
+     * after routing, to the nodes that received new batches.
+     * 
+     * @param nodeIds
+     *            The nodes to push to. When null, every push node is a candidate.
+     */
+    public RemoteNodeStatuses pushData(boolean force, Set<String> nodeIds);
     
     public Map<String, Date> getStartTimesOfNodesBeingPushedTo();
 
@@ -40,6 +40,22 @@ import org.jumpmind.symmetric.route.SimpleRouterContext;
 public interface IRouterService extends IService {
 
     public long routeData(boolean force);
+
+    /**
+     * Signal that new data has been captured so that an event driven router
+     * can route it without waiting for the next scheduled run.
+     */
+    public void notifyDataCaptured();
+
+    /**
+     * Wait for new data to route. Returns early when
+     * {@link #notifyDataCaptured()} is called. Otherwise, once the wait has
+     * elapsed, the max data id is checked to pick up data that was captured
+     * by database triggers.
+     * 
+     * @return true if there is new data to route
+     */
+    public boolean waitForDataToRoute(long maxWaitMs) throws InterruptedException;
  
     public long getUnroutedDataCount();
     
@@ -29,6 +29,14 @@ public interface ISequenceService {
 
     public long nextVal(ISqlTransaction transaction, String name);
 
+    /**
+     * Reserve a block of sequence values with a single update of the sequence
+     * row. The values are handed back in the order they were reserved.
+     */
+    public long[] nextVals(String name, int count);
+
+    public long[] nextVals(ISqlTransaction transaction, String name, int count);
+
     public long currVal(String name);
 
     public long currVal(ISqlTransaction transaction, String name);
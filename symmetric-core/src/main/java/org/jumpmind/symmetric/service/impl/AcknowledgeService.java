@@ -21,8 +21,15 @@
 package org.jumpmind.symmetric.service.impl;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
+import org.apache.commons.lang.StringUtils;
+import org.jumpmind.db.sql.ISqlTransaction;
 import org.jumpmind.db.sql.mapper.NumberMapper;
 import org.jumpmind.symmetric.ISymmetricEngine;
 import org.jumpmind.symmetric.common.Constants;
@@ -38,7 +45,6 @@ import org.jumpmind.symmetric.model.OutgoingBatch;
 import org.jumpmind.symmetric.model.OutgoingBatch.Status;
 import org.jumpmind.symmetric.service.IAcknowledgeService;
 import org.jumpmind.symmetric.service.IOutgoingBatchService;
-import org.jumpmind.symmetric.service.IRegistrationService;
 import org.jumpmind.symmetric.statistic.RouterStats;
 import org.jumpmind.symmetric.transport.IAcknowledgeEventListener;
 
@@ -49,6 +55,8 @@ public class AcknowledgeService extends AbstractService implements IAcknowledgeS
 
     private ISymmetricEngine engine;
 
+    private ExecutorService stagingExecutor;
+
     public AcknowledgeService(ISymmetricEngine engine) {
         super(engine.getParameterService(), engine.getSymmetricDialect());
         this.engine = engine;
@@ -57,113 +65,220 @@ public class AcknowledgeService extends AbstractService implements IAcknowledgeS
     }
 
     public BatchAckResult ack(final BatchAck batch) {
+        List<BatchAck> batches = new ArrayList<BatchAck>(1);
+        batches.add(batch);
+        return ack(batches).get(0);
+    }
 
-        IRegistrationService registrationService = engine.getRegistrationService();
-        IStagingManager stagingManager = engine.getStagingManager();
+    /**
+     * Acknowledge the batches by selecting all of the referenced outgoing
+     * batches with one query, applying the acknowledgements in memory and
+     * writing the batches back with one JDBC batch. Staged resources for
+     * successful batches are marked as done in the background.
+     */
+    public List<BatchAckResult> ack(List<BatchAck> batches) {
         IOutgoingBatchService outgoingBatchService = engine.getOutgoingBatchService();
-        
-    	BatchAckResult result = new BatchAckResult(batch);
-    	
-        for (IAcknowledgeEventListener listener : engine.getExtensionService().getExtensionPointList(IAcknowledgeEventListener.class)) {
-            listener.onAcknowledgeEvent(batch);
+        List<IAcknowledgeEventListener> listeners = engine.getExtensionService()
+                .getExtensionPointList(IAcknowledgeEventListener.class);
+
+        List<Long> batchIds = new ArrayList<Long>(batches.size());
+        for (BatchAck batch : batches) {
+            for (IAcknowledgeEventListener listener : listeners) {
+                listener.onAcknowledgeEvent(batch);
+            }
+            if (batch.getBatchId() != Constants.VIRTUAL_BATCH_FOR_REGISTRATION) {
+                batchIds.add(batch.getBatchId());
+            }
         }
 
-        if (batch.getBatchId() == Constants.VIRTUAL_BATCH_FOR_REGISTRATION) {
-            if (batch.isOk()) {
-                registrationService.markNodeAsRegistered(batch.getNodeId());
+        Map<String, OutgoingBatch> outgoingBatchesByNodeBatchId = new HashMap<String, OutgoingBatch>(batchIds.size());
+        Map<Long, OutgoingBatch> outgoingBatchesByBatchId = new HashMap<Long, OutgoingBatch>(batchIds.size());
+        if (batchIds.size() > 0) {
+            for (OutgoingBatch outgoingBatch : outgoingBatchService.findOutgoingBatches(batchIds)) {
+                outgoingBatchesByNodeBatchId.put(outgoingBatch.getNodeBatchId(), outgoingBatch);
+                if (!outgoingBatchesByBatchId.containsKey(outgoingBatch.getBatchId())) {
+                    outgoingBatchesByBatchId.put(outgoingBatch.getBatchId(), outgoingBatch);
+                }
             }
-        } else {
-            OutgoingBatch outgoingBatch = outgoingBatchService
-                    .findOutgoingBatch(batch.getBatchId(), batch.getNodeId());
-            Status status = batch.isOk() ? Status.OK : batch.isResend() ? Status.RS : Status.ER;
-            if (outgoingBatch != null) {
-                // Allow an outside system/user to indicate that a batch
-                // is OK.
-                if (outgoingBatch.getStatus() != Status.OK && 
-                        outgoingBatch.getStatus() != Status.IG) {
-                    outgoingBatch.setStatus(status);
-                    outgoingBatch.setErrorFlag(!batch.isOk());
+        }
+
+        List<BatchAckResult> results = new ArrayList<BatchAckResult>(batches.size());
+        List<OutgoingBatch> outgoingBatchesToUpdate = new ArrayList<OutgoingBatch>(batches.size());
+        List<OutgoingBatch> outgoingBatchesToMarkDone = new ArrayList<OutgoingBatch>(batches.size());
+        for (BatchAck batch : batches) {
+            BatchAckResult result = new BatchAckResult(batch);
+            if (batch.getBatchId() == Constants.VIRTUAL_BATCH_FOR_REGISTRATION) {
+                if (batch.isOk()) {
+                    engine.getRegistrationService().markNodeAsRegistered(batch.getNodeId());
+                }
+            } else {
+                /*
+                 * Pushing to an older version of symmetric might result in a
+                 * batch without the node id
+                 */
+                OutgoingBatch outgoingBatch = StringUtils.isNotBlank(batch.getNodeId()) ? outgoingBatchesByNodeBatchId
+                        .get(batch.getNodeId() + "-" + batch.getBatchId()) : outgoingBatchesByBatchId
+                        .get(batch.getBatchId());
+                if (outgoingBatch != null) {
+                    if (ack(batch, outgoingBatch)) {
+                        outgoingBatchesToMarkDone.add(outgoingBatch);
+                    }
+                    outgoingBatchesToUpdate.add(outgoingBatch);
                 } else {
-                    // clearing the error flag in case the user set the batch
-                    // status to OK
-                    Status oldStatus = outgoingBatch.getStatus();
-                    outgoingBatch.setStatus(Status.OK);
-                    outgoingBatch.setErrorFlag(false);
-                    log.info("Batch {} for {} was set to {}.  Updating the status to OK",
-                            new Object[] { batch.getBatchId(), batch.getNodeId(), oldStatus.name() });
+                    Status status = batch.isOk() ? Status.OK : batch.isResend() ? Status.RS : Status.ER;
+                    log.error("Could not find batch {}-{} to acknowledge as {}", new Object[] {batch.getNodeId(), batch.getBatchId(),
+                            status.name()});
+                    result.setOk(false);
                 }
-                if (batch.isIgnored()) {
-                    outgoingBatch.incrementIgnoreCount();
+            }
+            results.add(result);
+        }
+
+        ISqlTransaction transaction = null;
+        try {
+            transaction = sqlTemplate.startSqlTransaction();
+            outgoingBatchService.updateOutgoingBatches(transaction, outgoingBatchesToUpdate);
+            transaction.commit();
+        } catch (Error ex) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            throw ex;
+        } catch (RuntimeException ex) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            throw ex;
+        } finally {
+            close(transaction);
+        }
+
+        for (OutgoingBatch outgoingBatch : outgoingBatchesToUpdate) {
+            if (outgoingBatch.getStatus() == Status.OK) {
+                Channel channel = engine.getConfigurationService().getChannel(outgoingBatch.getChannelId());
+                if (channel != null && channel.isFileSyncFlag()){
+                    /* Acknowledge the file_sync in case the file needs deleted. */
+                    engine.getFileSyncService().acknowledgeFiles(outgoingBatch);
                 }
-                outgoingBatch.setNetworkMillis(batch.getNetworkMillis());
-                outgoingBatch.setFilterMillis(batch.getFilterMillis());
-                outgoingBatch.setLoadMillis(batch.getDatabaseMillis());
-                outgoingBatch.setSqlCode(batch.getSqlCode());
-                outgoingBatch.setSqlState(batch.getSqlState());
-                outgoingBatch.setSqlMessage(batch.getSqlMessage());
-
-                boolean isNewError = false;
-                if (!batch.isOk() && batch.getErrorLine() != 0) {
-                    List<Number> ids = sqlTemplateDirty.query(getSql("selectDataIdSql"),
-                            new NumberMapper(), outgoingBatch.getBatchId());
-                    if (ids.size() >= batch.getErrorLine()) {
-                        long failedDataId = ids.get((int) batch.getErrorLine() - 1).longValue();
-                        if (outgoingBatch.getFailedDataId() == 0 || outgoingBatch.getFailedDataId() != failedDataId) {
-                            isNewError = true;
-                        }
-                        outgoingBatch.setFailedDataId(failedDataId);
-                    }
+                engine.getStatisticManager().removeRouterStatsByBatch(outgoingBatch.getBatchId());
+            }
+        }
+
+        markStagedResourcesDone(outgoingBatchesToMarkDone);
+
+        return results;
+    }
+
+    /**
+     * Apply the acknowledgement to the outgoing batch in memory.
+     * 
+     * @return true if the staged resource for the batch can be marked as done
+     */
+    protected boolean ack(BatchAck batch, OutgoingBatch outgoingBatch) {
+        boolean stagingDone = false;
+        Status status = batch.isOk() ? Status.OK : batch.isResend() ? Status.RS : Status.ER;
+        // Allow an outside system/user to indicate that a batch
+        // is OK.
+        if (outgoingBatch.getStatus() != Status.OK && 
+                outgoingBatch.getStatus() != Status.IG) {
+            outgoingBatch.setStatus(status);
+            outgoingBatch.setErrorFlag(!batch.isOk());
+        } else {
+            // clearing the error flag in case the user set the batch
+            // status to OK
+            Status oldStatus = outgoingBatch.getStatus();
+            outgoingBatch.setStatus(Status.OK);
+            outgoingBatch.setErrorFlag(false);
+            log.info("Batch {} for {} was set to {}.  Updating the status to OK",
+                    new Object[] { batch.getBatchId(), batch.getNodeId(), oldStatus.name() });
+        }
+        if (batch.isIgnored()) {
+            outgoingBatch.incrementIgnoreCount();
+        }
+        outgoingBatch.setNetworkMillis(batch.getNetworkMillis());
+        outgoingBatch.setFilterMillis(batch.getFilterMillis());
+        outgoingBatch.setLoadMillis(batch.getDatabaseMillis());
+        outgoingBatch.setSqlCode(batch.getSqlCode());
+        outgoingBatch.setSqlState(batch.getSqlState());
+        outgoingBatch.setSqlMessage(batch.getSqlMessage());
+
+        boolean isNewError = false;
+        if (!batch.isOk() && batch.getErrorLine() != 0) {
+            List<Number> ids = sqlTemplateDirty.query(getSql("selectDataIdSql"),
+                    new NumberMapper(), outgoingBatch.getBatchId());
+            if (ids.size() >= batch.getErrorLine()) {
+                long failedDataId = ids.get((int) batch.getErrorLine() - 1).longValue();
+                if (outgoingBatch.getFailedDataId() == 0 || outgoingBatch.getFailedDataId() != failedDataId) {
+                    isNewError = true;
                 }
+                outgoingBatch.setFailedDataId(failedDataId);
+            }
+        }
 
-                if (status == Status.ER) {
-                    log.error("The outgoing batch {} failed: {}{}", outgoingBatch.getNodeBatchId(),
-                            (batch.getSqlCode() != 0 ? "[" + batch.getSqlState() + "," + batch.getSqlCode() + "] " : ""), batch.getSqlMessage());
-                    RouterStats routerStats = engine.getStatisticManager().getRouterStatsByBatch(batch.getBatchId());
-                    if (routerStats != null) {
-                        log.info("Router stats for batch " + outgoingBatch.getBatchId() + ": " + routerStats.toString());
-                    }
-                    if (isNewError && outgoingBatch.getSqlCode() == ErrorConstants.FK_VIOLATION_CODE
-                            && parameterService.is(ParameterConstants.AUTO_RESOLVE_FOREIGN_KEY_VIOLATION)) {
-                        Channel channel = engine.getConfigurationService().getChannel(outgoingBatch.getChannelId());
-                        if (channel != null && !channel.isReloadFlag()) {
-                            engine.getDataService().reloadMissingForeignKeyRows(outgoingBatch.getNodeId(), outgoingBatch.getFailedDataId());
-                        }
-                    }
-                } else if (status == Status.RS) {
-                    log.info("The outgoing batch {} received resend request", outgoingBatch.getNodeBatchId());
-                } else if (!outgoingBatch.isCommonFlag()) {
-                    IStagedResource stagingResource = stagingManager.find(
-                            Constants.STAGING_CATEGORY_OUTGOING, outgoingBatch.getNodeId(),
-                            outgoingBatch.getBatchId());
-                    if (stagingResource != null) {
-                        stagingResource.setState(State.DONE);
-                    }
+        if (status == Status.ER) {
+            log.error("The outgoing batch {} failed: {}{}", outgoingBatch.getNodeBatchId(),
+                    (batch.getSqlCode() != 0 ? "[" + batch.getSqlState() + "," + batch.getSqlCode() + "] " : ""), batch.getSqlMessage());
+            RouterStats routerStats = engine.getStatisticManager().getRouterStatsByBatch(batch.getBatchId());
+            if (routerStats != null) {
+                log.info("Router stats for batch " + outgoingBatch.getBatchId() + ": " + routerStats.toString());
+            }
+            if (isNewError && outgoingBatch.getSqlCode() == ErrorConstants.FK_VIOLATION_CODE
+                    && parameterService.is(ParameterConstants.AUTO_RESOLVE_FOREIGN_KEY_VIOLATION)) {
+                Channel channel = engine.getConfigurationService().getChannel(outgoingBatch.getChannelId());
+                if (channel != null && !channel.isReloadFlag()) {
+                    engine.getDataService().reloadMissingForeignKeyRows(outgoingBatch.getNodeId(), outgoingBatch.getFailedDataId());
                 }
+            }
+        } else if (status == Status.RS) {
+            log.info("The outgoing batch {} received resend request", outgoingBatch.getNodeBatchId());
+        } else if (!outgoingBatch.isCommonFlag()) {
+            stagingDone = true;
+        }
+        return stagingDone;
+    }
 
-                outgoingBatchService.updateOutgoingBatch(outgoingBatch);
-                if (status == Status.OK) {
-                    Channel channel = engine.getConfigurationService().getChannel(outgoingBatch.getChannelId());
-                    if (channel != null && channel.isFileSyncFlag()){
-                        /* Acknowledge the file_sync in case the file needs deleted. */
-                        engine.getFileSyncService().acknowledgeFiles(outgoingBatch);
+    protected void markStagedResourcesDone(final List<OutgoingBatch> outgoingBatches) {
+        if (outgoingBatches.size() > 0) {
+            getStagingExecutor().execute(new Runnable() {
+                public void run() {
+                    IStagingManager stagingManager = engine.getStagingManager();
+                    for (OutgoingBatch outgoingBatch : outgoingBatches) {
+                        try {
+                            IStagedResource stagingResource = stagingManager.find(
+                                    Constants.STAGING_CATEGORY_OUTGOING, outgoingBatch.getNodeId(),
+                                    outgoingBatch.getBatchId());
+                            if (stagingResource != null) {
+                                stagingResource.setState(State.DONE);
+                            }
+                        } catch (RuntimeException ex) {
+                            log.warn("Failed to mark the staged resource for batch {} as done",
+                                    outgoingBatch.getNodeBatchId(), ex);
+                        }
                     }
-                    engine.getStatisticManager().removeRouterStatsByBatch(batch.getBatchId());
                 }
-            } else {
-                log.error("Could not find batch {}-{} to acknowledge as {}", new Object[] {batch.getNodeId(), batch.getBatchId(),
-                        status.name()});
-                result.setOk(false);
-            }
+            });
         }
-        return result;
     }
 
-	public List<BatchAckResult> ack(List<BatchAck> batches) {
-		
-		List<BatchAckResult> results = new ArrayList<BatchAckResult>();
-		for (BatchAck batch:batches) {
-			results.add(ack(batch));
-		}
-		return results;
-	}
+    public synchronized void stop() {
+        if (stagingExecutor != null) {
+            log.info("AcknowledgeService is shutting down");
+            stagingExecutor.shutdown();
+            stagingExecutor = null;
+        }
+    }
+
+    protected synchronized ExecutorService getStagingExecutor() {
+        if (stagingExecutor == null) {
+            stagingExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r);
+                    t.setName(parameterService.getEngineName().toLowerCase() + "-ack-staging");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        return stagingExecutor;
+    }
 }
@@ -25,9 +25,12 @@ import static org.apache.commons.lang.StringUtils.isNotBlank;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Writer;
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
@@ -48,6 +51,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -59,13 +63,17 @@ import org.jumpmind.db.model.Column;
 import org.jumpmind.db.model.Database;
 import org.jumpmind.db.model.PlatformColumn;
 import org.jumpmind.db.model.Table;
+import org.jumpmind.db.platform.DatabaseInfo;
 import org.jumpmind.db.platform.DatabaseNamesConstants;
 import org.jumpmind.db.platform.DdlBuilderFactory;
 import org.jumpmind.db.platform.IDdlBuilder;
+import org.jumpmind.db.sql.AbstractIndexedRowMapper;
 import org.jumpmind.db.sql.ISqlReadCursor;
 import org.jumpmind.db.sql.ISqlRowMapper;
 import org.jumpmind.db.sql.ISqlTransaction;
+import org.jumpmind.db.sql.IndexedRow;
 import org.jumpmind.db.sql.Row;
+import org.jumpmind.db.sql.SqlException;
 import org.jumpmind.exception.IoException;
 import org.jumpmind.symmetric.AbstractSymmetricEngine;
 import org.jumpmind.symmetric.ISymmetricEngine;
@@ -74,6 +82,7 @@ import org.jumpmind.symmetric.Version;
 import org.jumpmind.symmetric.common.Constants;
 import org.jumpmind.symmetric.common.ParameterConstants;
 import org.jumpmind.symmetric.common.TableConstants;
+import org.jumpmind.symmetric.io.IoConstants;
 import org.jumpmind.symmetric.io.data.Batch;
 import org.jumpmind.symmetric.io.data.Batch.BatchType;
 import org.jumpmind.symmetric.io.data.CsvConstants;
@@ -143,8 +152,10 @@ import org.jumpmind.symmetric.service.impl.TransformService.TransformTableNodeGr
 import org.jumpmind.symmetric.statistic.IStatisticManager;
 import org.jumpmind.symmetric.transport.BatchBufferedWriter;
 import org.jumpmind.symmetric.transport.IOutgoingTransport;
+import org.jumpmind.symmetric.transport.StreamBufferedWriter;
 import org.jumpmind.symmetric.transport.TransportUtils;
 import org.jumpmind.symmetric.util.SymmetricUtils;
+import org.jumpmind.util.FormatUtils;
 import org.jumpmind.util.Statistics;
 
 /**
@@ -183,6 +194,8 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
 
     private Map<String, Semaphore> locks = new HashMap<String, Semaphore>();
 
+    private ThreadPoolExecutor extractThreads;
+
     public DataExtractorService(ISymmetricEngine engine) {
         super(engine.getParameterService(), engine.getSymmetricDialect());
         this.outgoingBatchService = engine.getOutgoingBatchService();
@@ -547,14 +560,30 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
             long batchesSelectedAtMs = System.currentTimeMillis();
             OutgoingBatch currentBatch = null;
             ExecutorService executor = null;
+            boolean isSharedExecutor = false;
+            List<Future<FutureOutgoingBatch>> futures = new ArrayList<Future<FutureOutgoingBatch>>();
             try {
                 final long maxBytesToSync = parameterService.getLong(ParameterConstants.TRANSPORT_MAX_BYTES_TO_SYNC);
                 final boolean streamToFileEnabled = parameterService.is(ParameterConstants.STREAM_TO_FILE_ENABLED);
                 long keepAliveMillis = parameterService.getLong(ParameterConstants.DATA_LOADER_SEND_ACK_KEEPALIVE);
                 Node sourceNode = nodeService.findIdentity();
                 final FutureExtractStatus status = new FutureExtractStatus();
-                executor = Executors.newFixedThreadPool(1, new DataExtractorThreadFactory());
-                List<Future<FutureOutgoingBatch>> futures = new ArrayList<Future<FutureOutgoingBatch>>();
+                int extractThreadCount = streamToFileEnabled ? parameterService.getInt(
+                        ParameterConstants.DATA_EXTRACTOR_THREAD_COUNT_PER_SERVER, 1) : 1;
+                int extractAheadCount = Integer.MAX_VALUE;
+                if (extractThreadCount > 1) {
+                    /*
+                     * Batches are staged on the shared pool, but only a limited number
+                     * ahead of the batch that is being sent so that one node cannot
+                     * fill the pool for everyone else
+                     */
+                    executor = getExtractThreads(extractThreadCount);
+                    isSharedExecutor = true;
+                    extractAheadCount = extractThreadCount;
+                } else {
+                    executor = Executors.newFixedThreadPool(1, new DataExtractorThreadFactory());
+                }
+                List<Callable<FutureOutgoingBatch>> callables = new ArrayList<Callable<FutureOutgoingBatch>>(activeBatches.size());
 
                 processInfo.setBatchCount(activeBatches.size());
                 for (int i = 0; i < activeBatches.size(); i++) {
@@ -599,16 +628,25 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
                                 } else {
                                     try {
                                         boolean isRetry = isRetry(extractBatch, targetNode);
-                                        outgoingBatch = new FutureOutgoingBatch(extractOutgoingBatch(processInfo, targetNode, 
+                                        /*
+                                         * The process info is shared with the thread that sends the
+                                         * batches, so the extract reports its progress to its own
+                                         */
+                                        ProcessInfo extractProcessInfo = new ProcessInfo(processInfo.getKey());
+                                        outgoingBatch = new FutureOutgoingBatch(extractOutgoingBatch(extractProcessInfo, targetNode, 
                                                 dataWriter, extractBatch, streamToFileEnabled, true, mode), isRetry);
-                                        status.batchExtractCount++;
-                                        status.byteExtractCount += extractBatch.getByteCount();
-                                        
-                                        if (status.byteExtractCount >= maxBytesToSync && status.batchExtractCount < activeBatches.size()) {
-                                            log.info("Reached the total byte threshold after {} of {} batches were extracted for node '{}'.  " + 
-                                                    "The remaining batches will be extracted on a subsequent sync",
-                                                    new Object[] { status.batchExtractCount, activeBatches.size(), targetNode.getNodeId() });
-                                            status.shouldExtractSkip = true;
+                                        outgoingBatch.isExtracted = true;
+                                        synchronized (status) {
+                                            status.batchExtractCount++;
+                                            status.byteExtractCount += extractBatch.getByteCount();
+
+                                            if (status.byteExtractCount >= maxBytesToSync && status.batchExtractCount < activeBatches.size()
+                                                    && !status.shouldExtractSkip) {
+                                                log.info("Reached the total byte threshold after {} of {} batches were extracted for node '{}'.  " + 
+                                                        "The remaining batches will be extracted on a subsequent sync",
+                                                        new Object[] { status.batchExtractCount, activeBatches.size(), targetNode.getNodeId() });
+                                                status.shouldExtractSkip = true;
+                                            }
                                         }
                                     } catch (Exception e) {
                                         status.shouldExtractSkip = outgoingBatch.isExtractSkipped = true;
@@ -625,32 +663,47 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
                     if (status.shouldExtractSkip) {
                         break;
                     }
-                    futures.add(executor.submit(callable));
+                    callables.add(callable);
+                    if (futures.size() < extractAheadCount) {
+                        futures.add(executor.submit(callable));
+                    }
                 }
 
                 if (parameterService.is(ParameterConstants.SYNCHRONIZE_ALL_JOBS)) {
-                    executor.shutdown();
-                    boolean isProcessed = false;
-                    while (!isProcessed) {
-                        try {
-                            isProcessed = executor.awaitTermination(keepAliveMillis, TimeUnit.MILLISECONDS);
-                        } catch (InterruptedException e) {
-                            throw new RuntimeException(e);
-                        }
-                        if (!isProcessed) {
-                            writeKeepAliveAck(writer, sourceNode, streamToFileEnabled);
+                    for (Future<FutureOutgoingBatch> future : futures) {
+                        boolean isProcessed = false;
+                        while (!isProcessed) {
+                            try {
+                                future.get(keepAliveMillis, TimeUnit.MILLISECONDS);
+                                isProcessed = true;
+                            } catch (ExecutionException e) {
+                                /* reported when the batch is sent */
+                                isProcessed = true;
+                            } catch (InterruptedException e) {
+                                throw new RuntimeException(e);
+                            } catch (TimeoutException e) {
+                                writeKeepAliveAck(writer, sourceNode, streamToFileEnabled);
+                            }
                         }
                     }
                 }
 
                 Iterator<OutgoingBatch> activeBatchIter = activeBatches.iterator();                
-                for (Future<FutureOutgoingBatch> future : futures) {
+                for (int i = 0; i < futures.size(); i++) {
+                    while (futures.size() < callables.size() && futures.size() < i + extractAheadCount
+                            && !status.shouldExtractSkip) {
+                        futures.add(executor.submit(callables.get(futures.size())));
+                    }
+                    Future<FutureOutgoingBatch> future = futures.get(i);
                     currentBatch = activeBatchIter.next();
                     boolean isProcessed = false;
                     while (!isProcessed) {
                         try {
                             FutureOutgoingBatch extractBatch = future.get(keepAliveMillis, TimeUnit.MILLISECONDS); 
                             currentBatch = extractBatch.getOutgoingBatch();
+                            if (extractBatch.isExtracted) {
+                                processInfo.incrementCurrentBatchCount();
+                            }
                             
                             if (extractBatch.isExtractSkipped) {
                                 break;
@@ -727,7 +780,12 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
                             e);
                 }
             } finally {
-                if (executor != null) {                    
+                if (isSharedExecutor) {
+                    /* extracts queued for batches that will not be sent this time */
+                    for (Future<FutureOutgoingBatch> future : futures) {
+                        future.cancel(false);
+                    }
+                } else if (executor != null) {                    
                     executor.shutdown(); 
                 }
             } 
@@ -751,6 +809,35 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
         }
     }
 
+    protected synchronized ExecutorService getExtractThreads(int threadCount) {
+        if (extractThreads == null) {
+            extractThreads = (ThreadPoolExecutor) Executors.newFixedThreadPool(threadCount,
+                    new DataExtractorThreadFactory());
+        } else if (extractThreads.getMaximumPoolSize() != threadCount) {
+            /* resize in place because other node communications may be using the pool */
+            if (threadCount > extractThreads.getMaximumPoolSize()) {
+                extractThreads.setMaximumPoolSize(threadCount);
+                extractThreads.setCorePoolSize(threadCount);
+            } else {
+                extractThreads.setCorePoolSize(threadCount);
+                extractThreads.setMaximumPoolSize(threadCount);
+            }
+        }
+        return extractThreads;
+    }
+
+    public synchronized void stop() {
+        if (extractThreads != null) {
+            try {
+                log.info("DataExtractorService is shutting down");
+                extractThreads.shutdown();
+                extractThreads = null;
+            } catch (Exception ex) {
+                log.error("", ex);
+            }
+        }
+    }
+
     protected void writeKeepAliveAck(BufferedWriter writer, Node sourceNode, boolean streamToFileEnabled) {
         try {
             if (writer != null && streamToFileEnabled) {
@@ -796,6 +883,13 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
     protected OutgoingBatch extractOutgoingBatch(ProcessInfo processInfo, Node targetNode,
             IDataWriter dataWriter, OutgoingBatch currentBatch, boolean useStagingDataWriter, 
             boolean updateBatchStatistics, ExtractMode mode) {
+        return extractOutgoingBatch(processInfo, targetNode, dataWriter, currentBatch,
+                useStagingDataWriter, updateBatchStatistics, mode, null);
+    }
+
+    protected OutgoingBatch extractOutgoingBatch(ProcessInfo processInfo, Node targetNode,
+            IDataWriter dataWriter, OutgoingBatch currentBatch, boolean useStagingDataWriter, 
+            boolean updateBatchStatistics, ExtractMode mode, String reloadRangeCondition) {
         
         if (currentBatch.getStatus() != Status.OK || ExtractMode.EXTRACT_ONLY == mode || ExtractMode.FOR_SYM_CLIENT == mode) {
             
@@ -844,7 +938,7 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
                             ctx.put(Constants.DATA_CONTEXT_SOURCE_NODE_EXTERNAL_ID, sourceNode.getExternalId());
                             ctx.put(Constants.DATA_CONTEXT_SOURCE_NODE_GROUP_ID, sourceNode.getNodeGroupId());
                             
-                            IDataReader dataReader = buildExtractDataReader(sourceNode, targetNode, currentBatch, processInfo);
+                            IDataReader dataReader = buildExtractDataReader(sourceNode, targetNode, currentBatch, processInfo, reloadRangeCondition);
                             new DataProcessor(dataReader, writer, "extract").process(ctx);
                             extractTimeInMs = System.currentTimeMillis() - ts;
                             Statistics stats = getExtractStats(writer);
@@ -906,8 +1000,13 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
     }
 
     protected ExtractDataReader buildExtractDataReader(Node sourceNode, Node targetNode, OutgoingBatch currentBatch, ProcessInfo processInfo) {
+        return buildExtractDataReader(sourceNode, targetNode, currentBatch, processInfo, null);
+    }
+
+    protected ExtractDataReader buildExtractDataReader(Node sourceNode, Node targetNode, OutgoingBatch currentBatch, ProcessInfo processInfo,
+            String reloadRangeCondition) {
         return new ExtractDataReader(symmetricDialect.getPlatform(), 
-                new SelectFromSymDataSource(currentBatch, sourceNode, targetNode, processInfo));
+                new SelectFromSymDataSource(currentBatch, sourceNode, targetNode, processInfo, reloadRangeCondition));
     }
 
     protected Statistics getExtractStats(IDataWriter writer) {
@@ -1063,11 +1162,11 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
     protected void transferFromStaging(ExtractMode mode, BatchType batchType, OutgoingBatch batch, boolean isRetry, IStagedResource stagedResource,
             BufferedWriter writer, DataContext context, BigDecimal maxKBytesPerSec) {
         final int MAX_WRITE_LENGTH = 32768;
-        BufferedReader reader = stagedResource.getReader();
         try {
             // Retry means we've sent this batch before, so let's ask to
             // retry the batch from the target's staging
             if (isRetry) {
+                BufferedReader reader = stagedResource.getReader();
                 String line = null;
                 while ((line = reader.readLine()) != null) {
                     if (line.startsWith(CsvConstants.BATCH)) {
@@ -1081,7 +1180,11 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
                         writer.newLine();
                     }
                 }
+            } else if (stagedResource.isFileResource() && writer instanceof StreamBufferedWriter
+                    && ((StreamBufferedWriter) writer).isEncodedAs(IoConstants.ENCODING)) {
+                transferBytesFromStaging(mode, batch, stagedResource, (StreamBufferedWriter) writer, maxKBytesPerSec);
             } else {
+                BufferedReader reader = stagedResource.getReader();
                 long totalCharsRead = 0, totalBytesRead = 0;
                 int numCharsRead = 0, numBytesRead = 0;
                 long startTime = System.currentTimeMillis(), ts = startTime, bts = startTime;
@@ -1153,6 +1256,77 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
             stagedResource.close();
         }
     }
+
+    /**
+     * The staged file is already encoded the same way as the transport stream,
+     * so copy its bytes directly instead of decoding and re-encoding every
+     * character on the way through.
+     */
+    protected void transferBytesFromStaging(ExtractMode mode, OutgoingBatch batch, IStagedResource stagedResource,
+            StreamBufferedWriter writer, BigDecimal maxKBytesPerSec) throws IOException, InterruptedException {
+        final int MAX_WRITE_LENGTH = 32768;
+        long totalBytesRead = 0;
+        int numBytesRead = 0, throttleBytesRead = 0;
+        long startTime = System.currentTimeMillis(), ts = startTime, bts = startTime;
+        boolean isThrottled = maxKBytesPerSec != null && maxKBytesPerSec.compareTo(BigDecimal.ZERO) > 0;
+        long totalThrottleTime = 0;
+        int bufferSize = MAX_WRITE_LENGTH;
+
+        if (isThrottled) {
+            bufferSize = maxKBytesPerSec.multiply(new BigDecimal(1024)).intValue();
+        }
+        byte[] buffer = new byte[bufferSize];
+
+        /* anything already written through the writer has to reach the stream first */
+        writer.flush();
+        OutputStream out = writer.getOutputStream();
+        InputStream in = stagedResource.getInputStream();
+        long batchStatusUpdateMillis = parameterService.getLong(ParameterConstants.OUTGOING_BATCH_UPDATE_STATUS_MILLIS);
+
+        while ((numBytesRead = in.read(buffer)) != -1) {
+            out.write(buffer, 0, numBytesRead);
+            totalBytesRead += numBytesRead;
+
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IoException("This thread was interrupted");
+            }
+
+            if (System.currentTimeMillis() - ts > batchStatusUpdateMillis && batch.getStatus() != Status.SE && batch.getStatus() != Status.RS) {
+                changeBatchStatus(Status.SE, batch, mode);
+            }
+            if (System.currentTimeMillis() - ts > 60000) {
+                log.info(
+                        "Batch '{}', for node '{}', for process 'send from stage' has been processing for {} seconds.  "
+                                + "The following stats have been gathered: {}",
+                        new Object[] { batch.getBatchId(), batch.getNodeId(), (System.currentTimeMillis() - startTime) / 1000,
+                                "BYTES=" + totalBytesRead });
+                ts = System.currentTimeMillis();
+            }
+
+            if (isThrottled) {
+                throttleBytesRead += numBytesRead;
+                if (throttleBytesRead >= bufferSize) {
+                    long expectedMillis = (long) (((throttleBytesRead / 1024f) / maxKBytesPerSec.floatValue()) * 1000);
+                    long actualMillis = System.currentTimeMillis() - bts;
+                    if (actualMillis < expectedMillis) {
+                        totalThrottleTime += expectedMillis - actualMillis;
+                        Thread.sleep(expectedMillis - actualMillis);
+                    }
+                    throttleBytesRead = 0;
+                    bts = System.currentTimeMillis();
+                }
+            }
+        }
+
+        statisticManager.incrementDataSent(batch.getChannelId(), batch.getDataEventCount());
+        statisticManager.incrementDataBytesSent(batch.getChannelId(), totalBytesRead);
+
+        if (log.isDebugEnabled() && totalThrottleTime > 0) {
+            log.debug("Batch '{}' for node '{}' took {}ms for {} bytes and was throttled for {}ms because limit is set to {} KB/s",
+                    batch.getBatchId(), batch.getNodeId(), (System.currentTimeMillis() - startTime), totalBytesRead,
+                    totalThrottleTime, maxKBytesPerSec);
+        }
+    }
     
 
     public boolean extractBatchRange(Writer writer, String nodeId, long startBatchId,
@@ -1426,11 +1600,17 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
                         resource.delete();
                     }
                     
-                    MultiBatchStagingWriter multiBatchStatingWriter = 
-                            buildMultiBatchStagingWriter(request, identity, targetNode, batches, processInfo, channel);
-                    
-                    extractOutgoingBatch(processInfo, targetNode, multiBatchStatingWriter, 
-                            firstBatch, false, false, ExtractMode.FOR_SYM_CLIENT);
+                    List<String> rangeConditions = planExtractRanges(request, targetNode, batches);
+                    if (rangeConditions.size() > 1) {
+                        extractRanges(request, identity, targetNode, batches, processInfo, channel,
+                                rangeConditions);
+                    } else {
+                        MultiBatchStagingWriter multiBatchStatingWriter = 
+                                buildMultiBatchStagingWriter(request, identity, targetNode, batches, processInfo, channel);
+                        
+                        extractOutgoingBatch(processInfo, targetNode, multiBatchStatingWriter, 
+                                firstBatch, false, false, ExtractMode.FOR_SYM_CLIENT);
+                    }
 
                 } else {
                     log.info("Batches already had an OK status for request {}, batches {} to {}.  Not extracting", new Object[] { request.getRequestId(), request.getStartBatchId(),
@@ -1511,6 +1691,369 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
         return ProcessInfoKey.ProcessType.INITIAL_LOAD_EXTRACT_JOB;
     }
 
+    /**
+     * Split the table of an extract request into primary key ranges that can
+     * be extracted in parallel. An empty list means the request should be
+     * extracted with a single cursor.
+     */
+    protected List<String> planExtractRanges(ExtractRequest request, Node targetNode,
+            List<OutgoingBatch> batches) {
+        List<String> rangeConditions = Collections.emptyList();
+        int rangeCount = parameterService.getInt(ParameterConstants.INITIAL_LOAD_EXTRACT_RANGE_COUNT, 1);
+        int minBatchesPerRange = Math.max(1, parameterService.getInt(
+                ParameterConstants.INITIAL_LOAD_EXTRACT_RANGE_MIN_BATCHES, 10));
+        rangeCount = Math.min(rangeCount, batches.size() / minBatchesPerRange);
+        TriggerRouter triggerRouter = request.getTriggerRouter();
+        if (rangeCount > 1 && triggerRouter != null) {
+            Data reloadData = findReloadData(batches.get(0));
+            if (reloadData != null && reloadData.getTriggerHistory() != null) {
+                TriggerHistory triggerHistory = reloadData.getTriggerHistory();
+                Table table = platform.getTableFromCache(triggerHistory.getSourceCatalogName(),
+                        triggerHistory.getSourceSchemaName(), triggerHistory.getSourceTableName(),
+                        false);
+                String selectSql = getReloadSelect(triggerRouter, reloadData.getRowData());
+                if (table != null && table.getPrimaryKeyColumnCount() == 1
+                        && isRangeColumn(table.getPrimaryKeyColumns()[0])
+                        && !selectSql.toLowerCase().contains("order by")) {
+                    String columnName = SymmetricUtils.quote(symmetricDialect, 
+                            table.getPrimaryKeyColumns()[0].getName());
+                    DatabaseInfo dbInfo = platform.getDatabaseInfo();
+                    String from = String.format("from %s t where (%s)", table.getQualifiedTableName(
+                            dbInfo.getDelimiterToken(), dbInfo.getCatalogSeparator(),
+                            dbInfo.getSchemaSeparator()), selectSql);
+                    from = FormatUtils.replace("groupId", targetNode.getNodeGroupId(), from);
+                    from = FormatUtils.replace("externalId", targetNode.getExternalId(), from);
+                    from = FormatUtils.replace("nodeId", targetNode.getNodeId(), from);
+                    List<BigDecimal> boundaries = selectRangeBoundaries(columnName, from,
+                            batches.size(), rangeCount);
+                    rangeConditions = buildRangeConditions(columnName, boundaries);
+                    log.info("Planned {} ranges on {} for request {}", new Object[] {
+                            rangeConditions.size(), table.getName(), request.getRequestId() });
+                }
+            }
+        }
+        return rangeConditions;
+    }
+
+    protected boolean isRangeColumn(Column column) {
+        int typeCode = column.getMappedTypeCode();
+        return typeCode == Types.TINYINT || typeCode == Types.SMALLINT
+                || typeCode == Types.INTEGER || typeCode == Types.BIGINT
+                || ((typeCode == Types.NUMERIC || typeCode == Types.DECIMAL) && column.getScale() == 0);
+    }
+
+    /**
+     * Find the key values that split the rows into ranges with as many rows
+     * as their share of the batches can hold. The rows are counted along with
+     * the lowest and highest key in one query. When there are no more rows
+     * than initial.load.extract.range.scan.max.rows, the keys are read in
+     * order. Larger tables are planned from a sample of about that many keys,
+     * so ranges stay even when the keys are skewed without planning costing
+     * as much as the extract it is planning. If the sample cannot be read, the
+     * ranges are split evenly between the lowest and highest key.
+     */
+    protected List<BigDecimal> selectRangeBoundaries(String columnName, String from,
+            int batchCount, int rangeCount) {
+        Row stats = sqlTemplate.queryForRow(String.format(
+                "select min(%s) as min_key, max(%s) as max_key, count(*) as row_count %s",
+                columnName, columnName, from));
+        long rowCount = stats != null ? stats.getLong("row_count") : 0;
+        long[] positions = getRangeStartPositions(rowCount, batchCount, rangeCount);
+        long maxRows = Math.max(1, parameterService.getLong(
+                ParameterConstants.INITIAL_LOAD_EXTRACT_RANGE_SCAN_MAX_ROWS, 100000));
+        if (positions.length == 0) {
+            return new ArrayList<BigDecimal>(0);
+        } else if (rowCount <= maxRows) {
+            return scanRangeBoundaries(columnName, from, positions);
+        } else {
+            List<BigDecimal> sample = selectKeySample(columnName, from, rowCount, maxRows);
+            if (sample != null && sample.size() > 0) {
+                return pickRangeBoundaries(sample, rowCount, positions);
+            } else {
+                return interpolateRangeBoundaries(stats.getBigDecimal("min_key"),
+                        stats.getBigDecimal("max_key"), rowCount, positions);
+            }
+        }
+    }
+
+    /**
+     * Read the keys that are a multiple of a prime chosen so that about
+     * sampleSize keys match. Every row has the same chance of being picked
+     * however the keys are spread, and the prime keeps keys with a regular
+     * step from all matching or all missing. The keys are sorted after they
+     * are read so the database does not have to.
+     * 
+     * @return the sorted sample or null if it could not be read or came back
+     *         much larger than expected
+     */
+    protected List<BigDecimal> selectKeySample(String columnName, String from, long rowCount,
+            long sampleSize) {
+        long divisor = getSampleDivisor(rowCount, sampleSize);
+        String sql = String.format("select %s as range_key %s and %s = 0", columnName, from,
+                getModExpression(columnName, divisor));
+        List<BigDecimal> sample = new ArrayList<BigDecimal>();
+        ISqlReadCursor<BigDecimal> cursor = null;
+        try {
+            cursor = sqlTemplate.queryForCursor(sql, new ISqlRowMapper<BigDecimal>() {
+                public BigDecimal mapRow(Row row) {
+                    return row.getBigDecimal("range_key");
+                }
+            });
+            BigDecimal key = null;
+            while ((key = cursor.next()) != null) {
+                sample.add(key);
+                if (sample.size() > sampleSize * 4) {
+                    log.info("The key sample for planning ranges grew past {} keys.  Splitting between the lowest and highest key instead", 
+                            sampleSize * 4);
+                    return null;
+                }
+            }
+        } catch (SqlException ex) {
+            log.info("Failed to sample keys for planning ranges.  Splitting between the lowest and highest key instead.  {}", 
+                    ex.getMessage());
+            return null;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        Collections.sort(sample);
+        return sample;
+    }
+
+    protected String getModExpression(String columnName, long divisor) {
+        String name = symmetricDialect.getName();
+        if (name.equals(DatabaseNamesConstants.MSSQL2000)
+                || name.equals(DatabaseNamesConstants.MSSQL2005)
+                || name.equals(DatabaseNamesConstants.MSSQL2008)
+                || name.equals(DatabaseNamesConstants.ASE)
+                || name.equals(DatabaseNamesConstants.SQLITE)) {
+            return String.format("%s %% %d", columnName, divisor);
+        } else {
+            return String.format("mod(%s, %d)", columnName, divisor);
+        }
+    }
+
+    /**
+     * @return the smallest prime that picks no more than about sampleSize of
+     *         the rows
+     */
+    protected static long getSampleDivisor(long rowCount, long sampleSize) {
+        return BigInteger.valueOf(Math.max(1, rowCount / Math.max(1, sampleSize)))
+                .nextProbablePrime().longValue();
+    }
+
+    /**
+     * Use the sampled key at the same relative position as the first row of
+     * each range. Boundaries that land on the same key are dropped.
+     */
+    protected static List<BigDecimal> pickRangeBoundaries(List<BigDecimal> sortedSample,
+            long rowCount, long[] positions) {
+        List<BigDecimal> boundaries = new ArrayList<BigDecimal>(positions.length);
+        BigDecimal previous = null;
+        for (long position : positions) {
+            int index = (int) Math.min(sortedSample.size() - 1, position * sortedSample.size()
+                    / rowCount);
+            BigDecimal boundary = sortedSample.get(index);
+            if (previous == null || boundary.compareTo(previous) > 0) {
+                boundaries.add(boundary);
+                previous = boundary;
+            }
+        }
+        return boundaries;
+    }
+
+    protected List<BigDecimal> scanRangeBoundaries(String columnName, String from, long[] positions) {
+        List<BigDecimal> boundaries = new ArrayList<BigDecimal>(positions.length);
+        ISqlReadCursor<BigDecimal> cursor = sqlTemplate.queryForCursor(
+                String.format("select %s as range_key %s order by %s", columnName, from,
+                        columnName), new ISqlRowMapper<BigDecimal>() {
+                    public BigDecimal mapRow(Row row) {
+                        return row.getBigDecimal("range_key");
+                    }
+                });
+        try {
+            long position = 0;
+            BigDecimal key = null;
+            while (boundaries.size() < positions.length && (key = cursor.next()) != null) {
+                if (position++ == positions[boundaries.size()]) {
+                    boundaries.add(key);
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        return boundaries;
+    }
+
+    /**
+     * Place each boundary between the lowest and highest key in proportion to
+     * its row position. Boundaries that land on the same key are dropped. The
+     * last batch of a range holds any rows beyond its share when the keys are
+     * not evenly spread, so this is only used when the keys cannot be sampled.
+     */
+    protected static List<BigDecimal> interpolateRangeBoundaries(BigDecimal minKey,
+            BigDecimal maxKey, long rowCount, long[] positions) {
+        List<BigDecimal> boundaries = new ArrayList<BigDecimal>(positions.length);
+        if (minKey != null && maxKey != null && rowCount > 0) {
+            BigDecimal span = maxKey.subtract(minKey);
+            BigDecimal rows = BigDecimal.valueOf(rowCount);
+            BigDecimal previous = minKey;
+            for (long position : positions) {
+                BigDecimal boundary = minKey.add(span.multiply(BigDecimal.valueOf(position))
+                        .divide(rows, 0, RoundingMode.FLOOR));
+                if (boundary.compareTo(previous) > 0) {
+                    boundaries.add(boundary);
+                    previous = boundary;
+                }
+            }
+        }
+        return boundaries;
+    }
+
+    /**
+     * @return the positions of the first row of every range after the first,
+     *         in proportion to the number of batches each range is given by
+     *         {@link #extractRanges}
+     */
+    protected static long[] getRangeStartPositions(long rowCount, int batchCount, int rangeCount) {
+        rangeCount = (int) Math.min(rangeCount, rowCount);
+        if (rangeCount < 2) {
+            return new long[0];
+        }
+        long[] positions = new long[rangeCount - 1];
+        int batchesPerRange = batchCount / rangeCount;
+        for (int i = 1; i < rangeCount; i++) {
+            positions[i - 1] = rowCount * i * batchesPerRange / batchCount;
+            if (i > 1 && positions[i - 1] <= positions[i - 2]) {
+                positions[i - 1] = positions[i - 2] + 1;
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Build conditions for the ranges that start at each boundary. The first
+     * and last ranges are open ended so that rows outside of the planned
+     * values are still extracted.
+     */
+    protected static List<String> buildRangeConditions(String columnName, List<BigDecimal> boundaries) {
+        List<String> rangeConditions = new ArrayList<String>(boundaries.size() + 1);
+        String previous = null;
+        for (BigDecimal boundary : boundaries) {
+            if (previous == null) {
+                rangeConditions.add(String.format("%s < %s", columnName, boundary.toPlainString()));
+            } else {
+                rangeConditions.add(String.format("%s >= %s and %s < %s", columnName,
+                        previous, columnName, boundary.toPlainString()));
+            }
+            previous = boundary.toPlainString();
+        }
+        if (previous != null) {
+            rangeConditions.add(String.format("%s >= %s", columnName, previous));
+        }
+        return rangeConditions;
+    }
+
+    protected Data findReloadData(OutgoingBatch batch) {
+        ISqlReadCursor<Data> cursor = dataService.selectDataFor(batch.getBatchId(),
+                batch.getChannelId());
+        try {
+            Data data = cursor.next();
+            return data != null && data.getDataEventType() == DataEventType.RELOAD ? data : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    protected String getReloadSelect(TriggerRouter triggerRouter, String rowData) {
+        if (StringUtils.isNotBlank(rowData)) {
+            return rowData;
+        } else if (StringUtils.isNotBlank(triggerRouter.getInitialLoadSelect())) {
+            return triggerRouter.getInitialLoadSelect();
+        } else {
+            return Constants.ALWAYS_TRUE_CONDITION;
+        }
+    }
+
+    /**
+     * Extract each range on its own thread. The batches of the request are
+     * divided between the ranges and each range fills its share with a
+     * {@link MultiBatchStagingWriter}. Each range reports its progress as its
+     * own process, which is added to the request's process when it finishes.
+     */
+    protected void extractRanges(final ExtractRequest request, final Node sourceNode,
+            final Node targetNode, List<OutgoingBatch> batches, final ProcessInfo processInfo,
+            final Channel channel, List<String> rangeConditions) {
+        int rangeCount = rangeConditions.size();
+        int batchesPerRange = batches.size() / rangeCount;
+        ExecutorService executor = Executors.newFixedThreadPool(rangeCount,
+                new DataExtractorThreadFactory("-initial-load-range-"));
+        List<Future<OutgoingBatch>> futures = new ArrayList<Future<OutgoingBatch>>(rangeCount);
+        List<ProcessInfo> rangeProcessInfos = new ArrayList<ProcessInfo>(rangeCount);
+        try {
+            for (int i = 0; i < rangeCount; i++) {
+                int fromIndex = i * batchesPerRange;
+                int toIndex = i == rangeCount - 1 ? batches.size() : fromIndex + batchesPerRange;
+                final List<OutgoingBatch> rangeBatches = batches.subList(fromIndex, toIndex);
+                final String rangeCondition = rangeConditions.get(i);
+                ProcessInfoKey key = processInfo.getKey();
+                final ProcessInfo rangeProcessInfo = key == null ? new ProcessInfo()
+                        : statisticManager.newProcessInfo(new ProcessInfoKey(key.getSourceNodeId(),
+                                (key.getChannelId() != null ? key.getChannelId() + "-" : "") + "range-" + (i + 1),
+                                key.getTargetNodeId(),
+                                key.getProcessType()));
+                rangeProcessInfo.setBatchCount(rangeBatches.size());
+                rangeProcessInfo.setCurrentLoadId(processInfo.getCurrentLoadId());
+                rangeProcessInfos.add(rangeProcessInfo);
+                futures.add(executor.submit(new Callable<OutgoingBatch>() {
+                    public OutgoingBatch call() throws Exception {
+                        OutgoingBatch firstBatch = rangeBatches.get(0);
+                        IStagedResource resource = getStagedResource(firstBatch);
+                        if (resource != null && resource.exists() && resource.getState() != State.CREATE) {
+                            resource.delete();
+                        }
+                        log.debug("Extracting batches {} to {} where {}", new Object[] {
+                                firstBatch.getBatchId(),
+                                rangeBatches.get(rangeBatches.size() - 1).getBatchId(),
+                                rangeCondition });
+                        try {
+                            MultiBatchStagingWriter multiBatchStatingWriter = buildMultiBatchStagingWriter(
+                                    request, sourceNode, targetNode, rangeBatches, rangeProcessInfo, channel);
+                            OutgoingBatch batch = extractOutgoingBatch(rangeProcessInfo, targetNode,
+                                    multiBatchStatingWriter, firstBatch, false, false,
+                                    ExtractMode.FOR_SYM_CLIENT, rangeCondition);
+                            rangeProcessInfo.setStatus(ProcessInfo.Status.OK);
+                            return batch;
+                        } catch (Exception e) {
+                            rangeProcessInfo.setStatus(ProcessInfo.Status.ERROR);
+                            throw e;
+                        }
+                    }
+                }));
+            }
+            for (Future<OutgoingBatch> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw new RuntimeException(e.getCause() != null ? e.getCause() : e);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        } finally {
+            for (Future<OutgoingBatch> future : futures) {
+                future.cancel(true);
+            }
+            executor.shutdown();
+            long dataCount = 0;
+            for (ProcessInfo rangeProcessInfo : rangeProcessInfos) {
+                dataCount += rangeProcessInfo.getCurrentDataCount();
+            }
+            processInfo.setCurrentDataCount(processInfo.getCurrentDataCount() + dataCount);
+        }
+    }
+
     protected MultiBatchStagingWriter buildMultiBatchStagingWriter(ExtractRequest request, Node sourceNode, Node targetNode, List<OutgoingBatch> batches,
             ProcessInfo processInfo, Channel channel) {
         MultiBatchStagingWriter multiBatchStatingWriter = new MultiBatchStagingWriter(this, request, sourceNode.getNodeId(), stagingManager,
@@ -1579,9 +2122,17 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
         
         private ColumnsAccordingToTriggerHistory columnsAccordingToTriggerHistory;
 
+        private String reloadRangeCondition;
+
         public SelectFromSymDataSource(OutgoingBatch outgoingBatch, 
                 Node sourceNode, Node targetNode, ProcessInfo processInfo) {
+            this(outgoingBatch, sourceNode, targetNode, processInfo, null);
+        }
+
+        public SelectFromSymDataSource(OutgoingBatch outgoingBatch, 
+                Node sourceNode, Node targetNode, ProcessInfo processInfo, String reloadRangeCondition) {
             this.processInfo = processInfo;
+            this.reloadRangeCondition = reloadRangeCondition;
             this.outgoingBatch = outgoingBatch;
             this.batch = new Batch(BatchType.EXTRACT, outgoingBatch.getBatchId(),
                     outgoingBatch.getChannelId(), symmetricDialect.getBinaryEncoding(),
@@ -1632,8 +2183,14 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
                                 .getTriggerRouterForCurrentNode(triggerId, routerId, false);
                         if (triggerRouter != null) {
                             processInfo.setCurrentTableName(triggerHistory.getSourceTableName());
+                            String initialLoadSelect = data.getRowData();
+                            if (reloadRangeCondition != null) {
+                                initialLoadSelect = String.format("(%s) and %s",
+                                        getReloadSelect(triggerRouter, initialLoadSelect),
+                                        reloadRangeCondition);
+                            }
                             SelectFromTableEvent event = new SelectFromTableEvent(targetNode,
-                                    triggerRouter, triggerHistory, data.getRowData());
+                                    triggerRouter, triggerHistory, initialLoadSelect);
                             this.reloadSource = new SelectFromTableSource(outgoingBatch, batch,
                                     event);
                             data = (Data) this.reloadSource.next();
@@ -1907,15 +2464,15 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
             final boolean objectValuesWillNeedEscaped = !symmetricDialect.getTriggerTemplate()
                     .useTriggerTemplateForColumnTemplatesDuringInitialLoad();
             
-            this.cursor = sqlTemplate.queryForCursor(initialLoadSql, new ISqlRowMapper<Data>() {
-                public Data mapRow(Row row) {
+            this.cursor = sqlTemplate.queryForCursor(initialLoadSql, new AbstractIndexedRowMapper<Data>() {
+                public Data mapRow(IndexedRow row) {
                     String csvRow = null;                    
                     if (selectedAsCsv) {
                         csvRow = row.stringValue();
                     } else if (objectValuesWillNeedEscaped) {
                         String[] rowData = platform.getStringValues(
                                 symmetricDialect.getBinaryEncoding(), sourceTable.getColumns(),
-                                row, false, true);
+                                row.toRow(), false, true);
                         csvRow = CsvUtils.escapeCsvData(rowData, '\0', '"');
                     } else {
                         csvRow = row.csvValue();
@@ -2007,7 +2564,15 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
 
     class DataExtractorThreadFactory implements ThreadFactory {
         AtomicInteger threadNumber = new AtomicInteger(1);
-        String namePrefix = parameterService.getEngineName().toLowerCase() + "-data-extractor-";
+        String namePrefix;
+
+        public DataExtractorThreadFactory() {
+            this("-data-extractor-");
+        }
+
+        public DataExtractorThreadFactory(String name) {
+            namePrefix = parameterService.getEngineName().toLowerCase() + name;
+        }
 
         public Thread newThread(Runnable runnable) {
             Thread thread = new Thread(runnable);
@@ -2023,7 +2588,7 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
     }
 
     class FutureExtractStatus {
-        boolean shouldExtractSkip;
+        volatile boolean shouldExtractSkip;
         int batchExtractCount;
         int byteExtractCount;
     }
@@ -2032,6 +2597,7 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
         OutgoingBatch outgoingBatch;
         boolean isRetry;
         boolean isExtractSkipped;
+        boolean isExtracted;
         
         public FutureOutgoingBatch(OutgoingBatch outgoingBatch, boolean isRetry) {
             this.outgoingBatch = outgoingBatch;
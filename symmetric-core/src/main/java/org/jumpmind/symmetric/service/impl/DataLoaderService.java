@@ -34,6 +34,7 @@ import java.net.UnknownHostException;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -494,25 +495,25 @@ public class DataLoaderService extends AbstractService implements IDataLoaderSer
             String targetNodeId = nodeService.findIdentityNodeId();
             if (parameterService.is(ParameterConstants.STREAM_TO_FILE_ENABLED)) {
                 processInfo.setStatus(ProcessInfo.Status.TRANSFERRING);
-                ExecutorService executor = Executors.newFixedThreadPool(1, new DataLoaderThreadFactory());
+                int threadCount = parameterService.getInt(ParameterConstants.DATA_LOADER_CHANNEL_THREAD_COUNT, 1);
                 LoadIntoDatabaseOnArrivalListener loadListener = new LoadIntoDatabaseOnArrivalListener(processInfo,
-                        sourceNode.getNodeId(), listener, executor);
+                        sourceNode.getNodeId(), listener, threadCount);
                 new SimpleStagingDataWriter(transport.openReader(), stagingManager, Constants.STAGING_CATEGORY_INCOMING, 
                         memoryThresholdInBytes, BatchType.LOAD, targetNodeId, ctx, loadListener).process();
                 
                 /* Previously submitted tasks will still be executed */
-                executor.shutdown();
+                loadListener.shutdown();
 
                 OutputStreamWriter outWriter = null;
                 if (out != null) {
                     outWriter = new OutputStreamWriter(out, IoConstants.ENCODING);
                     long keepAliveMillis = parameterService.getLong(ParameterConstants.DATA_LOADER_SEND_ACK_KEEPALIVE);
-                    while (!executor.awaitTermination(keepAliveMillis, TimeUnit.MILLISECONDS)) {
+                    while (!loadListener.awaitTermination(keepAliveMillis, TimeUnit.MILLISECONDS)) {
                         outWriter.write("1=1&");
                         outWriter.flush();
                     }
                 } else {
-                    executor.awaitTermination(12, TimeUnit.HOURS);
+                    loadListener.awaitTermination(12, TimeUnit.HOURS);
                 }
                 loadListener.isDone();
             } else {
@@ -878,6 +879,30 @@ public class DataLoaderService extends AbstractService implements IDataLoaderSer
         }
     }
 
+    /**
+     * Batches that share a {@link ChannelLoader} are loaded one at a time in
+     * the order they arrived. Each channel is assigned to one loader when its
+     * first batch arrives, so batches on different channels can load
+     * concurrently when there is more than one loader.
+     */
+    class ChannelLoader {
+
+        ExecutorService executor;
+
+        ManageIncomingBatchListener listener;
+
+        DataContext context;
+
+        volatile boolean isError;
+
+        public ChannelLoader(ExecutorService executor, ManageIncomingBatchListener listener,
+                DataContext context) {
+            this.executor = executor;
+            this.listener = listener;
+            this.context = context;
+        }
+    }
+
     class LoadIntoDatabaseOnArrivalListener implements IProtocolDataWriterListener {
 
         private ManageIncomingBatchListener listener;
@@ -888,18 +913,46 @@ public class DataLoaderService extends AbstractService implements IDataLoaderSer
 
         private ProcessInfo processInfo;
         
-        private ExecutorService executor;
+        private int threadCount;
+
+        private DataLoaderThreadFactory threadFactory = new DataLoaderThreadFactory();
+
+        private List<ChannelLoader> loaders = new ArrayList<ChannelLoader>();
+
+        private Map<String, ChannelLoader> loadersByChannel = new HashMap<String, ChannelLoader>();
         
         private List<Future<IncomingBatch>> futures = new ArrayList<Future<IncomingBatch>>();
         
-        private boolean isError;
-
         public LoadIntoDatabaseOnArrivalListener(ProcessInfo processInfo, String sourceNodeId,
-                ManageIncomingBatchListener listener, ExecutorService executor) {
+                ManageIncomingBatchListener listener, int threadCount) {
             this.sourceNodeId = sourceNodeId;
             this.listener = listener;
             this.processInfo = processInfo;
-            this.executor = executor;
+            this.threadCount = threadCount > 0 ? threadCount : 1;
+        }
+
+        protected ChannelLoader getChannelLoader(DataContext ctx, String channelId) {
+            ChannelLoader loader = loadersByChannel.get(channelId);
+            if (loader == null) {
+                if (loaders.size() == 0) {
+                    loader = new ChannelLoader(Executors.newFixedThreadPool(1, threadFactory), listener, ctx);
+                    loaders.add(loader);
+                } else if (loaders.size() < threadCount) {
+                    /*
+                     * The listener and context hold the state of the batch being
+                     * loaded, so each loader gets its own
+                     */
+                    DataContext loaderContext = new DataContext();
+                    loaderContext.getContext().putAll(ctx.getContext());
+                    loader = new ChannelLoader(Executors.newFixedThreadPool(1, threadFactory),
+                            new ManageIncomingBatchListener(listener.getBatchesProcessed()), loaderContext);
+                    loaders.add(loader);
+                } else {
+                    loader = loaders.get(loadersByChannel.size() % threadCount);
+                }
+                loadersByChannel.put(channelId, loader);
+            }
+            return loader;
         }
 
         public void start(DataContext ctx, Batch batch) {
@@ -909,11 +962,13 @@ public class DataLoaderService extends AbstractService implements IDataLoaderSer
 
         public void end(final DataContext ctx, final Batch batch, final IStagedResource resource) {
             final long networkMillis = System.currentTimeMillis() - batchStartsToArriveTimeInMs;
+            final ChannelLoader loader = getChannelLoader(ctx, batch.getChannelId());
+            final ManageIncomingBatchListener listener = loader.listener;
 
             Callable<IncomingBatch> loadBatchFromStage = new Callable<IncomingBatch>() {
                 public IncomingBatch call() throws Exception {
                     IncomingBatch incomingBatch = null;
-                    if (!isError) {
+                    if (!loader.isError) {
                         try {
                             processInfo.setStatus(ProcessInfo.Status.LOADING);
                             
@@ -935,9 +990,9 @@ public class DataLoaderService extends AbstractService implements IDataLoaderSer
                                     return buildDataWriter(processInfo, sourceNodeId, batch.getChannelId(), batch.getBatchId(), isRetry);
                                 }
                             };
-                            processor.process(ctx);
+                            processor.process(loader.context);
                         } catch (Exception e) {
-                            isError = true;
+                            loader.isError = true;
                             throw e;
                         } finally {
                             incomingBatch = listener.currentBatch; 
@@ -962,11 +1017,26 @@ public class DataLoaderService extends AbstractService implements IDataLoaderSer
                     incomingBatch.setStatus(Status.RS);
                     incomingBatchService.updateIncomingBatch(incomingBatch);
                 }
-                isError = true;
+                loader.isError = true;
             } else {
-                futures.add(executor.submit(loadBatchFromStage));
+                futures.add(loader.executor.submit(loadBatchFromStage));
+            }
+        }
+
+        public void shutdown() {
+            for (ChannelLoader loader : loaders) {
+                loader.executor.shutdown();
             }
         }
+
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            for (ChannelLoader loader : loaders) {
+                if (!loader.executor.awaitTermination(timeout, unit)) {
+                    return false;
+                }
+            }
+            return true;
+        }
         
         public boolean isDone() throws Throwable {
             boolean isDone = true;
@@ -987,10 +1057,18 @@ public class DataLoaderService extends AbstractService implements IDataLoaderSer
 
     class ManageIncomingBatchListener implements IDataProcessorListener {
 
-        protected List<IncomingBatch> batchesProcessed = new ArrayList<IncomingBatch>();
+        protected List<IncomingBatch> batchesProcessed;
 
         protected IncomingBatch currentBatch;
 
+        public ManageIncomingBatchListener() {
+            this(Collections.synchronizedList(new ArrayList<IncomingBatch>()));
+        }
+
+        public ManageIncomingBatchListener(List<IncomingBatch> batchesProcessed) {
+            this.batchesProcessed = batchesProcessed;
+        }
+
         public void beforeBatchEnd(DataContext context) {
             enableSyncTriggers(context);
         }
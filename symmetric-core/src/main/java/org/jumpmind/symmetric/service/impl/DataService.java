@@ -44,9 +44,11 @@ import org.jumpmind.db.model.ForeignKey;
 import org.jumpmind.db.model.Reference;
 import org.jumpmind.db.model.Table;
 import org.jumpmind.db.platform.DatabaseInfo;
+import org.jumpmind.db.sql.AbstractIndexedRowMapper;
 import org.jumpmind.db.sql.DmlStatement;
 import org.jumpmind.db.sql.DmlStatement.DmlType;
 import org.jumpmind.db.sql.ISqlReadCursor;
+import org.jumpmind.db.sql.IndexedRow;
 import org.jumpmind.db.sql.ISqlRowMapper;
 import org.jumpmind.db.sql.ISqlTransaction;
 import org.jumpmind.db.sql.Row;
@@ -89,6 +91,7 @@ import org.jumpmind.symmetric.service.IExtensionService;
 import org.jumpmind.symmetric.service.IFileSyncService;
 import org.jumpmind.symmetric.service.INodeService;
 import org.jumpmind.symmetric.service.ITriggerRouterService;
+import org.jumpmind.symmetric.service.IRouterService;
 import org.jumpmind.symmetric.service.impl.TransformService.TransformTableNodeGroupLink;
 import org.jumpmind.util.AppUtils;
 import org.jumpmind.util.FormatUtils;
@@ -1184,6 +1187,7 @@ public class DataService extends AbstractService implements IDataService {
             transaction = sqlTemplate.startSqlTransaction();
             dataId = insertData(transaction, data);
             transaction.commit();
+            notifyDataCaptured();
             return dataId;
         } catch (Error ex) {
             if (transaction != null) {
@@ -1200,6 +1204,13 @@ public class DataService extends AbstractService implements IDataService {
         }
     }
 
+    protected void notifyDataCaptured() {
+        IRouterService routerService = engine.getRouterService();
+        if (routerService != null) {
+            routerService.notifyDataCaptured();
+        }
+    }
+
     protected long insertData(ISqlTransaction transaction, final Data data) {
         long id = transaction.insertWithGeneratedKey(
                 getSql("insertIntoDataSql"),
@@ -1685,6 +1696,7 @@ public class DataService extends AbstractService implements IDataService {
                 }
             }
             transaction.commit();
+            notifyDataCaptured();
         } catch (Error ex) {
             if (transaction != null) {
                 transaction.rollback();
@@ -2021,6 +2033,10 @@ public class DataService extends AbstractService implements IDataService {
         return dataMapper.mapRow(row);
     }
 
+    public Data mapData(IndexedRow row) {
+        return dataMapper.mapRow(row);
+    }
+
     public ISqlReadCursor<Data> selectDataFor(Batch batch) {
         return sqlTemplateDirty.queryForCursor(
                 getDataSelectSql(batch.getBatchId(), -1l, batch.getChannelId()), dataMapper,
@@ -2106,7 +2122,16 @@ public class DataService extends AbstractService implements IDataService {
         }
     }
 
-    public class DataMapper implements ISqlRowMapper<Data> {
+    public class DataMapper extends AbstractIndexedRowMapper<Data> {
+
+        private final String[] COLUMNS = { "ROW_DATA", "PK_DATA", "OLD_DATA", "CHANNEL_ID",
+                "TRANSACTION_ID", "TABLE_NAME", "EVENT_TYPE", "SOURCE_NODE_ID", "EXTERNAL_DATA",
+                "NODE_LIST", "DATA_ID", "CREATE_TIME", "ROUTER_ID", "TRIGGER_HIST_ID" };
+
+        private final boolean[] REQUIRED = { false, false, false, true, false, true, true, true,
+                true, true, true, true, false, true };
+
+        @Override
         public Data mapRow(Row row) {
             Data data = new Data();
             data.putCsvData(CsvData.ROW_DATA, row.getString("ROW_DATA", false));
@@ -2114,8 +2139,7 @@ public class DataService extends AbstractService implements IDataService {
             data.putCsvData(CsvData.OLD_DATA, row.getString("OLD_DATA", false));
             data.putAttribute(CsvData.ATTRIBUTE_CHANNEL_ID, row.getString("CHANNEL_ID"));
             data.putAttribute(CsvData.ATTRIBUTE_TX_ID, row.getString("TRANSACTION_ID", false));
-            String tableName = row.getString("TABLE_NAME");
-            data.putAttribute(CsvData.ATTRIBUTE_TABLE_NAME, tableName);
+            data.putAttribute(CsvData.ATTRIBUTE_TABLE_NAME, row.getString("TABLE_NAME"));
             data.setDataEventType(DataEventType.getEventType(row.getString("EVENT_TYPE")));
             data.putAttribute(CsvData.ATTRIBUTE_SOURCE_NODE_ID, row.getString("SOURCE_NODE_ID"));
             data.putAttribute(CsvData.ATTRIBUTE_EXTERNAL_DATA, row.getString("EXTERNAL_DATA"));
@@ -2123,7 +2147,30 @@ public class DataService extends AbstractService implements IDataService {
             data.putAttribute(CsvData.ATTRIBUTE_DATA_ID, row.getLong("DATA_ID"));
             data.putAttribute(CsvData.ATTRIBUTE_CREATE_TIME, row.getDateTime("CREATE_TIME"));
             data.putAttribute(CsvData.ATTRIBUTE_ROUTER_ID, row.getString("ROUTER_ID", false));
-            int triggerHistId = row.getInt("TRIGGER_HIST_ID");
+            return mapTriggerHistory(data, row.getInt("TRIGGER_HIST_ID"));
+        }
+
+        public Data mapRow(IndexedRow row) {
+            int[] index = row.indexesOf(COLUMNS, REQUIRED);
+            Data data = new Data();
+            data.putCsvData(CsvData.ROW_DATA, row.getString(index[0]));
+            data.putCsvData(CsvData.PK_DATA, row.getString(index[1]));
+            data.putCsvData(CsvData.OLD_DATA, row.getString(index[2]));
+            data.putAttribute(CsvData.ATTRIBUTE_CHANNEL_ID, row.getString(index[3]));
+            data.putAttribute(CsvData.ATTRIBUTE_TX_ID, row.getString(index[4]));
+            data.putAttribute(CsvData.ATTRIBUTE_TABLE_NAME, row.getString(index[5]));
+            data.setDataEventType(DataEventType.getEventType(row.getString(index[6])));
+            data.putAttribute(CsvData.ATTRIBUTE_SOURCE_NODE_ID, row.getString(index[7]));
+            data.putAttribute(CsvData.ATTRIBUTE_EXTERNAL_DATA, row.getString(index[8]));
+            data.putAttribute(CsvData.ATTRIBUTE_NODE_LIST, row.getString(index[9]));
+            data.putAttribute(CsvData.ATTRIBUTE_DATA_ID, row.getLong(index[10]));
+            data.putAttribute(CsvData.ATTRIBUTE_CREATE_TIME, row.getDateTime(index[11]));
+            data.putAttribute(CsvData.ATTRIBUTE_ROUTER_ID, row.getString(index[12]));
+            return mapTriggerHistory(data, row.getInt(index[13]));
+        }
+
+        protected Data mapTriggerHistory(Data data, int triggerHistId) {
+            String tableName = data.getTableName();
             data.putAttribute(CsvData.ATTRIBUTE_TABLE_ID, triggerHistId);
             TriggerHistory triggerHistory = engine.getTriggerRouterService().getTriggerHistory(
                     triggerHistId);
@@ -20,6 +20,7 @@
  */
 package org.jumpmind.symmetric.service.impl;
 
+import java.util.Collections;
 import java.util.List;
 
 import org.jumpmind.symmetric.ISymmetricEngine;
@@ -86,6 +87,12 @@ public class FileSyncExtractorService extends DataExtractorService {
         }
     }
 
+    @Override
+    protected List<String> planExtractRanges(ExtractRequest request, Node targetNode,
+            List<OutgoingBatch> batches) {
+        return Collections.emptyList();
+    }
+
     @Override
     protected MultiBatchStagingWriter buildMultiBatchStagingWriter(ExtractRequest request, final Node sourceNode, final Node targetNode, 
             List<OutgoingBatch> batches, ProcessInfo processInfo, Channel channel) {
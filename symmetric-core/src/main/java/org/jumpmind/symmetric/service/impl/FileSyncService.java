@@ -27,6 +27,9 @@ import java.io.OutputStream;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -102,6 +105,10 @@ INodeCommunicationExecutor {
 
     private ISymmetricEngine engine;
 
+    private Map<String, FileTriggerTracker> watchingTrackers = new HashMap<String, FileTriggerTracker>();
+
+    private Set<String> unwatchableTrackerKeys = new HashSet<String>();
+
     // TODO cache trigger routers
 
     public FileSyncService(ISymmetricEngine engine) {
@@ -156,21 +163,110 @@ INodeCommunicationExecutor {
     }
 
     protected void trackChanges(ProcessInfo processInfo, boolean useCrc) {
+        boolean useWatchService = engine.getParameterService().is(ParameterConstants.FILE_SYNC_USE_WATCH_SERVICE);
+        Set<String> trackerKeys = new HashSet<String>();
         List<FileTriggerRouter> fileTriggerRouters = getFileTriggerRoutersForCurrentNode();
         for (FileTriggerRouter fileTriggerRouter : fileTriggerRouters) {
             if (fileTriggerRouter.isEnabled()) {
+                String trackerKey = getTrackerKey(fileTriggerRouter, useCrc);
                 try {
-                    FileTriggerTracker tracker = new FileTriggerTracker(fileTriggerRouter, getDirectorySnapshot(fileTriggerRouter), 
-                            processInfo, useCrc, engine);
+                    FileTriggerTracker tracker = null;
+                    if (useWatchService) {
+                        trackerKeys.add(trackerKey);
+                        tracker = getWatchingTracker(trackerKey, fileTriggerRouter, processInfo, useCrc);
+                    } else {
+                        tracker = new FileTriggerTracker(fileTriggerRouter, getDirectorySnapshot(fileTriggerRouter), 
+                                processInfo, useCrc, engine);
+                    }
                     DirectorySnapshot dirSnapshot = tracker.trackChanges();
                     saveDirectorySnapshot(fileTriggerRouter, dirSnapshot);
                 } catch (Exception ex) {
+                    // start over from the saved snapshot on the next run
+                    closeWatchingTracker(trackerKey);
                     log.error("Failed to track changes for file trigger router: "
                             + fileTriggerRouter.getFileTrigger().getTriggerId()
                             + "::" + fileTriggerRouter.getRouter().getRouterId(), ex);
                 }
             }
         }
+        closeWatchingTrackersExcept(trackerKeys);
+    }
+
+    /**
+     * The key changes when the file trigger router is updated so a tracker
+     * watching the old configuration is replaced.
+     */
+    protected String getTrackerKey(FileTriggerRouter fileTriggerRouter, boolean useCrc) {
+        FileTrigger fileTrigger = fileTriggerRouter.getFileTrigger();
+        return fileTrigger.getTriggerId() + "::" + fileTriggerRouter.getRouter().getRouterId() + "::"
+                + getTime(fileTrigger.getLastUpdateTime()) + "::" + getTime(fileTriggerRouter.getLastUpdateTime()) + "::"
+                + getTime(fileTriggerRouter.getRouter().getLastUpdateTime()) + "::" + useCrc;
+    }
+
+    private long getTime(Date date) {
+        return date != null ? date.getTime() : 0;
+    }
+
+    protected FileTriggerTracker getWatchingTracker(String trackerKey, FileTriggerRouter fileTriggerRouter, ProcessInfo processInfo,
+            boolean useCrc) {
+        synchronized (watchingTrackers) {
+            FileTriggerTracker tracker = watchingTrackers.get(trackerKey);
+            if (tracker == null && unwatchableTrackerKeys.contains(trackerKey)) {
+                tracker = new FileTriggerTracker(fileTriggerRouter, getDirectorySnapshot(fileTriggerRouter), processInfo, useCrc,
+                        engine);
+            } else if (tracker == null) {
+                try {
+                    tracker = new FileTriggerTracker(fileTriggerRouter, getDirectorySnapshot(fileTriggerRouter), processInfo, useCrc,
+                            true, engine);
+                    watchingTrackers.put(trackerKey, tracker);
+                } catch (LinkageError e) {
+                    log.warn("The watch service is not available in this version of Java.  Scanning for file changes instead");
+                    tracker = new FileTriggerTracker(fileTriggerRouter, getDirectorySnapshot(fileTriggerRouter), processInfo, useCrc,
+                            engine);
+                } catch (IoException e) {
+                    /*
+                     * Usually the limit of watched directories was reached.
+                     * Scan until the file trigger router changes rather than
+                     * failing again on every run.
+                     */
+                    log.warn("Unable to watch {} for changes.  Scanning for file changes instead: {}", fileTriggerRouter
+                            .getFileTrigger().getBaseDir(), e.getMessage());
+                    unwatchableTrackerKeys.add(trackerKey);
+                    tracker = new FileTriggerTracker(fileTriggerRouter, getDirectorySnapshot(fileTriggerRouter), processInfo, useCrc,
+                            engine);
+                }
+            } else {
+                tracker.setProcessInfo(processInfo);
+            }
+            return tracker;
+        }
+    }
+
+    protected void closeWatchingTracker(String trackerKey) {
+        synchronized (watchingTrackers) {
+            FileTriggerTracker tracker = watchingTrackers.remove(trackerKey);
+            if (tracker != null) {
+                tracker.close();
+            }
+        }
+    }
+
+    public void stop() {
+        closeWatchingTrackersExcept(new HashSet<String>());
+    }
+
+    protected void closeWatchingTrackersExcept(Set<String> trackerKeys) {
+        synchronized (watchingTrackers) {
+            Iterator<Map.Entry<String, FileTriggerTracker>> i = watchingTrackers.entrySet().iterator();
+            while (i.hasNext()) {
+                Map.Entry<String, FileTriggerTracker> entry = i.next();
+                if (!trackerKeys.contains(entry.getKey())) {
+                    entry.getValue().close();
+                    i.remove();
+                }
+            }
+            unwatchableTrackerKeys.retainAll(trackerKeys);
+        }
     }
 
     protected void trackChangesFastScan(ProcessInfo processInfo, boolean useCrc) {
@@ -501,7 +597,14 @@ INodeCommunicationExecutor {
                                     targetNode.getNodeId(), "filesync.zip");                            
                             dataWriter = new FileSyncZipDataWriter(maxBytesToSync, this,
                                     engine.getNodeService(), stagedResource);
+                            if (parameterService.is(ParameterConstants.FILE_SYNC_DELTA_ENABLED)) {
+                                dataWriter.setDeltaEnabled(new File(parameterService.getTempDirectory(), "filesync-signatures"),
+                                        parameterService.getInt(ParameterConstants.FILE_SYNC_DELTA_BLOCK_SIZE, 8192),
+                                        parameterService.getInt(ParameterConstants.FILE_SYNC_DELTA_SIGNATURE_VERSIONS, 5));
+                            }
                         }
+                        // the target may have failed to apply a delta, so send whole files on a retry
+                        dataWriter.setFullFilesOnly(currentBatch.isErrorFlag());
                         log.debug("Extracting batch {} for filesync.", currentBatch.getNodeBatchId());
 
                         ((DataExtractorService) engine.getDataExtractorService()).extractOutgoingBatch(
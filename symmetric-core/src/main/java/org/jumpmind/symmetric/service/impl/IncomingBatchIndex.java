@@ -0,0 +1,203 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.service.impl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jumpmind.symmetric.model.AbstractBatch;
+import org.jumpmind.symmetric.model.BatchId;
+import org.jumpmind.symmetric.model.IncomingBatch;
+import org.jumpmind.symmetric.model.IncomingBatch.Status;
+
+/**
+ * An in-memory index of incoming batches, used by {@link IncomingBatchService}
+ * to tell new batches from duplicates and retries without a round trip to the
+ * database. It holds the highest OK batch id for each source node and channel
+ * and the status of the batches most recently written by this engine.
+ * <p>
+ * The index is only a hint that routes a batch to the cheaper database path.
+ * The exception is {@link #isNew(AbstractBatch)}. When the index was warmed
+ * with every row of incoming_batch and nothing has been evicted since, it
+ * answers whether a row can exist at all. That is only true when this engine
+ * is the single writer of the table.
+ */
+public class IncomingBatchIndex {
+
+    /*
+     * Keyed by node id and then channel id, and statuses by node id and batch
+     * id, so the entries of one node can be told apart from those of a node
+     * whose id starts with the same characters
+     */
+    private final Map<String, Map<String, Long>> maxOkBatchIds = new ConcurrentHashMap<String, Map<String, Long>>();
+
+    private final Map<BatchId, Status> statuses;
+
+    private volatile boolean complete;
+
+    private volatile Boolean warmedForRecordOk;
+
+    public IncomingBatchIndex(final int maxSize) {
+        this.statuses = new LinkedHashMap<BatchId, Status>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<BatchId, Status> eldest) {
+                if (size() > maxSize) {
+                    complete = false;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param recordOk
+     *            whether OK batches are recorded in incoming_batch
+     * @return true if the index has not been warmed for the given mode
+     */
+    public boolean isWarmNeeded(boolean recordOk) {
+        return warmedForRecordOk == null || warmedForRecordOk.booleanValue() != recordOk;
+    }
+
+    /**
+     * @param maxOkBatchIds
+     *            the highest OK batch id by node id and then channel id
+     * @param allBatches
+     *            every row in incoming_batch, or null if they were not read
+     */
+    public synchronized void warm(boolean recordOk, Map<String, Map<String, Long>> maxOkBatchIds,
+            List<BatchId> allBatches) {
+        for (Map.Entry<String, Map<String, Long>> node : maxOkBatchIds.entrySet()) {
+            for (Map.Entry<String, Long> channel : node.getValue().entrySet()) {
+                raiseMaxOkBatchId(node.getKey(), channel.getKey(), channel.getValue());
+            }
+        }
+        synchronized (statuses) {
+            complete = allBatches != null;
+            if (allBatches != null) {
+                for (BatchId batchId : allBatches) {
+                    if (!statuses.containsKey(batchId)) {
+                        statuses.put(batchId, null);
+                    }
+                }
+            }
+        }
+        this.warmedForRecordOk = recordOk;
+    }
+
+    /**
+     * @return true if the batch has been seen before, either because its
+     *         status is in the index or because a higher batch from the same
+     *         node and channel loaded OK
+     */
+    public boolean isKnown(AbstractBatch batch) {
+        synchronized (statuses) {
+            if (statuses.containsKey(key(batch))) {
+                return true;
+            }
+        }
+        Map<String, Long> channels = maxOkBatchIds.get(batch.getNodeId());
+        Long maxOkBatchId = channels != null ? channels.get(batch.getChannelId()) : null;
+        return maxOkBatchId != null && batch.getBatchId() <= maxOkBatchId;
+    }
+
+    /**
+     * @return true only if the index holds every row of incoming_batch and
+     *         none of them is this batch
+     */
+    public boolean isNew(AbstractBatch batch) {
+        synchronized (statuses) {
+            return complete && !statuses.containsKey(key(batch));
+        }
+    }
+
+    public Status getStatus(AbstractBatch batch) {
+        synchronized (statuses) {
+            return statuses.get(key(batch));
+        }
+    }
+
+    public void put(IncomingBatch batch) {
+        synchronized (statuses) {
+            statuses.put(key(batch), batch.getStatus());
+        }
+        if (batch.getStatus() == Status.OK) {
+            raiseMaxOkBatchId(batch.getNodeId(), batch.getChannelId(), batch.getBatchId());
+        }
+    }
+
+    protected void raiseMaxOkBatchId(String nodeId, String channelId, long batchId) {
+        synchronized (maxOkBatchIds) {
+            Map<String, Long> channels = maxOkBatchIds.get(nodeId);
+            if (channels == null) {
+                channels = new ConcurrentHashMap<String, Long>();
+                maxOkBatchIds.put(nodeId, channels);
+            }
+            Long maxOkBatchId = channels.get(channelId);
+            if (maxOkBatchId == null || maxOkBatchId < batchId) {
+                channels.put(channelId, batchId);
+            }
+        }
+    }
+
+    public void remove(AbstractBatch batch) {
+        synchronized (statuses) {
+            statuses.remove(key(batch));
+        }
+    }
+
+    /**
+     * Forget the batches of a node whose incoming_batch rows were deleted. The
+     * index stays complete because the rows it no longer holds are gone too.
+     */
+    public void removeNode(String nodeId) {
+        synchronized (statuses) {
+            Iterator<BatchId> keys = statuses.keySet().iterator();
+            while (keys.hasNext()) {
+                if (nodeId.equals(keys.next().getNodeId())) {
+                    keys.remove();
+                }
+            }
+        }
+        synchronized (maxOkBatchIds) {
+            maxOkBatchIds.remove(nodeId);
+        }
+    }
+
+    public void clear() {
+        synchronized (statuses) {
+            statuses.clear();
+            complete = false;
+        }
+        maxOkBatchIds.clear();
+        warmedForRecordOk = null;
+    }
+
+    protected static BatchId key(AbstractBatch batch) {
+        return new BatchId(batch.getBatchId(), batch.getNodeId());
+    }
+
+}
@@ -51,6 +51,8 @@ import org.jumpmind.util.FormatUtils;
 public class IncomingBatchService extends AbstractService implements IIncomingBatchService {
 
     protected IClusterService clusterService;
+
+    protected IncomingBatchIndex incomingBatchIndex;
     
     @Override
     public List<String> getNodesInError() {
@@ -61,6 +63,8 @@ public class IncomingBatchService extends AbstractService implements IIncomingBa
             ISymmetricDialect symmetricDialect, IClusterService clusterService) {
         super(parameterService, symmetricDialect);
         this.clusterService = clusterService;
+        this.incomingBatchIndex = new IncomingBatchIndex(
+                parameterService.getInt(ParameterConstants.INCOMING_BATCH_INDEX_MAX_SIZE, 10000));
         setSqlMap(new IncomingBatchServiceSqlMap(symmetricDialect.getPlatform(),
                 createSqlReplacementTokens()));
     }
@@ -112,6 +116,7 @@ public class IncomingBatchService extends AbstractService implements IIncomingBa
 
     public void removingIncomingBatches(String nodeId) {
         sqlTemplate.update(getSql("deleteIncomingBatchByNodeSql"), nodeId);
+        incomingBatchIndex.removeNode(nodeId);
     }
 
     public List<IncomingBatch> listIncomingBatchesInErrorFor(String nodeId) {
@@ -193,15 +198,29 @@ public class IncomingBatchService extends AbstractService implements IIncomingBa
         boolean okayToProcess = true;
         if (batch.isPersistable()) {
             IncomingBatch existingBatch = null;
-
-            if (isRecordOkBatchesEnabled()) {
-                try {
-                    insertIncomingBatch(batch);
-                } catch (UniqueKeyException e) {
-                    batch.setRetry(true);
+            boolean recordOkBatches = isRecordOkBatchesEnabled();
+            warmIncomingBatchIndex(recordOkBatches);
+
+            if (recordOkBatches) {
+                /*
+                 * A batch the index has seen is most likely a duplicate or a
+                 * retry, so look for it before attempting an insert that would
+                 * fail on the primary key
+                 */
+                if (incomingBatchIndex.isKnown(batch)) {
                     existingBatch = findIncomingBatch(batch.getBatchId(), batch.getNodeId());
                 }
-            } else {                
+                if (existingBatch != null) {
+                    batch.setRetry(true);
+                } else {
+                    try {
+                        insertIncomingBatch(batch);
+                    } catch (UniqueKeyException e) {
+                        batch.setRetry(true);
+                        existingBatch = findIncomingBatch(batch.getBatchId(), batch.getNodeId());
+                    }
+                }
+            } else if (!incomingBatchIndex.isNew(batch)) {
                 existingBatch = findIncomingBatch(batch.getBatchId(), batch.getNodeId());
                 if (existingBatch != null) {
                     batch.setRetry(true);
@@ -241,7 +260,34 @@ public class IncomingBatchService extends AbstractService implements IIncomingBa
         }
         return okayToProcess;
     }
-    
+
+    protected void warmIncomingBatchIndex(boolean recordOkBatches) {
+        if (incomingBatchIndex.isWarmNeeded(recordOkBatches)) {
+            synchronized (incomingBatchIndex) {
+                if (incomingBatchIndex.isWarmNeeded(recordOkBatches)) {
+                    Map<String, Map<String, Long>> maxOkBatchIds = new HashMap<String, Map<String, Long>>();
+                    List<BatchId> allBatches = null;
+                    if (recordOkBatches) {
+                        sqlTemplate.query(getSql("maxBatchIdsSql"), new MaxBatchIdMapper(maxOkBatchIds),
+                                IncomingBatch.Status.OK.name());
+                    } else if (!parameterService.is(ParameterConstants.CLUSTER_LOCKING_ENABLED)) {
+                        /*
+                         * Without clustering this engine is the only writer of
+                         * incoming_batch, so a full copy of the table can tell
+                         * new batches apart without a query
+                         */
+                        allBatches = sqlTemplate.query(getSql("getAllBatchesSql"), new BatchIdMapper());
+                        if (allBatches.size() > parameterService.getInt(
+                                ParameterConstants.INCOMING_BATCH_INDEX_MAX_SIZE, 10000)) {
+                            allBatches = null;
+                        }
+                    }
+                    incomingBatchIndex.warm(recordOkBatches, maxOkBatchIds, allBatches);
+                }
+            }
+        }
+    }
+
     public void insertIncomingBatch(ISqlTransaction transaction, IncomingBatch batch) {
         if (batch.isPersistable()) {
         	boolean alreadyExists = false;
@@ -272,6 +318,7 @@ public class IncomingBatchService extends AbstractService implements IIncomingBa
 	                            Types.NUMERIC, Types.VARCHAR, Types.NUMERIC, Types.VARCHAR, 
 	                            Types.VARCHAR, Types.TIMESTAMP, Types.VARCHAR });
         	}
+        	incomingBatchIndex.put(batch);
         }
     }
     
@@ -297,9 +344,11 @@ public class IncomingBatchService extends AbstractService implements IIncomingBa
     }
 
     public int deleteIncomingBatch(IncomingBatch batch) {
-        return sqlTemplate.update(getSql("deleteIncomingBatchSql"),
+        int count = sqlTemplate.update(getSql("deleteIncomingBatchSql"),
                 new Object[] { batch.getBatchId(), batch.getNodeId() }, new int[] { symmetricDialect.getSqlTypeForIds(),
                         Types.VARCHAR });
+        incomingBatchIndex.remove(batch);
+        return count;
     }
     
     public int updateIncomingBatch(IncomingBatch batch) {
@@ -352,6 +401,9 @@ public class IncomingBatchService extends AbstractService implements IIncomingBa
                             Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC,
                             Types.NUMERIC, Types.NUMERIC, Types.VARCHAR, Types.NUMERIC, Types.VARCHAR,
                             Types.VARCHAR, Types.TIMESTAMP, Types.VARCHAR, symmetricDialect.getSqlTypeForIds(), Types.VARCHAR });
+            if (count > 0) {
+                incomingBatchIndex.put(batch);
+            }
         }
         return count;
     }
@@ -389,6 +441,25 @@ public class IncomingBatchService extends AbstractService implements IIncomingBa
         }
     }
 
+    class MaxBatchIdMapper implements ISqlRowMapper<Object> {
+        Map<String, Map<String, Long>> ids;
+
+        public MaxBatchIdMapper(Map<String, Map<String, Long>> ids) {
+            this.ids = ids;
+        }
+
+        public Object mapRow(Row rs) {
+            String nodeId = rs.getString("node_id");
+            Map<String, Long> channels = ids.get(nodeId);
+            if (channels == null) {
+                channels = new HashMap<String, Long>();
+                ids.put(nodeId, channels);
+            }
+            channels.put(rs.getString("channel_id"), rs.getLong("batch_id"));
+            return null;
+        }
+    }
+
     class IncomingBatchMapper implements ISqlRowMapper<IncomingBatch> {
         
         IncomingBatch batchToRefresh = null;
@@ -30,6 +30,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang.StringUtils;
 import org.jumpmind.db.sql.ISqlRowMapper;
@@ -54,6 +55,8 @@ import org.jumpmind.symmetric.service.IExtensionService;
 import org.jumpmind.symmetric.service.INodeService;
 import org.jumpmind.symmetric.service.IParameterService;
 import org.jumpmind.symmetric.util.DefaultNodeIdCreator;
+import org.jumpmind.symmetric.util.VersionedCache;
+import org.jumpmind.symmetric.util.VersionedCache.Version;
 import org.jumpmind.util.AppUtils;
 
 /**
@@ -65,17 +68,15 @@ public class NodeService extends AbstractService implements INodeService {
 
     private Node cachedNodeIdentity;
     
-    private Map<String, NodeSecurity> securityCache;
+    private VersionedCache<String, NodeSecurity> securityCache;
 
-    private long securityCacheTime;
-
-    private Map<String, Node> nodeCache = new HashMap<String, Node>();
-    
-    private long nodeCacheTime;
+    private VersionedCache<String, Node> nodeCache;
     
-    private Map<String, List<Node>> sourceNodesCache = new HashMap<String, List<Node>>();
+    private Map<String, List<Node>> sourceNodesCache = new ConcurrentHashMap<String, List<Node>>();
     
-    private Map<String, List<Node>> targetNodesCache = new HashMap<String, List<Node>>();
+    private Map<String, List<Node>> targetNodesCache = new ConcurrentHashMap<String, List<Node>>();
+
+    private Map<String, Node> nodeLinkCacheNodes;
 
     private long nodeLinkCacheTime;
 
@@ -90,6 +91,10 @@ public class NodeService extends AbstractService implements INodeService {
         extensionService.addExtensionPoint(new DefaultNodeIdCreator(parameterService, this, securityService));
         setSqlMap(new NodeServiceSqlMap(symmetricDialect.getPlatform(),
                 createSqlReplacementTokens()));
+        String engineName = parameterService.getEngineName().toLowerCase();
+        this.nodeCache = new VersionedCache<String, Node>(engineName + "-node", new NodeCacheLoader());
+        this.securityCache = new VersionedCache<String, NodeSecurity>(engineName + "-node-security",
+                new NodeSecurityCacheLoader());
     }
 
     public String findSymmetricVersion() {
@@ -153,19 +158,18 @@ public class NodeService extends AbstractService implements INodeService {
 
     public Node findNode(String id, boolean useCache) {
         if (useCache) {
-            long cacheTimeoutInMs = parameterService.getLong(ParameterConstants.CACHE_TIMEOUT_NODE_IN_MS);
-            if ((System.currentTimeMillis() - nodeCacheTime) >= cacheTimeoutInMs) {
-                nodeCache = findAllNodesAsMap();
-                nodeCacheTime = System.currentTimeMillis();
-            }
-            return nodeCache.get(id);
+            return findAllNodesAsMap(true).get(id);
         } else {
             return findAllNodesAsMap().get(id);
         }
     }
 
     public void flushNodeCache() {
-        nodeCacheTime = 0;
+        nodeCache.flush();
+    }
+
+    public VersionedCache<String, Node> getNodeCache() {
+        return nodeCache;
     }
 
     public Node findNodeByExternalId(String nodeGroupId, String externalId) {
@@ -304,6 +308,7 @@ public class NodeService extends AbstractService implements INodeService {
                             Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.TIMESTAMP,
                             Types.INTEGER, Types.VARCHAR, Types.INTEGER, Types.INTEGER, Types.VARCHAR,
                             Types.VARCHAR, Types.VARCHAR });
+            flushNodeCache();
             flushNodeGroupCache();
         }
     }
@@ -368,33 +373,43 @@ public class NodeService extends AbstractService implements INodeService {
     }
 
     public List<Node> findSourceNodesFor(NodeGroupLinkAction eventAction) {
-        Node node = findIdentity();
-        long cacheTimeoutInMs = parameterService.getLong(ParameterConstants.CACHE_TIMEOUT_NODE_GROUP_LINK_IN_MS);
-        if (node != null) {
-            List<Node> list = sourceNodesCache.get(eventAction.name());
-            if (list == null || (System.currentTimeMillis() - nodeLinkCacheTime) >= cacheTimeoutInMs) {
-                list = sqlTemplate.query(getSql("selectNodePrefixSql", "findNodesWhoTargetMeSql"),
-                        new NodeRowMapper(), node.getNodeGroupId(), eventAction.name());
-                sourceNodesCache.put(eventAction.name(), list);
-                nodeLinkCacheTime = System.currentTimeMillis();
-            }
-            return list;
-        } else {
-            return Collections.emptyList();
-        }
+        return findLinkedNodes(eventAction, "findNodeGroupsWhoTargetMeSql", sourceNodesCache);
     }
 
     public List<Node> findTargetNodesFor(NodeGroupLinkAction eventAction) {
-        Node node = findIdentity();
-        long cacheTimeoutInMs = parameterService.getLong(ParameterConstants.CACHE_TIMEOUT_NODE_GROUP_LINK_IN_MS);
-        if (node != null) {
-            List<Node> list = targetNodesCache.get(eventAction.name());
-            if (list == null || (System.currentTimeMillis() - nodeLinkCacheTime) >= cacheTimeoutInMs) {
-                list = sqlTemplate.query(getSql("selectNodePrefixSql", "findNodesWhoITargetSql"),
-                        new NodeRowMapper(), node.getNodeGroupId(), eventAction.name());
-                targetNodesCache.put(eventAction.name(), list);
+        return findLinkedNodes(eventAction, "findNodeGroupsWhoITargetSql", targetNodesCache);
+    }
+
+    /**
+     * Select the nodes in the linked node groups from the node cache, so only
+     * the node group links are read from the database. The lists are rebuilt
+     * when the node cache changes or the node group link cache expires.
+     */
+    protected List<Node> findLinkedNodes(NodeGroupLinkAction eventAction, String linkedGroupsSql,
+            Map<String, List<Node>> linkedNodesCache) {
+        Node identity = findIdentity();
+        if (identity != null) {
+            long cacheTimeoutInMs = parameterService.getLong(ParameterConstants.CACHE_TIMEOUT_NODE_GROUP_LINK_IN_MS);
+            Map<String, Node> nodes = findAllNodesAsMap(true);
+            if (nodes != nodeLinkCacheNodes || (System.currentTimeMillis() - nodeLinkCacheTime) >= cacheTimeoutInMs) {
+                flushNodeGroupCache();
+                nodeLinkCacheNodes = nodes;
                 nodeLinkCacheTime = System.currentTimeMillis();
             }
+            List<Node> list = linkedNodesCache.get(eventAction.name());
+            if (list == null) {
+                List<String> nodeGroupIds = sqlTemplate.query(getSql(linkedGroupsSql),
+                        new StringMapper(), identity.getNodeGroupId(), eventAction.name());
+                list = new ArrayList<Node>();
+                for (Node node : nodes.values()) {
+                    if (nodeGroupIds.contains(node.getNodeGroupId())
+                            && !node.getNodeId().equals(identity.getNodeId())) {
+                        list.add(node);
+                    }
+                }
+                Collections.sort(list);
+                linkedNodesCache.put(eventAction.name(), list);
+            }
             return list;
         } else {
             return Collections.emptyList();
@@ -402,8 +417,8 @@ public class NodeService extends AbstractService implements INodeService {
     }
 
     public void flushNodeGroupCache() {
-        sourceNodesCache = new HashMap<String, List<Node>>();
-        targetNodesCache = new HashMap<String, List<Node>>();
+        sourceNodesCache.clear();
+        targetNodesCache.clear();
     }
 
     public List<String> findAllExternalIds() {
@@ -415,6 +430,16 @@ public class NodeService extends AbstractService implements INodeService {
         return nodeList;
     }
 
+    public Map<String, Node> findAllNodesAsMap(boolean useCache) {
+        if (useCache) {
+            return nodeCache.getAll(parameterService.getLong(ParameterConstants.CACHE_TIMEOUT_NODE_IN_MS),
+                    parameterService.getLong(ParameterConstants.CACHE_FULL_RELOAD_NODE_IN_MS),
+                    parameterService.getLong(ParameterConstants.CACHE_REFRESH_OVERLAP_NODE_IN_MS));
+        } else {
+            return findAllNodesAsMap();
+        }
+    }
+
     public Map<String, Node> findAllNodesAsMap() {
         List<Node> nodes = findAllNodes();
         Map<String, Node> nodeMap = new HashMap<String, Node>(nodes.size());
@@ -525,17 +550,14 @@ public class NodeService extends AbstractService implements INodeService {
     }
 
     public Map<String, NodeSecurity> findAllNodeSecurity(boolean useCache) {
-        long maxSecurityCacheTime = parameterService
-                .getLong(ParameterConstants.CACHE_TIMEOUT_NODE_SECURITY_IN_MS);
-        Map<String, NodeSecurity> all = securityCache;
-        if (all == null || System.currentTimeMillis() - securityCacheTime >= maxSecurityCacheTime
-                || securityCacheTime == 0 || !useCache) {
-            all = (Map<String, NodeSecurity>) sqlTemplate.queryForMap(
-                    getSql("findAllNodeSecuritySql"), new NodeSecurityRowMapper(), "node_id");
-            securityCache = all;
-            securityCacheTime = System.currentTimeMillis();
+        if (useCache) {
+            return securityCache.getAll(parameterService.getLong(ParameterConstants.CACHE_TIMEOUT_NODE_SECURITY_IN_MS),
+                    parameterService.getLong(ParameterConstants.CACHE_FULL_RELOAD_NODE_IN_MS),
+                    parameterService.getLong(ParameterConstants.CACHE_REFRESH_OVERLAP_NODE_IN_MS));
+        } else {
+            return sqlTemplate.queryForMap(getSql("findAllNodeSecuritySql"),
+                    new NodeSecurityRowMapper(), "node_id");
         }
-        return all;
     }
 
     /**
@@ -556,7 +578,11 @@ public class NodeService extends AbstractService implements INodeService {
     }
 
     public void flushNodeAuthorizedCache() {
-        securityCacheTime = 0;
+        securityCache.flush();
+    }
+
+    public VersionedCache<String, NodeSecurity> getNodeSecurityCache() {
+        return securityCache;
     }
 
     public boolean updateNodeSecurity(NodeSecurity security) {
@@ -885,6 +911,52 @@ public class NodeService extends AbstractService implements INodeService {
         }
     }
 
+    class VersionRowMapper implements ISqlRowMapper<Version> {
+        long databaseTime;
+
+        VersionRowMapper(long databaseTime) {
+            this.databaseTime = databaseTime;
+        }
+
+        public Version mapRow(Row rs) {
+            return new Version(rs.getInt("row_count"), rs.getDateTime("last_update_time"),
+                    databaseTime);
+        }
+    }
+
+    class NodeCacheLoader implements VersionedCache.ILoader<String, Node> {
+        public Version getVersion() {
+            return sqlTemplate.queryForObject(getSql("selectNodeVersionSql"),
+                    new VersionRowMapper(symmetricDialect.getDatabaseTime()));
+        }
+
+        public Map<String, Node> loadAll() {
+            return findAllNodesAsMap();
+        }
+
+        public Map<String, Node> loadChangedSince(Date lastUpdateTime) {
+            return sqlTemplate.queryForMap(getSql("selectNodePrefixSql", "findNodesChangedSinceSql"),
+                    new NodeRowMapper(), "node_id", lastUpdateTime);
+        }
+    }
+
+    class NodeSecurityCacheLoader implements VersionedCache.ILoader<String, NodeSecurity> {
+        public Version getVersion() {
+            return sqlTemplate.queryForObject(getSql("selectNodeSecurityVersionSql"),
+                    new VersionRowMapper(symmetricDialect.getDatabaseTime()));
+        }
+
+        public Map<String, NodeSecurity> loadAll() {
+            return sqlTemplate.queryForMap(getSql("findAllNodeSecuritySql"),
+                    new NodeSecurityRowMapper(), "node_id");
+        }
+
+        public Map<String, NodeSecurity> loadChangedSince(Date lastUpdateTime) {
+            return sqlTemplate.queryForMap(getSql("findAllNodeSecuritySql", "findNodeSecurityChangedSinceSql"),
+                    new NodeSecurityRowMapper(), "node_id", lastUpdateTime);
+        }
+    }
+
     class NodeSecurityRowMapper implements ISqlRowMapper<NodeSecurity> {
         public NodeSecurity mapRow(Row rs) {
             NodeSecurity nodeSecurity = new NodeSecurity();
@@ -52,15 +52,20 @@ public class NodeServiceSqlMap extends AbstractSqlMap {
         putSql("insertNodeSql",
                 "insert into $(node) (node_group_id, external_id, database_type, database_version, schema_version, symmetric_version, sync_url," +
                 "heartbeat_time, sync_enabled, timezone_offset, batch_to_send_count, batch_in_error_count, created_at_node_id, " +
-                "deployment_type, node_id) values (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)");
+                "deployment_type, node_id, last_update_time) values (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,current_timestamp)");
 
         putSql("updateNodeSql",
                 "update $(node) set node_group_id=?, external_id=?, database_type=?,                                                                       "
                         + "  database_version=?, schema_version=?, symmetric_version=?, sync_url=?, heartbeat_time=?,                                                      "
-                        + "  sync_enabled=?, timezone_offset=?, batch_to_send_count=?, batch_in_error_count=?, created_at_node_id=?, deployment_type=? where node_id = ?   ");
+                        + "  sync_enabled=?, timezone_offset=?, batch_to_send_count=?, batch_in_error_count=?, created_at_node_id=?, deployment_type=?, last_update_time=current_timestamp where node_id = ?   ");
 
         putSql("findNodeSql", "where node_id = ?   ");
 
+        putSql("findNodesChangedSinceSql", "where c.last_update_time >= ?   ");
+
+        putSql("selectNodeVersionSql",
+                "select count(*) as row_count, max(last_update_time) as last_update_time from $(node)   ");
+
         putSql("findNodeByExternalIdSql", ""
                 + "where node_group_id = ? and external_id = ? order by node_id   ");
 
@@ -99,6 +104,11 @@ public class NodeServiceSqlMap extends AbstractSqlMap {
                           " initial_load_create_by, rev_initial_load_id, rev_initial_load_create_by " +
                           " from $(node_security)   ");
 
+        putSql("findNodeSecurityChangedSinceSql", "where last_update_time >= ?   ");
+
+        putSql("selectNodeSecurityVersionSql",
+                "select count(*) as row_count, max(last_update_time) as last_update_time from $(node_security)   ");
+
         putSql("deleteNodeSecuritySql", "delete from $(node_security) where node_id = ?");
 
         putSql("deleteNodeSql", "delete from $(node) where node_id = ?");
@@ -129,17 +139,11 @@ public class NodeServiceSqlMap extends AbstractSqlMap {
                         + "  $(node) n on n.node_id=s.node_id where n.node_group_id=? and                 "
                         + "  n.external_id=? and s.registration_time is not null and s.registration_enabled=0   ");
 
-        putSql("findNodesWhoTargetMeSql",
-                ""
-                        + "inner join $(node_group_link) d on                                          "
-                        + "  c.node_group_id = d.source_node_group_id where d.target_node_group_id = ? and   "
-                        + "  d.data_event_action = ? and c.node_id not in (select node_id from $(node_identity))          ");
+        putSql("findNodeGroupsWhoTargetMeSql",
+                "select source_node_group_id from $(node_group_link) where target_node_group_id = ? and data_event_action = ?   ");
 
-        putSql("findNodesWhoITargetSql",
-                ""
-                        + "inner join $(node_group_link) d on                                          "
-                        + "  c.node_group_id = d.target_node_group_id where d.source_node_group_id = ? and   "
-                        + "  d.data_event_action = ? and c.node_id not in (select node_id from $(node_identity))   ");
+        putSql("findNodeGroupsWhoITargetSql",
+                "select target_node_group_id from $(node_group_link) where source_node_group_id = ? and data_event_action = ?   ");
 
         putSql("selectNodeHostPrefixSql",
                 ""
@@ -159,12 +163,12 @@ public class NodeServiceSqlMap extends AbstractSqlMap {
                         + "update $(node_security) set node_password = ?, registration_enabled = ?,                                       "
                         + "  registration_time = ?, initial_load_enabled = ?, initial_load_time = ?, created_at_node_id = ?,"
                         + "  rev_initial_load_enabled=?, rev_initial_load_time=?, initial_load_id=?, " +
-                          " initial_load_create_by=?, rev_initial_load_id=?, rev_initial_load_create_by=? " +
-                          " where node_id = ?   ");
+                          " initial_load_create_by=?, rev_initial_load_id=?, rev_initial_load_create_by=?, " +
+                          " last_update_time=current_timestamp where node_id = ?   ");
 
         putSql("insertNodeSecuritySql",
                 ""
-                        + "insert into $(node_security) (node_id, node_password, created_at_node_id) values (?, ?, ?)   ");
+                        + "insert into $(node_security) (node_id, node_password, created_at_node_id, last_update_time) values (?, ?, ?, current_timestamp)   ");
 
         putSql("insertNodeHostSql",
                 "insert into $(node_host)                                                                                                                                                                                                                                            "
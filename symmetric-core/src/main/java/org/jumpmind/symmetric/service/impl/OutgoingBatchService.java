@@ -69,6 +69,8 @@ import org.jumpmind.util.FormatUtils;
  */
 public class OutgoingBatchService extends AbstractService implements IOutgoingBatchService {
 
+    protected static final int MAX_BATCH_IDS_PER_QUERY = 500;
+
     private INodeService nodeService;
 
     private IConfigurationService configurationService;
@@ -182,6 +184,27 @@ public class OutgoingBatchService extends AbstractService implements IOutgoingBa
         }
     }
 
+    /**
+     * Update the batches with one JDBC batch as part of the caller's
+     * transaction.
+     */
+    public void updateOutgoingBatches(ISqlTransaction transaction, List<OutgoingBatch> outgoingBatches) {
+        if (outgoingBatches.size() > 0) {
+            boolean inBatchMode = transaction.isInBatchMode();
+            try {
+                transaction.setInBatchMode(true);
+                int[] types = getUpdateOutgoingBatchTypes();
+                transaction.prepare(getSql("updateOutgoingBatchSql"));
+                for (OutgoingBatch outgoingBatch : outgoingBatches) {
+                    transaction.addRow(outgoingBatch, getUpdateOutgoingBatchArgs(outgoingBatch), types);
+                }
+                transaction.flush();
+            } finally {
+                transaction.setInBatchMode(inBatchMode);
+            }
+        }
+    }
+
     public void updateOutgoingBatch(OutgoingBatch outgoingBatch) {
         ISqlTransaction transaction = null;
         try {
@@ -204,32 +227,39 @@ public class OutgoingBatchService extends AbstractService implements IOutgoingBa
     }
 
     public void updateOutgoingBatch(ISqlTransaction transaction, OutgoingBatch outgoingBatch) {
+        transaction.prepareAndExecute(getSql("updateOutgoingBatchSql"),
+                getUpdateOutgoingBatchArgs(outgoingBatch), getUpdateOutgoingBatchTypes());
+    }
+
+    protected Object[] getUpdateOutgoingBatchArgs(OutgoingBatch outgoingBatch) {
         outgoingBatch.setLastUpdatedTime(new Date());
         outgoingBatch.setLastUpdatedHostName(clusterService.getServerId());
-        transaction.prepareAndExecute(
-                getSql("updateOutgoingBatchSql"),
-                new Object[] { outgoingBatch.getStatus().name(), outgoingBatch.getLoadId(),
-                       outgoingBatch.isExtractJobFlag() ? 1: 0,
-                        outgoingBatch.isLoadFlag() ? 1 : 0, outgoingBatch.isErrorFlag() ? 1 : 0,
-                        outgoingBatch.getByteCount(), outgoingBatch.getExtractCount(),
-                        outgoingBatch.getSentCount(), outgoingBatch.getLoadCount(),
-                        outgoingBatch.getDataEventCount(), outgoingBatch.getReloadEventCount(),
-                        outgoingBatch.getInsertEventCount(), outgoingBatch.getUpdateEventCount(),
-                        outgoingBatch.getDeleteEventCount(), outgoingBatch.getOtherEventCount(),
-                        outgoingBatch.getIgnoreCount(), outgoingBatch.getRouterMillis(),
-                        outgoingBatch.getNetworkMillis(), outgoingBatch.getFilterMillis(),
-                        outgoingBatch.getLoadMillis(), outgoingBatch.getExtractMillis(),
-                        outgoingBatch.getSqlState(), outgoingBatch.getSqlCode(),
-                        FormatUtils.abbreviateForLogging(outgoingBatch.getSqlMessage()),
-                        outgoingBatch.getFailedDataId(), outgoingBatch.getLastUpdatedHostName(),
-                        outgoingBatch.getLastUpdatedTime(), outgoingBatch.getSummary(), 
-                        outgoingBatch.getBatchId(), outgoingBatch.getNodeId() }, new int[] { Types.CHAR, Types.BIGINT,
-                        Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.BIGINT, Types.BIGINT, Types.BIGINT,
-                        Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT,
-                        Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT,
-                        Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.VARCHAR, Types.NUMERIC,
-                        Types.VARCHAR, Types.BIGINT, Types.VARCHAR, Types.TIMESTAMP, Types.VARCHAR, 
-                        symmetricDialect.getSqlTypeForIds(), Types.VARCHAR });
+        return new Object[] { outgoingBatch.getStatus().name(), outgoingBatch.getLoadId(),
+                outgoingBatch.isExtractJobFlag() ? 1: 0,
+                outgoingBatch.isLoadFlag() ? 1 : 0, outgoingBatch.isErrorFlag() ? 1 : 0,
+                outgoingBatch.getByteCount(), outgoingBatch.getExtractCount(),
+                outgoingBatch.getSentCount(), outgoingBatch.getLoadCount(),
+                outgoingBatch.getDataEventCount(), outgoingBatch.getReloadEventCount(),
+                outgoingBatch.getInsertEventCount(), outgoingBatch.getUpdateEventCount(),
+                outgoingBatch.getDeleteEventCount(), outgoingBatch.getOtherEventCount(),
+                outgoingBatch.getIgnoreCount(), outgoingBatch.getRouterMillis(),
+                outgoingBatch.getNetworkMillis(), outgoingBatch.getFilterMillis(),
+                outgoingBatch.getLoadMillis(), outgoingBatch.getExtractMillis(),
+                outgoingBatch.getSqlState(), outgoingBatch.getSqlCode(),
+                FormatUtils.abbreviateForLogging(outgoingBatch.getSqlMessage()),
+                outgoingBatch.getFailedDataId(), outgoingBatch.getLastUpdatedHostName(),
+                outgoingBatch.getLastUpdatedTime(), outgoingBatch.getSummary(), 
+                outgoingBatch.getBatchId(), outgoingBatch.getNodeId() };
+    }
+
+    protected int[] getUpdateOutgoingBatchTypes() {
+        return new int[] { Types.CHAR, Types.BIGINT,
+                Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.BIGINT, Types.BIGINT, Types.BIGINT,
+                Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT,
+                Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT,
+                Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.VARCHAR, Types.NUMERIC,
+                Types.VARCHAR, Types.BIGINT, Types.VARCHAR, Types.TIMESTAMP, Types.VARCHAR, 
+                symmetricDialect.getSqlTypeForIds(), Types.VARCHAR };
     }
 
     public void insertOutgoingBatch(final OutgoingBatch outgoingBatch) {
@@ -269,6 +299,51 @@ public class OutgoingBatchService extends AbstractService implements IOutgoingBa
         outgoingBatch.setBatchId(batchId);
     }
 
+    /**
+     * Insert many batches with one JDBC batch on the passed in transaction.
+     * Batch ids for batches that do not have one yet are reserved as a single
+     * block in their own transaction so the sequence row isn't held locked for
+     * the life of the caller's transaction.
+     */
+    public void insertOutgoingBatches(ISqlTransaction transaction, List<OutgoingBatch> outgoingBatches) {
+        if (outgoingBatches.size() > 0) {
+            int idsNeeded = 0;
+            for (OutgoingBatch outgoingBatch : outgoingBatches) {
+                if (outgoingBatch.getBatchId() <= 0) {
+                    idsNeeded++;
+                }
+            }
+
+            if (idsNeeded > 0) {
+                long[] batchIds = sequenceService.nextVals(Constants.SEQUENCE_OUTGOING_BATCH, idsNeeded);
+                int index = 0;
+                for (OutgoingBatch outgoingBatch : outgoingBatches) {
+                    if (outgoingBatch.getBatchId() <= 0) {
+                        outgoingBatch.setBatchId(batchIds[index++]);
+                    }
+                }
+            }
+
+            String hostName = clusterService.getServerId();
+            int[] types = new int[] { symmetricDialect.getSqlTypeForIds(), Types.VARCHAR,
+                    Types.VARCHAR, Types.CHAR, Types.BIGINT, Types.NUMERIC, Types.NUMERIC,
+                    Types.NUMERIC, Types.BIGINT, Types.BIGINT, Types.VARCHAR, Types.VARCHAR,
+                    Types.VARCHAR };
+            transaction.prepare(getSql("insertOutgoingBatchSql"));
+            for (OutgoingBatch outgoingBatch : outgoingBatches) {
+                outgoingBatch.setLastUpdatedHostName(hostName);
+                transaction.addRow(outgoingBatch, new Object[] { outgoingBatch.getBatchId(),
+                        outgoingBatch.getNodeId(), outgoingBatch.getChannelId(),
+                        outgoingBatch.getStatus().name(), outgoingBatch.getLoadId(),
+                        outgoingBatch.isExtractJobFlag() ? 1 : 0, outgoingBatch.isLoadFlag() ? 1 : 0,
+                        outgoingBatch.isCommonFlag() ? 1 : 0, outgoingBatch.getReloadEventCount(),
+                        outgoingBatch.getOtherEventCount(), outgoingBatch.getLastUpdatedHostName(),
+                        outgoingBatch.getCreateBy(), outgoingBatch.getSummary() }, types);
+            }
+            transaction.flush();
+        }
+    }
+
     public OutgoingBatch findOutgoingBatch(long batchId, String nodeId) {
         List<OutgoingBatch> list = null;
         if (StringUtils.isNotBlank(nodeId)) {
@@ -293,6 +368,23 @@ public class OutgoingBatchService extends AbstractService implements IOutgoingBa
         }
     }
 
+    /**
+     * Select the batches with the given ids. The ids are queried in chunks to
+     * keep the in list to a size that all databases accept.
+     */
+    public List<OutgoingBatch> findOutgoingBatches(List<Long> batchIds) {
+        List<OutgoingBatch> batches = new ArrayList<OutgoingBatch>(batchIds.size());
+        for (int i = 0; i < batchIds.size(); i += MAX_BATCH_IDS_PER_QUERY) {
+            List<Long> ids = batchIds.subList(i, Math.min(batchIds.size(), i + MAX_BATCH_IDS_PER_QUERY));
+            Map<String, Object> params = new HashMap<String, Object>();
+            params.put("BATCH_IDS", ids);
+            batches.addAll(sqlTemplateDirty.query(
+                    getSql("selectOutgoingBatchPrefixSql", "findOutgoingBatchesByIdsSql"),
+                    new OutgoingBatchMapper(true), params));
+        }
+        return batches;
+    }
+
     public int countOutgoingBatchesInError() {
         return sqlTemplateDirty.queryForInt(getSql("countOutgoingBatchesErrorsSql"));
     }
@@ -65,6 +65,8 @@ public class OutgoingBatchServiceSqlMap extends AbstractSqlMap {
 
         putSql("findOutgoingBatchByIdOnlySql", "where batch_id=? ");
 
+        putSql("findOutgoingBatchesByIdsSql", "where batch_id in (:BATCH_IDS) ");
+
         putSql("selectOutgoingBatchSql",
                 "where node_id = ? and status in (?, ?, ?, ?, ?, ?, ?, ?) order by batch_id asc   ");
 
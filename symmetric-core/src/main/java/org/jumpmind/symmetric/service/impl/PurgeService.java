@@ -28,6 +28,12 @@ import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang.time.DateUtils;
 import org.jumpmind.db.platform.DatabaseNamesConstants;
@@ -39,10 +45,14 @@ import org.jumpmind.symmetric.ext.IPurgeListener;
 import org.jumpmind.symmetric.model.ExtractRequest;
 import org.jumpmind.symmetric.model.IncomingBatch;
 import org.jumpmind.symmetric.model.OutgoingBatch;
+import org.jumpmind.symmetric.model.ProcessInfo;
+import org.jumpmind.symmetric.model.ProcessInfoKey;
+import org.jumpmind.symmetric.model.ProcessInfoKey.ProcessType;
 import org.jumpmind.symmetric.model.RegistrationRequest;
 import org.jumpmind.symmetric.service.ClusterConstants;
 import org.jumpmind.symmetric.service.IClusterService;
 import org.jumpmind.symmetric.service.IExtensionService;
+import org.jumpmind.symmetric.service.INodeService;
 import org.jumpmind.symmetric.service.IParameterService;
 import org.jumpmind.symmetric.service.IPurgeService;
 import org.jumpmind.symmetric.statistic.IStatisticManager;
@@ -61,13 +71,17 @@ public class PurgeService extends AbstractService implements IPurgeService {
     private IStatisticManager statisticManager;
 
     private IExtensionService extensionService;
+
+    private INodeService nodeService;
     
     public PurgeService(IParameterService parameterService, ISymmetricDialect symmetricDialect,
-            IClusterService clusterService, IStatisticManager statisticManager, IExtensionService extensionService) {
+            IClusterService clusterService, IStatisticManager statisticManager, IExtensionService extensionService,
+            INodeService nodeService) {
         super(parameterService, symmetricDialect);
         this.clusterService = clusterService;
         this.statisticManager = statisticManager;
         this.extensionService = extensionService;
+        this.nodeService = nodeService;
         
         setSqlMap(new PurgeServiceSqlMap(symmetricDialect.getPlatform(),
                 createSqlReplacementTokens()));
@@ -106,6 +120,10 @@ public class PurgeService extends AbstractService implements IPurgeService {
         long rowsPurged = 0;
         try {
             if (force || clusterService.lock(ClusterConstants.PURGE_OUTGOING)) {
+                String nodeId = nodeService.findIdentityNodeId();
+                ProcessInfo processInfo = statisticManager.newProcessInfo(new ProcessInfoKey(
+                        nodeId != null ? nodeId : "", null, ProcessType.PURGE_OUTGOING));
+                processInfo.setStatus(ProcessInfo.Status.PROCESSING);
                 try {
                     log.info("The outgoing purge process is about to run for data older than {}",
                             SimpleDateFormat.getDateTimeInstance()
@@ -116,10 +134,14 @@ public class PurgeService extends AbstractService implements IPurgeService {
                         rowsPurged += purgeOutgoingByRetentionCutoff(retentionCutoff);
                     } else {
                         rowsPurged += purgeStrandedBatches();
-                        rowsPurged += purgeDataRows(retentionCutoff);
-                        rowsPurged += purgeOutgoingBatch(retentionCutoff);
+                        rowsPurged += purgeDataRows(retentionCutoff, processInfo);
+                        rowsPurged += purgeOutgoingBatch(retentionCutoff, processInfo);
                         rowsPurged += purgeExtractRequests();                        
                     }
+                    processInfo.setStatus(ProcessInfo.Status.OK);
+                } catch (RuntimeException ex) {
+                    processInfo.setStatus(ProcessInfo.Status.ERROR);
+                    throw ex;
                 } finally {
                     if (!force) {
                         clusterService.unlock(ClusterConstants.PURGE_OUTGOING);
@@ -153,7 +175,7 @@ public class PurgeService extends AbstractService implements IPurgeService {
         return count;
     }
 
-    private long purgeOutgoingBatch(final Calendar time) {
+    private long purgeOutgoingBatch(final Calendar time, ProcessInfo processInfo) {
         log.info("Getting range for outgoing batch");
         long[] minMax = queryForMinMax(getSql("selectOutgoingBatchRangeSql"),
                 new Object[] { time.getTime(), OutgoingBatch.Status.OK.name() });
@@ -163,10 +185,10 @@ public class PurgeService extends AbstractService implements IPurgeService {
         int maxNumOfDataEventsToPurgeInTx = parameterService
                 .getInt(ParameterConstants.PURGE_MAX_NUMBER_OF_EVENT_BATCH_IDS);
         int dataEventsPurgedCount = purgeByMinMax(minMax, minGapStartId, MinMaxDeleteSql.DATA_EVENT,
-                time.getTime(), maxNumOfDataEventsToPurgeInTx);
+                time.getTime(), maxNumOfDataEventsToPurgeInTx, processInfo);
         statisticManager.incrementPurgedDataEventRows(dataEventsPurgedCount);
         int outgoingbatchPurgedCount = purgeByMinMax(minMax, minGapStartId, MinMaxDeleteSql.OUTGOING_BATCH,
-                time.getTime(), maxNumOfBatchIdsToPurgeInTx);
+                time.getTime(), maxNumOfBatchIdsToPurgeInTx, processInfo);
         statisticManager.incrementPurgedBatchOutgoingRows(outgoingbatchPurgedCount);
         
         
@@ -185,17 +207,17 @@ public class PurgeService extends AbstractService implements IPurgeService {
         return updateStrandedBatchesCount;
     }
 
-    private long purgeDataRows(final Calendar time) {
+    private long purgeDataRows(final Calendar time, ProcessInfo processInfo) {
         log.info("Getting range for data");
         long[] minMax = queryForMinMax(getSql("selectDataRangeSql"), new Object[0]);
         long minGapStartId = sqlTemplate.queryForLong(getSql("minDataGapStartId"));
         int maxNumOfDataIdsToPurgeInTx = parameterService
                 .getInt(ParameterConstants.PURGE_MAX_NUMBER_OF_DATA_IDS);
         int dataDeletedCount = purgeByMinMax(minMax, minGapStartId, MinMaxDeleteSql.DATA, time.getTime(),
-                maxNumOfDataIdsToPurgeInTx);
+                maxNumOfDataIdsToPurgeInTx, processInfo);
         statisticManager.incrementPurgedDataRows(dataDeletedCount);
         int strandedDeletedCount = purgeByMinMax(minMax, minGapStartId, MinMaxDeleteSql.STRANDED_DATA,
-                time.getTime(), maxNumOfDataIdsToPurgeInTx);
+                time.getTime(), maxNumOfDataIdsToPurgeInTx, processInfo);
         statisticManager.incrementPurgedDataRows(strandedDeletedCount);
         return dataDeletedCount + strandedDeletedCount;
 
@@ -251,71 +273,133 @@ public class PurgeService extends AbstractService implements IPurgeService {
     }
 
     private int purgeByMinMax(long[] minMax, long minGapStartId, MinMaxDeleteSql identifier, Date retentionTime,
-            int maxNumtoPurgeinTx) {
-        long minId = minMax[0];
-        long purgeUpToId = minMax[1];
-        long ts = System.currentTimeMillis();
-        int totalCount = 0;
-        int totalDeleteStmts = 0;
-        int idSqlType = symmetricDialect.getSqlTypeForIds();
-        Timestamp cutoffTime = new Timestamp(retentionTime.getTime());
+            int maxNumtoPurgeinTx, ProcessInfo processInfo) {
+        final MinMaxPurgeRange range = new MinMaxPurgeRange(identifier, minMax[0], minMax[1], minGapStartId,
+                new Timestamp(retentionTime.getTime()), maxNumtoPurgeinTx,
+                parameterService.getLong(ParameterConstants.PURGE_TARGET_STATEMENT_TIME_MS, 0), processInfo);
+        int threadCount = parameterService.getInt(ParameterConstants.PURGE_THREAD_COUNT, 1);
         log.info("About to purge {}", identifier.toString().toLowerCase());
-        
-        while (minId <= purgeUpToId) {
-            totalDeleteStmts++;
-            long maxId = minId + maxNumtoPurgeinTx;
-            if (maxId > purgeUpToId) {
-                maxId = purgeUpToId;
+
+        processInfo.setCurrentTableName(identifier.toString().toLowerCase());
+        processInfo.setCurrentDataCount(0);
+        processInfo.setCurrentBatchCount(0);
+        processInfo.setCurrentBatchStartTime(new Date());
+
+        if (threadCount > 1 && minMax[1] - minMax[0] > maxNumtoPurgeinTx) {
+            purgeByMinMaxInParallel(range, threadCount);
+        } else {
+            purgeByMinMax(range);
+        }
+
+        log.info("Done purging {} of {} rows", range.getTotalCount(), identifier.toString().toLowerCase());
+        return (int) range.getTotalCount();
+    }
+
+    /**
+     * Delete the ranges handed out by {@link MinMaxPurgeRange#next()} until
+     * none are left. Several threads may call this for the same range object,
+     * in which case each one deletes a disjoint set of ids using its own
+     * connection.
+     */
+    protected void purgeByMinMax(MinMaxPurgeRange range) {
+        long[] ids = null;
+        while ((ids = range.next()) != null) {
+            long ts = System.currentTimeMillis();
+            int count = deleteByMinMax(range, ids[0], ids[1]);
+            range.completed(count, System.currentTimeMillis() - ts);
+        }
+    }
+
+    protected void purgeByMinMaxInParallel(final MinMaxPurgeRange range, int threadCount) {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+            final AtomicInteger threadNumber = new AtomicInteger(1);
+            final String namePrefix = parameterService.getEngineName().toLowerCase() + "-purge-";
+
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r);
+                t.setName(namePrefix + threadNumber.getAndIncrement());
+                t.setDaemon(true);
+                return t;
             }
+        });
 
-            String deleteSql = null;
-            Object[] args = null;
-            int[] argTypes = null;
-
-            switch (identifier) {
-                case DATA:
-                    deleteSql = getSql("deleteDataSql");
-                    args = new Object[] { minId, maxId, cutoffTime, minId, maxId, minId, maxId,
-                            OutgoingBatch.Status.OK.name() };
-                    argTypes = new int[] { idSqlType, idSqlType, Types.TIMESTAMP, 
-                            idSqlType, idSqlType, idSqlType, idSqlType, Types.VARCHAR};
-                    break;
-                case DATA_EVENT:
-                    deleteSql = getSql("deleteDataEventSql");
-                    args = new Object[] { minId, maxId, OutgoingBatch.Status.OK.name(), minId,
-                            maxId };
-                    argTypes = new int[] { idSqlType, idSqlType, Types.VARCHAR, idSqlType, idSqlType};
-
-                    break;
-                case OUTGOING_BATCH:
-                    deleteSql = getSql("deleteOutgoingBatchSql");
-                    args = new Object[] { OutgoingBatch.Status.OK.name(), minId, maxId, minId,
-                            maxId };
-                    argTypes = new int[] {Types.VARCHAR, idSqlType, idSqlType, idSqlType, idSqlType};
-
-                    break;
-                case STRANDED_DATA:
-                    deleteSql = getSql("deleteStrandedData");
-                    args = new Object[] { minId, maxId, minGapStartId, cutoffTime, minId, maxId };
-                    argTypes = new int[] { idSqlType, idSqlType, idSqlType, Types.TIMESTAMP, idSqlType, idSqlType};
-                    break;
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>(threadCount);
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executor.submit(new Runnable() {
+                    public void run() {
+                        purgeByMinMax(range);
+                    }
+                }));
             }
 
-            log.debug("Running the following statement: {} with the following arguments: {}", deleteSql, Arrays.toString(args));
-            int count = sqlTemplate.update(deleteSql, args, argTypes);
-            log.debug("Deleted {} rows", count);
-            totalCount += count;
+            RuntimeException firstException = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException ex) {
+                    range.cancel();
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(ex);
+                } catch (ExecutionException ex) {
+                    range.cancel();
+                    if (firstException == null) {
+                        Throwable cause = ex.getCause();
+                        firstException = cause instanceof RuntimeException ? (RuntimeException) cause
+                                : new RuntimeException(cause);
+                    }
+                }
+            }
 
-            if (totalCount > 0
-                    && (System.currentTimeMillis() - ts > DateUtils.MILLIS_PER_MINUTE * 5)) {
-                log.info("Purged {} of {} rows so far using {} statements", new Object[] {
-                        totalCount, identifier.toString().toLowerCase(), totalDeleteStmts });
-                ts = System.currentTimeMillis();
+            if (firstException != null) {
+                throw firstException;
             }
-            minId = maxId + 1;
+        } finally {
+            executor.shutdown();
         }
-        log.info("Done purging {} of {} rows", totalCount, identifier.toString().toLowerCase());
-        return totalCount;
+    }
+
+    protected int deleteByMinMax(MinMaxPurgeRange range, long minId, long maxId) {
+        int idSqlType = symmetricDialect.getSqlTypeForIds();
+        Timestamp cutoffTime = range.getCutoffTime();
+        long minGapStartId = range.getMinGapStartId();
+        String deleteSql = null;
+        Object[] args = null;
+        int[] argTypes = null;
+
+        switch (range.getIdentifier()) {
+            case DATA:
+                deleteSql = getSql("deleteDataSql");
+                args = new Object[] { minId, maxId, cutoffTime, minId, maxId, minId, maxId,
+                        OutgoingBatch.Status.OK.name() };
+                argTypes = new int[] { idSqlType, idSqlType, Types.TIMESTAMP, 
+                        idSqlType, idSqlType, idSqlType, idSqlType, Types.VARCHAR};
+                break;
+            case DATA_EVENT:
+                deleteSql = getSql("deleteDataEventSql");
+                args = new Object[] { minId, maxId, OutgoingBatch.Status.OK.name(), minId,
+                        maxId };
+                argTypes = new int[] { idSqlType, idSqlType, Types.VARCHAR, idSqlType, idSqlType};
+
+                break;
+            case OUTGOING_BATCH:
+                deleteSql = getSql("deleteOutgoingBatchSql");
+                args = new Object[] { OutgoingBatch.Status.OK.name(), minId, maxId, minId,
+                        maxId };
+                argTypes = new int[] {Types.VARCHAR, idSqlType, idSqlType, idSqlType, idSqlType};
+
+                break;
+            case STRANDED_DATA:
+                deleteSql = getSql("deleteStrandedData");
+                args = new Object[] { minId, maxId, minGapStartId, cutoffTime, minId, maxId };
+                argTypes = new int[] { idSqlType, idSqlType, idSqlType, Types.TIMESTAMP, idSqlType, idSqlType};
+                break;
+        }
+
+        log.debug("Running the following statement: {} with the following arguments: {}", deleteSql, Arrays.toString(args));
+        int count = sqlTemplate.update(deleteSql, args, argTypes);
+        log.debug("Deleted {} rows", count);
+        return count;
     }
 
     public long purgeIncoming(Calendar retentionCutoff, boolean force) {
@@ -457,6 +541,121 @@ public class PurgeService extends AbstractService implements IPurgeService {
         }
     }
 
+    /**
+     * Hands out consecutive, disjoint id ranges to the threads purging one of
+     * the {@link MinMaxDeleteSql} kinds. When a target statement time is set,
+     * the size of the next range is scaled by how long the last delete took.
+     */
+    class MinMaxPurgeRange {
+
+        private MinMaxDeleteSql identifier;
+
+        private long nextMinId;
+
+        private long purgeUpToId;
+
+        private long minGapStartId;
+
+        private Timestamp cutoffTime;
+
+        private long chunkSize;
+
+        private long minChunkSize;
+
+        private long maxChunkSize;
+
+        private long targetStatementTimeMs;
+
+        private ProcessInfo processInfo;
+
+        private long totalCount;
+
+        private int totalDeleteStmts;
+
+        private long lastLogTime = System.currentTimeMillis();
+
+        private boolean cancelled;
+
+        public MinMaxPurgeRange(MinMaxDeleteSql identifier, long minId, long purgeUpToId,
+                long minGapStartId, Timestamp cutoffTime, int chunkSize, long targetStatementTimeMs,
+                ProcessInfo processInfo) {
+            this.identifier = identifier;
+            this.nextMinId = minId;
+            this.purgeUpToId = purgeUpToId;
+            this.minGapStartId = minGapStartId;
+            this.cutoffTime = cutoffTime;
+            this.chunkSize = chunkSize;
+            this.minChunkSize = Math.max(1, chunkSize / 100);
+            this.maxChunkSize = Math.max(1, (long) chunkSize * 10);
+            this.targetStatementTimeMs = targetStatementTimeMs;
+            this.processInfo = processInfo;
+        }
+
+        /**
+         * @return the next min and max id to delete, or null when the whole
+         *         range has been handed out
+         */
+        public synchronized long[] next() {
+            if (cancelled || nextMinId > purgeUpToId) {
+                return null;
+            }
+            long minId = nextMinId;
+            long maxId = minId + chunkSize;
+            if (maxId > purgeUpToId) {
+                maxId = purgeUpToId;
+            }
+            nextMinId = maxId + 1;
+            processInfo.setCurrentBatchId(maxId);
+            return new long[] { minId, maxId };
+        }
+
+        public synchronized void completed(int count, long elapsedMs) {
+            totalDeleteStmts++;
+            totalCount += count;
+
+            if (targetStatementTimeMs > 0) {
+                double factor = (double) targetStatementTimeMs / Math.max(elapsedMs, 1);
+                factor = Math.max(0.5, Math.min(2, factor));
+                chunkSize = Math.max(minChunkSize, Math.min(maxChunkSize, (long) (chunkSize * factor)));
+            }
+
+            processInfo.setCurrentDataCount(totalCount);
+            processInfo.setCurrentBatchCount(totalDeleteStmts);
+
+            if (totalCount > 0
+                    && (System.currentTimeMillis() - lastLogTime > DateUtils.MILLIS_PER_MINUTE * 5)) {
+                log.info("Purged {} of {} rows so far using {} statements at {} rows per second", new Object[] {
+                        totalCount, identifier.toString().toLowerCase(), totalDeleteStmts,
+                        processInfo.getCurrentDataCountPerSecond() });
+                lastLogTime = System.currentTimeMillis();
+            }
+        }
+
+        public synchronized void cancel() {
+            cancelled = true;
+        }
+
+        public synchronized long getTotalCount() {
+            return totalCount;
+        }
+
+        public synchronized long getChunkSize() {
+            return chunkSize;
+        }
+
+        public MinMaxDeleteSql getIdentifier() {
+            return identifier;
+        }
+
+        public long getMinGapStartId() {
+            return minGapStartId;
+        }
+
+        public Timestamp getCutoffTime() {
+            return cutoffTime;
+        }
+    }
+
     public void purgeAllIncomingEventsForNode(String nodeId) {
         int count = sqlTemplate.update(getSql("deleteIncomingBatchByNodeSql"),
                 new Object[] { nodeId });
@@ -24,6 +24,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
 import org.jumpmind.symmetric.common.ParameterConstants;
@@ -100,7 +101,11 @@ public class PushService extends AbstractOfflineDetectorService implements IPush
         return new HashMap<String, Date>(startTimesOfNodesBeingPushedTo);
     }
 
-    synchronized public RemoteNodeStatuses pushData(boolean force) {
+    public RemoteNodeStatuses pushData(boolean force) {
+        return pushData(force, null);
+    }
+
+    synchronized public RemoteNodeStatuses pushData(boolean force, Set<String> nodeIds) {
         RemoteNodeStatuses statuses = new RemoteNodeStatuses(configurationService.getChannels(false));
         
         Node identity = nodeService.findIdentity();
@@ -115,6 +120,9 @@ public class PushService extends AbstractOfflineDetectorService implements IPush
                             int availableThreads = nodeCommunicationService
                                     .getAvailableThreads(CommunicationType.PUSH);
                             for (NodeCommunication nodeCommunication : nodes) {
+                                if (nodeIds != null && !nodeIds.contains(nodeCommunication.getNodeId())) {
+                                    continue;
+                                }
                                 boolean meetsMinimumTime = true;
                                 if (minimumPeriodMs > 0 && nodeCommunication.getLastLockTime() != null &&
                                    (System.currentTimeMillis() - nodeCommunication.getLastLockTime().getTime()) < minimumPeriodMs) {
@@ -39,15 +39,17 @@ public class RegistrationServiceSqlMap extends AbstractSqlMap {
         putSql("registerNodeSecuritySql",
                 ""
                         + "update $(node_security) set registration_enabled = 0, registration_time =   "
-                        + "  current_timestamp where node_id = ?                                             ");
+                        + "  current_timestamp, last_update_time = current_timestamp where node_id = ?       ");
 
         putSql("reopenRegistrationSql", ""
                 + "update $(node_security) set node_password = ?, registration_enabled = 1,    "
-                + "  registration_time = null where node_id = ? and registration_enabled = 0  ");
+                + "  registration_time = null, last_update_time = current_timestamp            "
+                + "  where node_id = ? and registration_enabled = 0                           ");
 
         putSql("openRegistrationNodeSecuritySql", ""
                 + "insert into $(node_security) (node_id, node_password,       "
-                + "  registration_enabled, created_at_node_id) values (?, ?, 1, ?)   ");
+                + "  registration_enabled, created_at_node_id, last_update_time)    "
+                + "  values (?, ?, 1, ?, current_timestamp)                    ");
 
         putSql("getRegistrationRedirectUrlSql", ""
                 + "select sync_url from $(node) n inner join $(registration_redirect) r "
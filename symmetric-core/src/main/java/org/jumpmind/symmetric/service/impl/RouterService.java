@@ -25,13 +25,18 @@ import static org.apache.commons.lang.StringUtils.isNotBlank;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -45,6 +50,7 @@ import org.jumpmind.symmetric.ISymmetricEngine;
 import org.jumpmind.symmetric.SyntaxParsingException;
 import org.jumpmind.symmetric.common.Constants;
 import org.jumpmind.symmetric.common.ParameterConstants;
+import org.jumpmind.symmetric.ext.IDataRoutedListener;
 import org.jumpmind.symmetric.io.data.DataEventType;
 import org.jumpmind.symmetric.model.Channel;
 import org.jumpmind.symmetric.model.Data;
@@ -100,16 +106,20 @@ import org.jumpmind.util.FormatUtils;
  */
 public class RouterService extends AbstractService implements IRouterService {
 
-    protected Map<String, Boolean> commonBatchesLastKnownState = new HashMap<String, Boolean>();
+    protected Map<String, Boolean> commonBatchesLastKnownState = new ConcurrentHashMap<String, Boolean>();
     
-    protected long commonBatchesCacheTime;
+    protected volatile long commonBatchesCacheTime;
 
-    protected Map<String, Boolean> defaultRouterOnlyLastKnownState = new HashMap<String, Boolean>();
+    protected Map<String, Boolean> defaultRouterOnlyLastKnownState = new ConcurrentHashMap<String, Boolean>();
     
-    protected long defaultRoutersCacheTime;
+    protected volatile long defaultRoutersCacheTime;
 
     protected transient ExecutorService readThread = null;
 
+    protected transient ExecutorService channelRouterThreads = null;
+
+    protected int channelRouterThreadCount;
+
     protected ISymmetricEngine engine;
     
     protected IExtensionService extensionService;
@@ -120,6 +130,15 @@ public class RouterService extends AbstractService implements IRouterService {
     
     protected boolean firstTimeCheckForAbandonedBatches = true;
 
+    protected Set<String> nodeIdsWithNewBatches = Collections
+            .newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    protected final Object dataCapturedMonitor = new Object();
+
+    protected boolean dataCaptured = false;
+
+    protected volatile long lastProbedMaxDataId = -1;
+
     public RouterService(ISymmetricEngine engine) {
         super(engine.getParameterService(), engine.getSymmetricDialect());
 
@@ -168,6 +187,14 @@ public class RouterService extends AbstractService implements IRouterService {
                 log.error("", ex);
             }
         }
+        if (channelRouterThreads != null) {
+            try {
+                channelRouterThreads.shutdown();
+                channelRouterThreads = null;
+            } catch (Exception ex) {
+                log.error("", ex);
+            }
+        }
     }
 
     /**
@@ -196,6 +223,7 @@ public class RouterService extends AbstractService implements IRouterService {
                     }
                     insertInitialLoadEvents();
 
+                    nodeIdsWithNewBatches.clear();
                     long ts = System.currentTimeMillis();
                     gapDetector.beforeRouting();
                     dataCount = routeDataForEachChannel();
@@ -211,11 +239,56 @@ public class RouterService extends AbstractService implements IRouterService {
                         engine.getClusterService().unlock(ClusterConstants.ROUTE);
                     }
                 }
+                fireDataRouted();
             }
         }
         return dataCount;
     }
 
+    protected void fireDataRouted() {
+        if (nodeIdsWithNewBatches.size() > 0) {
+            Set<String> nodeIds = new HashSet<String>(nodeIdsWithNewBatches);
+            nodeIdsWithNewBatches.clear();
+            for (IDataRoutedListener listener : extensionService
+                    .getExtensionPointList(IDataRoutedListener.class)) {
+                try {
+                    listener.dataRouted(nodeIds);
+                } catch (Exception ex) {
+                    log.error("Failed to notify a data routed listener", ex);
+                }
+            }
+        }
+    }
+
+    public void notifyDataCaptured() {
+        synchronized (dataCapturedMonitor) {
+            dataCaptured = true;
+            dataCapturedMonitor.notifyAll();
+        }
+    }
+
+    public boolean waitForDataToRoute(long maxWaitMs) throws InterruptedException {
+        synchronized (dataCapturedMonitor) {
+            if (!dataCaptured && maxWaitMs > 0) {
+                dataCapturedMonitor.wait(maxWaitMs);
+            }
+            if (dataCaptured) {
+                dataCaptured = false;
+                return true;
+            }
+        }
+
+        /*
+         * Most data is captured by database triggers, so fall back to a cheap
+         * check of the max data id, which is answered from the primary key
+         * index
+         */
+        long maxDataId = engine.getDataService().findMaxDataId();
+        boolean newData = maxDataId > lastProbedMaxDataId;
+        lastProbedMaxDataId = maxDataId;
+        return newData;
+    }
+
     /**
      * If a load has been queued up by setting the initial load enabled or
      * reverse initial load enabled flags, then the router service will insert
@@ -405,10 +478,12 @@ public class RouterService extends AbstractService implements IRouterService {
     }
 
     /**
-     * We route data channel by channel for two reasons. One is that if/when we
-     * decide to multi-thread the routing it is a simple matter of inserting a
-     * thread pool here and waiting for all channels to be processed. The other
-     * reason is to reduce the number of connections we are required to have.
+     * We route data channel by channel for two reasons. One is that each
+     * channel can be routed on its own thread and in its own transaction,
+     * which is what happens when
+     * {@link ParameterConstants#ROUTING_CHANNEL_THREAD_COUNT_PER_SERVER} is
+     * greater than one. The other reason is to reduce the number of connections
+     * we are required to have.
      */
     protected int routeDataForEachChannel() {
         int dataCount = 0;
@@ -422,10 +497,10 @@ public class RouterService extends AbstractService implements IRouterService {
             if (parameterService.is(ParameterConstants.ROUTING_QUERY_CHANNELS_FIRST)) {
                 readyChannels = getReadyChannels();
             }
+            List<NodeChannel> channelsToRoute = new ArrayList<NodeChannel>(channels.size());
             for (NodeChannel nodeChannel : channels) {
                 if (nodeChannel.isEnabled() && (readyChannels == null || readyChannels.contains(nodeChannel.getChannelId()))) {
-                    processInfo.setCurrentChannelId(nodeChannel.getChannelId());
-                    dataCount += routeDataForChannel(processInfo, nodeChannel, sourceNode);
+                    channelsToRoute.add(nodeChannel);
                 } else {
                     gapDetector.setIsAllDataRead(false);
                     if (log.isDebugEnabled()) {
@@ -435,6 +510,16 @@ public class RouterService extends AbstractService implements IRouterService {
                     }
                 }
             }
+
+            int threadCount = parameterService.getInt(ParameterConstants.ROUTING_CHANNEL_THREAD_COUNT_PER_SERVER, 1);
+            if (threadCount > 1 && channelsToRoute.size() > 1) {
+                dataCount = routeDataForEachChannelInParallel(processInfo, channelsToRoute, sourceNode, threadCount);
+            } else {
+                for (NodeChannel nodeChannel : channelsToRoute) {
+                    processInfo.setCurrentChannelId(nodeChannel.getChannelId());
+                    dataCount += routeDataForChannel(processInfo, nodeChannel, sourceNode);
+                }
+            }
             processInfo.setStatus(ProcessInfo.Status.OK);
         } catch (RuntimeException ex) {
             processInfo.setStatus(ProcessInfo.Status.ERROR);
@@ -444,6 +529,91 @@ public class RouterService extends AbstractService implements IRouterService {
         return dataCount;
     }
 
+    /**
+     * Route each channel on a thread from a bounded pool. Every channel gets
+     * its own {@link ProcessInfo}, {@link ChannelRouterContext} and SQL
+     * transaction, so channels only share the gap detector, which collects the
+     * routed data ids from all of them. This method waits for every channel to
+     * finish before returning so that gap detection sees all routed data.
+     */
+    protected int routeDataForEachChannelInParallel(final ProcessInfo processInfo,
+            List<NodeChannel> channels, final Node sourceNode, int threadCount) {
+        ExecutorService executor = getChannelRouterThreads(threadCount);
+        // create the shared reader pool up front rather than racing to create it on the channel threads
+        getReadThread();
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>(channels.size());
+        for (final NodeChannel nodeChannel : channels) {
+            futures.add(executor.submit(new Callable<Integer>() {
+                public Integer call() throws Exception {
+                    ProcessInfo channelProcessInfo = engine.getStatisticManager().newProcessInfo(
+                            new ProcessInfoKey(sourceNode.getNodeId(), nodeChannel.getChannelId(), null,
+                                    ProcessType.ROUTER_JOB));
+                    channelProcessInfo.setThreadPerChannel(true);
+                    channelProcessInfo.setCurrentChannelId(nodeChannel.getChannelId());
+                    channelProcessInfo.setStatus(ProcessInfo.Status.PROCESSING);
+                    try {
+                        int dataCount = routeDataForChannel(channelProcessInfo, nodeChannel, sourceNode);
+                        channelProcessInfo.setStatus(ProcessInfo.Status.OK);
+                        return dataCount;
+                    } catch (RuntimeException ex) {
+                        channelProcessInfo.setStatus(ProcessInfo.Status.ERROR);
+                        throw ex;
+                    }
+                }
+            }));
+        }
+
+        int dataCount = 0;
+        RuntimeException firstException = null;
+        for (Future<Integer> future : futures) {
+            try {
+                dataCount += future.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(ex);
+            } catch (ExecutionException ex) {
+                if (firstException == null) {
+                    Throwable cause = ex.getCause();
+                    firstException = cause instanceof RuntimeException ? (RuntimeException) cause
+                            : new RuntimeException(cause);
+                }
+            }
+        }
+
+        if (firstException != null) {
+            throw firstException;
+        }
+
+        return dataCount;
+    }
+
+    protected synchronized ExecutorService getChannelRouterThreads(int threadCount) {
+        if (channelRouterThreads == null || channelRouterThreadCount != threadCount) {
+            if (channelRouterThreads != null) {
+                channelRouterThreads.shutdown();
+            }
+            channelRouterThreadCount = threadCount;
+            channelRouterThreads = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+                final AtomicInteger threadNumber = new AtomicInteger(1);
+                final String namePrefix = parameterService.getEngineName()
+                        .toLowerCase() + "-router-channel-";
+
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r);
+                    t.setName(namePrefix + threadNumber.getAndIncrement());
+                    if (t.isDaemon()) {
+                        t.setDaemon(false);
+                    }
+                    if (t.getPriority() != Thread.NORM_PRIORITY) {
+                        t.setPriority(Thread.NORM_PRIORITY);
+                    }
+                    return t;
+                }
+            });
+        }
+        return channelRouterThreads;
+    }
+
     protected Set<String> getReadyChannels() {
         List<DataGap> dataGaps = gapDetector.getDataGaps();
         int dataIdSqlType = engine.getSymmetricDialect().getSqlTypeForIds();
@@ -735,6 +905,12 @@ public class RouterService extends AbstractService implements IRouterService {
         
         context.commit();
 
+        for (OutgoingBatch batch : batches) {
+            if (!Constants.UNROUTED_NODE_ID.equals(batch.getNodeId())) {
+                nodeIdsWithNewBatches.add(batch.getNodeId());
+            }
+        }
+
         for (IDataRouter dataRouter : usedRouters) {
             dataRouter.contextCommitted(context);
         }
@@ -769,31 +945,35 @@ public class RouterService extends AbstractService implements IRouterService {
 		if (parameterService.is(ParameterConstants.SYNCHRONIZE_ALL_JOBS)) {
 			reader.run();
 		} else {
-			if (readThread == null) {
-				readThread = Executors.newCachedThreadPool(new ThreadFactory() {
-					final AtomicInteger threadNumber = new AtomicInteger(1);
-					final String namePrefix = parameterService.getEngineName()
-							.toLowerCase() + "-router-reader-";
-
-					public Thread newThread(Runnable r) {
-						Thread t = new Thread(r);
-						t.setName(namePrefix + threadNumber.getAndIncrement());
-						if (t.isDaemon()) {
-							t.setDaemon(false);
-						}
-						if (t.getPriority() != Thread.NORM_PRIORITY) {
-							t.setPriority(Thread.NORM_PRIORITY);
-						}
-						return t;
-					}
-				});
-			}
-			readThread.execute(reader);
+			getReadThread().execute(reader);
 		}
 
 		return reader;
 	}
 
+	protected ExecutorService getReadThread() {
+		if (readThread == null) {
+			readThread = Executors.newCachedThreadPool(new ThreadFactory() {
+				final AtomicInteger threadNumber = new AtomicInteger(1);
+				final String namePrefix = parameterService.getEngineName()
+						.toLowerCase() + "-router-reader-";
+
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r);
+					t.setName(namePrefix + threadNumber.getAndIncrement());
+					if (t.isDaemon()) {
+						t.setDaemon(false);
+					}
+					if (t.getPriority() != Thread.NORM_PRIORITY) {
+						t.setPriority(Thread.NORM_PRIORITY);
+					}
+					return t;
+				}
+			});
+		}
+		return readThread;
+	}
+
     /**
      * Pre-read data and fill up a queue so we can peek ahead to see if we have
      * crossed a database transaction boundary. Then route each {@link Data}
@@ -807,6 +987,7 @@ public class RouterService extends AbstractService implements IRouterService {
      */
     protected int selectDataAndRoute(ProcessInfo processInfo, ChannelRouterContext context) throws InterruptedException {
         IDataToRouteReader reader = startReading(context);
+        context.setDataToRouteReader(reader);
         Data data = null;
         Data nextData = null;
         int totalDataCount = 0;
@@ -974,33 +1155,45 @@ public class RouterService extends AbstractService implements IRouterService {
             nodeIds.add(Constants.UNROUTED_NODE_ID);
         }
         long ts = System.currentTimeMillis();
-        long batchIdToReuse = -1;
+        Map<String, OutgoingBatch> batches = context.getBatchesByNodes();
+        List<OutgoingBatch> newBatches = null;
+        for (String nodeId : nodeIds) {
+            if (nodeId != null && !batches.containsKey(nodeId)) {
+                OutgoingBatch batch = new OutgoingBatch(nodeId, dataMetaData.getNodeChannel().getChannelId(),
+                        Status.RT);
+                batch.setCommonFlag(context.isProduceCommonBatches());
+                if (newBatches == null) {
+                    newBatches = new ArrayList<OutgoingBatch>(nodeIds.size());
+                }
+                newBatches.add(batch);
+                batches.put(nodeId, batch);
+                processInfo.incrementBatchCount();
+            }
+        }
+
+        if (newBatches != null) {
+            log.debug(
+                    "About to insert {} new batches on the '{}' channel: {}.",
+                    new Object[] { newBatches.size(), dataMetaData.getNodeChannel().getChannelId(),
+                            newBatches });
+
+            // if in reuse mode, then share the batch id
+            if (context.isProduceCommonBatches()) {
+                long batchIdToReuse = engine.getSequenceService().nextVal(
+                        Constants.SEQUENCE_OUTGOING_BATCH);
+                for (OutgoingBatch batch : newBatches) {
+                    batch.setBatchId(batchIdToReuse);
+                }
+            }
+
+            engine.getOutgoingBatchService().insertOutgoingBatches(context.getSqlTransaction(),
+                    newBatches);
+        }
+
         boolean dataEventAdded = false;
         for (String nodeId : nodeIds) {
             if (nodeId != null) {
-                Map<String, OutgoingBatch> batches = context.getBatchesByNodes();
                 OutgoingBatch batch = batches.get(nodeId);
-                if (batch == null) {
-                    batch = new OutgoingBatch(nodeId, dataMetaData.getNodeChannel().getChannelId(),
-                            Status.RT);
-                    batch.setBatchId(batchIdToReuse);
-                    batch.setCommonFlag(context.isProduceCommonBatches());
-                    
-					log.debug(
-							"About to insert a new batch for node {} on the '{}' channel.  Batches in progress are: {}.",
-							new Object[] { nodeId, batch.getChannelId(),
-									context.getBatchesByNodes().values() });
-
-                    engine.getOutgoingBatchService().insertOutgoingBatch(batch);
-                    processInfo.incrementBatchCount();
-                    context.getBatchesByNodes().put(nodeId, batch);
-
-                    // if in reuse mode, then share the batch id
-                    if (context.isProduceCommonBatches()) {
-                        batchIdToReuse = batch.getBatchId();
-                    }
-                }
-                
                 if (dataMetaData.getData().getDataEventType() == DataEventType.RELOAD) {
                     long loadId = context.getLastLoadId();
                     if (loadId < 0) {
@@ -98,6 +98,104 @@ public class SequenceService extends AbstractService implements ISequenceService
         return nextValFromDatabase(transaction, name);
     }
 
+    public synchronized long[] nextVals(final String name, final int count) {
+        return new DoTransaction<long[]>() {
+            public long[] execute(ISqlTransaction transaction) {
+                return nextVals(transaction, name, count);
+            }
+        }.execute();
+    }
+
+    public synchronized long[] nextVals(ISqlTransaction transaction, String name, int count) {
+        if (transaction == null) {
+            return nextVals(name, count);
+        }
+        long[] values = new long[count];
+        int index = 0;
+        if (!parameterService.is(ParameterConstants.CLUSTER_LOCKING_ENABLED)) {
+            CachedRange range = sequenceCache.get(name);
+            if (range != null) {
+                long currentValue = range.getCurrentValue();
+                while (index < count && currentValue < range.getEndValue()) {
+                    values[index++] = ++currentValue;
+                }
+                range.setCurrentValue(currentValue);
+                if (currentValue >= range.getEndValue()) {
+                    sequenceCache.remove(name);
+                }
+            }
+        }
+
+        if (index < count) {
+            long sequenceTimeoutInMs = parameterService.getLong(
+                    ParameterConstants.SEQUENCE_TIMEOUT_MS, 5000);
+            long ts = System.currentTimeMillis();
+            do {
+                int reserved = tryToReserveVals(transaction, name, values, index);
+                if (reserved < 0) {
+                    /*
+                     * The sequence is at its max or min value so hand out the
+                     * rest of the values one at a time, which cycles it
+                     */
+                    while (index < count) {
+                        values[index++] = nextVal(transaction, name);
+                    }
+                    return values;
+                }
+                index += reserved;
+                if (index == count) {
+                    return values;
+                }
+            } while (System.currentTimeMillis() - sequenceTimeoutInMs < ts);
+            throw new IllegalStateException(String.format(
+                    "Timed out after %d ms trying to reserve %d values for %s",
+                    System.currentTimeMillis() - ts, count - index, name));
+        }
+        return values;
+    }
+
+    /**
+     * Reserve a block of values, which is cut short if the sequence does not
+     * have enough values left before its max or min value.
+     * 
+     * @return the number of values reserved, 0 if another thread updated the
+     *         sequence first or -1 if the sequence has no values left
+     */
+    protected int tryToReserveVals(ISqlTransaction transaction, String name, long[] values,
+            int fromIndex) {
+        long currVal = currVal(transaction, name);
+        Sequence sequence = getSequenceDefinition(transaction, name);
+        int count = (int) Math.min(values.length - fromIndex, getValsLeft(sequence, currVal));
+        if (count <= 0) {
+            return -1;
+        }
+        long endVal = currVal + ((long) sequence.getIncrementBy() * count);
+
+        int updateCount = transaction.prepareAndExecute(getSql("updateCurrentValueSql"), endVal,
+                name, currVal);
+        if (updateCount != 1) {
+            return 0;
+        }
+
+        for (int i = fromIndex; i < values.length; i++) {
+            currVal += sequence.getIncrementBy();
+            values[i] = currVal;
+        }
+        return count;
+    }
+
+    /**
+     * @return how many times the sequence can be incremented from the given
+     *         value before it passes its max or min value
+     */
+    protected long getValsLeft(Sequence sequence, long value) {
+        if (sequence.getIncrementBy() > 0) {
+            return (sequence.getMaxValue() - value) / sequence.getIncrementBy();
+        } else {
+            return (sequence.getMinValue() - value) / sequence.getIncrementBy();
+        }
+    }
+
     protected long nextValFromCache(ISqlTransaction transaction, String name) {
         CachedRange range = sequenceCache.get(name);
         if (range != null) {
@@ -164,7 +262,8 @@ public class SequenceService extends AbstractService implements ISequenceService
 
         CachedRange range = null;
         if (!parameterService.is(ParameterConstants.CLUSTER_LOCKING_ENABLED) && sequence.getCacheSize() > 0) {
-            long endVal = nextVal + (sequence.getIncrementBy() * (sequence.getCacheSize() - 1));
+            long cacheSize = Math.min(sequence.getCacheSize() - 1, getValsLeft(sequence, nextVal));
+            long endVal = nextVal + (sequence.getIncrementBy() * cacheSize);
             range = new CachedRange(nextVal, endVal);
             nextVal = endVal;
         }
@@ -22,6 +22,13 @@ package org.jumpmind.symmetric.service.impl;
 
 import static org.apache.commons.lang.StringUtils.isBlank;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -42,6 +49,7 @@ import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.jumpmind.db.model.Column;
 import org.jumpmind.db.model.Database;
@@ -128,6 +136,8 @@ public class TriggerRouterService extends AbstractService implements ITriggerRou
     private Date lastUpdateTime;
 
     private Object cacheLock = new Object();    
+
+    private boolean cachedTableModelRestored = false;
     
     /**
      * Cache the history for performance. History never changes and does not
@@ -1178,7 +1188,7 @@ public class TriggerRouterService extends AbstractService implements ITriggerRou
                         log.info("Synchronizing triggers{}", additionalMessage);
 
                         // make sure all tables are freshly read in
-                        platform.resetCachedTableModel();
+                        refreshCachedTableModel();
 
                         clearCache();
 
@@ -1210,12 +1220,15 @@ public class TriggerRouterService extends AbstractService implements ITriggerRou
                             triggersForCurrentNode.clear();
                         }
 
+                        loadTablesIntoCache(triggersForCurrentNode);
+
                         List<TriggerHistory> activeTriggerHistories = getActiveTriggerHistories();
                         inactivateTriggers(triggersForCurrentNode, sqlBuffer, activeTriggerHistories);
 
                         updateOrCreateDatabaseTriggers(triggersForCurrentNode, sqlBuffer, force,
                                 true, activeTriggerHistories, true);
                         resetTriggerRouterCacheByNodeGroupId();
+                        saveCachedTableModel();
                     } finally {
                         clusterService.unlock(ClusterConstants.SYNCTRIGGERS);
                         log.info("Done synchronizing triggers");
@@ -1234,6 +1247,102 @@ public class TriggerRouterService extends AbstractService implements ITriggerRou
         }
     }
 
+    protected File getCachedTableModelFile() {
+        return new File(parameterService.getTempDirectory(), "table-model.ser");
+    }
+
+    /*
+     * Drops the cached table definitions so they are read again, or when they
+     * are persisted, restores them after a restart and only drops the ones
+     * whose columns or primary key changed in the database.
+     */
+    protected void refreshCachedTableModel() {
+        if (parameterService.is(ParameterConstants.SYNC_TRIGGERS_PERSIST_TABLE_MODEL)) {
+            try {
+                if (!cachedTableModelRestored) {
+                    cachedTableModelRestored = true;
+                    File file = getCachedTableModelFile();
+                    if (file.exists()) {
+                        InputStream is = new BufferedInputStream(new FileInputStream(file));
+                        try {
+                            log.info("Restored {} table definitions from {}",
+                                    platform.readCachedTableModel(is), file.getAbsolutePath());
+                        } finally {
+                            IOUtils.closeQuietly(is);
+                        }
+                    }
+                }
+                int count = platform.revalidateCachedTableModel();
+                if (count > 0) {
+                    log.info("{} cached table definitions were out of date", count);
+                }
+            } catch (Exception ex) {
+                log.warn("Failed to revalidate the cached table definitions.  All tables will be read again", ex);
+                platform.resetCachedTableModel();
+            }
+        } else {
+            platform.resetCachedTableModel();
+        }
+    }
+
+    protected void saveCachedTableModel() {
+        if (parameterService.is(ParameterConstants.SYNC_TRIGGERS_PERSIST_TABLE_MODEL)) {
+            File file = getCachedTableModelFile();
+            OutputStream os = null;
+            try {
+                file.getParentFile().mkdirs();
+                os = new BufferedOutputStream(new FileOutputStream(file));
+                platform.writeCachedTableModel(os);
+            } catch (Exception ex) {
+                log.warn("Failed to save the cached table definitions to " + file.getAbsolutePath(), ex);
+            } finally {
+                IOUtils.closeQuietly(os);
+            }
+        }
+    }
+
+    /*
+     * Reads the tables of every catalog and schema that many triggers capture
+     * from in bulk instead of one at a time.
+     */
+    protected void loadTablesIntoCache(List<Trigger> triggers) {
+        int threshold = parameterService.getInt(ParameterConstants.SYNC_TRIGGERS_BULK_READ_THRESHOLD);
+        if (threshold > 0) {
+            Map<String, Set<String>> tableNamesBySchema = new HashMap<String, Set<String>>();
+            Map<String, String[]> catalogAndSchemaBySchema = new HashMap<String, String[]>();
+            for (Trigger trigger : triggers) {
+                if (!trigger.isSourceCatalogNameWildCarded() && !trigger.isSourceSchemaNameWildCarded()
+                        && !trigger.isSourceTableNameWildCarded()) {
+                    String catalogName = isBlank(trigger.getSourceCatalogName()) ? platform
+                            .getDefaultCatalog() : trigger.getSourceCatalogName();
+                    String schemaName = isBlank(trigger.getSourceSchemaName()) ? platform
+                            .getDefaultSchema() : trigger.getSourceSchemaName();
+                    String key = Table.getFullyQualifiedTablePrefix(catalogName, schemaName);
+                    Set<String> tableNames = tableNamesBySchema.get(key);
+                    if (tableNames == null) {
+                        tableNames = new HashSet<String>();
+                        tableNamesBySchema.put(key, tableNames);
+                        catalogAndSchemaBySchema.put(key, new String[] { catalogName, schemaName });
+                    }
+                    tableNames.add(trigger.getSourceTableName());
+                }
+            }
+
+            for (Map.Entry<String, Set<String>> entry : tableNamesBySchema.entrySet()) {
+                if (entry.getValue().size() >= threshold) {
+                    String[] catalogAndSchema = catalogAndSchemaBySchema.get(entry.getKey());
+                    try {
+                        platform.loadTablesIntoCache(catalogAndSchema[0], catalogAndSchema[1],
+                                entry.getValue());
+                    } catch (Exception ex) {
+                        log.warn("Failed to read the tables for " + entry.getKey()
+                                + " in bulk.  They will be read one at a time", ex);
+                    }
+                }
+            }
+        }
+    }
+
     public void clearCache() {
         synchronized (cacheLock) {
             this.triggerRouterPerNodeCacheTime = 0;
@@ -1276,7 +1385,7 @@ public class TriggerRouterService extends AbstractService implements ITriggerRou
                     Set<Table> tables = tablesByTriggerId.get(history.getTriggerId());
                     Trigger trigger = getTriggerFromList(history.getTriggerId(), triggersThatShouldBeActive);
                     if (tables == null && trigger != null) {
-                        tables = getTablesForTrigger(trigger, triggersThatShouldBeActive, false);
+                        tables = getTablesForTrigger(trigger, triggersThatShouldBeActive, true);
                         tablesByTriggerId.put(trigger.getTriggerId(), tables);
                     }
 
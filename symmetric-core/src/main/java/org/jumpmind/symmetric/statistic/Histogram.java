@@ -0,0 +1,108 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.statistic;
+
+/**
+ * Counts values into buckets with fixed upper bounds. The last bucket counts
+ * every value greater than the largest bound.
+ */
+public class Histogram {
+
+    private long[] bounds;
+
+    private long[] counts;
+
+    private long count;
+
+    private long total;
+
+    private long max;
+
+    private long last;
+
+    public Histogram(long... bounds) {
+        if (bounds == null || bounds.length == 0) {
+            throw new IllegalArgumentException("A histogram needs at least one bucket bound");
+        }
+        for (int i = 1; i < bounds.length; i++) {
+            if (bounds[i] <= bounds[i - 1]) {
+                throw new IllegalArgumentException("Histogram bucket bounds must be in ascending order");
+            }
+        }
+        this.bounds = bounds.clone();
+        this.counts = new long[bounds.length + 1];
+    }
+
+    public synchronized void add(long value) {
+        int bucket = 0;
+        while (bucket < bounds.length && value > bounds[bucket]) {
+            bucket++;
+        }
+        counts[bucket]++;
+        count++;
+        total += value;
+        max = Math.max(max, value);
+        last = value;
+    }
+
+    public long[] getBounds() {
+        return bounds.clone();
+    }
+
+    public synchronized long[] getCounts() {
+        return counts.clone();
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    public synchronized long getLast() {
+        return last;
+    }
+
+    public synchronized long getAverage() {
+        return count > 0 ? total / count : 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder("{ ");
+        for (int i = 0; i < counts.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            if (i < bounds.length) {
+                sb.append("<=").append(bounds[i]);
+            } else {
+                sb.append(">").append(bounds[bounds.length - 1]);
+            }
+            sb.append(": ").append(counts[i]);
+        }
+        return sb.append(", max: ").append(max).append(", last: ").append(last).append(" }")
+                .toString();
+    }
+
+}
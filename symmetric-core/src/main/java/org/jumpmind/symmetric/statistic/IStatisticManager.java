@@ -55,6 +55,12 @@ public interface IStatisticManager {
     
     public void removeRouterStatsByBatch(Long batchId);
 
+    public void addDataGapStats(int gapCount, long dataIdCount, long detectMillis);
+
+    public Histogram getDataGapCountHistogram();
+
+    public Histogram getDataGapDetectMillisHistogram();
+
     public void incrementDataLoadedErrors(String channelId, long count);
 
     public void incrementDataBytesLoaded(String channelId, long count);
@@ -69,6 +69,10 @@ public class StatisticManager implements IStatisticManager {
 
     private ConcurrentHashMap<Long, RouterStats> routerStatsByBatch = new ConcurrentHashMap<Long, RouterStats>();
 
+    private Histogram dataGapCountHistogram = new Histogram(10, 100, 1000, 10000, 100000);
+
+    private Histogram dataGapDetectMillisHistogram = new Histogram(10, 100, 1000, 10000, 60000);
+
     protected INodeService nodeService;
 
     protected IStatisticService statisticService;
@@ -194,6 +198,23 @@ public class StatisticManager implements IStatisticManager {
         routerStatsByBatch.remove(batchId);
     }
 
+    public void addDataGapStats(int gapCount, long dataIdCount, long detectMillis) {
+        dataGapCountHistogram.add(gapCount);
+        dataGapDetectMillisHistogram.add(detectMillis);
+        if (log.isDebugEnabled()) {
+            log.debug("Detected {} gaps with {} data ids in {} ms", new Object[] { gapCount,
+                    dataIdCount, detectMillis });
+        }
+    }
+
+    public Histogram getDataGapCountHistogram() {
+        return dataGapCountHistogram;
+    }
+
+    public Histogram getDataGapDetectMillisHistogram() {
+        return dataGapDetectMillisHistogram;
+    }
+
     public void incrementDataRouted(String channelId, long count) {
         channelStatsLock.acquireUninterruptibly();
         try {
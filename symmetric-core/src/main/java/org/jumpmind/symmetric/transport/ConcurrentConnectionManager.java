@@ -20,11 +20,14 @@
  */
 package org.jumpmind.symmetric.transport;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.jumpmind.symmetric.common.ParameterConstants;
 import org.jumpmind.symmetric.service.IParameterService;
@@ -33,6 +36,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * Reservations are locked per pool so requests for different pools (push,
+ * pull, registration, etc.) do not contend with each other. The reservation
+ * maps are concurrent so that they can be read without taking the lock.
+ * 
  * @see IConcurrentConnectionManager
  */
 public class ConcurrentConnectionManager implements IConcurrentConnectionManager {
@@ -41,11 +48,13 @@ public class ConcurrentConnectionManager implements IConcurrentConnectionManager
 
     protected IParameterService parameterService;
 
-    protected Map<String, Map<String, Reservation>> activeReservationsByNodeByPool = new HashMap<String, Map<String, Reservation>>();
+    protected ConcurrentMap<String, Map<String, Reservation>> activeReservationsByNodeByPool = new ConcurrentHashMap<String, Map<String, Reservation>>();
 
-    protected Map<String, Map<String, NodeConnectionStatistics>> nodeConnectionStatistics = new HashMap<String, Map<String, NodeConnectionStatistics>>();
+    protected ConcurrentMap<String, Map<String, NodeConnectionStatistics>> nodeConnectionStatistics = new ConcurrentHashMap<String, Map<String, NodeConnectionStatistics>>();
 
-    protected Set<String> whiteList = new HashSet<String>();
+    protected ConcurrentMap<String, ReservationStatistics> reservationStatisticsByPool = new ConcurrentHashMap<String, ReservationStatistics>();
+
+    protected Set<String> whiteList = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     public ConcurrentConnectionManager(IParameterService parameterService,
             IStatisticManager statisticManager) {
@@ -63,12 +72,15 @@ public class ConcurrentConnectionManager implements IConcurrentConnectionManager
         stats.lastConnectionTimeMs = startMs;
     }
 
-    private synchronized NodeConnectionStatistics getNodeConnectionStatistics(String nodeId,
+    private NodeConnectionStatistics getNodeConnectionStatistics(String nodeId,
             String poolId) {
         Map<String, NodeConnectionStatistics> statsMap = nodeConnectionStatistics.get(poolId);
         if (statsMap == null) {
-            statsMap = new HashMap<String, NodeConnectionStatistics>();
-            nodeConnectionStatistics.put(poolId, statsMap);
+            statsMap = new ConcurrentHashMap<String, NodeConnectionStatistics>();
+            Map<String, NodeConnectionStatistics> existing = nodeConnectionStatistics.putIfAbsent(poolId, statsMap);
+            if (existing != null) {
+                statsMap = existing;
+            }
         }
         NodeConnectionStatistics stats = statsMap.get(nodeId);
         if (stats == null) {
@@ -78,79 +90,106 @@ public class ConcurrentConnectionManager implements IConcurrentConnectionManager
         return stats;
     }
 
-    synchronized public boolean releaseConnection(String nodeId, String channelId, String poolId) {
+    protected ReservationStatistics getReservationStatistics(String poolId) {
+        ReservationStatistics stats = reservationStatisticsByPool.get(poolId);
+        if (stats == null) {
+            stats = new ReservationStatistics();
+            ReservationStatistics existing = reservationStatisticsByPool.putIfAbsent(poolId, stats);
+            if (existing != null) {
+                stats = existing;
+            }
+        }
+        return stats;
+    }
+
+    public boolean releaseConnection(String nodeId, String channelId, String poolId) {
 		String reservationId = getReservationIdentifier(nodeId, channelId);
     	log.debug("Releasing connection for {} {}", poolId, reservationId);
 		Map<String, Reservation> reservations = getReservationMap(poolId);
-        Reservation reservation = reservations.remove(reservationId);
-        if (reservation != null) {
-            logConnectedTimePeriod(reservationId, reservation.createTime, System.currentTimeMillis(),
-                    poolId);
-            return true;
-        } else {
-            log.warn("Failed to release connection for {}", reservationId);
-            return false;
-        }
+		synchronized (reservations) {
+            Reservation reservation = reservations.remove(reservationId);
+            if (reservation != null) {
+                logConnectedTimePeriod(reservationId, reservation.createTime, System.currentTimeMillis(),
+                        poolId);
+                getReservationStatistics(poolId).releasedCount.incrementAndGet();
+                return true;
+            } else {
+                log.warn("Failed to release connection for {}", reservationId);
+                return false;
+            }
+		}
 	}
     
-    synchronized public boolean releaseConnection(String nodeId, String poolId) {
+    public boolean releaseConnection(String nodeId, String poolId) {
 		Map<String, Reservation> reservations = getReservationMap(poolId);
-        Reservation reservation = reservations.remove(nodeId);
-        if (reservation != null) {
-            logConnectedTimePeriod(nodeId, reservation.createTime, System.currentTimeMillis(),
-                    poolId);
-            return true;
-        } else {
-            return false;
-        }
+		synchronized (reservations) {
+            Reservation reservation = reservations.remove(nodeId);
+            if (reservation != null) {
+                logConnectedTimePeriod(nodeId, reservation.createTime, System.currentTimeMillis(),
+                        poolId);
+                getReservationStatistics(poolId).releasedCount.incrementAndGet();
+                return true;
+            } else {
+                return false;
+            }
+		}
 	}
 
-    synchronized public void addToWhitelist(String nodeId) {
+    public void addToWhitelist(String nodeId) {
         whiteList.add(nodeId);
     }
 
-    synchronized public void removeFromWhiteList(String nodeId) {
+    public void removeFromWhiteList(String nodeId) {
         whiteList.remove(nodeId);
     }
 
-    synchronized public String[] getWhiteList() {
-        return whiteList.toArray(new String[whiteList.size()]);
+    public String[] getWhiteList() {
+        return whiteList.toArray(new String[0]);
     }
 
-    synchronized public int getReservationCount(String poolId) {
+    public int getReservationCount(String poolId) {
         return getReservationMap(poolId).size();
     }
 
-    synchronized public boolean reserveConnection(String nodeId, String channelId, String poolId,
+    public boolean reserveConnection(String nodeId, String channelId, String poolId,
             ReservationType reservationRequest) {
     	
     	String reservationId = getReservationIdentifier(nodeId, channelId);
     	log.debug("Reserving connection for {} {}", poolId, reservationId);
         Map<String, Reservation> reservations = getReservationMap(poolId);
+        ReservationStatistics stats = getReservationStatistics(poolId);
         int maxPoolSize = parameterService.getInt(ParameterConstants.CONCURRENT_WORKERS);
         long timeout = parameterService.getLong(ParameterConstants.CONCURRENT_RESERVATION_TIMEOUT);
-        removeTimedOutReservations(reservations);
-        if (reservations.size() < maxPoolSize || reservations.containsKey(reservationId)
-                || whiteList.contains(reservationId)) {
-            Reservation existingReservation = reservations.get(reservationId);
-            if (existingReservation == null
-                    || existingReservation.getType() == ReservationType.SOFT) {
-                reservations.put(reservationId, new Reservation(reservationId,
-                        reservationRequest == ReservationType.SOFT ? System.currentTimeMillis()
-                                + timeout : Long.MAX_VALUE, reservationRequest));
-                return true;
+        long waitStart = System.nanoTime();
+        synchronized (reservations) {
+            stats.addWaitTime(System.nanoTime() - waitStart);
+            stats.timedOutCount.addAndGet(removeTimedOutReservations(reservations));
+            if (reservations.size() < maxPoolSize || reservations.containsKey(reservationId)
+                    || whiteList.contains(reservationId)) {
+                Reservation existingReservation = reservations.get(reservationId);
+                if (existingReservation == null
+                        || existingReservation.getType() == ReservationType.SOFT) {
+                    reservations.put(reservationId, new Reservation(reservationId,
+                            reservationRequest == ReservationType.SOFT ? System.currentTimeMillis()
+                                    + timeout : Long.MAX_VALUE, reservationRequest));
+                    stats.grantedCount.incrementAndGet();
+                    return true;
+                } else {
+                    log.warn(
+                            "Node '{}' Channel '{}' requested a {} connection, but was rejected because it already has one",
+                            nodeId, channelId, poolId);
+                    stats.rejectedCount.incrementAndGet();
+                    return false;
+                }
             } else {
-                log.warn(
-                        "Node '{}' Channel '{}' requested a {} connection, but was rejected because it already has one",
-                        nodeId, channelId, poolId);
+                logTooBusyRejection(reservationId, poolId);
+                stats.rejectedCount.incrementAndGet();
                 return false;
             }
-        } else {
-            return false;
         }
     }
     
-    synchronized public boolean reserveConnection(String nodeId, String poolId,
+    public boolean reserveConnection(String nodeId, String poolId,
             ReservationType reservationRequest) {
         return reserveConnection(nodeId, null, poolId, reservationRequest);
     }
@@ -165,15 +204,11 @@ public class ConcurrentConnectionManager implements IConcurrentConnectionManager
     
     protected Map<String, Date> getReservationsByNodeId(String urlPath) {
         Map<String, Date> byNodeId = new HashMap<String, Date>();
-        Set<String> poolIds = activeReservationsByNodeByPool.keySet();
-        for (String poolId : poolIds) {
-            if (poolId.endsWith(urlPath)) {
-                Map<String, Reservation> reservations = activeReservationsByNodeByPool.get(poolId);
-                Set<String> nodeIds = new HashSet<String>(reservations.keySet());
-                for (String nodeId : nodeIds) {
-                      Reservation reservation = reservations.get(nodeId);
-                      if (reservation != null && reservation.getType() == ReservationType.HARD) {                          
-                          byNodeId.put(nodeId, new Date(reservation.getCreateTime()));
+        for (Map.Entry<String, Map<String, Reservation>> entry : activeReservationsByNodeByPool.entrySet()) {
+            if (entry.getKey().endsWith(urlPath)) {
+                for (Reservation reservation : entry.getValue().values()) {
+                      if (reservation.getType() == ReservationType.HARD) {                          
+                          byNodeId.put(reservation.getNodeId(), new Date(reservation.getCreateTime()));
                       }
                 }
             }
@@ -181,7 +216,11 @@ public class ConcurrentConnectionManager implements IConcurrentConnectionManager
         return byNodeId;
     }
 
-    protected void removeTimedOutReservations(Map<String, Reservation> reservations) {
+    /**
+     * @return the number of reservations that were removed
+     */
+    protected int removeTimedOutReservations(Map<String, Reservation> reservations) {
+        int removed = 0;
         long currentTime = System.currentTimeMillis();
         String[] keys = reservations.keySet().toArray(new String[reservations.size()]);
         if (keys != null) {
@@ -189,16 +228,21 @@ public class ConcurrentConnectionManager implements IConcurrentConnectionManager
                 Reservation reservation = reservations.get(key);
                 if (reservation.timeToLiveInMs < currentTime) {
                     reservations.remove(key);
+                    removed++;
                 }
             }
         }
+        return removed;
     }
 
     private Map<String, Reservation> getReservationMap(String poolId) {
         Map<String, Reservation> reservations = activeReservationsByNodeByPool.get(poolId);
         if (reservations == null) {
-            reservations = new HashMap<String, Reservation>();
-            activeReservationsByNodeByPool.put(poolId, reservations);
+            reservations = new ConcurrentHashMap<String, Reservation>();
+            Map<String, Reservation> existing = activeReservationsByNodeByPool.putIfAbsent(poolId, reservations);
+            if (existing != null) {
+                reservations = existing;
+            }
         }
         return reservations;
     }
@@ -299,5 +343,60 @@ public class ConcurrentConnectionManager implements IConcurrentConnectionManager
         return activeReservationsByNodeByPool;
     }
 
+    public Map<String, ReservationStatistics> getReservationStatisticsByPool() {
+        return reservationStatisticsByPool;
+    }
+
+    /**
+     * Live counters for the reservations made against one pool. The wait time
+     * is the time spent waiting for the pool's lock.
+     */
+    public static class ReservationStatistics {
+
+        AtomicLong grantedCount = new AtomicLong();
+        AtomicLong rejectedCount = new AtomicLong();
+        AtomicLong releasedCount = new AtomicLong();
+        AtomicLong timedOutCount = new AtomicLong();
+        AtomicLong totalWaitTimeNanos = new AtomicLong();
+        AtomicLong maxWaitTimeNanos = new AtomicLong();
+
+        protected void addWaitTime(long waitTimeNanos) {
+            totalWaitTimeNanos.addAndGet(waitTimeNanos);
+            long max = maxWaitTimeNanos.get();
+            while (waitTimeNanos > max && !maxWaitTimeNanos.compareAndSet(max, waitTimeNanos)) {
+                max = maxWaitTimeNanos.get();
+            }
+        }
+
+        public long getGrantedCount() {
+            return grantedCount.get();
+        }
+
+        public long getRejectedCount() {
+            return rejectedCount.get();
+        }
+
+        public long getReleasedCount() {
+            return releasedCount.get();
+        }
+
+        public long getTimedOutCount() {
+            return timedOutCount.get();
+        }
+
+        public long getTotalWaitTimeMicros() {
+            return totalWaitTimeNanos.get() / 1000;
+        }
+
+        public long getMaxWaitTimeMicros() {
+            return maxWaitTimeNanos.get() / 1000;
+        }
+
+        public long getAverageWaitTimeMicros() {
+            long requests = grantedCount.get() + rejectedCount.get();
+            return requests > 0 ? getTotalWaitTimeMicros() / requests : 0;
+        }
+    }
+
 
 }
\ No newline at end of file
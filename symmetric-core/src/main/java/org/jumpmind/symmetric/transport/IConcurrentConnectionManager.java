@@ -25,6 +25,7 @@ import java.util.Map;
 
 import org.jumpmind.symmetric.transport.ConcurrentConnectionManager.NodeConnectionStatistics;
 import org.jumpmind.symmetric.transport.ConcurrentConnectionManager.Reservation;
+import org.jumpmind.symmetric.transport.ConcurrentConnectionManager.ReservationStatistics;
 
 public interface IConcurrentConnectionManager {
 
@@ -67,6 +68,8 @@ public interface IConcurrentConnectionManager {
 
     public Map<String, Map<String, Reservation>> getActiveReservationsByNodeByPool();
 
+    public Map<String, ReservationStatistics> getReservationStatisticsByPool();
+
     public void addToWhitelist(String nodeId);
 
     public String[] getWhiteList();
@@ -0,0 +1,64 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.transport;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+
+/**
+ * A {@link BufferedWriter} that remembers the {@link OutputStream} and
+ * encoding it writes to so that content that is already encoded (like a
+ * staged batch file) can be copied straight to the stream after the writer is
+ * flushed.
+ */
+public class StreamBufferedWriter extends BufferedWriter {
+
+    protected OutputStream outputStream;
+
+    protected String encoding;
+
+    public StreamBufferedWriter(OutputStream outputStream, String encoding)
+            throws UnsupportedEncodingException {
+        super(new OutputStreamWriter(outputStream, encoding));
+        this.outputStream = outputStream;
+        this.encoding = encoding;
+    }
+
+    public OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * @return true if bytes encoded with the passed in charset can be written
+     *         directly to the underlying stream
+     */
+    public boolean isEncodedAs(String charsetName) {
+        return Charset.forName(encoding).equals(Charset.forName(charsetName));
+    }
+
+}
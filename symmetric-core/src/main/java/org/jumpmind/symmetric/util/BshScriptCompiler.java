@@ -0,0 +1,397 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.util;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.lang.model.SourceVersion;
+
+import org.apache.commons.lang.StringUtils;
+import org.jumpmind.util.SimpleClassCompiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compiles BeanShell scripts that are also valid Java into classes so they
+ * don't have to be interpreted for every row. Variables are declared with the
+ * type of the values they are bound to, so a script is compiled once for each
+ * combination of variable names and types it sees. A script that can't be
+ * compiled (loosely typed variables, BeanShell only syntax, no JDK available)
+ * is remembered and {@link #getCompiledScript} returns null so the caller can
+ * fall back to the BeanShell interpreter.
+ * <p/>
+ * Compiled scripts have Java semantics. Boxed values compared with == are
+ * compared by reference, and the members passed to {@link #getCompiledScript}
+ * belong to a class that is shared by every caller.
+ * <p/>
+ * Scripts are cached by their text. Once {@link #MAX_SCRIPTS} different
+ * scripts have been seen, for example because routers or transforms were
+ * edited, the cache and the classes compiled for it are dropped and the
+ * scripts still in use are compiled again.
+ */
+public class BshScriptCompiler {
+
+    protected static final int MAX_VARIANTS_PER_SCRIPT = 10;
+
+    protected static final int MAX_SCRIPTS = 100;
+
+    protected static final String[] STATEMENT_KEYWORDS = { "return", "throw", "break", "continue",
+            "if", "else", "for", "while", "do", "try", "switch", "synchronized", "import" };
+
+    protected static final String CODE_START = "import java.util.*;\n" + "import java.io.*;\n"
+            + "import java.net.*;\n";
+
+    protected final Logger log = LoggerFactory.getLogger(getClass());
+
+    protected SimpleClassCompiler classCompiler = new SimpleClassCompiler();
+
+    protected Map<String, Set<String>> identifiersByScript = new ConcurrentHashMap<String, Set<String>>();
+
+    protected ConcurrentMap<String, List<CompiledVariant>> variantsByScript = new ConcurrentHashMap<String, List<CompiledVariant>>();
+
+    /**
+     * @return the names a script could be referring to as variables. Used to
+     *         only bind the variables that the script actually uses.
+     */
+    public Set<String> getIdentifiers(String script) {
+        Set<String> identifiers = identifiersByScript.get(script);
+        if (identifiers == null) {
+            if (identifiersByScript.size() >= MAX_SCRIPTS) {
+                identifiersByScript.clear();
+            }
+            identifiers = Collections.unmodifiableSet(parseIdentifiers(script));
+            identifiersByScript.put(script, identifiers);
+        }
+        return identifiers;
+    }
+
+    /**
+     * @param className
+     *            a descriptive name for the generated class
+     * @param members
+     *            optional fields and methods that are added to the generated
+     *            class
+     * @param script
+     *            the script that is compiled into the body of the eval method
+     * @param names
+     *            the names of the variables to declare
+     * @param values
+     *            the values that will be bound to the variables
+     * @param declaredTypes
+     *            the source level types of well known variables. Other
+     *            variables are declared using the type of their value.
+     * @return the compiled script or null if the script could not be compiled
+     */
+    public ICompiledScript getCompiledScript(String className, String members, String script,
+            List<String> names, List<Object> values, Map<String, String> declaredTypes) {
+        String key = className + "\n" + StringUtils.trimToEmpty(members) + "\n" + script;
+        List<CompiledVariant> variants = variantsByScript.get(key);
+        if (variants == null) {
+            synchronized (this) {
+                variants = variantsByScript.get(key);
+                if (variants == null) {
+                    if (variantsByScript.size() >= MAX_SCRIPTS) {
+                        log.info("More than {} scripts were compiled, so the compiled scripts will be dropped",
+                                MAX_SCRIPTS);
+                        clearCache();
+                    }
+                    variants = new CopyOnWriteArrayList<CompiledVariant>();
+                    variantsByScript.put(key, variants);
+                }
+            }
+        }
+
+        CompiledVariant variant = findVariant(variants, names, values);
+        if (variant != null) {
+            return variant.script;
+        }
+
+        synchronized (this) {
+            // another thread might have compiled the same variant while this one waited
+            variant = findVariant(variants, names, values);
+            if (variant == null) {
+                if (variants.size() >= MAX_VARIANTS_PER_SCRIPT) {
+                    return null;
+                }
+                variant = compile(className, members, script, names, values, declaredTypes);
+                variants.add(variant);
+            }
+            return variant.script;
+        }
+    }
+
+    /**
+     * Drops the cached scripts and the classes that were compiled for them.
+     */
+    public synchronized void clearCache() {
+        variantsByScript.clear();
+        identifiersByScript.clear();
+        classCompiler = new SimpleClassCompiler();
+    }
+
+    /**
+     * @return a compiled variant that accepts the values, a failed variant for
+     *         the same types, or null if the variables have not been seen yet
+     */
+    protected CompiledVariant findVariant(List<CompiledVariant> variants, List<String> names,
+            List<Object> values) {
+        for (CompiledVariant variant : variants) {
+            if (variant.script != null && variant.accepts(names, values, false)) {
+                return variant;
+            }
+        }
+
+        for (CompiledVariant variant : variants) {
+            if (variant.script == null && variant.accepts(names, values, true)) {
+                return variant;
+            }
+        }
+        return null;
+    }
+
+    protected CompiledVariant compile(String className, String members, String script,
+            List<String> names, List<Object> values, Map<String, String> declaredTypes) {
+        CompiledVariant variant = new CompiledVariant(names.size());
+        StringBuilder declarations = new StringBuilder();
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            String typeName = declaredTypes != null ? declaredTypes.get(name) : null;
+            if (typeName == null) {
+                Class<?> type = getVariableType(values.get(i));
+                variant.types[i] = type;
+                typeName = type.getCanonicalName();
+            }
+            variant.names[i] = name;
+            declarations.append("        ").append(typeName).append(" ").append(name)
+                    .append(" = (").append(typeName).append(") $bindings[").append(i)
+                    .append("];\n");
+        }
+
+        Exception lastException = null;
+        for (String body : getMethodBodies(script)) {
+            StringBuilder javaCode = new StringBuilder(CODE_START);
+            javaCode.append("public class ").append(className).append(" implements ")
+                    .append(ICompiledScript.class.getName()).append(" {\n");
+            if (StringUtils.isNotBlank(members)) {
+                javaCode.append(members).append("\n");
+            }
+            javaCode.append("    public Object eval(Object[] $bindings) throws Exception {\n");
+            javaCode.append(declarations);
+            javaCode.append(body);
+            javaCode.append("\n    }\n}\n");
+            try {
+                variant.script = (ICompiledScript) classCompiler.getCompiledClass(
+                        javaCode.toString(), false);
+                return variant;
+            } catch (Exception ex) {
+                lastException = ex;
+            }
+        }
+
+        log.info("Could not compile the {} script as Java, so it will be interpreted", className);
+        log.debug("The script failed to compile", lastException);
+        return variant;
+    }
+
+    /**
+     * @return the method bodies to try, in order. A script that is a single
+     *         expression or ends in an expression returns the value of that
+     *         expression, like the BeanShell interpreter does.
+     */
+    protected List<String> getMethodBodies(String script) {
+        List<String> bodies = new ArrayList<String>(2);
+        String trimmed = script.trim();
+        while (trimmed.endsWith(";")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+        }
+        int lastStatementStart = findLastStatementStart(trimmed);
+        String lastStatement = trimmed.substring(lastStatementStart).trim();
+        if (lastStatement.length() > 0 && !startsWithStatementKeyword(lastStatement)) {
+            bodies.add(trimmed.substring(0, lastStatementStart) + "\nreturn (Object) ("
+                    + lastStatement + ");");
+        }
+        bodies.add("if (true) {\n" + script + "\n}\nreturn null;");
+        return bodies;
+    }
+
+    protected boolean startsWithStatementKeyword(String statement) {
+        for (String keyword : STATEMENT_KEYWORDS) {
+            if (statement.startsWith(keyword)
+                    && (statement.length() == keyword.length() || !Character
+                            .isJavaIdentifierPart(statement.charAt(keyword.length())))) {
+                return true;
+            }
+        }
+        return statement.startsWith("{");
+    }
+
+    /**
+     * @return the position after the last semicolon or closing brace that is
+     *         not nested in parenthesis, brackets, braces or literals
+     */
+    protected int findLastStatementStart(String script) {
+        int start = 0;
+        int depth = 0;
+        for (int i = 0; i < script.length(); i++) {
+            char c = script.charAt(i);
+            int literalEnd = skipLiteralOrComment(script, i);
+            if (literalEnd > i) {
+                i = literalEnd - 1;
+            } else if (c == '(' || c == '[' || c == '{') {
+                depth++;
+            } else if (c == ')' || c == ']' || c == '}') {
+                depth--;
+                if (depth == 0 && c == '}') {
+                    start = i + 1;
+                }
+            } else if (c == ';' && depth == 0) {
+                start = i + 1;
+            }
+        }
+        return start;
+    }
+
+    protected Set<String> parseIdentifiers(String script) {
+        Set<String> identifiers = new HashSet<String>();
+        for (int i = 0; i < script.length(); i++) {
+            int literalEnd = skipLiteralOrComment(script, i);
+            if (literalEnd > i) {
+                i = literalEnd - 1;
+            } else if (Character.isJavaIdentifierStart(script.charAt(i))) {
+                int end = i + 1;
+                while (end < script.length() && Character.isJavaIdentifierPart(script.charAt(end))) {
+                    end++;
+                }
+                int previous = i - 1;
+                while (previous >= 0 && Character.isWhitespace(script.charAt(previous))) {
+                    previous--;
+                }
+                if (previous < 0 || script.charAt(previous) != '.') {
+                    identifiers.add(script.substring(i, end));
+                }
+                i = end - 1;
+            } else if (Character.isJavaIdentifierPart(script.charAt(i))) {
+                while (i + 1 < script.length() && Character.isJavaIdentifierPart(script.charAt(i + 1))) {
+                    i++;
+                }
+            }
+        }
+        return identifiers;
+    }
+
+    /**
+     * @return the position after the string literal, character literal or
+     *         comment that starts at the given position, or the position itself
+     */
+    protected int skipLiteralOrComment(String script, int pos) {
+        char c = script.charAt(pos);
+        if (c == '"' || c == '\'') {
+            int i = pos + 1;
+            while (i < script.length() && script.charAt(i) != c) {
+                if (script.charAt(i) == '\\') {
+                    i++;
+                }
+                i++;
+            }
+            return Math.min(i + 1, script.length());
+        } else if (c == '/' && pos + 1 < script.length()) {
+            char next = script.charAt(pos + 1);
+            if (next == '/') {
+                int end = script.indexOf('\n', pos);
+                return end < 0 ? script.length() : end;
+            } else if (next == '*') {
+                int end = script.indexOf("*/", pos + 2);
+                return end < 0 ? script.length() : end + 2;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * @return the type to declare a variable with. Only public JDK types are
+     *         used because other classes (JDBC driver types for example) might
+     *         not be visible to the compiler.
+     */
+    public static Class<?> getVariableType(Object value) {
+        if (value == null) {
+            return Object.class;
+        }
+        Class<?> type = value.getClass();
+        if (type.isArray()) {
+            return type.getComponentType().isPrimitive() ? type : Object.class;
+        }
+        while (type != null
+                && !(Modifier.isPublic(type.getModifiers()) && type.getName().startsWith("java."))) {
+            type = type.getSuperclass();
+        }
+        return type == null ? Object.class : type;
+    }
+
+    public static boolean isVariableName(String name) {
+        return name != null && SourceVersion.isName(name) && !name.startsWith("$");
+    }
+
+    static class CompiledVariant {
+
+        String[] names;
+
+        Class<?>[] types;
+
+        ICompiledScript script;
+
+        CompiledVariant(int size) {
+            this.names = new String[size];
+            this.types = new Class<?>[size];
+        }
+
+        boolean accepts(List<String> names, List<Object> values, boolean exact) {
+            if (names.size() != this.names.length) {
+                return false;
+            }
+            for (int i = 0; i < this.names.length; i++) {
+                if (!this.names[i].equals(names.get(i))) {
+                    return false;
+                }
+                if (types[i] != null) {
+                    Object value = values.get(i);
+                    if (exact) {
+                        if (types[i] != getVariableType(value)) {
+                            return false;
+                        }
+                    } else if (value != null && !types[i].isInstance(value)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+}
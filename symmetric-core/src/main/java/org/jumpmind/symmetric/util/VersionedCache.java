@@ -0,0 +1,375 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.util;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A cache of table rows that is refreshed by version instead of being
+ * reloaded in full every time it expires. The version of a table is its row
+ * count and its maximum last_update_time. When the cache expires, readers keep
+ * getting the current entries while a background thread compares versions and
+ * merges in only the rows that changed since the last load. The new entries
+ * are swapped in atomically.
+ * <p>
+ * Rows that are deleted are detected by the row count and cause a full reload.
+ * last_update_time is set when a row is written, not when it is committed, so
+ * the changed rows are selected from an overlap window before the newest
+ * change that was seen. A transaction that takes longer than the window to
+ * commit is picked up by the periodic full reload. The version carries the
+ * database time it was read at, so the window is measured on the same clock
+ * that wrote last_update_time.
+ */
+public class VersionedCache<K, V> {
+
+    protected final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final String name;
+
+    private final ILoader<K, V> loader;
+
+    private final ThreadPoolExecutor refreshExecutor;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private final Object loadLock = new Object();
+
+    private volatile Snapshot<K, V> snapshot;
+
+    private volatile boolean expired;
+
+    private long generation;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong unchangedRefreshCount = new AtomicLong();
+
+    private final AtomicLong deltaRefreshCount = new AtomicLong();
+
+    private final AtomicLong fullRefreshCount = new AtomicLong();
+
+    private final AtomicLong totalRefreshTimeMs = new AtomicLong();
+
+    private volatile long lastRefreshTimeMs;
+
+    public VersionedCache(final String name, ILoader<K, V> loader) {
+        this.name = name;
+        this.loader = loader;
+        this.refreshExecutor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r);
+                        t.setName(name + "-cache-refresh");
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+        this.refreshExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @param timeoutInMs
+     *            the amount of time after which the entries are refreshed in
+     *            the background
+     * @param fullReloadInMs
+     *            the amount of time after which the background refresh reloads
+     *            all entries instead of the changed ones
+     * @param overlapInMs
+     *            how far before the newest change that was seen the
+     *            background refresh looks for changed rows
+     * @return an unmodifiable view of the cached entries, loaded on the
+     *         calling thread if the cache is empty or was flushed
+     */
+    public Map<K, V> getAll(long timeoutInMs, final long fullReloadInMs, final long overlapInMs) {
+        Snapshot<K, V> current = snapshot;
+        if (current == null) {
+            missCount.incrementAndGet();
+            synchronized (loadLock) {
+                current = snapshot;
+                if (current == null) {
+                    current = load();
+                }
+            }
+        } else {
+            hitCount.incrementAndGet();
+            if ((expired || System.currentTimeMillis() - current.loadTime >= timeoutInMs)
+                    && refreshing.compareAndSet(false, true)) {
+                try {
+                    refreshExecutor.execute(new Runnable() {
+                        public void run() {
+                            try {
+                                expired = false;
+                                refresh(fullReloadInMs, overlapInMs);
+                            } catch (RuntimeException ex) {
+                                log.warn("Failed to refresh the " + name + " cache", ex);
+                            } finally {
+                                refreshing.set(false);
+                            }
+                        }
+                    });
+                } catch (RejectedExecutionException ex) {
+                    refreshing.set(false);
+                }
+            }
+        }
+        return current.entries;
+    }
+
+    public V get(K key, long timeoutInMs, long fullReloadInMs, long overlapInMs) {
+        return getAll(timeoutInMs, fullReloadInMs, overlapInMs).get(key);
+    }
+
+    /**
+     * Discard the cached entries so the next read reloads all of them. A
+     * refresh that is running in the background will not swap in its result.
+     */
+    public synchronized void flush() {
+        generation++;
+        snapshot = null;
+    }
+
+    /**
+     * Mark the cached entries as out of date. The next read refreshes them in
+     * the background like an expired cache, and readers keep getting the
+     * current entries in the meantime.
+     */
+    public void expire() {
+        expired = true;
+    }
+
+    /**
+     * Refresh the cache on the calling thread. Nothing is loaded if the version
+     * has not changed, only the changed rows are merged in if rows were added
+     * or updated, and everything is reloaded if rows were deleted or the last
+     * full reload is older than fullReloadInMs. While the newest change is
+     * within overlapInMs of the last refresh, the changed rows are selected
+     * even if the version is the same, because a transaction that wrote an
+     * older last_update_time may have committed since.
+     */
+    public void refresh(long fullReloadInMs, long overlapInMs) {
+        long startTime = System.currentTimeMillis();
+        long startGeneration;
+        Snapshot<K, V> current;
+        synchronized (this) {
+            startGeneration = generation;
+            current = snapshot;
+        }
+
+        if (current == null || startTime - current.fullLoadTime >= fullReloadInMs) {
+            load();
+            return;
+        }
+
+        Version version = loader.getVersion();
+        Date lastUpdateTime = current.version.getLastUpdateTime();
+        boolean recentlyChanged = lastUpdateTime != null
+                && current.version.getDatabaseTime() - lastUpdateTime.getTime() < overlapInMs;
+        Snapshot<K, V> next = null;
+        if (version.equals(current.version) && !recentlyChanged) {
+            next = new Snapshot<K, V>(current.entries, version, startTime, current.fullLoadTime);
+            unchangedRefreshCount.incrementAndGet();
+        } else if (lastUpdateTime != null) {
+            Map<K, V> changed = loader.loadChangedSince(new Date(lastUpdateTime.getTime()
+                    - overlapInMs));
+            Map<K, V> entries = new HashMap<K, V>(current.entries);
+            entries.putAll(changed);
+            if (entries.size() == version.getRowCount()) {
+                next = new Snapshot<K, V>(Collections.unmodifiableMap(entries), version,
+                        startTime, current.fullLoadTime);
+                deltaRefreshCount.incrementAndGet();
+                log.debug("Refreshed {} changed entries in the {} cache", changed.size(), name);
+            }
+        }
+
+        if (next == null) {
+            load();
+        } else {
+            swap(startGeneration, next, startTime);
+        }
+    }
+
+    protected Snapshot<K, V> load() {
+        long startTime = System.currentTimeMillis();
+        long startGeneration;
+        synchronized (this) {
+            startGeneration = generation;
+        }
+        Version version = loader.getVersion();
+        Map<K, V> entries = Collections.unmodifiableMap(loader.loadAll());
+        Snapshot<K, V> next = new Snapshot<K, V>(entries, version, startTime, startTime);
+        fullRefreshCount.incrementAndGet();
+        swap(startGeneration, next, startTime);
+        return next;
+    }
+
+    protected void swap(long startGeneration, Snapshot<K, V> next, long startTime) {
+        synchronized (this) {
+            if (generation == startGeneration) {
+                snapshot = next;
+            }
+        }
+        lastRefreshTimeMs = System.currentTimeMillis() - startTime;
+        totalRefreshTimeMs.addAndGet(lastRefreshTimeMs);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSize() {
+        Snapshot<K, V> current = snapshot;
+        return current != null ? current.entries.size() : 0;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getUnchangedRefreshCount() {
+        return unchangedRefreshCount.get();
+    }
+
+    public long getDeltaRefreshCount() {
+        return deltaRefreshCount.get();
+    }
+
+    public long getFullRefreshCount() {
+        return fullRefreshCount.get();
+    }
+
+    public long getLastRefreshTimeMs() {
+        return lastRefreshTimeMs;
+    }
+
+    public long getTotalRefreshTimeMs() {
+        return totalRefreshTimeMs.get();
+    }
+
+    /**
+     * Loads the rows of the cached table.
+     */
+    public interface ILoader<K, V> {
+
+        /**
+         * @return the row count and maximum last_update_time, along with the
+         *         database time they were read at
+         */
+        public Version getVersion();
+
+        public Map<K, V> loadAll();
+
+        /**
+         * @return the rows with a last_update_time at or after the given time
+         */
+        public Map<K, V> loadChangedSince(Date lastUpdateTime);
+
+    }
+
+    public static class Version {
+
+        private int rowCount;
+
+        private Date lastUpdateTime;
+
+        private long databaseTime;
+
+        public Version(int rowCount, Date lastUpdateTime, long databaseTime) {
+            this.rowCount = rowCount;
+            this.lastUpdateTime = lastUpdateTime != null ? new Date(lastUpdateTime.getTime()) : null;
+            this.databaseTime = databaseTime;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public Date getLastUpdateTime() {
+            return lastUpdateTime;
+        }
+
+        /**
+         * @return the time on the database clock when the version was read.
+         *         It is not part of the version.
+         */
+        public long getDatabaseTime() {
+            return databaseTime;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Version) {
+                Version version = (Version) obj;
+                return rowCount == version.rowCount
+                        && (lastUpdateTime == null ? version.lastUpdateTime == null
+                                : lastUpdateTime.equals(version.lastUpdateTime));
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return rowCount * 31 + (lastUpdateTime != null ? lastUpdateTime.hashCode() : 0);
+        }
+
+        @Override
+        public String toString() {
+            return rowCount + " rows last updated at " + lastUpdateTime;
+        }
+    }
+
+    static class Snapshot<K, V> {
+
+        final Map<K, V> entries;
+
+        final Version version;
+
+        final long loadTime;
+
+        final long fullLoadTime;
+
+        Snapshot(Map<K, V> entries, Version version, long loadTime, long fullLoadTime) {
+            this.entries = entries;
+            this.version = version;
+            this.loadTime = loadTime;
+            this.fullLoadTime = fullLoadTime;
+        }
+    }
+
+}
@@ -0,0 +1,222 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.jumpmind.symmetric.file.FileSyncDelta.Signature;
+import org.jumpmind.symmetric.file.FileSyncDelta.SignatureBuilder;
+import org.jumpmind.symmetric.model.FileSnapshot;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileSyncDeltaTest {
+
+    static final int BLOCK_SIZE = 1024;
+
+    File directory = new File("target/delta");
+    File targetFile = new File(directory, "target.dat");
+    File sourceFile = new File(directory, "source.dat");
+    File deltaFile = new File(directory, "source.dat" + FileSyncDelta.DELTA_EXTENSION);
+    Random random = new Random(42);
+
+    @Before
+    public void setupTest() throws Exception {
+        FileUtils.deleteQuietly(directory);
+        directory.mkdirs();
+    }
+
+    @Test
+    public void testAppendedFile() throws Exception {
+        byte[] basis = randomBytes(100 * 1024 + 17);
+        byte[] appended = concat(basis, randomBytes(5000));
+        long deltaSize = assertDelta(basis, appended);
+        assertTrue("Delta was " + deltaSize + " bytes", deltaSize < 6000);
+    }
+
+    @Test
+    public void testInsertedBytes() throws Exception {
+        byte[] basis = randomBytes(64 * 1024);
+        byte[] changed = concat(concat(slice(basis, 0, 30000), "inserted".getBytes()), slice(basis, 30000, basis.length));
+        long deltaSize = assertDelta(basis, changed);
+        assertTrue("Delta was " + deltaSize + " bytes", deltaSize < 2 * BLOCK_SIZE);
+    }
+
+    @Test
+    public void testChangedAndTruncatedFile() throws Exception {
+        byte[] basis = randomBytes(20 * 1024);
+        byte[] changed = slice(basis, 0, 15000);
+        changed[5000] = (byte) (changed[5000] + 1);
+        assertDelta(basis, changed);
+    }
+
+    @Test
+    public void testUnrelatedAndEmptyFiles() throws Exception {
+        assertDelta(randomBytes(3000), randomBytes(4000));
+        assertDelta(randomBytes(100), new byte[0]);
+        assertDelta(new byte[0], randomBytes(100));
+    }
+
+    @Test
+    public void testSignatureRoundTrip() throws Exception {
+        byte[] data = randomBytes(10 * 1024 + 1);
+        FileUtils.writeByteArrayToFile(sourceFile, data);
+        Signature signature = FileSyncDelta.createSignature(sourceFile, BLOCK_SIZE);
+        File signatureFile = new File(directory, "a/b/source.dat.sig");
+        FileSyncDelta.writeSignature(signature, signatureFile);
+        Signature read = FileSyncDelta.readSignature(signatureFile);
+        assertEquals(11, read.getBlockCount());
+        assertEquals(data.length, read.getLength());
+        assertEquals(FileUtils.checksumCRC32(sourceFile), read.getCrc32Checksum());
+        assertEquals(1, read.getBlockLength(10));
+        for (int i = 0; i < read.getBlockCount(); i++) {
+            assertEquals(signature.getWeakChecksum(i), read.getWeakChecksum(i));
+            assertEquals(signature.getStrongChecksum(i), read.getStrongChecksum(i));
+        }
+    }
+
+    @Test
+    public void testPatchRejectsDifferentBasis() throws Exception {
+        byte[] basis = randomBytes(5000);
+        FileUtils.writeByteArrayToFile(targetFile, basis);
+        Signature signature = FileSyncDelta.createSignature(targetFile, BLOCK_SIZE);
+        FileUtils.writeByteArrayToFile(sourceFile, concat(basis, randomBytes(10)));
+        writeDelta(signature);
+
+        basis[0] = (byte) (basis[0] + 1);
+        FileUtils.writeByteArrayToFile(targetFile, basis);
+        try {
+            FileSyncDelta.patch(targetFile, deltaFile, signature.getCrc32Checksum(), FileUtils.checksumCRC32(sourceFile),
+                    sourceFile.length());
+            fail("Expected the patch to fail");
+        } catch (IOException ex) {
+        }
+        assertArrayEquals(basis, FileUtils.readFileToByteArray(targetFile));
+    }
+
+    @Test
+    public void testSignaturesKeptForEachVersionSent() throws Exception {
+        FileSyncZipDataWriter writer = new FileSyncZipDataWriter(Long.MAX_VALUE, null, null, null);
+        writer.setDeltaEnabled(new File(directory, "signatures"), BLOCK_SIZE, 2);
+        FileSnapshot snapshot = new FileSnapshot();
+        snapshot.setTriggerId("trigger");
+        snapshot.setRouterId("router");
+        snapshot.setRelativeDir(".");
+        snapshot.setFileName(sourceFile.getName());
+
+        File node1File = new File(directory, "node1.dat");
+        File node2File = new File(directory, "node2.dat");
+        byte[] version1 = randomBytes(50 * 1024);
+        FileUtils.writeByteArrayToFile(node1File, version1);
+        FileUtils.writeByteArrayToFile(node2File, version1);
+        Signature signature1 = FileSyncDelta.createSignature(node1File, BLOCK_SIZE);
+        writer.saveSignature(snapshot, signature1);
+
+        // extracting the next version for one node must not replace the basis of the other
+        byte[] version2 = concat(version1, randomBytes(100));
+        FileUtils.writeByteArrayToFile(sourceFile, version2);
+        assertDeltaFromWriter(writer, snapshot, node1File, version2);
+        assertDeltaFromWriter(writer, snapshot, node2File, version2);
+
+        File signature1File = writer.getSignatureFile(snapshot, signature1.getCrc32Checksum());
+        signature1File.setLastModified(System.currentTimeMillis() - 60000);
+        byte[] version3 = concat(version2, randomBytes(100));
+        FileUtils.writeByteArrayToFile(sourceFile, version3);
+        assertDeltaFromWriter(writer, snapshot, node1File, version3);
+
+        assertEquals(2, writer.getSignatureDir(snapshot).listFiles().length);
+        assertTrue(!signature1File.exists());
+        assertDeltaFromWriter(writer, snapshot, node2File, version3);
+    }
+
+    protected void assertDeltaFromWriter(FileSyncZipDataWriter writer, FileSnapshot snapshot, File nodeFile,
+            byte[] expected) throws Exception {
+        snapshot.setOldCrc32Checksum(FileUtils.checksumCRC32(nodeFile));
+        FileSyncZipDataWriter.Delta delta = writer.createDelta(snapshot, sourceFile);
+        assertTrue(delta != null);
+        writer.saveSignature(snapshot, delta.signature);
+        FileSyncDelta.patch(nodeFile, delta.file, snapshot.getOldCrc32Checksum(), delta.signature.getCrc32Checksum(),
+                delta.signature.getLength());
+        FileUtils.deleteQuietly(delta.file);
+        assertArrayEquals(expected, FileUtils.readFileToByteArray(nodeFile));
+    }
+
+    protected long assertDelta(byte[] basis, byte[] changed) throws Exception {
+        FileUtils.writeByteArrayToFile(targetFile, basis);
+        FileUtils.writeByteArrayToFile(sourceFile, changed);
+        Signature signature = FileSyncDelta.createSignature(targetFile, BLOCK_SIZE);
+
+        SignatureBuilder newSignature = new SignatureBuilder(BLOCK_SIZE);
+        long deltaSize = writeDelta(signature, newSignature);
+        Signature expectedSignature = FileSyncDelta.createSignature(sourceFile, BLOCK_SIZE);
+        Signature builtSignature = newSignature.build();
+        assertEquals(expectedSignature.getCrc32Checksum(), builtSignature.getCrc32Checksum());
+        assertEquals(expectedSignature.getBlockCount(), builtSignature.getBlockCount());
+
+        FileSyncDelta.patch(targetFile, deltaFile, signature.getCrc32Checksum(), builtSignature.getCrc32Checksum(),
+                builtSignature.getLength());
+        assertArrayEquals(changed, FileUtils.readFileToByteArray(targetFile));
+        return deltaSize;
+    }
+
+    protected long writeDelta(Signature signature) throws Exception {
+        return writeDelta(signature, null);
+    }
+
+    protected long writeDelta(Signature signature, SignatureBuilder newSignature) throws Exception {
+        FileOutputStream os = new FileOutputStream(deltaFile);
+        try {
+            return FileSyncDelta.writeDelta(signature, sourceFile, os, newSignature);
+        } finally {
+            IOUtils.closeQuietly(os);
+        }
+    }
+
+    protected byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    protected byte[] concat(byte[] a, byte[] b) {
+        byte[] bytes = new byte[a.length + b.length];
+        System.arraycopy(a, 0, bytes, 0, a.length);
+        System.arraycopy(b, 0, bytes, a.length, b.length);
+        return bytes;
+    }
+
+    protected byte[] slice(byte[] a, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        System.arraycopy(a, from, bytes, 0, bytes.length);
+        return bytes;
+    }
+
+}
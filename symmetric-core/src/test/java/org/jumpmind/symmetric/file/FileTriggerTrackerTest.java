@@ -109,6 +109,115 @@ public class FileTriggerTrackerTest {
         assertEquals(change.getLastEventType(), LastEventType.DELETE);
     }    
     
+    @Test
+    public void testWatchServiceDeleteAndCreate() throws Exception {
+        FileTrigger fileTrigger = new FileTrigger(directory.getAbsolutePath(), true, null, null);
+        Router router = new Router();
+        FileTriggerRouter fileTriggerRouter = new FileTriggerRouter(fileTrigger, router);
+        FileTriggerTracker tracker = new FileTriggerTracker(fileTriggerRouter, null, null, false, true, null);
+        try {
+            assertTrue(tracker.isUsingWatchService());
+            assertEquals(4, tracker.trackChanges().size());
+
+            FileUtils.deleteQuietly(fileInDirectory1);
+            File newSubdirectory = new File(subdirectory, "b");
+            newSubdirectory.mkdirs();
+            File fileInNewSubdirectory = new File(newSubdirectory, "4.txt");
+            FileUtils.write(fileInNewSubdirectory, "abc");
+
+            DirectorySnapshot snapshot = trackChangesUntil(tracker, 3);
+            assertEquals(3, snapshot.size());
+            for (FileSnapshot change : snapshot) {
+                if (change.getFileName().equals(fileInDirectory1.getName())) {
+                    assertEquals(LastEventType.DELETE, change.getLastEventType());
+                } else {
+                    assertEquals(LastEventType.CREATE, change.getLastEventType());
+                }
+            }
+
+            FileUtils.write(fileInNewSubdirectory, "abcd");
+            snapshot = trackChangesUntil(tracker, 1);
+            assertEquals(1, snapshot.size());
+            assertEquals(fileInNewSubdirectory.getName(), snapshot.get(0).getFileName());
+            assertEquals(LastEventType.MODIFY, snapshot.get(0).getLastEventType());
+        } finally {
+            tracker.close();
+        }
+    }
+
+    @Test
+    public void testWatchServiceFileCreatedAndDeletedBetweenRuns() throws Exception {
+        FileTrigger fileTrigger = new FileTrigger(directory.getAbsolutePath(), false, null, null);
+        Router router = new Router();
+        FileTriggerRouter fileTriggerRouter = new FileTriggerRouter(fileTrigger, router);
+        FileTriggerTracker tracker = new FileTriggerTracker(fileTriggerRouter, null, null, false, true, null);
+        try {
+            tracker.trackChanges();
+            File temporaryFile = new File(directory, "4.tmp");
+            FileUtils.write(temporaryFile, "abc");
+            FileUtils.deleteQuietly(temporaryFile);
+            FileUtils.write(fileInDirectory2, "4,5,6");
+            DirectorySnapshot snapshot = trackChangesUntil(tracker, 1);
+            Thread.sleep(500);
+            snapshot.addAll(tracker.trackChanges());
+            assertEquals(1, snapshot.size());
+            assertEquals(fileInDirectory2.getName(), snapshot.get(0).getFileName());
+            assertEquals(LastEventType.MODIFY, snapshot.get(0).getLastEventType());
+        } finally {
+            tracker.close();
+        }
+    }
+
+    @Test
+    public void testWatchServiceDirectoryMovedOutOfTree() throws Exception {
+        FileTrigger fileTrigger = new FileTrigger(directory.getAbsolutePath(), true, null, null);
+        FileTriggerRouter fileTriggerRouter = new FileTriggerRouter(fileTrigger, new Router());
+        FileTriggerTracker tracker = new FileTriggerTracker(fileTriggerRouter, null, null, false, true, null);
+        File movedDirectory = new File(snapshotDirectory, "moved");
+        try {
+            tracker.trackChanges();
+            snapshotDirectory.mkdirs();
+            FileUtils.moveDirectory(subdirectory, movedDirectory);
+            // no delete event is sent for the file in the moved directory, so it is found by a scan
+            DirectorySnapshot snapshot = trackChangesUntil(tracker, 2);
+            boolean fileDeleted = false;
+            for (FileSnapshot change : snapshot) {
+                assertEquals(LastEventType.DELETE, change.getLastEventType());
+                fileDeleted |= change.getFileName().equals(fileInSubDirectory.getName());
+            }
+            assertTrue(fileDeleted);
+        } finally {
+            tracker.close();
+            FileUtils.deleteQuietly(movedDirectory);
+        }
+    }
+
+    @Test
+    public void testWatcherRegistersDirectoriesCreatedWhileEventsWereLost() throws Exception {
+        FileTrigger fileTrigger = new FileTrigger(directory.getAbsolutePath(), true, null, null);
+        FileTriggerRouter fileTriggerRouter = new FileTriggerRouter(fileTrigger, new Router());
+        FileTriggerWatcher watcher = new FileTriggerWatcher(fileTriggerRouter);
+        try {
+            assertEquals(2, watcher.getWatchedDirectoryCount());
+            new File(subdirectory, "b").mkdirs();
+            watcher.registerDirectories();
+            assertEquals(3, watcher.getWatchedDirectoryCount());
+        } finally {
+            watcher.close();
+        }
+    }
+
+    protected DirectorySnapshot trackChangesUntil(FileTriggerTracker tracker, int expectedChanges) throws Exception {
+        // the watch service reports events asynchronously
+        DirectorySnapshot changes = new DirectorySnapshot(tracker.getFileTriggerRouter());
+        long start = System.currentTimeMillis();
+        while (changes.size() < expectedChanges && System.currentTimeMillis() - start < 10000) {
+            Thread.sleep(100);
+            changes.addAll(tracker.trackChanges());
+        }
+        return changes;
+    }
+
     @Test
     public void testTakeSnapshotAfterRestart() throws Exception {
         
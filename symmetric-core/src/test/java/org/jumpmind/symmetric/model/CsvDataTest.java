@@ -22,6 +22,8 @@ package org.jumpmind.symmetric.model;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+
 import org.jumpmind.symmetric.io.data.CsvData;
 import org.jumpmind.symmetric.io.data.DataEventType;
 import org.junit.Test;
@@ -38,4 +40,29 @@ public class CsvDataTest {
         String result = newData.getParsedData(CsvData.ROW_DATA)[0];
         assertEquals(TEST, result);
     }
+
+    @Test
+    public void testWellKnownAndOtherKeys() {
+        CsvData data = new CsvData();
+        data.putCsvData(CsvData.ROW_DATA, "\"1\",\"new\"");
+        data.putCsvData(new String("oldData"), "\"1\",\"old\"");
+        data.putCsvData("curData", "\"1\",,\"cur\"");
+        assertArrayEquals(new String[] { "1", "new" }, data.getParsedData(new String("rowData")));
+        assertArrayEquals(new String[] { "1", "old" }, data.getParsedData(CsvData.OLD_DATA));
+        assertArrayEquals(new String[] { "1", null, "cur" }, data.getParsedData("curData"));
+        assertTrue(Arrays.equals(new boolean[] { false, true }, data.getChangedDataIndicators()));
+        assertTrue(data.contains("curData"));
+        assertFalse(data.contains(CsvData.PK_DATA));
+
+        data.putParsedData(CsvData.ROW_DATA, new String[] { "2", "changed" });
+        assertEquals("\"2\",\"changed\"", data.getCsvData(CsvData.ROW_DATA));
+        assertTrue(Arrays.equals(new boolean[] { true, true }, data.getChangedDataIndicators()));
+
+        data.removeAllData("curData");
+        data.removeAllData(CsvData.OLD_DATA);
+        assertFalse(data.contains("curData"));
+        assertNull(data.getParsedData(CsvData.OLD_DATA));
+        data.getCsvData(CsvData.ROW_DATA);
+        assertEquals(13, data.getSizeInBytes());
+    }
 }
@@ -8,6 +8,7 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
@@ -162,6 +163,22 @@ public class DataGapDetectorTest {
         verifyNoMoreInteractions(dataService);
     }
 
+    @Test
+    public void testGapStats() throws Exception {
+        List<DataGap> dataGaps = new ArrayList<DataGap>();
+        dataGaps.add(new DataGap(3, 3));
+        dataGaps.add(new DataGap(4, 50000004));
+
+        List<Long> dataIds = new ArrayList<Long>();
+        dataIds.add(5L);
+        dataIds.add(100L);
+        dataIds.add(5L);
+
+        runGapDetector(dataGaps, dataIds, true);
+
+        verify(statisticManager).addDataGapStats(Matchers.eq(4), Matchers.eq(2L), Matchers.anyLong());
+    }
+
     @Test
     public void testNewGapFull() throws Exception {
         detector.setFullGapAnalysis(true);
@@ -822,6 +839,7 @@ public class DataGapDetectorTest {
     public void testRandomReuseInMemory() throws Exception {
         when(parameterService.getInt(ParameterConstants.ROUTING_MAX_GAP_CHANGES)).thenReturn(0);
         List<DataGap> dataGaps = getRandomDataGaps();
+        DataGap persistedGap = null;
 
         for (int loop = 0; loop < 500; loop++) {
             List<Long> dataIds = null;
@@ -836,17 +854,45 @@ public class DataGapDetectorTest {
             }
             
             List<DataGap> outDataGaps = detector.getDataGaps();
-            verifyInteractionsInMemory(dataGaps, dataIds, outDataGaps);
+            persistedGap = verifyInteractionsInMemory(dataGaps, dataIds, outDataGaps, persistedGap);
             
             dataGaps = outDataGaps;
             Mockito.reset(dataService);
         }
     }
 
+    @Test
+    public void testInMemoryOnlyRewritesChangedSpan() throws Exception {
+        when(parameterService.getInt(ParameterConstants.ROUTING_MAX_GAP_CHANGES)).thenReturn(0);
+        List<DataGap> dataGaps = new ArrayList<DataGap>();
+        dataGaps.add(new DataGap(3, 3));
+        dataGaps.add(new DataGap(5, 6));
+        dataGaps.add(new DataGap(8, 9));
+        dataGaps.add(new DataGap(10, 50000010));
+
+        runGapDetector(dataGaps, Arrays.asList(5L, 6L), true);
+        verify(dataService).findDataGaps();
+        verify(dataService).deleteAllDataGaps(sqlTransaction);
+        verify(dataService).insertDataGap(sqlTransaction, new DataGap(3, 50000010));
+        verifyNoMoreInteractions(dataService);
+        Mockito.reset(dataService);
+
+        // the span of the gaps is the same, so nothing is written
+        runGapDetector(detector.getDataGaps(), Arrays.asList(8L, 9L), true);
+        verifyNoMoreInteractions(dataService);
+        Mockito.reset(dataService);
+
+        runGapDetector(detector.getDataGaps(), Arrays.asList(3L), true);
+        verify(dataService).deleteDataGap(sqlTransaction, new DataGap(3, 50000010));
+        verify(dataService).insertDataGap(sqlTransaction, new DataGap(10, 50000010));
+        verifyNoMoreInteractions(dataService);
+    }
+
     @Test
     public void testRandomReuseInMemorySwitchDatabase() throws Exception {
         boolean useMemory = false, lastUseMemory = false;
         List<DataGap> dataGaps = getRandomDataGaps();
+        DataGap persistedGap = null;
 
         for (int loop = 0; loop < 500; loop++) {
             List<Long> dataIds = null;
@@ -870,12 +916,16 @@ public class DataGapDetectorTest {
             List<DataGap> outDataGaps = detector.getDataGaps();
             
             if (useMemory) {
-                verifyInteractionsInMemory(dataGaps, dataIds, outDataGaps);
-            } else {
-                if (lastUseMemory) {
-                    verify(dataService).deleteAllDataGaps(sqlTransaction);
+                persistedGap = verifyInteractionsInMemory(dataGaps, dataIds, outDataGaps,
+                        lastUseMemory ? persistedGap : null);
+            } else if (lastUseMemory) {
+                verify(dataService).deleteAllDataGaps(sqlTransaction);
+                for (DataGap dataGap : outDataGaps) {
+                    verify(dataService).insertDataGap(sqlTransaction, dataGap);
                 }
-                verifyInteractions(dataGaps, dataIds, !lastUseMemory);
+                verifyNoMoreInteractions(dataService);
+            } else {
+                verifyInteractions(dataGaps, dataIds, true);
             }
 
             dataGaps = outDataGaps;
@@ -884,7 +934,8 @@ public class DataGapDetectorTest {
         }
     }
 
-    private void verifyInteractionsInMemory(List<DataGap> dataGaps, List<Long> dataIds, List<DataGap> outDataGaps) {
+    private DataGap verifyInteractionsInMemory(List<DataGap> dataGaps, List<Long> dataIds, List<DataGap> outDataGaps,
+            DataGap persistedGap) {
         int index = 0;
         int lastIndex = dataGaps.size() - 1;
         boolean isLastGapInserted = false;
@@ -928,10 +979,16 @@ public class DataGapDetectorTest {
             }
         }
         
-        verify(dataService).deleteAllDataGaps(sqlTransaction);
-        verify(dataService).insertDataGap(sqlTransaction, new DataGap(outDataGaps.get(0).getStartId(), 
-                outDataGaps.get(outDataGaps.size() - 1).getEndId()));
+        DataGap newGap = new DataGap(outDataGaps.get(0).getStartId(), outDataGaps.get(outDataGaps.size() - 1).getEndId());
+        if (persistedGap == null) {
+            verify(dataService).deleteAllDataGaps(sqlTransaction);
+            verify(dataService).insertDataGap(sqlTransaction, newGap);
+        } else if (!persistedGap.equals(newGap)) {
+            verify(dataService).deleteDataGap(sqlTransaction, persistedGap);
+            verify(dataService).insertDataGap(sqlTransaction, newGap);
+        }
         verifyNoMoreInteractions(dataService);
+        return newGap;
     }
 
     private void checkDeleteGapInMemory(Set<DataGap> allGaps, DataGap gap) {
@@ -0,0 +1,69 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.route;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class DataIdListTest {
+
+    @Test
+    public void testAddAndSort() {
+        DataIdList dataIds = new DataIdList(2);
+        List<Long> list = new ArrayList<Long>();
+        list.add(30L);
+        list.add(10L);
+        dataIds.addAll(list);
+        dataIds.add(20L);
+        DataIdList more = new DataIdList();
+        more.add(10L);
+        more.add(40L);
+        dataIds.addAll(more);
+        assertEquals(5, dataIds.size());
+
+        dataIds.sort();
+        assertEquals(4, dataIds.size());
+        assertEquals("[10, 20, 30, 40]", dataIds.toString());
+    }
+
+    @Test
+    public void testIndexOfFirstAtLeast() {
+        DataIdList dataIds = new DataIdList();
+        for (long i = 10; i <= 50; i += 10) {
+            dataIds.add(i);
+        }
+        assertEquals(0, dataIds.indexOfFirstAtLeast(1));
+        assertEquals(0, dataIds.indexOfFirstAtLeast(10));
+        assertEquals(1, dataIds.indexOfFirstAtLeast(11));
+        assertEquals(4, dataIds.indexOfFirstAtLeast(50));
+        assertEquals(5, dataIds.indexOfFirstAtLeast(51));
+
+        dataIds.clear();
+        assertTrue(dataIds.isEmpty());
+        assertEquals(0, dataIds.indexOfFirstAtLeast(10));
+    }
+
+}
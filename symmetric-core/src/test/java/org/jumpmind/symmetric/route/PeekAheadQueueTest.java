@@ -0,0 +1,106 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.route;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jumpmind.symmetric.model.Data;
+import org.junit.Test;
+
+public class PeekAheadQueueTest {
+
+    @Test
+    public void testPollInReadOrder() {
+        PeekAheadQueue queue = new PeekAheadQueue(2);
+        for (int i = 1; i <= 100; i++) {
+            queue.add(newData(i, Integer.toString(i % 3)));
+        }
+        assertEquals(100, queue.size());
+        assertEquals(3, queue.getTransactionCount());
+        for (int i = 1; i <= 100; i++) {
+            assertEquals(i, queue.poll().getDataId());
+        }
+        assertEquals(0, queue.size());
+        assertEquals(0, queue.getTransactionCount());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testDrainTransaction() {
+        PeekAheadQueue queue = new PeekAheadQueue(4);
+        queue.add(newData(1, "a"));
+        queue.add(newData(2, "b"));
+        queue.add(newData(3, "a"));
+        queue.add(newData(4, null));
+        queue.add(newData(5, "a"));
+        queue.add(newData(6, "b"));
+
+        List<Data> drained = new ArrayList<Data>();
+        assertEquals(4, queue.drainTransaction("a", drained, Integer.MAX_VALUE));
+        assertEquals(3, drained.size());
+        assertEquals(1, drained.get(0).getDataId());
+        assertEquals(3, drained.get(1).getDataId());
+        assertEquals(5, drained.get(2).getDataId());
+        assertEquals(3, queue.size());
+
+        drained.clear();
+        assertEquals(-1, queue.drainTransaction("a", drained, Integer.MAX_VALUE));
+        assertEquals(0, drained.size());
+
+        assertEquals(2, queue.poll().getDataId());
+        assertEquals(1, queue.getLastPolledSeq());
+        assertEquals(4, queue.poll().getDataId());
+
+        assertEquals(5, queue.drainTransaction("b", drained, 1));
+        assertEquals(6, drained.get(0).getDataId());
+        assertEquals(0, queue.size());
+        assertEquals(5, queue.getLastReadSeq());
+    }
+
+    @Test
+    public void testGrowWithDrainedRows() {
+        PeekAheadQueue queue = new PeekAheadQueue(2);
+        List<Data> drained = new ArrayList<Data>();
+        queue.add(newData(0, "first"));
+        for (int i = 1; i < 1000; i++) {
+            queue.add(newData(i, "other"));
+            if (i % 10 == 0) {
+                queue.drainTransaction("other", drained, Integer.MAX_VALUE);
+            }
+        }
+        assertEquals(990, drained.size());
+        assertEquals(10, queue.size());
+        assertEquals(0, queue.poll().getDataId());
+        assertEquals(991, queue.poll().getDataId());
+        queue.clear();
+        assertEquals(0, queue.size());
+        assertNull(queue.poll());
+    }
+
+    protected Data newData(long dataId, String transactionId) {
+        return new Data(dataId, null, null, null, "table1", null, null, null, transactionId, null);
+    }
+
+}
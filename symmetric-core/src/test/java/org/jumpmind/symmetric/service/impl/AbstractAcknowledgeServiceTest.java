@@ -0,0 +1,72 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jumpmind.symmetric.TestConstants;
+import org.jumpmind.symmetric.model.BatchAck;
+import org.jumpmind.symmetric.model.BatchAckResult;
+import org.jumpmind.symmetric.model.OutgoingBatch;
+import org.jumpmind.symmetric.model.OutgoingBatch.Status;
+import org.junit.Test;
+
+public abstract class AbstractAcknowledgeServiceTest extends AbstractServiceTest {
+
+    @Test
+    public void testAckBatchesInBulk() throws Exception {
+        int batchCount = 3;
+        List<OutgoingBatch> batches = new ArrayList<OutgoingBatch>();
+        for (int i = 0; i < batchCount; i++) {
+            OutgoingBatch batch = new OutgoingBatch(TestConstants.TEST_CLIENT_EXTERNAL_ID,
+                    TestConstants.TEST_CHANNEL_ID, Status.NE);
+            getOutgoingBatchService().insertOutgoingBatch(batch);
+            batches.add(batch);
+        }
+
+        List<BatchAck> acks = new ArrayList<BatchAck>();
+        for (int i = 0; i < batchCount - 1; i++) {
+            BatchAck ack = new BatchAck(batches.get(i).getBatchId());
+            ack.setNodeId(batches.get(i).getNodeId());
+            acks.add(ack);
+        }
+        BatchAck errorAck = new BatchAck(batches.get(batchCount - 1).getBatchId(), 1);
+        errorAck.setNodeId(batches.get(batchCount - 1).getNodeId());
+        acks.add(errorAck);
+        BatchAck missingAck = new BatchAck(999999999l);
+        missingAck.setNodeId(TestConstants.TEST_CLIENT_EXTERNAL_ID);
+        acks.add(missingAck);
+
+        List<BatchAckResult> ackResults = getSymmetricEngine().getAcknowledgeService().ack(acks);
+        assertEquals(batchCount + 1, ackResults.size());
+        for (int i = 0; i < batchCount; i++) {
+            OutgoingBatch batch = batches.get(i);
+            assertTrue(ackResults.get(i).isOk());
+            assertEquals(getOutgoingBatchService().findOutgoingBatch(batch.getBatchId(),
+                    batch.getNodeId()).getStatus(), i < batchCount - 1 ? Status.OK : Status.ER);
+        }
+        assertFalse(ackResults.get(batchCount).isOk());
+
+        resetBatches();
+    }
+
+}
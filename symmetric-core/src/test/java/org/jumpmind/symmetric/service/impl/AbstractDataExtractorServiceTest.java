@@ -21,6 +21,7 @@
 package org.jumpmind.symmetric.service.impl;
 
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.sql.Date;
@@ -29,8 +30,15 @@ import java.sql.Types;
 import java.util.List;
 
 import org.apache.commons.lang.StringUtils;
+import org.jumpmind.db.sql.ISqlTransaction;
 import org.jumpmind.symmetric.TestConstants;
+import org.jumpmind.symmetric.common.ParameterConstants;
+import org.jumpmind.symmetric.io.IoConstants;
+import org.jumpmind.symmetric.model.Channel;
+import org.jumpmind.symmetric.model.Node;
+import org.jumpmind.symmetric.model.NodeCommunication;
 import org.jumpmind.symmetric.model.OutgoingBatch;
+import org.jumpmind.symmetric.model.OutgoingBatch.Status;
 import org.jumpmind.symmetric.model.ProcessInfo;
 import org.jumpmind.symmetric.model.Router;
 import org.jumpmind.symmetric.model.Trigger;
@@ -113,6 +121,154 @@ public abstract class AbstractDataExtractorServiceTest extends AbstractServiceTe
 
     }
 
+    @Test
+    public void testExtractOneBatchOneRowToStream() throws Exception {
+        save(new TestExtract(id++, "abc 123 \u00e9\u00e8", "abcdefghijklmnopqrstuvwxyz", new Timestamp(
+                System.currentTimeMillis()), new Date(System.currentTimeMillis()), true,
+                Integer.MAX_VALUE, new BigDecimal(Double.toString(Math.PI))));
+        routeAndCreateGaps();
+        ExtractResults results = extractToStream();
+        assertNotNull(results.getBatches());
+        assertEquals(1, results.getBatches().size());
+        long batchId = results.getBatches().get(0).getBatchId();
+        assertNumberOfLinesThatStartWith(1, "nodeid,", results.getCsv());
+        assertNumberOfLinesThatStartWith(1, "batch," + batchId, results.getCsv());
+        assertNumberOfLinesThatStartWith(1, "insert,", results.getCsv());
+        assertNumberOfLinesThatStartWith(1, "commit," + batchId, results.getCsv());
+        assertTrue(results.getCsv().contains("abc 123 \u00e9\u00e8"));
+    }
+
+    @Test
+    public void testExtractBatchesInParallel() throws Exception {
+        getParameterService().saveParameter(ParameterConstants.DATA_EXTRACTOR_THREAD_COUNT_PER_SERVER, 3, "test");
+        try {
+            // the parameter change is captured on the config channel
+            resetBatches();
+            int batchCount = 5;
+            for (int i = 0; i < batchCount; i++) {
+                save(new TestExtract(id++, "abc 123", "abcdefghijklmnopqrstuvwxyz", new Timestamp(
+                        System.currentTimeMillis()), new Date(System.currentTimeMillis()), true,
+                        Integer.MAX_VALUE, new BigDecimal(Double.toString(Math.PI))));
+                routeAndCreateGaps();
+            }
+            ExtractResults results = extractToStream();
+            assertEquals(batchCount, results.getBatches().size());
+            assertNumberOfLinesThatStartWith(batchCount, "insert,", results.getCsv());
+            int lastIndex = -1;
+            for (OutgoingBatch batch : results.getBatches()) {
+                int index = results.getCsv().indexOf("batch," + batch.getBatchId());
+                assertTrue(index > lastIndex);
+                lastIndex = index;
+            }
+        } finally {
+            getParameterService().saveParameter(ParameterConstants.DATA_EXTRACTOR_THREAD_COUNT_PER_SERVER, 1, "test");
+            resetBatches();
+        }
+    }
+
+    @Test
+    public void testExtractInitialLoadInRanges() throws Exception {
+        getParameterService().saveParameter(ParameterConstants.INITIAL_LOAD_EXTRACT_RANGE_COUNT, 2, "test");
+        getParameterService().saveParameter(ParameterConstants.INITIAL_LOAD_EXTRACT_RANGE_MIN_BATCHES, 1, "test");
+        Channel reloadChannel = null;
+        int maxBatchSize = 0;
+        try {
+            for (int i = 0; i < 20; i++) {
+                save(new TestExtract(id++, "abc 123", "abcdefghijklmnopqrstuvwxyz", new Timestamp(
+                        System.currentTimeMillis()), new Date(System.currentTimeMillis()), true,
+                        Integer.MAX_VALUE, new BigDecimal(Double.toString(Math.PI))));
+            }
+            // a skewed key would leave one range with nearly all of the rows if the key values were split evenly
+            save(new TestExtract(1000000 + id++, "abc 123", "abcdefghijklmnopqrstuvwxyz", new Timestamp(
+                    System.currentTimeMillis()), new Date(System.currentTimeMillis()), true,
+                    Integer.MAX_VALUE, new BigDecimal(Double.toString(Math.PI))));
+            resetBatches();
+            int rowCount = getSqlTemplate().queryForInt("select count(*) from " + TEST_TABLE);
+
+            Node targetNode = getNodeService().findNode(TestConstants.TEST_CLIENT_EXTERNAL_ID);
+            TriggerRouter triggerRouter = getTriggerRouterService().findTriggerRouterById(TEST_TABLE,
+                    TestConstants.ROUTER_ID_ROOT_2_TEST);
+            ISqlTransaction transaction = getSqlTemplate().startSqlTransaction();
+            long startBatchId = -1;
+            long endBatchId = -1;
+            try {
+                for (int i = 0; i < 4; i++) {
+                    endBatchId = getDataService().insertReloadEvent(transaction, targetNode,
+                            triggerRouter, null, null, true, 0, "test", Status.RQ);
+                    if (startBatchId == -1) {
+                        startBatchId = endBatchId;
+                    }
+                }
+                transaction.commit();
+            } finally {
+                transaction.close();
+            }
+
+            String channelId = getOutgoingBatchService().findOutgoingBatch(startBatchId,
+                    targetNode.getNodeId()).getChannelId();
+            reloadChannel = getConfigurationService().getChannel(channelId);
+            maxBatchSize = reloadChannel.getMaxBatchSize();
+            // without ranges all of the rows fit in the first batch
+            reloadChannel.setMaxBatchSize(10000);
+            getConfigurationService().saveChannel(reloadChannel, true);
+
+            NodeCommunication nodeCommunication = new NodeCommunication();
+            nodeCommunication.setNodeId(targetNode.getNodeId());
+            nodeCommunication.setQueue(reloadChannel.getQueue());
+            transaction = getSqlTemplate().startSqlTransaction();
+            try {
+                getDataExtractorService().requestExtractRequest(transaction, targetNode.getNodeId(),
+                        nodeCommunication.getQueue(), triggerRouter, startBatchId, endBatchId);
+                transaction.commit();
+            } finally {
+                transaction.close();
+            }
+
+            ((DataExtractorService) getDataExtractorService()).execute(nodeCommunication, null);
+
+            StringBuilder extracted = new StringBuilder();
+            ExtractResults results = null;
+            do {
+                results = extract();
+                extracted.append(results.getCsv());
+                for (OutgoingBatch batch : results.getBatches()) {
+                    batch.setStatus(Status.OK);
+                    getOutgoingBatchService().updateOutgoingBatch(batch);
+                }
+            } while (results.getBatches().size() > 0);
+
+            String csv = extracted.toString();
+            int insertCount = 0;
+            for (long batchId = startBatchId; batchId <= endBatchId; batchId++) {
+                String batchCsv = csv.substring(csv.indexOf("batch," + batchId),
+                        csv.indexOf("commit," + batchId));
+                int batchInsertCount = StringUtils.countMatches(batchCsv, "\ninsert,");
+                if (batchId == startBatchId || batchId == startBatchId + 2) {
+                    // the first batch of each range holds the rows of its range
+                    assertTrue(Math.abs(rowCount - 2 * batchInsertCount) <= 1);
+                }
+                insertCount += batchInsertCount;
+            }
+            assertEquals(insertCount, rowCount);
+        } finally {
+            if (reloadChannel != null) {
+                reloadChannel.setMaxBatchSize(maxBatchSize);
+                getConfigurationService().saveChannel(reloadChannel, true);
+            }
+            getParameterService().saveParameter(ParameterConstants.INITIAL_LOAD_EXTRACT_RANGE_COUNT, 1, "test");
+            resetBatches();
+        }
+    }
+
+    protected ExtractResults extractToStream() throws Exception {
+        IDataExtractorService service = getDataExtractorService();
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        InternalOutgoingTransport transport = new InternalOutgoingTransport(os, IoConstants.ENCODING);
+        List<OutgoingBatch> batches = service.extract(new ProcessInfo(), TestConstants.TEST_CLIENT_NODE, transport);
+        transport.close();
+        return new ExtractResults(batches, new String(os.toByteArray(), IoConstants.ENCODING));
+    }
+
     protected ExtractResults extract() {
         IDataExtractorService service = getDataExtractorService();
         StringWriter writer = new StringWriter();
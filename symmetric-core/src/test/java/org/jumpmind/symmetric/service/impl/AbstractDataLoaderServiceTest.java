@@ -530,6 +530,61 @@ abstract public class AbstractDataLoaderServiceTest extends AbstractServiceTest
         setLoggingLevelForTest(old);
     }
 
+    @Test
+    public void test11LoadChannelsInParallel() throws Exception {
+        Level old = setLoggingLevelForTest(Level.OFF);
+        getParameterService().saveParameter(ParameterConstants.DATA_LOADER_CHANNEL_THREAD_COUNT, 2, "test");
+        try {
+            String[] values = { getNextId(), "string", "string not null2", "char2", "char not null2",
+                    "2007-01-02 00:00:00.000", "2007-02-03 04:05:06.000", "0", "47", "67.89", "0.474" };
+            String[] values2 = { getNextId(),
+                    "This string is too large and will cause the statement to fail",
+                    "string not null2", "char2", "char not null2", "Not a date",
+                    "2007-02-03 04:05:06.000", "0", "47", "123456789.00", "0.474" };
+            String[] values3 = { getNextId(), "string", "string not null3", "char3", "char not null3",
+                    "2007-01-02 00:00:00.000", "2007-02-03 04:05:06.000", "0", "47", "67.89", "0.474" };
+            String[] values4 = { getNextId(), "string", "string not null4", "char4", "char not null4",
+                    "2007-01-02 00:00:00.000", "2007-02-03 04:05:06.000", "0", "47", "67.89", "0.474" };
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            CsvWriter writer = getWriter(out);
+            writer.writeRecord(new String[] { CsvConstants.NODEID,
+                    TestConstants.TEST_CLIENT_EXTERNAL_ID });
+            String[] channelIds = { TestConstants.TEST_CHANNEL_ID, TestConstants.TEST_CHANNEL_ID_OTHER,
+                    TestConstants.TEST_CHANNEL_ID, TestConstants.TEST_CHANNEL_ID_OTHER };
+            String[][] rows = { values, values2, values3, values4 };
+            String[] batchIds = new String[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                writer.writeRecord(new String[] { CsvConstants.CHANNEL, channelIds[i] });
+                batchIds[i] = getNextBatchId();
+                writer.writeRecord(new String[] { CsvConstants.BATCH, batchIds[i] });
+                writeTable(writer, TEST_TABLE, TEST_KEYS, TEST_COLUMNS);
+                writer.write(CsvConstants.INSERT);
+                writer.writeRecord(rows[i], true);
+                writer.writeRecord(new String[] { CsvConstants.COMMIT, batchIds[i] });
+            }
+            writer.close();
+            load(out);
+
+            // the failed batch only holds up the rest of its own channel
+            assertTestTableEquals(values[0], values);
+            assertTestTableEquals(values2[0], null);
+            assertTestTableEquals(values3[0], values3);
+            assertTestTableEquals(values4[0], null);
+            assertEquals(findIncomingBatchStatus(Integer.parseInt(batchIds[0]),
+                    TestConstants.TEST_CLIENT_EXTERNAL_ID), IncomingBatch.Status.OK);
+            assertEquals(findIncomingBatchStatus(Integer.parseInt(batchIds[1]),
+                    TestConstants.TEST_CLIENT_EXTERNAL_ID), IncomingBatch.Status.ER);
+            assertEquals(findIncomingBatchStatus(Integer.parseInt(batchIds[2]),
+                    TestConstants.TEST_CLIENT_EXTERNAL_ID), IncomingBatch.Status.OK);
+            assertNull(findIncomingBatchStatus(Integer.parseInt(batchIds[3]),
+                    TestConstants.TEST_CLIENT_EXTERNAL_ID));
+        } finally {
+            getParameterService().saveParameter(ParameterConstants.DATA_LOADER_CHANNEL_THREAD_COUNT, 1, "test");
+            setLoggingLevelForTest(old);
+        }
+    }
+
     protected void testSimple(String dmlType, String[] values, String[] expectedValues)
             throws Exception {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
@@ -0,0 +1,104 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.service.impl;
+
+import org.jumpmind.symmetric.common.ParameterConstants;
+import org.jumpmind.symmetric.model.IncomingBatch;
+import org.jumpmind.symmetric.model.IncomingBatch.Status;
+import org.junit.After;
+import org.junit.Test;
+
+public abstract class AbstractIncomingBatchServiceTest extends AbstractServiceTest {
+
+    static final String NODE_ID = "77777";
+
+    @After
+    public void cleanupAfterTest() {
+        getIncomingBatchService().removingIncomingBatches(NODE_ID);
+        getParameterService().saveParameter(ParameterConstants.INCOMING_BATCH_RECORD_OK_ENABLED,
+                true, "test");
+    }
+
+    @Test
+    public void testAcquireSkipsDuplicateBatch() {
+        IncomingBatch batch = batch(1000);
+        assertTrue(getIncomingBatchService().acquireIncomingBatch(batch));
+        batch.setStatus(Status.OK);
+        getIncomingBatchService().updateIncomingBatch(batch);
+
+        IncomingBatch duplicate = batch(1000);
+        assertFalse(getIncomingBatchService().acquireIncomingBatch(duplicate));
+        assertTrue(duplicate.isRetry());
+        assertEquals(duplicate.getStatus(), Status.OK);
+        assertEquals(duplicate.getSkipCount(), 1l);
+
+        IncomingBatch older = batch(999);
+        assertTrue(getIncomingBatchService().acquireIncomingBatch(older));
+        assertFalse(older.isRetry());
+        assertNotNull(getIncomingBatchService().findIncomingBatch(999, NODE_ID));
+    }
+
+    @Test
+    public void testAcquireRetriesBatchInError() {
+        IncomingBatch batch = batch(2000);
+        assertTrue(getIncomingBatchService().acquireIncomingBatch(batch));
+        batch.setStatus(Status.ER);
+        getIncomingBatchService().updateIncomingBatch(batch);
+
+        IncomingBatch retry = batch(2000);
+        assertTrue(getIncomingBatchService().acquireIncomingBatch(retry));
+        assertTrue(retry.isRetry());
+        assertEquals(getIncomingBatchService().findIncomingBatch(2000, NODE_ID).getStatus(),
+                Status.LD);
+    }
+
+    @Test
+    public void testAcquireWithoutRecordingOkBatches() {
+        getParameterService().saveParameter(ParameterConstants.INCOMING_BATCH_RECORD_OK_ENABLED,
+                false, "test");
+        IncomingBatch batch = batch(3000);
+        assertTrue(getIncomingBatchService().acquireIncomingBatch(batch));
+        assertFalse(batch.isRetry());
+        assertNull(getIncomingBatchService().findIncomingBatch(3000, NODE_ID));
+
+        batch.setStatus(Status.ER);
+        getIncomingBatchService().insertIncomingBatch(batch);
+
+        IncomingBatch retry = batch(3000);
+        assertTrue(getIncomingBatchService().acquireIncomingBatch(retry));
+        assertTrue(retry.isRetry());
+
+        getIncomingBatchService().deleteIncomingBatch(retry);
+        IncomingBatch again = batch(3000);
+        assertTrue(getIncomingBatchService().acquireIncomingBatch(again));
+        assertFalse(again.isRetry());
+    }
+
+    protected IncomingBatch batch(long batchId) {
+        IncomingBatch batch = new IncomingBatch();
+        batch.setBatchId(batchId);
+        batch.setNodeId(NODE_ID);
+        batch.setChannelId("testchannel");
+        batch.setStatus(Status.LD);
+        return batch;
+    }
+
+}
@@ -0,0 +1,111 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jumpmind.symmetric.model.Node;
+import org.jumpmind.symmetric.model.NodeGroupLinkAction;
+import org.jumpmind.symmetric.util.VersionedCache;
+import org.junit.Before;
+import org.junit.Test;
+
+public abstract class AbstractNodeServiceTest extends AbstractServiceTest {
+
+    @Before
+    public void setupForTest() {
+        getNodeService().flushNodeCache();
+        getNodeService().flushNodeAuthorizedCache();
+        getNodeService().flushNodeGroupCache();
+    }
+
+    @Test
+    public void testFindNodesToPull() {
+        assertEquals(getNodeIds(getNodeService().findNodesToPull()), "[pull1, pull2, pull3]");
+    }
+
+    @Test
+    public void testFindNodesToPushTo() {
+        assertEquals(getNodeIds(getNodeService().findNodesToPushTo()), "[00010, 00011, 55555]");
+    }
+
+    @Test
+    public void testNodeCacheRefreshesChangedNode() {
+        VersionedCache<String, Node> cache = getNodeService().getNodeCache();
+        Node node = getNodeService().findNode("00010", true);
+        assertEquals(node.getExternalId(), "00010");
+        long deltaRefreshCount = cache.getDeltaRefreshCount();
+        try {
+            getSqlTemplate().update("update sym_node set external_id='changed', "
+                    + "last_update_time={ts '2100-01-01 00:00:00'} where node_id='00010'");
+            assertEquals(getNodeService().findNode("00010", true).getExternalId(), "00010");
+            cache.refresh(Long.MAX_VALUE, 0);
+            assertEquals(getNodeService().findNode("00010", true).getExternalId(), "changed");
+            assertEquals(cache.getDeltaRefreshCount(), deltaRefreshCount + 1);
+        } finally {
+            getNodeService().save(node);
+            getNodeService().flushNodeCache();
+        }
+    }
+
+    @Test
+    public void testNodeCacheReloadsAfterDelete() {
+        VersionedCache<String, Node> cache = getNodeService().getNodeCache();
+        Node node = getNodeService().findNode("00011", true);
+        assertNotNull(node);
+        long fullRefreshCount = cache.getFullRefreshCount();
+        try {
+            getSqlTemplate().update("delete from sym_node where node_id='00011'");
+            cache.refresh(Long.MAX_VALUE, 0);
+            assertNull(getNodeService().findNode("00011", true));
+            assertEquals(cache.getFullRefreshCount(), fullRefreshCount + 1);
+            assertEquals(getNodeIds(getNodeService().findNodesToPushTo()), "[00010, 55555]");
+        } finally {
+            getNodeService().save(node);
+        }
+    }
+
+    @Test
+    public void testNodeSecurityCacheRefreshesChangedEntry() {
+        assertTrue(getNodeService().isNodeAuthorized("00001", "secret"));
+        try {
+            getSqlTemplate().update("update sym_node_security set node_password='changed', "
+                    + "last_update_time=current_timestamp where node_id='00001'");
+            assertTrue(getNodeService().isNodeAuthorized("00001", "secret"));
+            getNodeService().getNodeSecurityCache().refresh(Long.MAX_VALUE, 0);
+            assertFalse(getNodeService().isNodeAuthorized("00001", "secret"));
+            assertTrue(getNodeService().isNodeAuthorized("00001", "changed"));
+        } finally {
+            getSqlTemplate().update("update sym_node_security set node_password='secret' where node_id='00001'");
+            getNodeService().flushNodeAuthorizedCache();
+        }
+    }
+
+    protected String getNodeIds(List<Node> nodes) {
+        List<String> nodeIds = new ArrayList<String>(nodes.size());
+        for (Node node : nodes) {
+            nodeIds.add(node.getNodeId());
+        }
+        return nodeIds.toString();
+    }
+
+}
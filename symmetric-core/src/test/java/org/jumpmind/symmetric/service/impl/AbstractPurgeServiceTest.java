@@ -0,0 +1,126 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.service.impl;
+
+import java.sql.Types;
+import java.util.Set;
+
+import org.jumpmind.db.sql.ISqlTransaction;
+import org.jumpmind.symmetric.TestConstants;
+import org.jumpmind.symmetric.common.ParameterConstants;
+import org.jumpmind.symmetric.model.NodeGroupLink;
+import org.jumpmind.symmetric.model.TriggerRouter;
+import org.jumpmind.symmetric.service.IParameterService;
+import org.junit.Test;
+
+public abstract class AbstractPurgeServiceTest extends AbstractServiceTest {
+
+    final static String TEST_TABLE_1 = "test_routing_data_1";
+    final static String TEST_TABLE_2 = "test_routing_data_2";
+
+    @Test
+    public void testPurgeInParallel() {
+        saveTestRoutingTableTrigger(TEST_TABLE_1, TestConstants.TEST_CHANNEL_ID);
+        saveTestRoutingTableTrigger(TEST_TABLE_2, TestConstants.TEST_CHANNEL_ID_OTHER);
+        resetBatches();
+
+        long lastDataId = getSqlTemplate().queryForLong("select max(data_id) from sym_data");
+
+        /* the other channel has a max batch size of 1, so this creates 30 batches */
+        insert(TEST_TABLE_2, 30);
+        getRouterService().routeData(true);
+        long maxDataId = getSqlTemplate().queryForLong("select max(data_id) from sym_data");
+
+        /* the newest data and the two newest batches are never purged */
+        insert(TEST_TABLE_1, 1);
+        getRouterService().routeData(true);
+        insert(TEST_TABLE_1, 1);
+        getRouterService().routeData(true);
+        getSqlTemplate().update("update sym_outgoing_batch set status='OK' where status != 'OK'");
+
+        String countDataSql = "select count(*) from sym_data where data_id > ? and data_id <= ?";
+        String countDataEventSql = "select count(*) from sym_data_event where data_id > ? and data_id <= ?";
+        assertTrue(getSqlTemplate().queryForInt(countDataSql, lastDataId, maxDataId) >= 30);
+        assertTrue(getSqlTemplate().queryForInt(countDataEventSql, lastDataId, maxDataId) >= 30);
+
+        IParameterService parameterService = getParameterService();
+        int retentionMinutes = parameterService.getInt(ParameterConstants.PURGE_RETENTION_MINUTES);
+        int maxDataIds = parameterService.getInt(ParameterConstants.PURGE_MAX_NUMBER_OF_DATA_IDS);
+        int maxBatchIds = parameterService.getInt(ParameterConstants.PURGE_MAX_NUMBER_OF_BATCH_IDS);
+        int maxEventBatchIds = parameterService.getInt(ParameterConstants.PURGE_MAX_NUMBER_OF_EVENT_BATCH_IDS);
+        parameterService.saveParameter(ParameterConstants.PURGE_RETENTION_MINUTES, -60 * 24, "test");
+        parameterService.saveParameter(ParameterConstants.PURGE_MAX_NUMBER_OF_DATA_IDS, 2, "test");
+        parameterService.saveParameter(ParameterConstants.PURGE_MAX_NUMBER_OF_BATCH_IDS, 2, "test");
+        parameterService.saveParameter(ParameterConstants.PURGE_MAX_NUMBER_OF_EVENT_BATCH_IDS, 2, "test");
+        parameterService.saveParameter(ParameterConstants.PURGE_THREAD_COUNT, 3, "test");
+        parameterService.saveParameter(ParameterConstants.PURGE_TARGET_STATEMENT_TIME_MS, 1, "test");
+        try {
+            assertTrue(getSymmetricEngine().getPurgeService().purgeOutgoing(true) > 0);
+        } finally {
+            parameterService.saveParameter(ParameterConstants.PURGE_RETENTION_MINUTES, retentionMinutes, "test");
+            parameterService.saveParameter(ParameterConstants.PURGE_MAX_NUMBER_OF_DATA_IDS, maxDataIds, "test");
+            parameterService.saveParameter(ParameterConstants.PURGE_MAX_NUMBER_OF_BATCH_IDS, maxBatchIds, "test");
+            parameterService.saveParameter(ParameterConstants.PURGE_MAX_NUMBER_OF_EVENT_BATCH_IDS, maxEventBatchIds, "test");
+            parameterService.saveParameter(ParameterConstants.PURGE_THREAD_COUNT, 1, "test");
+            parameterService.saveParameter(ParameterConstants.PURGE_TARGET_STATEMENT_TIME_MS, 0, "test");
+        }
+
+        assertEquals(getSqlTemplate().queryForInt(countDataSql, lastDataId, maxDataId), 0);
+        assertEquals(getSqlTemplate().queryForInt(countDataEventSql, lastDataId, maxDataId), 0);
+
+        resetBatches();
+    }
+
+    protected void saveTestRoutingTableTrigger(String tableName, String channelId) {
+        Set<TriggerRouter> triggerRouters = getTriggerRouterService()
+                .getTriggerRouterForTableForCurrentNode(null, null, tableName, true);
+        if (triggerRouters == null || triggerRouters.size() == 0) {
+            TriggerRouter triggerRouter = new TriggerRouter();
+            triggerRouter.getTrigger().setSourceTableName(tableName);
+            triggerRouter.getTrigger().setTriggerId(tableName);
+            triggerRouter.getTrigger().setChannelId(channelId);
+            triggerRouter.getRouter().setNodeGroupLink(
+                    new NodeGroupLink(TestConstants.TEST_ROOT_NODE_GROUP,
+                            TestConstants.TEST_CLIENT_NODE_GROUP));
+            getTriggerRouterService().saveTriggerRouter(triggerRouter);
+            getTriggerRouterService().syncTriggers();
+        }
+    }
+
+    /**
+     * Insert each row in its own transaction so that every row is a batch on
+     * a channel with a max batch size of 1
+     */
+    protected void insert(String tableName, int count) {
+        String columnName = getPlatform().alterCaseToMatchDatabaseDefaultCase("ROUTING_VARCHAR");
+        ISqlTransaction transaction = getSqlTemplate().startSqlTransaction();
+        try {
+            transaction.prepare(String.format("insert into %s (%s) values(?)", tableName, columnName));
+            for (int i = 0; i < count; i++) {
+                transaction.addRow(i, new Object[] { "00001" }, new int[] { Types.VARCHAR });
+                transaction.commit();
+            }
+        } finally {
+            transaction.close();
+        }
+    }
+
+}
@@ -23,6 +23,7 @@ package org.jumpmind.symmetric.service.impl;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -34,16 +35,19 @@ import org.jumpmind.symmetric.TestConstants;
 import org.jumpmind.symmetric.common.Constants;
 import org.jumpmind.symmetric.common.ParameterConstants;
 import org.jumpmind.symmetric.db.ISymmetricDialect;
+import org.jumpmind.symmetric.ext.IDataRoutedListener;
 import org.jumpmind.symmetric.model.Data;
 import org.jumpmind.symmetric.model.DataGap;
 import org.jumpmind.symmetric.model.Node;
 import org.jumpmind.symmetric.model.NodeChannel;
 import org.jumpmind.symmetric.model.NodeGroupLink;
 import org.jumpmind.symmetric.model.OutgoingBatch;
+import org.jumpmind.symmetric.model.OutgoingBatch.Status;
 import org.jumpmind.symmetric.model.OutgoingBatches;
 import org.jumpmind.symmetric.model.TriggerRouter;
 import org.jumpmind.symmetric.route.ChannelRouterContext;
 import org.jumpmind.symmetric.route.DataGapRouteReader;
+import org.jumpmind.symmetric.service.IParameterService;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -63,6 +67,7 @@ abstract public class AbstractRouterServiceTest extends AbstractServiceTest {
     @Test
     public void testRoutingScenarios() throws Exception {
         testMultiChannelRoutingToEveryone();
+        testMultiChannelRoutingInParallel();
         testLookupTableRouting();
         testColumnMatchTransactionalOnlyRoutingToNode1();
         testSubSelectNonTransactionalRoutingToNode1();
@@ -85,6 +90,9 @@ abstract public class AbstractRouterServiceTest extends AbstractServiceTest {
         testNoResend();
         testDontSelectOldDataDuringRouting();
         testMaxNumberOfDataToRoute();
+        testInsertOutgoingBatchesWithReservedIds();
+        testEventDrivenRoutingSignals();
+        testSubSelectRoutingResolvesQueuedRows();
     }
 
     public void testMultiChannelRoutingToEveryone() {
@@ -160,6 +168,35 @@ abstract public class AbstractRouterServiceTest extends AbstractServiceTest {
                 countBatchesForChannel(batches, otherChannel));
     }
 
+    public void testMultiChannelRoutingInParallel() {
+        getParameterService().saveParameter(ParameterConstants.ROUTING_CHANNEL_THREAD_COUNT_PER_SERVER, 2, "test");
+        try {
+            resetBatches();
+
+            NodeChannel testChannel = getConfigurationService().getNodeChannel(
+                    TestConstants.TEST_CHANNEL_ID, false);
+
+            NodeChannel otherChannel = getConfigurationService().getNodeChannel(
+                    TestConstants.TEST_CHANNEL_ID_OTHER, false);
+
+            insert(TEST_TABLE_1, 5, false);
+            insert(TEST_TABLE_2, 15, false);
+            insert(TEST_TABLE_1, 50, true);
+
+            getRouterService().routeData(true);
+
+            OutgoingBatches batches = getOutgoingBatchService().getOutgoingBatches(
+                    NODE_GROUP_NODE_1.getNodeId(), false);
+            filterForChannels(batches, testChannel, otherChannel);
+            Assert.assertEquals(getDbDialect().supportsTransactionId() ? 16 : 17, batches.getBatches().size());
+            Assert.assertEquals(getDbDialect().supportsTransactionId() ? 1 : 2,
+                    countBatchesForChannel(batches, testChannel));
+            Assert.assertEquals(15, countBatchesForChannel(batches, otherChannel));
+        } finally {
+            getParameterService().saveParameter(ParameterConstants.ROUTING_CHANNEL_THREAD_COUNT_PER_SERVER, 1, "test");
+        }
+    }
+
     public void testLookupTableRouting() {
 
         getDbDialect().truncateTable("test_lookup_table");
@@ -1314,4 +1351,134 @@ abstract public class AbstractRouterServiceTest extends AbstractServiceTest {
         }
     }
 
+
+    public void testInsertOutgoingBatchesWithReservedIds() {
+        resetBatches();
+
+        final int BATCHES_TO_INSERT = 25;
+        List<OutgoingBatch> batches = new ArrayList<OutgoingBatch>(BATCHES_TO_INSERT);
+        for (int i = 0; i < BATCHES_TO_INSERT; i++) {
+            batches.add(new OutgoingBatch(NODE_GROUP_NODE_1.getNodeId(),
+                    TestConstants.TEST_CHANNEL_ID, Status.RT));
+        }
+
+        ISqlTransaction transaction = null;
+        try {
+            transaction = getSqlTemplate().startSqlTransaction();
+            transaction.setInBatchMode(true);
+            getOutgoingBatchService().insertOutgoingBatches(transaction, batches);
+            transaction.commit();
+        } finally {
+            transaction.close();
+        }
+
+        Set<Long> batchIds = new HashSet<Long>();
+        for (OutgoingBatch batch : batches) {
+            assertTrue(batch.getBatchId() > 0);
+            assertTrue(batchIds.add(batch.getBatchId()));
+            assertNotNull(getOutgoingBatchService().findOutgoingBatch(batch.getBatchId(),
+                    batch.getNodeId()));
+        }
+
+        long nextBatchId = getSymmetricEngine().getSequenceService().nextVal(
+                Constants.SEQUENCE_OUTGOING_BATCH);
+        assertFalse(batchIds.contains(nextBatchId));
+
+        resetBatches();
+    }
+
+    public void testEventDrivenRoutingSignals() throws Exception {
+        resetBatches();
+
+        TriggerRouter trigger1 = getTestRoutingTableTrigger(TEST_TABLE_1);
+        getTriggerRouterService().saveTriggerRouter(trigger1);
+        getTriggerRouterService().syncTriggers();
+
+        // consume the signal and max data id left behind by earlier scenarios
+        getRouterService().waitForDataToRoute(0);
+        getRouterService().waitForDataToRoute(0);
+        Assert.assertFalse(getRouterService().waitForDataToRoute(0));
+
+        insert(TEST_TABLE_1, 1, false);
+        Assert.assertTrue(getRouterService().waitForDataToRoute(0));
+        Assert.assertFalse(getRouterService().waitForDataToRoute(0));
+
+        getRouterService().notifyDataCaptured();
+        long ts = System.currentTimeMillis();
+        Assert.assertTrue(getRouterService().waitForDataToRoute(60000));
+        Assert.assertTrue(System.currentTimeMillis() - ts < 60000);
+
+        RoutedNodeIdsListener listener = new RoutedNodeIdsListener();
+        getSymmetricEngine().getExtensionService().addExtensionPoint(listener);
+        try {
+            getRouterService().routeData(true);
+        } finally {
+            getSymmetricEngine().getExtensionService().removeExtensionPoint(listener);
+        }
+
+        Assert.assertTrue(listener.routedNodeIds.contains(NODE_GROUP_NODE_1.getNodeId()));
+        Assert.assertFalse(listener.routedNodeIds.contains(Constants.UNROUTED_NODE_ID));
+        Assert.assertFalse(getSymmetricEngine().getExtensionService()
+                .getExtensionPointList(IDataRoutedListener.class).contains(listener));
+
+        resetBatches();
+    }
+
+    public void testSubSelectRoutingResolvesQueuedRows() {
+        testSubSelectRoutingResolvesQueuedRows(10000);
+        testSubSelectRoutingResolvesQueuedRows(1);
+        testSubSelectRoutingResolvesQueuedRows(0);
+    }
+
+    protected void testSubSelectRoutingResolvesQueuedRows(int cacheSize) {
+        resetBatches();
+
+        TriggerRouter trigger1 = getTestRoutingTableTrigger(TEST_TABLE_1);
+        trigger1.getRouter().setRouterType("subselect");
+        trigger1.getRouter().setRouterExpression("c.node_id=:ROUTING_VARCHAR");
+        getTriggerRouterService().saveTriggerRouter(trigger1);
+        getTriggerRouterService().syncTriggers();
+
+        long lastDataId = getSqlTemplate().queryForLong("select max(data_id) from sym_data");
+        insert(TEST_TABLE_1, 30, true, null, NODE_GROUP_NODE_1.getNodeId());
+        insert(TEST_TABLE_1, 20, true, null, NODE_GROUP_NODE_3.getNodeId());
+        for (int i = 0; i < 10; i++) {
+            insert(TEST_TABLE_1, 1, true, null, "unknown" + i);
+        }
+        insert(TEST_TABLE_1, 30, true, null, NODE_GROUP_NODE_3.getNodeId());
+
+        IParameterService parameterService = getParameterService();
+        parameterService.saveParameter(ParameterConstants.ROUTING_SUBSELECT_BATCH_SIZE, 7, "test");
+        parameterService.saveParameter(ParameterConstants.ROUTING_SUBSELECT_CACHE_SIZE, cacheSize, "test");
+        try {
+            getRouterService().routeData(true);
+        } finally {
+            parameterService.saveParameter(ParameterConstants.ROUTING_SUBSELECT_BATCH_SIZE, 100, "test");
+            parameterService.saveParameter(ParameterConstants.ROUTING_SUBSELECT_CACHE_SIZE, 10000, "test");
+        }
+
+        String channelId = trigger1.getTrigger().getChannelId();
+        String countDataEventsSql = "select count(*) from sym_data_event e inner join sym_outgoing_batch b "
+                + "on b.batch_id=e.batch_id and b.node_id=? and b.channel_id=? where e.data_id > ?";
+        Assert.assertEquals(30, getSqlTemplate().queryForInt(countDataEventsSql,
+                NODE_GROUP_NODE_1.getNodeId(), channelId, lastDataId));
+        Assert.assertEquals(50, getSqlTemplate().queryForInt(countDataEventsSql,
+                NODE_GROUP_NODE_3.getNodeId(), channelId, lastDataId));
+        Assert.assertEquals(0, getSqlTemplate().queryForInt(countDataEventsSql,
+                NODE_GROUP_NODE_2.getNodeId(), channelId, lastDataId));
+        Assert.assertEquals(10, getSqlTemplate().queryForInt(countDataEventsSql,
+                Constants.UNROUTED_NODE_ID, channelId, lastDataId));
+
+        resetBatches();
+    }
+
+    static class RoutedNodeIdsListener implements IDataRoutedListener {
+
+        Set<String> routedNodeIds = new HashSet<String>();
+
+        public void dataRouted(Set<String> nodeIds) {
+            routedNodeIds.addAll(nodeIds);
+        }
+    }
+
 }
@@ -20,6 +20,7 @@
  */
 package org.jumpmind.symmetric.service.impl;
 
+import java.io.File;
 import java.sql.Types;
 import java.util.Calendar;
 import java.util.Date;
@@ -386,6 +387,38 @@ abstract public class AbstractTriggerRouterServiceTest extends AbstractServiceTe
         }
     }
 
+    @Test
+    public void test14SchemaSyncWithBulkReadAndPersistedTableModel() throws Exception {
+        IParameterService parameterService = getParameterService();
+        TriggerRouterService service = (TriggerRouterService) getTriggerRouterService();
+        File file = service.getCachedTableModelFile();
+        file.delete();
+        try {
+            parameterService.saveParameter(ParameterConstants.SYNC_TRIGGERS_BULK_READ_THRESHOLD, 0, "test");
+            service.syncTriggers();
+            int origCount = getTriggerHistTableRowCount();
+            service.syncTriggers();
+            int expectedChangeCount = getTriggerHistTableRowCount() - origCount;
+
+            parameterService.saveParameter(ParameterConstants.SYNC_TRIGGERS_BULK_READ_THRESHOLD, 1, "test");
+            parameterService.saveParameter(ParameterConstants.SYNC_TRIGGERS_PERSIST_TABLE_MODEL, true, "test");
+
+            service.syncTriggers();
+            Assert.assertTrue(file.exists());
+            origCount = getTriggerHistTableRowCount();
+
+            service.syncTriggers();
+            Assert.assertEquals(
+                    "Reading tables in bulk and from the saved model should not change which triggers get rebuilt",
+                    expectedChangeCount, getTriggerHistTableRowCount() - origCount);
+            Assert.assertEquals(0, service.getFailedTriggers().size());
+        } finally {
+            parameterService.saveParameter(ParameterConstants.SYNC_TRIGGERS_BULK_READ_THRESHOLD, 20, "test");
+            parameterService.saveParameter(ParameterConstants.SYNC_TRIGGERS_PERSIST_TABLE_MODEL, false, "test");
+            file.delete();
+        }
+    }
+
     protected static int[] filterTypes(int[] types, ISymmetricDialect dbDialect) {
         boolean isBooleanSupported = isBooleanSupported(dbDialect);
         int[] filteredTypes = new int[types.length];
@@ -0,0 +1,140 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.service.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class DataExtractorServiceTest {
+
+    @Test
+    public void testBuildRangeConditions() {
+        List<String> conditions = DataExtractorService.buildRangeConditions("id",
+                Arrays.asList(new BigDecimal(26), new BigDecimal(51), new BigDecimal(76)));
+        assertEquals(4, conditions.size());
+        assertEquals("id < 26", conditions.get(0));
+        assertEquals("id >= 26 and id < 51", conditions.get(1));
+        assertEquals("id >= 51 and id < 76", conditions.get(2));
+        assertEquals("id >= 76", conditions.get(3));
+    }
+
+    @Test
+    public void testBuildRangeConditionsNoRange() {
+        assertEquals(0, DataExtractorService.buildRangeConditions("id",
+                new ArrayList<BigDecimal>()).size());
+    }
+
+    @Test
+    public void testRangeStartPositionsFollowBatches() {
+        assertArrayEquals(new long[] { 250, 500, 750 },
+                DataExtractorService.getRangeStartPositions(1000, 8, 4));
+        // the last range takes the batches left over
+        assertArrayEquals(new long[] { 300, 600 },
+                DataExtractorService.getRangeStartPositions(1000, 10, 3));
+    }
+
+    @Test
+    public void testRangeStartPositionsFewRows() {
+        assertArrayEquals(new long[] { 0, 1 },
+                DataExtractorService.getRangeStartPositions(3, 100, 10));
+        assertArrayEquals(new long[0], DataExtractorService.getRangeStartPositions(1, 10, 4));
+        assertArrayEquals(new long[0], DataExtractorService.getRangeStartPositions(0, 10, 4));
+    }
+
+    @Test
+    public void testInterpolateRangeBoundaries() {
+        assertEquals(Arrays.asList(new BigDecimal(251), new BigDecimal(501), new BigDecimal(751)),
+                DataExtractorService.interpolateRangeBoundaries(new BigDecimal(1),
+                        new BigDecimal(1001), 1000, new long[] { 250, 500, 750 }));
+    }
+
+    @Test
+    public void testSampledRangeBoundariesWithSkewedKeys() {
+        // most of the keys are dense and the rest are spread out to a billion
+        List<BigDecimal> keys = new ArrayList<BigDecimal>();
+        for (long key = 1; key <= 180000; key++) {
+            keys.add(BigDecimal.valueOf(key));
+        }
+        for (long i = 1; i <= 20000; i++) {
+            keys.add(BigDecimal.valueOf(180000 + i * 50000));
+        }
+        long rowCount = keys.size();
+        long[] positions = DataExtractorService.getRangeStartPositions(rowCount, 40, 4);
+
+        long divisor = DataExtractorService.getSampleDivisor(rowCount, 10000);
+        List<BigDecimal> sample = new ArrayList<BigDecimal>();
+        for (BigDecimal key : keys) {
+            if (key.longValue() % divisor == 0) {
+                sample.add(key);
+            }
+        }
+        assertTrue(sample.size() > 5000 && sample.size() < 20000);
+
+        List<BigDecimal> boundaries = DataExtractorService.pickRangeBoundaries(sample,
+                rowCount, positions);
+        assertEquals(3, boundaries.size());
+        for (long count : countRowsInRanges(keys, boundaries)) {
+            assertTrue("Range has " + count + " rows", count > 45000 && count < 55000);
+        }
+
+        // splitting between the lowest and highest key puts almost every row in the first range
+        List<BigDecimal> interpolated = DataExtractorService.interpolateRangeBoundaries(
+                keys.get(0), keys.get(keys.size() - 1), rowCount, positions);
+        assertTrue(countRowsInRanges(keys, interpolated)[0] > 180000);
+    }
+
+    @Test
+    public void testSampleDivisorIsPrime() {
+        assertEquals(2, DataExtractorService.getSampleDivisor(150000, 100000));
+        assertEquals(5003, DataExtractorService.getSampleDivisor(500000000, 100000));
+    }
+
+    private long[] countRowsInRanges(List<BigDecimal> keys, List<BigDecimal> boundaries) {
+        long[] counts = new long[boundaries.size() + 1];
+        for (BigDecimal key : keys) {
+            int range = 0;
+            while (range < boundaries.size() && key.compareTo(boundaries.get(range)) >= 0) {
+                range++;
+            }
+            counts[range]++;
+        }
+        return counts;
+    }
+
+    @Test
+    public void testInterpolateRangeBoundariesNarrowKeys() {
+        // boundaries that land on the same key are dropped
+        assertEquals(Arrays.asList(new BigDecimal(1)),
+                DataExtractorService.interpolateRangeBoundaries(new BigDecimal(0),
+                        new BigDecimal(2), 1000, new long[] { 250, 500, 750 }));
+        assertEquals(0, DataExtractorService.interpolateRangeBoundaries(null, null, 0,
+                new long[] { 1 }).size());
+    }
+
+}
@@ -0,0 +1,155 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jumpmind.symmetric.model.BatchId;
+import org.jumpmind.symmetric.model.IncomingBatch;
+import org.jumpmind.symmetric.model.IncomingBatch.Status;
+import org.junit.Test;
+
+public class IncomingBatchIndexTest {
+
+    @Test
+    public void testKnownBelowMaxOkBatchId() {
+        IncomingBatchIndex index = new IncomingBatchIndex(10);
+        Map<String, Map<String, Long>> maxOkBatchIds = new HashMap<String, Map<String, Long>>();
+        maxOkBatchIds.put("00001", new HashMap<String, Long>());
+        maxOkBatchIds.get("00001").put("default", 100l);
+        index.warm(true, maxOkBatchIds, null);
+
+        assertTrue(index.isKnown(batch("00001", "default", 99, Status.LD)));
+        assertTrue(index.isKnown(batch("00001", "default", 100, Status.LD)));
+        assertFalse(index.isKnown(batch("00001", "default", 101, Status.LD)));
+        assertFalse(index.isKnown(batch("00001", "config", 99, Status.LD)));
+        assertFalse(index.isKnown(batch("00002", "default", 99, Status.LD)));
+        assertFalse(index.isNew(batch("00001", "default", 101, Status.LD)));
+    }
+
+    @Test
+    public void testPutOkRaisesMaxOkBatchId() {
+        IncomingBatchIndex index = new IncomingBatchIndex(10);
+        index.warm(true, new HashMap<String, Map<String, Long>>(), null);
+        index.put(batch("00001", "default", 50, Status.OK));
+        index.put(batch("00001", "default", 40, Status.OK));
+
+        assertTrue(index.isKnown(batch("00001", "default", 45, Status.LD)));
+        assertFalse(index.isKnown(batch("00001", "default", 51, Status.LD)));
+
+        index.put(batch("00001", "default", 60, Status.ER));
+        assertTrue(index.isKnown(batch("00001", "default", 60, Status.LD)));
+        assertEquals(index.getStatus(batch("00001", "default", 60, Status.LD)), Status.ER);
+        assertFalse(index.isKnown(batch("00001", "default", 59, Status.LD)));
+    }
+
+    @Test
+    public void testNewOnlyWhenComplete() {
+        IncomingBatchIndex index = new IncomingBatchIndex(10);
+        List<BatchId> allBatches = new ArrayList<BatchId>();
+        allBatches.add(new BatchId(5, "00001"));
+        index.warm(false, new HashMap<String, Map<String, Long>>(), allBatches);
+
+        assertFalse(index.isNew(batch("00001", "default", 5, Status.LD)));
+        assertTrue(index.isNew(batch("00001", "default", 6, Status.LD)));
+
+        index.put(batch("00001", "default", 6, Status.ER));
+        assertFalse(index.isNew(batch("00001", "default", 6, Status.LD)));
+
+        index.remove(batch("00001", "default", 6, Status.ER));
+        assertTrue(index.isNew(batch("00001", "default", 6, Status.LD)));
+
+        index.warm(false, new HashMap<String, Map<String, Long>>(), null);
+        assertFalse(index.isNew(batch("00001", "default", 7, Status.LD)));
+    }
+
+    @Test
+    public void testEvictionMakesIndexIncomplete() {
+        IncomingBatchIndex index = new IncomingBatchIndex(2);
+        index.warm(false, new HashMap<String, Map<String, Long>>(), new ArrayList<BatchId>());
+        index.put(batch("00001", "default", 1, Status.ER));
+        index.put(batch("00001", "default", 2, Status.ER));
+        assertTrue(index.isNew(batch("00001", "default", 3, Status.LD)));
+
+        index.put(batch("00001", "default", 3, Status.ER));
+        assertFalse(index.isKnown(batch("00001", "default", 1, Status.LD)));
+        assertFalse(index.isNew(batch("00001", "default", 1, Status.LD)));
+        assertFalse(index.isNew(batch("00001", "default", 4, Status.LD)));
+    }
+
+    @Test
+    public void testRemoveNode() {
+        IncomingBatchIndex index = new IncomingBatchIndex(10);
+        index.warm(true, new HashMap<String, Map<String, Long>>(), null);
+        index.put(batch("00001", "default", 10, Status.OK));
+        index.put(batch("00002", "default", 10, Status.OK));
+        index.put(batch("00001-2", "default", 10, Status.OK));
+        index.put(batch("00001-2", "default", 11, Status.ER));
+        index.removeNode("00001");
+
+        assertFalse(index.isKnown(batch("00001", "default", 10, Status.LD)));
+        assertFalse(index.isKnown(batch("00001", "default", 9, Status.LD)));
+        assertTrue(index.isKnown(batch("00002", "default", 9, Status.LD)));
+        assertTrue(index.isKnown(batch("00001-2", "default", 9, Status.LD)));
+        assertEquals(Status.ER, index.getStatus(batch("00001-2", "default", 11, Status.LD)));
+    }
+
+    @Test
+    public void testRemoveNodeKeepsIndexComplete() {
+        IncomingBatchIndex index = new IncomingBatchIndex(10);
+        List<BatchId> allBatches = new ArrayList<BatchId>();
+        allBatches.add(new BatchId(1, "00001"));
+        allBatches.add(new BatchId(1, "00001-2"));
+        index.warm(false, new HashMap<String, Map<String, Long>>(), allBatches);
+        index.removeNode("00001");
+
+        assertTrue(index.isNew(batch("00001", "default", 1, Status.LD)));
+        assertFalse(index.isNew(batch("00001-2", "default", 1, Status.LD)));
+    }
+
+    @Test
+    public void testWarmNeededWhenModeChanges() {
+        IncomingBatchIndex index = new IncomingBatchIndex(10);
+        assertTrue(index.isWarmNeeded(true));
+        index.warm(true, new HashMap<String, Map<String, Long>>(), null);
+        assertFalse(index.isWarmNeeded(true));
+        assertTrue(index.isWarmNeeded(false));
+        index.clear();
+        assertTrue(index.isWarmNeeded(true));
+    }
+
+    protected IncomingBatch batch(String nodeId, String channelId, long batchId, Status status) {
+        IncomingBatch batch = new IncomingBatch();
+        batch.setNodeId(nodeId);
+        batch.setChannelId(channelId);
+        batch.setBatchId(batchId);
+        batch.setStatus(status);
+        return batch;
+    }
+
+}
@@ -39,6 +39,7 @@ import org.jumpmind.symmetric.model.NodeSecurity;
 import org.jumpmind.symmetric.model.NodeStatus;
 import org.jumpmind.symmetric.security.INodePasswordFilter;
 import org.jumpmind.symmetric.service.INodeService;
+import org.jumpmind.symmetric.util.VersionedCache;
 
 public class MockNodeService implements INodeService {
 
@@ -62,6 +63,10 @@ public class MockNodeService implements INodeService {
         }
         return nodeMap;
     }    
+
+    public Map<String, Node> findAllNodesAsMap(boolean useCache) {
+        return findAllNodesAsMap();
+    }
     
     public void deleteNodeHost(String nodeId) {
     }
@@ -298,6 +303,14 @@ public class MockNodeService implements INodeService {
     public void flushNodeGroupCache() {
     }
 
+    public VersionedCache<String, Node> getNodeCache() {
+        return null;
+    }
+
+    public VersionedCache<String, NodeSecurity> getNodeSecurityCache() {
+        return null;
+    }
+
     /* (non-Javadoc)
      * @see org.jumpmind.symmetric.service.INodeService#getExternalId(java.lang.String)
      */
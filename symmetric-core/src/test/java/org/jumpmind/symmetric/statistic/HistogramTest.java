@@ -0,0 +1,56 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.statistic;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class HistogramTest {
+
+    @Test
+    public void testAdd() {
+        Histogram histogram = new Histogram(10, 100);
+        histogram.add(5);
+        histogram.add(10);
+        histogram.add(50);
+        histogram.add(500);
+
+        assertArrayEquals(new long[] { 2, 1, 1 }, histogram.getCounts());
+        assertEquals(4, histogram.getCount());
+        assertEquals(500, histogram.getMax());
+        assertEquals(500, histogram.getLast());
+        assertEquals(141, histogram.getAverage());
+        assertEquals("{ <=10: 2, <=100: 1, >100: 1, max: 500, last: 500 }", histogram.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyBounds() {
+        new Histogram();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnorderedBounds() {
+        new Histogram(100, 10);
+    }
+
+}
@@ -170,5 +170,16 @@ public class MockStatisticManager implements IStatisticManager {
 
     public void removeRouterStatsByBatch(Long batchId) {
     }
+
+    public void addDataGapStats(int gapCount, long dataIdCount, long detectMillis) {
+    }
+
+    public Histogram getDataGapCountHistogram() {
+        return null;
+    }
+
+    public Histogram getDataGapDetectMillisHistogram() {
+        return null;
+    }
     
 }
\ No newline at end of file
@@ -0,0 +1,197 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.transform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jumpmind.db.model.Table;
+import org.jumpmind.db.platform.IDatabasePlatform;
+import org.jumpmind.db.sql.ISqlRowMapper;
+import org.jumpmind.db.sql.ISqlTransaction;
+import org.jumpmind.symmetric.io.data.DataContext;
+import org.jumpmind.symmetric.io.data.DataEventType;
+import org.jumpmind.symmetric.io.data.transform.LookupCache;
+import org.jumpmind.symmetric.io.data.transform.LookupColumnTransform;
+import org.jumpmind.symmetric.io.data.transform.TransformColumn;
+import org.jumpmind.symmetric.io.data.transform.TransformPoint;
+import org.jumpmind.symmetric.io.data.transform.TransformTable;
+import org.jumpmind.symmetric.io.data.transform.TransformedData;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LookupColumnTransformTest {
+
+    ISqlTransaction sqlTransaction;
+    IDatabasePlatform platform;
+    DataContext context;
+    LookupColumnTransform transform;
+
+    @Before
+    public void setUp() throws Exception {
+        sqlTransaction = mock(ISqlTransaction.class);
+        platform = mock(IDatabasePlatform.class);
+        context = new DataContext() {
+            @Override
+            public ISqlTransaction findTransaction() {
+                return sqlTransaction;
+            }
+        };
+        transform = new LookupColumnTransform();
+    }
+
+    @Test
+    public void testLruCache() throws Exception {
+        mockQueryResults("store one");
+        String sql = "/* cache=lru size=10 ttl=0 */ select name from store where code=:STORE_CODE";
+
+        assertEquals("store one", transform("1", sql));
+        assertEquals("store one", transform("1", sql));
+        verifyQueries(1);
+
+        assertEquals("store one", transform("2", sql));
+        verifyQueries(2);
+    }
+
+    @Test
+    public void testNoCacheWithoutOptions() throws Exception {
+        mockQueryResults("store one");
+        String sql = "select name from store where code=:STORE_CODE";
+
+        assertEquals("store one", transform("1", sql));
+        assertEquals("store one", transform("1", sql));
+        verifyQueries(2);
+    }
+
+    @Test
+    public void testPreloadCache() throws Exception {
+        mockQueryResults(new String[] { "1", "store one" }, new String[] { "2", "store two" });
+        String sql = "/* cache=preload */ select code, name from store";
+
+        assertEquals("store one", transform("1", sql));
+        assertEquals("store two", transform("2", sql));
+        assertNull(transform("3", sql));
+        verifyQueries(1);
+    }
+
+    @Test
+    public void testInvalidatedWhenLookupTableCommitted() throws Exception {
+        mockQueryResults("store one");
+        String sql = "/* cache=lru */ select name from store where code=:STORE_CODE";
+
+        transform("1", sql);
+        transform.afterWrite(context, new Table("other_store"), null);
+        transform("1", sql);
+        verifyQueries(1);
+
+        transform.afterWrite(context, new Table("STORE"), null);
+        transform("1", sql);
+        transform("1", sql);
+        verifyQueries(3);
+
+        transform.batchCommitted(context);
+        transform("1", sql);
+        transform("1", sql);
+        verifyQueries(4);
+    }
+
+    @Test
+    public void testPreloadOncePerBatchAfterLookupTableWritten() throws Exception {
+        mockQueryResults(new String[] { "1", "store one" }, new String[] { "2", "store two" });
+        String sql = "/* cache=preload */ select code, name from store";
+
+        assertEquals("store one", transform("1", sql));
+        verifyQueries(1);
+
+        transform.afterWrite(context, new Table("store"), null);
+        assertEquals("store one", transform("1", sql));
+        assertEquals("store two", transform("2", sql));
+        verifyQueries(2);
+
+        transform.batchCommitted(context);
+        transform("1", sql);
+        transform("2", sql);
+        verifyQueries(3);
+    }
+
+    @Test
+    public void testValueReadBeforeClearIsNotCached() throws Exception {
+        LookupCache cache = LookupCache.parse("/*cache=lru*/select name from store where code=:CODE");
+        List<Object> key = Arrays.asList((Object) "1");
+        long generation = cache.getGeneration();
+        cache.clear();
+        cache.put(key, "old", generation);
+        cache.setPreloadedValues(new HashMap<String, String>(), generation);
+        assertNull(cache.get(key));
+        assertNull(cache.getPreloadedValues());
+        cache.put(key, "new", cache.getGeneration());
+        assertEquals("new", cache.get(key).getValue());
+    }
+
+    @Test
+    public void testParseOptions() throws Exception {
+        LookupCache cache = LookupCache.parse("/*cache=preload, key=CODE, ttl=5*/select code, name from store");
+        assertEquals(LookupCache.Mode.PRELOAD, cache.getMode());
+        assertEquals("CODE", cache.getKeyColumn());
+        assertEquals(5l, cache.getTtlInMs());
+        assertEquals("select code, name from store", cache.getSql());
+        assertNull(LookupCache.parse("/* a hint */ select name from store"));
+    }
+
+    protected String transform(String storeCode, String sql) throws Exception {
+        TransformColumn column = new TransformColumn("STORE_CODE", "STORE_NAME", false, "lookup", sql);
+        TransformTable table = new TransformTable("sale", "sale", TransformPoint.LOAD, column);
+        Map<String, String> sourceValues = new HashMap<String, String>();
+        sourceValues.put("STORE_CODE", storeCode);
+        TransformedData data = new TransformedData(table, DataEventType.INSERT,
+                new HashMap<String, String>(), null, sourceValues);
+        return transform.transform(platform, context, column, data, sourceValues, storeCode, null);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected void mockQueryResults(Object... rows) {
+        List results = new ArrayList();
+        for (Object row : rows) {
+            results.add(row);
+        }
+        when(sqlTransaction.query(anyString(), any(ISqlRowMapper.class), any(Map.class)))
+                .thenReturn(results);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected void verifyQueries(int count) {
+        verify(sqlTransaction, times(count)).query(anyString(), any(ISqlRowMapper.class),
+                any(Map.class));
+    }
+
+}
@@ -24,9 +24,14 @@ import java.util.HashMap;
 import java.util.Map;
 
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
+import org.jumpmind.symmetric.common.ParameterConstants;
+import org.jumpmind.symmetric.service.IParameterService;
 import org.jumpmind.symmetric.statistic.MockStatisticManager;
 import org.jumpmind.symmetric.transport.ConcurrentConnectionManager.Reservation;
+import org.jumpmind.symmetric.transport.ConcurrentConnectionManager.ReservationStatistics;
 import org.jumpmind.symmetric.transport.IConcurrentConnectionManager.ReservationType;
 import org.junit.Test;
 
@@ -52,4 +57,32 @@ public class ConcurrentConnectionManagerUnitTest {
         mgr.removeTimedOutReservations(reservations);
         assertEquals(1, reservations.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testReservationStatisticsByPool() {
+        IParameterService parameterService = mock(IParameterService.class);
+        when(parameterService.getInt(ParameterConstants.CONCURRENT_WORKERS)).thenReturn(1);
+        when(parameterService.getLong(ParameterConstants.CONCURRENT_RESERVATION_TIMEOUT)).thenReturn(-1000l);
+        ConcurrentConnectionManager mgr = new ConcurrentConnectionManager(parameterService, new MockStatisticManager());
+
+        assertTrue(mgr.reserveConnection("1", "pull", ReservationType.HARD));
+        assertFalse(mgr.reserveConnection("2", "pull", ReservationType.HARD));
+        assertTrue(mgr.reserveConnection("2", "push", ReservationType.SOFT));
+        // the soft reservation has already timed out so it is swept
+        assertTrue(mgr.reserveConnection("3", "push", ReservationType.HARD));
+        assertTrue(mgr.releaseConnection("1", "pull"));
+        assertEquals(0, mgr.getReservationCount("pull"));
+
+        ReservationStatistics pull = mgr.getReservationStatisticsByPool().get("pull");
+        assertEquals(1, pull.getGrantedCount());
+        assertEquals(1, pull.getRejectedCount());
+        assertEquals(1, pull.getReleasedCount());
+        assertEquals(0, pull.getTimedOutCount());
+        assertEquals(1, mgr.getNodeConnectionStatisticsByPoolByNodeId().get("pull").get("2").getNumOfRejections());
+
+        ReservationStatistics push = mgr.getReservationStatisticsByPool().get("push");
+        assertEquals(2, push.getGrantedCount());
+        assertEquals(0, push.getRejectedCount());
+        assertEquals(1, push.getTimedOutCount());
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class BshScriptCompilerTest {
+
+    @Test
+    public void testGetIdentifiers() {
+        BshScriptCompiler compiler = new BshScriptCompiler();
+        Set<String> identifiers = compiler
+                .getIdentifiers("STATUS.equals(\"OLD_STATUS\") && 10 < AMOUNT.intValue() // COMMENT\n /* OTHER */ nodes");
+        assertTrue(identifiers.contains("STATUS"));
+        assertTrue(identifiers.contains("AMOUNT"));
+        assertTrue(identifiers.contains("nodes"));
+        assertFalse(identifiers.contains("OLD_STATUS"));
+        assertFalse(identifiers.contains("equals"));
+        assertFalse(identifiers.contains("intValue"));
+        assertFalse(identifiers.contains("COMMENT"));
+        assertFalse(identifiers.contains("OTHER"));
+    }
+
+    @Test
+    public void testExpression() throws Exception {
+        BshScriptCompiler compiler = new BshScriptCompiler();
+        List<String> names = Arrays.asList("STATUS", "AMOUNT");
+        List<Object> values = Arrays.<Object> asList("OK", new BigDecimal("12.5"));
+        ICompiledScript script = compiler.getCompiledScript("TestScript", null,
+                "STATUS.equals(\"OK\") && AMOUNT.intValue() > 10", names, values, null);
+        assertNotNull(script);
+        assertEquals(Boolean.TRUE, script.eval(values.toArray()));
+
+        values = Arrays.<Object> asList("OK", new BigDecimal("2"));
+        assertSame(script, compiler.getCompiledScript("TestScript", null,
+                "STATUS.equals(\"OK\") && AMOUNT.intValue() > 10", names, values, null));
+        assertEquals(Boolean.FALSE, script.eval(values.toArray()));
+    }
+
+    @Test
+    public void testConcurrentCallersShareOneVariant() throws Exception {
+        final BshScriptCompiler compiler = new BshScriptCompiler();
+        final List<String> names = Arrays.asList("STATUS");
+        final List<Object> values = Arrays.<Object> asList("OK");
+        final List<ICompiledScript> scripts = Collections.synchronizedList(new ArrayList<ICompiledScript>());
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(new Thread() {
+                public void run() {
+                    scripts.add(compiler.getCompiledScript("TestScript", null, "STATUS.equals(\"OK\")",
+                            names, values, null));
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(4, scripts.size());
+        assertNotNull(scripts.get(0));
+        for (ICompiledScript script : scripts) {
+            assertSame(scripts.get(0), script);
+        }
+        assertEquals(1, compiler.variantsByScript.values().iterator().next().size());
+    }
+
+    @Test
+    public void testStatements() throws Exception {
+        BshScriptCompiler compiler = new BshScriptCompiler();
+        Map<String, String> declaredTypes = new HashMap<String, String>();
+        declaredTypes.put("targetNodes", "Set<String>");
+        Set<String> targetNodes = new HashSet<String>();
+        List<String> names = Arrays.asList("STATUS", "targetNodes");
+        List<Object> values = Arrays.<Object> asList("OK", targetNodes);
+        ICompiledScript script = compiler.getCompiledScript("TestScript", null,
+                "if (STATUS.equals(\"OK\")) {\n  targetNodes.add(\"00001\");\n}\n", names, values,
+                declaredTypes);
+        assertNotNull(script);
+        assertNull(script.eval(values.toArray()));
+        assertEquals(1, targetNodes.size());
+
+        script = compiler.getCompiledScript("TestScript", null,
+                "String value = STATUS.toLowerCase();\nvalue + \"-\" + targetNodes.size()", names,
+                values, declaredTypes);
+        assertNotNull(script);
+        assertEquals("ok-1", script.eval(values.toArray()));
+
+        script = compiler.getCompiledScript("TestScript",
+                "String suffix(String value) { return value + \"!\"; }",
+                "return suffix(STATUS);", names, values, declaredTypes);
+        assertNotNull(script);
+        assertEquals("OK!", script.eval(values.toArray()));
+    }
+
+    @Test
+    public void testTypesFollowValues() throws Exception {
+        BshScriptCompiler compiler = new BshScriptCompiler();
+        List<String> names = Arrays.asList("STATUS");
+        String expression = "STATUS != null && STATUS.length() > 1";
+        assertNull(compiler.getCompiledScript("TestScript", null, expression, names,
+                new ArrayList<Object>(Arrays.asList((Object) null)), null));
+
+        ICompiledScript script = compiler.getCompiledScript("TestScript", null, expression, names,
+                Arrays.<Object> asList("OK"), null);
+        assertNotNull(script);
+        assertEquals(Boolean.TRUE, script.eval(new Object[] { "OK" }));
+        assertSame(script, compiler.getCompiledScript("TestScript", null, expression, names,
+                new ArrayList<Object>(Arrays.asList((Object) null)), null));
+        assertEquals(Boolean.FALSE, script.eval(new Object[] { null }));
+    }
+
+    @Test
+    public void testLooselyTypedScriptIsNotCompiled() throws Exception {
+        BshScriptCompiler compiler = new BshScriptCompiler();
+        List<String> names = Arrays.asList("STATUS");
+        List<Object> values = Arrays.<Object> asList("OK");
+        assertNull(compiler.getCompiledScript("TestScript", null, "value = STATUS; value", names,
+                values, null));
+        assertNull(compiler.getCompiledScript("TestScript", null, "value = STATUS; value", names,
+                values, null));
+        assertEquals(1, compiler.variantsByScript.size());
+    }
+
+    @Test
+    public void testScriptCacheIsBounded() throws Exception {
+        BshScriptCompiler compiler = new BshScriptCompiler();
+        for (int i = 0; i < BshScriptCompiler.MAX_SCRIPTS; i++) {
+            compiler.variantsByScript.put("script" + i,
+                    new ArrayList<BshScriptCompiler.CompiledVariant>());
+            compiler.getIdentifiers("STATUS" + i);
+        }
+        List<String> names = Arrays.asList("STATUS");
+        List<Object> values = Arrays.<Object> asList("OK");
+        ICompiledScript script = compiler.getCompiledScript("TestScript", null,
+                "STATUS.equals(\"OK\")", names, values, null);
+        assertNotNull(script);
+        assertEquals(Boolean.TRUE, script.eval(values.toArray()));
+        assertEquals(1, compiler.variantsByScript.size());
+
+        compiler.getIdentifiers("STATUS");
+        assertEquals(1, compiler.identifiersByScript.size());
+    }
+
+    @Test
+    public void testGetVariableType() {
+        assertEquals(Object.class, BshScriptCompiler.getVariableType(null));
+        assertEquals(String.class, BshScriptCompiler.getVariableType("test"));
+        assertEquals(byte[].class, BshScriptCompiler.getVariableType(new byte[0]));
+        assertEquals(java.sql.Timestamp.class,
+                BshScriptCompiler.getVariableType(new java.sql.Timestamp(0)));
+        assertEquals(Object.class, BshScriptCompiler.getVariableType(new BshScriptCompilerTest()));
+    }
+
+}
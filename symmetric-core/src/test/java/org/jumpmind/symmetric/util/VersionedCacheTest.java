@@ -0,0 +1,219 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jumpmind.symmetric.util.VersionedCache.Version;
+import org.junit.Before;
+import org.junit.Test;
+
+public class VersionedCacheTest {
+
+    private static final long NEVER = Long.MAX_VALUE;
+
+    private static final long OVERLAP = 60000;
+
+    private TableLoader loader;
+
+    private VersionedCache<String, String> cache;
+
+    @Before
+    public void setup() {
+        loader = new TableLoader();
+        loader.put("1", "one", 1000);
+        loader.put("2", "two", 2000);
+        cache = new VersionedCache<String, String>("test", loader);
+    }
+
+    @Test
+    public void testLoadOnFirstRead() {
+        assertEquals("one", cache.get("1", NEVER, NEVER, OVERLAP));
+        assertEquals(1, loader.loadAllCount);
+        assertEquals(1, cache.getMissCount());
+        assertEquals("two", cache.get("2", NEVER, NEVER, OVERLAP));
+        assertEquals(1, loader.loadAllCount);
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testRefreshWithUnchangedVersion() {
+        Map<String, String> entries = cache.getAll(NEVER, NEVER, OVERLAP);
+        cache.refresh(NEVER, OVERLAP);
+        assertSame(entries, cache.getAll(NEVER, NEVER, OVERLAP));
+        assertEquals(1, loader.loadAllCount);
+        assertEquals(0, loader.loadChangedCount);
+        assertEquals(1, cache.getUnchangedRefreshCount());
+    }
+
+    @Test
+    public void testRefreshMergesChangedRows() {
+        cache.getAll(NEVER, NEVER, OVERLAP);
+        loader.put("2", "TWO", 3000);
+        loader.put("3", "three", 3000);
+        cache.refresh(NEVER, OVERLAP);
+        Map<String, String> entries = cache.getAll(NEVER, NEVER, OVERLAP);
+        assertEquals(3, entries.size());
+        assertEquals("one", entries.get("1"));
+        assertEquals("TWO", entries.get("2"));
+        assertEquals("three", entries.get("3"));
+        assertEquals(1, loader.loadAllCount);
+        assertEquals(1, loader.loadChangedCount);
+        assertEquals(1, cache.getDeltaRefreshCount());
+    }
+
+    @Test
+    public void testRefreshReloadsAfterDelete() {
+        cache.getAll(NEVER, NEVER, OVERLAP);
+        loader.remove("1");
+        cache.refresh(NEVER, OVERLAP);
+        assertNull(cache.get("1", NEVER, NEVER, OVERLAP));
+        assertEquals(2, loader.loadAllCount);
+        assertEquals(2, cache.getFullRefreshCount());
+    }
+
+    @Test
+    public void testRefreshReloadsAfterFullReloadTime() {
+        cache.getAll(NEVER, NEVER, OVERLAP);
+        cache.refresh(0, OVERLAP);
+        assertEquals(2, loader.loadAllCount);
+        assertEquals(0, cache.getUnchangedRefreshCount());
+    }
+
+    @Test
+    public void testFlush() {
+        cache.getAll(NEVER, NEVER, OVERLAP);
+        loader.rows.put("1", "ONE");
+        cache.flush();
+        assertEquals("ONE", cache.get("1", NEVER, NEVER, OVERLAP));
+        assertEquals(2, loader.loadAllCount);
+    }
+
+    @Test
+    public void testExpiredReadRefreshesInBackground() throws Exception {
+        Map<String, String> entries = cache.getAll(NEVER, NEVER, OVERLAP);
+        loader.put("3", "three", 3000);
+        assertSame(entries, cache.getAll(0, NEVER, OVERLAP));
+        for (int i = 0; i < 100 && cache.get("3", NEVER, NEVER, OVERLAP) == null; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals("three", cache.get("3", NEVER, NEVER, OVERLAP));
+        assertEquals(1, cache.getDeltaRefreshCount());
+        assertEquals(1, loader.loadAllCount);
+    }
+
+    @Test
+    public void testRefreshFindsLateCommitWithinOverlap() {
+        long now = System.currentTimeMillis();
+        loader.put("2", "two", now);
+        cache.getAll(NEVER, NEVER, OVERLAP);
+        // written before the newest change, but committed after the last refresh
+        loader.put("1", "ONE", now - 1000);
+        cache.refresh(NEVER, 0);
+        assertEquals("one", cache.get("1", NEVER, NEVER, OVERLAP));
+        cache.refresh(NEVER, OVERLAP);
+        assertEquals("ONE", cache.get("1", NEVER, NEVER, OVERLAP));
+        assertEquals(1, loader.loadAllCount);
+        assertEquals(1, cache.getDeltaRefreshCount());
+    }
+
+    @Test
+    public void testRefreshFindsLateCommitWhenDatabaseClockIsBehind() {
+        loader.databaseClockOffset = -2 * OVERLAP;
+        long now = System.currentTimeMillis() + loader.databaseClockOffset;
+        loader.put("2", "two", now);
+        cache.getAll(NEVER, NEVER, OVERLAP);
+        loader.put("1", "ONE", now - 1000);
+        cache.refresh(NEVER, OVERLAP);
+        assertEquals("ONE", cache.get("1", NEVER, NEVER, OVERLAP));
+        assertEquals(1, cache.getDeltaRefreshCount());
+    }
+
+    @Test
+    public void testExpireRefreshesInBackground() throws Exception {
+        Map<String, String> entries = cache.getAll(NEVER, NEVER, OVERLAP);
+        loader.put("3", "three", 3000);
+        cache.expire();
+        assertSame(entries, cache.getAll(NEVER, NEVER, OVERLAP));
+        for (int i = 0; i < 100 && cache.get("3", NEVER, NEVER, OVERLAP) == null; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals("three", cache.get("3", NEVER, NEVER, OVERLAP));
+        assertEquals(1, cache.getDeltaRefreshCount());
+        assertEquals(1, loader.loadAllCount);
+    }
+
+    class TableLoader implements VersionedCache.ILoader<String, String> {
+
+        Map<String, String> rows = new HashMap<String, String>();
+
+        Map<String, Date> lastUpdateTimes = new HashMap<String, Date>();
+
+        int loadAllCount;
+
+        int loadChangedCount;
+
+        long databaseClockOffset;
+
+        void put(String key, String value, long lastUpdateTime) {
+            rows.put(key, value);
+            lastUpdateTimes.put(key, new Date(lastUpdateTime));
+        }
+
+        void remove(String key) {
+            rows.remove(key);
+            lastUpdateTimes.remove(key);
+        }
+
+        public synchronized Version getVersion() {
+            Date max = null;
+            for (Date date : lastUpdateTimes.values()) {
+                if (max == null || date.after(max)) {
+                    max = date;
+                }
+            }
+            return new Version(rows.size(), max, System.currentTimeMillis() + databaseClockOffset);
+        }
+
+        public synchronized Map<String, String> loadAll() {
+            loadAllCount++;
+            return new HashMap<String, String>(rows);
+        }
+
+        public synchronized Map<String, String> loadChangedSince(Date lastUpdateTime) {
+            loadChangedCount++;
+            Map<String, String> changed = new HashMap<String, String>();
+            for (String key : rows.keySet()) {
+                if (!lastUpdateTimes.get(key).before(lastUpdateTime)) {
+                    changed.put(key, rows.get(key));
+                }
+            }
+            return changed;
+        }
+    }
+
+}
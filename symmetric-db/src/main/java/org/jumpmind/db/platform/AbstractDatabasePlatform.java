@@ -24,14 +24,19 @@ import static org.apache.commons.lang.StringUtils.isNotBlank;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.sql.Array;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -39,6 +44,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import org.apache.commons.codec.DecoderException;
@@ -76,6 +82,14 @@ public abstract class AbstractDatabasePlatform implements IDatabasePlatform {
     /* The log for this platform. */
     protected final Logger log = LoggerFactory.getLogger(getClass());
 
+    /*
+     * Written ahead of the cached table model. Increment it whenever a field
+     * of a serialized model class is added, removed or changes meaning, so a
+     * model saved by an older release is read again instead of being restored
+     * with missing values.
+     */
+    protected static final int CACHED_TABLE_MODEL_FORMAT_VERSION = 1;
+
     public static final String REQUIRED_FIELD_NULL_SUBSTITUTE = " ";
 
     /* The default name for models read from the database, if no name as given. */
@@ -86,9 +100,10 @@ public abstract class AbstractDatabasePlatform implements IDatabasePlatform {
 
     protected IDdlBuilder ddlBuilder;
 
-    protected Map<String, Table> tableCache = new HashMap<String, Table>();
+    protected Map<String, Table> tableCache = new ConcurrentHashMap<String, Table>();
 
-    private long lastTimeCachedModelClearedInMs = System.currentTimeMillis();
+    /* The time each table in the cache was read or last revalidated. */
+    protected Map<String, Long> tableCacheTimeInMs = new ConcurrentHashMap<String, Long>();
 
     protected long clearCacheModelTimeoutInMs = DateUtils.MILLIS_PER_HOUR;
 
@@ -308,8 +323,8 @@ public abstract class AbstractDatabasePlatform implements IDatabasePlatform {
 
     public void resetCachedTableModel() {
         synchronized (this.getClass()) {
-            this.tableCache = new HashMap<String, Table>();
-            lastTimeCachedModelClearedInMs = System.currentTimeMillis();
+            this.tableCache = new ConcurrentHashMap<String, Table>();
+            this.tableCacheTimeInMs = new ConcurrentHashMap<String, Long>();
         }
     }
 
@@ -319,17 +334,15 @@ public abstract class AbstractDatabasePlatform implements IDatabasePlatform {
 
     public Table getTableFromCache(String catalogName, String schemaName, String tableName,
             boolean forceReread) {
-        if (System.currentTimeMillis() - lastTimeCachedModelClearedInMs > clearCacheModelTimeoutInMs) {
-            resetCachedTableModel();
-        }
-        Map<String, Table> model = tableCache;
         String key = Table.getFullyQualifiedTableName(catalogName, schemaName, tableName);
-        Table retTable = model != null ? model.get(key) : null;
-        if (retTable == null || forceReread) {
+        Table retTable = tableCache.get(key);
+        Long cachedTime = tableCacheTimeInMs.get(key);
+        if (retTable == null || forceReread || cachedTime == null
+                || System.currentTimeMillis() - cachedTime > clearCacheModelTimeoutInMs) {
             synchronized (this.getClass()) {
                 try {
                     Table table = readTableFromDatabase(catalogName, schemaName, tableName);
-                    tableCache.put(key, table);
+                    putTableInCache(key, table);
                     retTable = table;
                 } catch (RuntimeException ex) {
                     throw ex;
@@ -341,6 +354,174 @@ public abstract class AbstractDatabasePlatform implements IDatabasePlatform {
         return retTable;
     }
 
+    protected void putTableInCache(String key, Table table) {
+        if (table != null) {
+            tableCache.put(key, table);
+            tableCacheTimeInMs.put(key, System.currentTimeMillis());
+        } else {
+            tableCache.remove(key);
+            tableCacheTimeInMs.remove(key);
+        }
+    }
+
+    public int loadTablesIntoCache(String catalogName, String schemaName,
+            Collection<String> tableNames) {
+        List<String> tableNamesToLoad = new ArrayList<String>();
+        for (String tableName : tableNames) {
+            if (!tableCache.containsKey(Table.getFullyQualifiedTableName(catalogName, schemaName,
+                    tableName))) {
+                tableNamesToLoad.add(tableName);
+            }
+        }
+
+        int count = 0;
+        if (tableNamesToLoad.size() > 0 && ddlReader.isBulkReadSupported()) {
+            Database database = readDatabase(catalogName == null ? getDefaultCatalog()
+                    : catalogName, schemaName == null ? getDefaultSchema() : schemaName, null);
+            Map<String, Table> tablesByName = new HashMap<String, Table>();
+            Map<String, Table> tablesByUpperCaseName = new HashMap<String, Table>();
+            for (Table table : database.getTables()) {
+                tablesByName.put(table.getName(), table);
+                tablesByUpperCaseName.put(table.getName().toUpperCase(), table);
+            }
+            synchronized (this.getClass()) {
+                for (String tableName : tableNamesToLoad) {
+                    Table table = tablesByName.get(tableName);
+                    if (table == null && metadataIgnoreCase) {
+                        table = tablesByUpperCaseName.get(tableName.toUpperCase());
+                    }
+                    if (table != null) {
+                        putTableInCache(
+                                Table.getFullyQualifiedTableName(catalogName, schemaName, tableName),
+                                table);
+                        count++;
+                    }
+                }
+            }
+            log.info("Read {} tables in bulk and cached {} of them for {}", new Object[] {
+                    database.getTableCount(), count,
+                    Table.getFullyQualifiedTablePrefix(catalogName, schemaName) });
+        }
+        return count;
+    }
+
+    public int revalidateCachedTableModel() {
+        Map<String, List<String>> keysBySchema = new HashMap<String, List<String>>();
+        Map<String, Table> tablesBySchema = new HashMap<String, Table>();
+        for (Map.Entry<String, Table> entry : tableCache.entrySet()) {
+            Table table = entry.getValue();
+            String schemaKey = Table.getFullyQualifiedTablePrefix(table.getCatalog(),
+                    table.getSchema());
+            List<String> keys = keysBySchema.get(schemaKey);
+            if (keys == null) {
+                keys = new ArrayList<String>();
+                keysBySchema.put(schemaKey, keys);
+                tablesBySchema.put(schemaKey, table);
+            }
+            keys.add(entry.getKey());
+        }
+
+        int count = 0;
+        for (String schemaKey : keysBySchema.keySet()) {
+            Table schemaTable = tablesBySchema.get(schemaKey);
+            Map<String, Table> currentTablesByName = new HashMap<String, Table>();
+            if (ddlReader.isBulkReadSupported()) {
+                Database current = ddlReader.readColumnsAndPrimaryKeys(schemaTable.getCatalog(),
+                        schemaTable.getSchema());
+                for (Table table : current.getTables()) {
+                    currentTablesByName.put(table.getName(), table);
+                }
+            } else {
+                /*
+                 * Reading the whole schema one table at a time costs more than
+                 * reading just the cached tables again
+                 */
+                for (String key : keysBySchema.get(schemaKey)) {
+                    Table cachedTable = tableCache.get(key);
+                    if (cachedTable != null) {
+                        Table table = ddlReader.readTable(cachedTable.getCatalog(),
+                                cachedTable.getSchema(), cachedTable.getName());
+                        if (table != null) {
+                            currentTablesByName.put(cachedTable.getName(), table);
+                        }
+                    }
+                }
+            }
+            synchronized (this.getClass()) {
+                for (String key : keysBySchema.get(schemaKey)) {
+                    Table cachedTable = tableCache.get(key);
+                    if (cachedTable != null) {
+                        if (hasSameColumns(cachedTable,
+                                currentTablesByName.get(cachedTable.getName()))) {
+                            tableCacheTimeInMs.put(key, System.currentTimeMillis());
+                        } else {
+                            log.info("The definition of {} changed.  It will be read again",
+                                    cachedTable.getFullyQualifiedTableName());
+                            putTableInCache(key, null);
+                            count++;
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    protected boolean hasSameColumns(Table cachedTable, Table currentTable) {
+        if (currentTable == null || cachedTable.getColumnCount() != currentTable.getColumnCount()) {
+            return false;
+        }
+        for (int i = 0; i < cachedTable.getColumnCount(); i++) {
+            Column cached = cachedTable.getColumn(i);
+            Column current = currentTable.getColumn(i);
+            if (!StringUtils.equals(cached.getName(), current.getName())
+                    || cached.isPrimaryKey() != current.isPrimaryKey()
+                    || cached.isRequired() != current.isRequired()
+                    || cached.getJdbcTypeCode() != current.getJdbcTypeCode()
+                    || !StringUtils.equals(cached.getJdbcTypeName(), current.getJdbcTypeName())
+                    || !StringUtils.equals(cached.getSize(), current.getSize())
+                    || cached.getScale() != current.getScale()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void writeCachedTableModel(OutputStream os) {
+        try {
+            ObjectOutputStream oos = new ObjectOutputStream(os);
+            oos.writeInt(CACHED_TABLE_MODEL_FORMAT_VERSION);
+            oos.writeObject(new HashMap<String, Table>(tableCache));
+            oos.flush();
+        } catch (IOException e) {
+            throw new IoException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public int readCachedTableModel(InputStream is) {
+        try {
+            ObjectInputStream ois = new ObjectInputStream(is);
+            int version = ois.readInt();
+            if (version != CACHED_TABLE_MODEL_FORMAT_VERSION) {
+                log.info("Ignoring the cached table model because it was saved in format {} instead of {}",
+                        version, CACHED_TABLE_MODEL_FORMAT_VERSION);
+                return 0;
+            }
+            Map<String, Table> tables = (Map<String, Table>) ois.readObject();
+            synchronized (this.getClass()) {
+                for (Map.Entry<String, Table> entry : tables.entrySet()) {
+                    putTableInCache(entry.getKey(), entry.getValue());
+                }
+            }
+            return tables.size();
+        } catch (IOException e) {
+            throw new IoException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IoException(e);
+        }
+    }
+
     public Object[] getObjectValues(BinaryEncoding encoding, Table table, String[] columnNames,
             String[] values) {
         Column[] metaData = Table.orderColumns(columnNames, table);
@@ -22,6 +22,14 @@ package org.jumpmind.db.platform;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jumpmind.db.model.Table;
 
 /**
  * Wrapper class for database meta data that stores additional info.
@@ -37,6 +45,10 @@ public class DatabaseMetaDataWrapper {
     private String _schemaPattern;
     /** The table types to process. */
     private String[] _tableTypes;
+    /** Meta data rows read up front for all tables, keyed by type and then table. */
+    private Map<String, Map<String, List<Map<String, Object>>>> _prefetched = new HashMap<String, Map<String, List<Map<String, Object>>>>();
+    /** The tables that any prefetched meta data was found for. */
+    private Set<String> _prefetchedTables = new HashSet<String>();
 
     /**
      * Returns the database meta data.
@@ -205,4 +217,47 @@ public class DatabaseMetaDataWrapper {
         return getMetaData().getIndexInfo(getCatalog(), getSchemaPattern(), tableNamePattern,
                 unique, approximate);
     }
+
+    /**
+     * Stores meta data rows of the given type that were read for all tables
+     * of a catalog and schema at once.
+     * 
+     * @param type
+     *            The kind of meta data (columns, primary keys, ...)
+     * @param rowsByTable
+     *            The rows keyed by {@link #getPrefetchKey(String, String, String)}
+     */
+    public void setPrefetched(String type, Map<String, List<Map<String, Object>>> rowsByTable) {
+        _prefetched.put(type, rowsByTable);
+        _prefetchedTables.addAll(rowsByTable.keySet());
+    }
+
+    /**
+     * Returns the prefetched meta data rows of the given type for a table in
+     * the currently configured catalog and schema.
+     * 
+     * @param type
+     *            The kind of meta data
+     * @param tableName
+     *            The name of the table
+     * @return The rows, an empty list if the table had none or
+     *         <code>null</code> if this type of meta data was not prefetched
+     *         for the table and has to be read separately
+     */
+    public List<Map<String, Object>> getPrefetched(String type, String tableName) {
+        Map<String, List<Map<String, Object>>> rowsByTable = _prefetched.get(type);
+        String key = getPrefetchKey(getCatalog(), getSchemaPattern(), tableName);
+        if (rowsByTable == null || !_prefetchedTables.contains(key)) {
+            return null;
+        }
+        List<Map<String, Object>> rows = rowsByTable.get(key);
+        if (rows == null) {
+            rows = Collections.emptyList();
+        }
+        return rows;
+    }
+
+    public static String getPrefetchKey(String catalog, String schema, String tableName) {
+        return Table.getFullyQualifiedTableName(catalog, schema, tableName);
+    }
 }
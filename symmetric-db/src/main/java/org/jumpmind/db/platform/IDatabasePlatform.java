@@ -20,6 +20,8 @@ package org.jumpmind.db.platform;
  */
 
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -98,6 +100,43 @@ public interface IDatabasePlatform {
     public Table getTableFromCache(String catalogName, String schemaName, String tableName,
             boolean forceReread);
 
+    /**
+     * Reads all the tables of a catalog and schema in bulk and caches the
+     * requested ones that are not cached yet, under the same names that
+     * {@link #getTableFromCache(String, String, String, boolean)} looks them
+     * up by. Nothing is read when the platform's {@link IDdlReader} does not
+     * support bulk reads, because reading the whole schema one table at a
+     * time costs more than reading just the requested tables.
+     * 
+     * @return the number of tables that were added to the cache
+     */
+    public int loadTablesIntoCache(String catalogName, String schemaName,
+            Collection<String> tableNames);
+
+    /**
+     * Compares every cached table with the columns and primary key that are
+     * currently in the database and removes the tables that changed from the
+     * cache so they are read again on next use.
+     * 
+     * @return the number of tables that were removed from the cache
+     */
+    public int revalidateCachedTableModel();
+
+    /**
+     * Saves the cached tables, preceded by the version of the format they are
+     * written in.
+     */
+    public void writeCachedTableModel(OutputStream os);
+
+    /**
+     * Adds tables previously saved by {@link #writeCachedTableModel(OutputStream)}
+     * to the cache. They should be revalidated before they are used. Nothing
+     * is added when they were saved in a different format version.
+     * 
+     * @return the number of tables that were added to the cache
+     */
+    public int readCachedTableModel(InputStream is);
+
     public void createDatabase(Database targetDatabase, boolean dropTablesFirst,
             boolean continueOnError);
 
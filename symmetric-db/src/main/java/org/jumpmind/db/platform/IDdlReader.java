@@ -32,6 +32,21 @@ public interface IDdlReader {
     public Database readTables(String catalog, String schema, String[] tableTypes);
 
     public Table readTable(String catalog, String schema, String tableName);
+
+    /**
+     * Reads just the columns and primary keys of all the tables in a catalog
+     * and schema, using as few meta data calls as the platform allows. The
+     * tables are not otherwise complete and are meant for cheaply checking
+     * whether previously read tables have changed.
+     */
+    public Database readColumnsAndPrimaryKeys(String catalog, String schema);
+
+    /**
+     * @return true if the platform reads the columns, primary keys, foreign
+     *         keys and indices of all the tables in a schema with a few bulk
+     *         queries instead of a set of meta data calls per table
+     */
+    public boolean isBulkReadSupported();
     
     public List<String> getTableTypes();
     
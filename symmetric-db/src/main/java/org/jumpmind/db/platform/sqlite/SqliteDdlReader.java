@@ -78,6 +78,14 @@ public class SqliteDdlReader implements IDdlReader {
         return database;
     }
     
+    public Database readColumnsAndPrimaryKeys(String catalog, String schema) {
+        return readTables(catalog, schema, null);
+    }
+
+    public boolean isBulkReadSupported() {
+        return false;
+    }
+
     protected void checkForAutoIncrementColumn(List<Column> columns, String tableName) {
         String ddl = platform.getSqlTemplate().queryForObject("select sql from sqlite_master where tbl_name=?", String.class, tableName);
         if (StringUtils.isNotBlank(ddl)) {
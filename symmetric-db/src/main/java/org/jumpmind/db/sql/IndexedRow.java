@@ -0,0 +1,232 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.db.sql;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.Map;
+
+import org.jumpmind.exception.ParseException;
+import org.jumpmind.util.FormatUtils;
+import org.jumpmind.util.LinkedCaseInsensitiveMap;
+
+/**
+ * A positional view of the current row of a result set. A cursor creates one
+ * instance when the first row is read and refills its values for every row
+ * after that, so mappers must copy out what they need and must not hold on to
+ * the row. Column positions are zero based.
+ */
+public class IndexedRow {
+
+    protected String[] columnNames;
+
+    protected Map<String, Integer> columnIndexes;
+
+    protected Object[] values;
+
+    protected String[] lastLookupNames;
+
+    protected int[] lastLookupIndexes;
+
+    public IndexedRow(String[] columnNames) {
+        this.columnNames = columnNames;
+        this.values = new Object[columnNames.length];
+        this.columnIndexes = new LinkedCaseInsensitiveMap<Integer>(columnNames.length);
+        for (int i = 0; i < columnNames.length; i++) {
+            if (!columnIndexes.containsKey(columnNames[i])) {
+                columnIndexes.put(columnNames[i], i);
+            }
+        }
+    }
+
+    public IndexedRow(Row row) {
+        this(row.keySet().toArray(new String[row.size()]));
+        int i = 0;
+        for (Object value : row.values()) {
+            values[i++] = value;
+        }
+    }
+
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    public String[] getColumnNames() {
+        return columnNames;
+    }
+
+    /**
+     * @return the position of the column or -1 if the result set does not have
+     *         it
+     */
+    public int indexOf(String columnName) {
+        Integer index = columnIndexes.get(columnName);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Look up the positions of several columns at once. The result is cached
+     * for the array that is passed in, so a mapper that passes the same
+     * constant array for every row only pays for the lookup on the first row.
+     */
+    public int[] indexesOf(String[] names) {
+        if (names != lastLookupNames) {
+            int[] indexes = new int[names.length];
+            for (int i = 0; i < names.length; i++) {
+                indexes[i] = indexOf(names[i]);
+            }
+            lastLookupIndexes = indexes;
+            lastLookupNames = names;
+        }
+        return lastLookupIndexes;
+    }
+
+    /**
+     * Look up the positions of several columns like {@link #indexesOf(String[])},
+     * but throw a {@link ColumnNotFoundException} if a required column is
+     * missing, like {@link Row} does when it is read. The check runs when the
+     * positions are looked up, so it costs nothing for the rows after the
+     * first.
+     */
+    public int[] indexesOf(String[] names, boolean[] required) {
+        if (names != lastLookupNames) {
+            int[] indexes = indexesOf(names);
+            for (int i = 0; i < names.length; i++) {
+                if (indexes[i] < 0 && required[i]) {
+                    lastLookupNames = null;
+                    throw new ColumnNotFoundException(names[i]);
+                }
+            }
+        }
+        return lastLookupIndexes;
+    }
+
+    public void setValue(int index, Object value) {
+        values[index] = value;
+    }
+
+    public Object getValue(int index) {
+        return index >= 0 ? values[index] : null;
+    }
+
+    public String getString(int index) {
+        Object obj = getValue(index);
+        return obj != null ? obj.toString() : null;
+    }
+
+    public int getInt(int index) {
+        Object obj = getValue(index);
+        if (obj instanceof Number) {
+            return ((Number) obj).intValue();
+        } else if (obj instanceof String) {
+            return Integer.parseInt(obj.toString());
+        } else {
+            return 0;
+        }
+    }
+
+    public long getLong(int index) {
+        Object obj = getValue(index);
+        if (obj instanceof Number) {
+            return ((Number) obj).longValue();
+        } else if (obj instanceof String) {
+            return Long.parseLong(obj.toString());
+        } else {
+            return 0;
+        }
+    }
+
+    public BigDecimal getBigDecimal(int index) {
+        Object obj = getValue(index);
+        if (obj instanceof BigDecimal) {
+            return (BigDecimal) obj;
+        } else if (obj instanceof String) {
+            return new BigDecimal(obj.toString());
+        } else if (obj instanceof Number) {
+            return new BigDecimal(obj.toString());
+        } else {
+            return null;
+        }
+    }
+
+    public Date getDateTime(int index) {
+        Object obj = getValue(index);
+        if (obj instanceof Number) {
+            return new Date(((Number) obj).longValue());
+        } else if (obj instanceof Date) {
+            return (Date) obj;
+        } else if (obj instanceof String) {
+            try {
+                return FormatUtils.parseDate((String) obj, FormatUtils.TIMESTAMP_PATTERNS);
+            } catch (ParseException ex) {
+                // on xerial sqlite jdbc dates come back as longs
+                return new Date(Long.parseLong((String) obj));
+            }
+        } else {
+            return null;
+        }
+    }
+
+    public Timestamp getTimestamp(int index) {
+        Date date = getDateTime(index);
+        if (date == null || date instanceof Timestamp) {
+            return (Timestamp) date;
+        } else {
+            return new Timestamp(date.getTime());
+        }
+    }
+
+    /**
+     * @return the first column as a string, like {@link Row#stringValue()}
+     */
+    public String stringValue() {
+        return getString(0);
+    }
+
+    /**
+     * @return the values of the row separated by commas, like
+     *         {@link Row#csvValue()}
+     */
+    public String csvValue() {
+        StringBuilder concatenatedRow = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                concatenatedRow.append(",");
+            }
+            concatenatedRow.append(values[i] != null ? values[i].toString() : "");
+        }
+        return concatenatedRow.toString();
+    }
+
+    /**
+     * Copy the current values to a new {@link Row} for code that still needs a
+     * map.
+     */
+    public Row toRow() {
+        Row row = new Row(values.length);
+        for (int i = 0; i < values.length; i++) {
+            row.put(columnNames[i], values[i]);
+        }
+        return row;
+    }
+
+}
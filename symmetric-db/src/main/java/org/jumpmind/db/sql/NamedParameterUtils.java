@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -121,6 +122,42 @@ public abstract class NamedParameterUtils {
         return parsedSql;
     }
 
+    /**
+     * Return the distinct names of the named parameters in an SQL statement, in
+     * the order they first appear.
+     * 
+     * @param sql
+     *            the SQL statement
+     * @return the parameter names
+     */
+    public static Set<String> getNamedParameters(String sql) {
+        return new LinkedHashSet<String>(parseSqlStatement(sql).getParameterNames());
+    }
+
+    /**
+     * Append a suffix to the name of each named parameter in an SQL statement.
+     * This allows several copies of a statement to be combined into one query
+     * with each copy bound to its own parameter values.
+     * 
+     * @param sql
+     *            the SQL statement
+     * @param suffix
+     *            the text to append to each parameter name
+     * @return the SQL statement with renamed parameters
+     */
+    public static String appendToNamedParameters(String sql, String suffix) {
+        ParsedSql parsedSql = parseSqlStatement(sql);
+        StringBuilder actualSql = new StringBuilder();
+        int lastIndex = 0;
+        for (int i = 0; i < parsedSql.getParameterNames().size(); i++) {
+            int endIndex = parsedSql.getParameterIndexes(i)[1];
+            actualSql.append(sql.substring(lastIndex, endIndex)).append(suffix);
+            lastIndex = endIndex;
+        }
+        actualSql.append(sql.substring(lastIndex));
+        return actualSql.toString();
+    }
+
     /**
      * Skip over comments and quoted names present in an SQL statement
      * 
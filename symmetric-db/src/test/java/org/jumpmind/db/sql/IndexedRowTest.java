@@ -0,0 +1,97 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.db.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+import org.junit.Test;
+
+public class IndexedRowTest {
+
+    @Test
+    public void testIndexesOf() {
+        IndexedRow row = new IndexedRow(new String[] { "DATA_ID", "table_name", "ROW_DATA" });
+        final String[] COLUMNS = { "row_data", "TABLE_NAME", "data_id", "not_there" };
+        int[] indexes = row.indexesOf(COLUMNS);
+        assertEquals(2, indexes[0]);
+        assertEquals(1, indexes[1]);
+        assertEquals(0, indexes[2]);
+        assertEquals(-1, indexes[3]);
+        assertSame(indexes, row.indexesOf(COLUMNS));
+    }
+
+    @Test
+    public void testRequiredColumnMissing() {
+        IndexedRow row = new IndexedRow(new String[] { "DATA_ID", "TABLE_NAME" });
+        final String[] COLUMNS = { "DATA_ID", "ROUTER_ID", "TABLE_NAME" };
+        int[] indexes = row.indexesOf(COLUMNS, new boolean[] { true, false, true });
+        assertEquals(-1, indexes[1]);
+        assertEquals(1, indexes[2]);
+
+        final String[] REQUIRED_COLUMNS = { "DATA_ID", "CHANNEL_ID" };
+        for (int i = 0; i < 2; i++) {
+            try {
+                row.indexesOf(REQUIRED_COLUMNS, new boolean[] { true, true });
+                fail("Expected a ColumnNotFoundException for every row");
+            } catch (ColumnNotFoundException ex) {
+            }
+        }
+    }
+
+    @Test
+    public void testValuesAreReused() {
+        IndexedRow row = new IndexedRow(new String[] { "DATA_ID", "CREATE_TIME", "ROW_DATA" });
+        row.setValue(0, new BigDecimal(10));
+        row.setValue(1, "2014-01-02 03:04:05.000");
+        row.setValue(2, "\"1\",\"one\"");
+        assertEquals(10l, row.getLong(0));
+        assertEquals(10, row.getInt(0));
+        assertEquals(Timestamp.valueOf("2014-01-02 03:04:05.000").getTime(), row.getDateTime(1).getTime());
+        assertEquals("\"1\",\"one\"", row.getString(2));
+        assertEquals("10,2014-01-02 03:04:05.000,\"1\",\"one\"", row.csvValue());
+
+        row.setValue(0, "11");
+        row.setValue(1, null);
+        row.setValue(2, null);
+        assertEquals(11l, row.getLong(0));
+        assertNull(row.getDateTime(1));
+        assertNull(row.getString(2));
+        assertNull(row.getString(-1));
+    }
+
+    @Test
+    public void testRowConversion() {
+        Row row = new Row(2);
+        row.put("NODE_ID", "00001");
+        row.put("BATCH_ID", 5l);
+        IndexedRow indexedRow = new IndexedRow(row);
+        assertEquals("00001", indexedRow.stringValue());
+        assertEquals(5l, indexedRow.getLong(indexedRow.indexOf("batch_id")));
+        assertEquals(row, indexedRow.toRow());
+    }
+
+}
@@ -0,0 +1,48 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.db.sql;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class NamedParameterUtilsTest {
+
+    @Test
+    public void testGetNamedParameters() {
+        assertEquals(Arrays.asList("NODE_GROUP_ID", "EMPLOYEE_ID", "OLD_EMPLOYEE_ID"),
+                new ArrayList<String>(NamedParameterUtils.getNamedParameters(
+                        "select c.node_id from sym_node c where c.node_group_id=:NODE_GROUP_ID and "
+                                + "c.external_id in (select home_store from employee where employee_id in "
+                                + "(:EMPLOYEE_ID, :OLD_EMPLOYEE_ID, :EMPLOYEE_ID) and note != ':NOTE')")));
+    }
+
+    @Test
+    public void testAppendToNamedParameters() {
+        assertEquals("select 1 from t where a=:A_1 and b in (:B_1,:A_1) and c=':C' and d::text='x'",
+                NamedParameterUtils.appendToNamedParameters(
+                        "select 1 from t where a=:A and b in (:B,:A) and c=':C' and d::text='x'", "_1"));
+    }
+
+}
@@ -52,6 +52,16 @@ public class CsvData {
     public static final String ATTRIBUTE_DATA_ID = "dataId";
     public static final String ATTRIBUTE_CREATE_TIME = "createTime";
     
+    private static final String[] SLOT_KEYS = { ROW_DATA, OLD_DATA, PK_DATA, RESOLVE_DATA };
+
+    /*
+     * The well known keys are kept in fixed slots. Any other key falls back to
+     * the maps.
+     */
+    private String[][] parsedCsvDataSlots = null;
+
+    private String[] csvDataSlots = null;
+
     private Map<String, String[]> parsedCsvData = null;
 
     private Map<String, String> csvData = null;
@@ -90,9 +100,40 @@ public class CsvData {
     public CsvData() {
     }
 
+    protected static int slotOf(String key) {
+        for (int i = 0; i < SLOT_KEYS.length; i++) {
+            if (SLOT_KEYS[i] == key) {
+                return i;
+            }
+        }
+        for (int i = 0; i < SLOT_KEYS.length; i++) {
+            if (SLOT_KEYS[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     public boolean contains(String key) {
-        return (parsedCsvData != null && parsedCsvData.get(key) != null)
-                || (csvData != null && csvData.get(key) != null);
+        return getParsedDataIfPresent(key) != null || getCsvDataIfPresent(key) != null;
+    }
+
+    protected String[] getParsedDataIfPresent(String key) {
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            return parsedCsvDataSlots != null ? parsedCsvDataSlots[slot] : null;
+        } else {
+            return parsedCsvData != null ? parsedCsvData.get(key) : null;
+        }
+    }
+
+    protected String getCsvDataIfPresent(String key) {
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            return csvDataSlots != null ? csvDataSlots[slot] : null;
+        } else {
+            return csvData != null ? csvData.get(key) : null;
+        }
     }
 
     public void setDataEventType(DataEventType dataEventType) {
@@ -116,13 +157,23 @@ public class CsvData {
     }
     
     public void removeCsvData(String key) {
-        if (csvData != null) {
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            if (csvDataSlots != null) {
+                csvDataSlots[slot] = null;
+            }
+        } else if (csvData != null) {
             csvData.remove(key);
         }
     }
     
     public void removeParsedData(String key) {
-        if (parsedCsvData != null) {
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            if (parsedCsvDataSlots != null) {
+                parsedCsvDataSlots[slot] = null;
+            }
+        } else if (parsedCsvData != null) {
             parsedCsvData.remove(key);
         }        
     }
@@ -134,21 +185,25 @@ public class CsvData {
 
     public void putCsvData(String key, String data) {
         removeAllData(key);
-        if (csvData == null) {
-            csvData = new HashMap<String, String>(2);
-        }
         changedDataIndicators = null;
-        csvData.put(key, data);
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            if (csvDataSlots == null) {
+                csvDataSlots = new String[SLOT_KEYS.length];
+            }
+            csvDataSlots[slot] = data;
+        } else {
+            if (csvData == null) {
+                csvData = new HashMap<String, String>(2);
+            }
+            csvData.put(key, data);
+        }
     }
 
     public String getCsvData(String key) {
-        String data = null;
-        if (csvData != null) {
-            data = csvData.get(key);
-        }
-
-        if (data == null && parsedCsvData != null) {
-            String[] parsedData = parsedCsvData.get(key);
+        String data = getCsvDataIfPresent(key);
+        if (data == null) {
+            String[] parsedData = getParsedDataIfPresent(key);
             if (parsedData != null) {
                 data = CsvUtils.escapeCsvData(parsedData);
                 // swap out data for parsed data so we don't 
@@ -185,19 +240,25 @@ public class CsvData {
 
     public void putParsedData(String key, String[] data) {
         removeAllData(key);
-        if (parsedCsvData == null) {
-            parsedCsvData = new HashMap<String, String[]>(2);
-        }
         changedDataIndicators = null;
-        parsedCsvData.put(key, data);
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            if (parsedCsvDataSlots == null) {
+                parsedCsvDataSlots = new String[SLOT_KEYS.length][];
+            }
+            parsedCsvDataSlots[slot] = data;
+        } else {
+            if (parsedCsvData == null) {
+                parsedCsvData = new HashMap<String, String[]>(2);
+            }
+            parsedCsvData.put(key, data);
+        }
     }
     
     public String[] getParsedData(String key) {
-        String[] values = null;
-        if (parsedCsvData != null && parsedCsvData.containsKey(key)) {
-            values = parsedCsvData.get(key);
-        } else if (csvData != null && csvData.containsKey(key)) {
-            String data = csvData.get(key);
+        String[] values = getParsedDataIfPresent(key);
+        if (values == null) {
+            String data = getCsvDataIfPresent(key);
             if (data != null) {
                 values = CsvUtils.tokenizeCsvData(data);
                 putParsedData(key, values);
@@ -302,6 +363,13 @@ public class CsvData {
     
     public long getSizeInBytes() {
         long size = 0;
+        if (csvDataSlots != null) {
+            for (String string : csvDataSlots) {
+                if (string != null) {
+                    size += string.getBytes().length;
+                }
+            }
+        }
         if (csvData != null) {
             Collection<String> values = csvData.values();
             for (String string : values) {
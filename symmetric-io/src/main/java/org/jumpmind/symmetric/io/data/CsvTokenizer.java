@@ -0,0 +1,263 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.io.data;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.jumpmind.symmetric.csv.CsvReader;
+
+/**
+ * Tokenizes a single record of captured CSV data (row_data, old_data and
+ * pk_data) directly from its {@link String} without building a
+ * {@link CsvReader} per call. Values are expected to be text qualified with
+ * double quotes, backslash escaped and separated by commas, with null values
+ * written as an unquoted empty value. Anything outside of that format is handed
+ * to {@link CsvReader} so the results are always the same as
+ * {@link CsvUtils#getCsvReader(java.io.Reader)} would produce.
+ * <p>
+ * Instances keep their working buffers between calls and are not thread safe.
+ * Use {@link #get()} to obtain the instance for the current thread.
+ */
+public class CsvTokenizer {
+
+    protected static final int MAX_RETAINED_BUFFER_SIZE = 256 * 1024;
+
+    private static final ThreadLocal<CsvTokenizer> instance = new ThreadLocal<CsvTokenizer>() {
+        @Override
+        protected CsvTokenizer initialValue() {
+            return new CsvTokenizer();
+        }
+    };
+
+    private char[] data = new char[1024];
+
+    private char[] column = new char[256];
+
+    private int columnLength;
+
+    private String[] values = new String[32];
+
+    private int valueCount;
+
+    public static CsvTokenizer get() {
+        return instance.get();
+    }
+
+    public String[] tokenize(String csvData) {
+        if (csvData == null || csvData.length() == 0) {
+            return null;
+        }
+
+        try {
+            String[] tokens = parse(csvData);
+            if (tokens == null) {
+                tokens = tokenizeWithCsvReader(csvData);
+            }
+            return tokens;
+        } finally {
+            Arrays.fill(values, 0, valueCount, null);
+            valueCount = 0;
+            if (data.length > MAX_RETAINED_BUFFER_SIZE) {
+                data = new char[1024];
+            }
+            if (column.length > MAX_RETAINED_BUFFER_SIZE) {
+                column = new char[256];
+            }
+        }
+    }
+
+    /**
+     * @return the parsed values or null if the data needs the general purpose
+     *         reader
+     */
+    protected String[] parse(String csvData) {
+        int length = csvData.length();
+        if (data.length < length) {
+            data = new char[Math.max(length, data.length * 2)];
+        }
+        char[] chars = data;
+        csvData.getChars(0, length, chars, 0);
+
+        int pos = 0;
+        while (true) {
+            String value = null;
+            if (pos < length) {
+                char c = chars[pos];
+                if (c == '"') {
+                    columnLength = 0;
+                    int segmentStart = ++pos;
+                    while (true) {
+                        if (pos == length) {
+                            return null;
+                        }
+                        c = chars[pos];
+                        if (c == '"') {
+                            break;
+                        } else if (c == '\\') {
+                            if (pos + 1 == length) {
+                                return null;
+                            }
+                            char escaped = unescape(chars[pos + 1]);
+                            if (escaped == 0) {
+                                return null;
+                            }
+                            append(chars, segmentStart, pos - segmentStart);
+                            append(escaped);
+                            pos += 2;
+                            segmentStart = pos;
+                        } else {
+                            pos++;
+                        }
+                    }
+
+                    if (columnLength == 0) {
+                        value = new String(chars, segmentStart, pos - segmentStart);
+                    } else {
+                        append(chars, segmentStart, pos - segmentStart);
+                        value = new String(column, 0, columnLength);
+                    }
+                    pos++;
+
+                    if (pos < length && chars[pos] != ',') {
+                        return null;
+                    }
+                } else if (c == ' ' || c == '\t') {
+                    return null;
+                } else if (c != ',') {
+                    int start = pos;
+                    while (pos < length && (c = chars[pos]) != ',') {
+                        if (c == '\r' || c == '\n') {
+                            return null;
+                        }
+                        pos++;
+                    }
+                    c = chars[pos - 1];
+                    if (c == ' ' || c == '\t') {
+                        return null;
+                    }
+                    value = new String(chars, start, pos - start);
+                }
+            }
+
+            add(value);
+
+            if (pos >= length) {
+                break;
+            }
+            pos++;
+        }
+
+        String[] tokens = new String[valueCount];
+        System.arraycopy(values, 0, tokens, 0, valueCount);
+        return tokens;
+    }
+
+    /**
+     * @return the character a backslash escape stands for or 0 if the escape
+     *         is a numeric one that is left to the general purpose reader
+     */
+    protected static char unescape(char c) {
+        switch (c) {
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'e':
+                return '\u001B';
+            case 'v':
+                return '\u000B';
+            case 'a':
+                return '\u0007';
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case 'u':
+            case 'x':
+            case 'o':
+            case 'd':
+            case 'U':
+            case 'X':
+            case 'O':
+            case 'D':
+                return 0;
+            default:
+                return c;
+        }
+    }
+
+    private void append(char[] chars, int offset, int length) {
+        if (length > 0) {
+            ensureColumnCapacity(columnLength + length);
+            System.arraycopy(chars, offset, column, columnLength, length);
+            columnLength += length;
+        }
+    }
+
+    private void append(char c) {
+        ensureColumnCapacity(columnLength + 1);
+        column[columnLength++] = c;
+    }
+
+    private void ensureColumnCapacity(int capacity) {
+        if (column.length < capacity) {
+            char[] holder = new char[Math.max(capacity, column.length * 2)];
+            System.arraycopy(column, 0, holder, 0, columnLength);
+            column = holder;
+        }
+    }
+
+    private void add(String value) {
+        if (valueCount == values.length) {
+            String[] holder = new String[values.length * 2];
+            System.arraycopy(values, 0, holder, 0, valueCount);
+            values = holder;
+        }
+        values[valueCount++] = value;
+    }
+
+    protected static String[] tokenizeWithCsvReader(String csvData) {
+        String[] tokens = null;
+        CsvReader csvReader = CsvUtils.getCsvReader(new StringReader(csvData));
+        try {
+            if (csvReader.readRecord()) {
+                tokens = csvReader.getValues();
+            }
+        } catch (IOException e) {
+        } finally {
+            csvReader.close();
+        }
+        return tokens;
+    }
+
+}
@@ -24,7 +24,6 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
-import java.io.StringReader;
 import java.io.Writer;
 
 import org.jumpmind.exception.IoException;
@@ -50,17 +49,7 @@ public class CsvUtils {
     }
 
     public static String[] tokenizeCsvData(String csvData) {
-        String[] tokens = null;
-        if (csvData != null) {
-            CsvReader csvReader = getCsvReader(new StringReader(csvData));
-            try {
-                if (csvReader.readRecord()) {
-                    tokens = csvReader.getValues();
-                }
-            } catch (IOException e) {
-            }
-        }
-        return tokens;
+        return CsvTokenizer.get().tokenize(csvData);
     }
 
     /**
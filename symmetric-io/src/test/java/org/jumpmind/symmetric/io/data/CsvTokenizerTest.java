@@ -0,0 +1,99 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.io.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CsvTokenizerTest {
+
+    @Test
+    public void testCapturedFormat() {
+        assertTokens("\"1\",\"two\",,\"\",\"fi\\\"ve\"", "1", "two", null, "", "fi\"ve");
+        assertTokens("\"a\\\\b\",\"line\\nfeed\",\"tab\\there\"", "a\\b", "line\nfeed", "tab\there");
+        assertTokens("\"raw\nline\",", "raw\nline", null);
+        assertTokens(",", null, null);
+        assertTokens("12, 3 ,x\"y", "12", "3", "x\"y");
+    }
+
+    @Test
+    public void testFallbackFormats() {
+        assertTokens("\"\\u0041\\x42\\103\"", "ABC");
+        assertTokens(" \"a\" , \"b\"", "a", "b");
+        assertTokens("\"a\"junk,\"b\"", "a", "b");
+        assertTokens("\"a\"\n\"b\"", "a");
+        assertTokens("\n\"a\"", "a");
+        assertTokens("\"unterminated", "unterminated");
+    }
+
+    @Test
+    public void testEmptyAndNull() {
+        assertNull(CsvUtils.tokenizeCsvData(null));
+        assertNull(CsvUtils.tokenizeCsvData(""));
+    }
+
+    @Test
+    public void testRandomDataMatchesCsvReader() {
+        Random random = new Random(7);
+        char[] alphabet = { 'a', 'b', ' ', ',', '"', '\\', '\n', '\r', '\t', 'n', 'u', '1', 'x' };
+        for (int i = 0; i < 20000; i++) {
+            String[] values = new String[random.nextInt(6) + 1];
+            for (int j = 0; j < values.length; j++) {
+                if (random.nextInt(5) > 0) {
+                    StringBuilder value = new StringBuilder();
+                    int length = random.nextInt(8);
+                    for (int k = 0; k < length; k++) {
+                        value.append(alphabet[random.nextInt(alphabet.length)]);
+                    }
+                    values[j] = value.toString();
+                }
+            }
+
+            String escaped = CsvUtils.escapeCsvData(values);
+            if (escaped.length() > 0) {
+                assertArrayEquals(escaped, values, CsvTokenizer.get().tokenize(escaped));
+            }
+
+            StringBuilder garbage = new StringBuilder();
+            int length = random.nextInt(20);
+            for (int k = 0; k < length; k++) {
+                garbage.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            assertTokens(garbage.toString(), CsvTokenizer.tokenizeWithCsvReader(garbage.toString()));
+        }
+    }
+
+    @Test
+    public void testThreadLocalInstance() {
+        assertSame(CsvTokenizer.get(), CsvTokenizer.get());
+    }
+
+    protected void assertTokens(String csvData, String... expected) {
+        assertArrayEquals(csvData, CsvTokenizer.tokenizeWithCsvReader(csvData), expected);
+        assertArrayEquals(csvData, expected, CsvUtils.tokenizeCsvData(csvData));
+    }
+
+}
@@ -24,6 +24,7 @@ import static org.apache.commons.lang.StringUtils.isNotBlank;
 
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -70,6 +71,15 @@ public abstract class AbstractJdbcDdlReader implements IDdlReader {
     /* The Log to which logging calls will be made. */
     protected Logger log = LoggerFactory.getLogger(getClass());
 
+    /* The kinds of meta data that can be read for all tables of a schema at once. */
+    protected static final String PREFETCH_COLUMNS = "COLUMNS";
+
+    protected static final String PREFETCH_PRIMARY_KEYS = "PRIMARY_KEYS";
+
+    protected static final String PREFETCH_FOREIGN_KEYS = "FOREIGN_KEYS";
+
+    protected static final String PREFETCH_INDICES = "INDICES";
+
     /* The descriptors for the relevant columns in the table meta data. */
     private final List<MetaDataColumnDescriptor> _columnsForTable;
 
@@ -519,6 +529,8 @@ public abstract class AbstractJdbcDdlReader implements IDdlReader {
             metaData.setTableTypes((tableTypes == null) || (tableTypes.length == 0) ? getDefaultTableTypes()
                     : tableTypes);
 
+            prefetchMetaData(connection, metaData, true);
+
             tableData = metaData.getTables(getDefaultTablePattern());
 
             List<Table> tables = new ArrayList<Table>();
@@ -549,6 +561,178 @@ public abstract class AbstractJdbcDdlReader implements IDdlReader {
         }
     }
 
+    public Database readColumnsAndPrimaryKeys(final String catalog, final String schema) {
+        JdbcSqlTemplate sqlTemplate = (JdbcSqlTemplate) platform.getSqlTemplate();
+        return sqlTemplate.execute(new IConnectionCallback<Database>() {
+            public Database execute(Connection connection) throws SQLException {
+                DatabaseMetaDataWrapper metaData = new DatabaseMetaDataWrapper();
+                metaData.setMetaData(connection.getMetaData());
+                metaData.setCatalog(catalog == null ? getDefaultCatalogPattern() : catalog);
+                metaData.setSchemaPattern(schema == null ? getDefaultSchemaPattern() : schema);
+                metaData.setTableTypes(getDefaultTableTypes());
+
+                prefetchMetaData(connection, metaData, false);
+
+                Database db = new Database();
+                db.setName(Table.getFullyQualifiedTablePrefix(catalog, schema));
+                db.setCatalog(catalog);
+                db.setSchema(schema);
+                ResultSet tableData = null;
+                try {
+                    tableData = metaData.getTables(getDefaultTablePattern());
+                    while (tableData.next()) {
+                        Map<String, Object> values = readMetaData(tableData, getColumnsForTable());
+                        String tableName = (String) values.get("TABLE_NAME");
+                        if (isNotBlank(tableName)) {
+                            Table table = new Table();
+                            table.setName(tableName);
+                            table.setCatalog((String) values.get(getResultSetCatalogName()));
+                            table.setSchema((String) values.get(getResultSetSchemaName()));
+                            metaData.setCatalog(table.getCatalog());
+                            metaData.setSchemaPattern(table.getSchema());
+                            table.addColumns(readColumns(metaData, tableName));
+                            for (String pkName : readPrimaryKeyNames(metaData, tableName)) {
+                                Column column = table.findColumn(pkName, true);
+                                if (column != null) {
+                                    column.setPrimaryKey(true);
+                                }
+                            }
+                            db.addTable(table);
+                        }
+                    }
+                } finally {
+                    close(tableData);
+                }
+                return db;
+            }
+        });
+    }
+
+    /*
+     * Reads column meta data and, where the platform provides queries for it,
+     * primary key, foreign key and index meta data for all tables of the
+     * catalog and schema configured on the wrapper. The per table read methods
+     * use the prefetched rows instead of making their own meta data calls. If
+     * anything goes wrong the tables are simply read one by one.
+     */
+    protected void prefetchMetaData(Connection connection, DatabaseMetaDataWrapper metaData,
+            boolean includeForeignKeysAndIndices) {
+        try {
+            ResultSet columnData = null;
+            try {
+                columnData = metaData.getColumns(getDefaultTablePattern(), getDefaultColumnPattern());
+                metaData.setPrefetched(PREFETCH_COLUMNS, groupByTable(columnData, getColumnsForColumn()));
+            } finally {
+                close(columnData);
+            }
+
+            prefetchMetaData(connection, metaData, PREFETCH_PRIMARY_KEYS,
+                    getSqlForAllPrimaryKeys(), getColumnsForPK());
+
+            if (includeForeignKeysAndIndices) {
+                if (getPlatformInfo().isForeignKeysSupported()) {
+                    prefetchMetaData(connection, metaData, PREFETCH_FOREIGN_KEYS,
+                            getSqlForAllForeignKeys(), getColumnsForFK());
+                }
+
+                if (getPlatformInfo().isIndicesSupported()) {
+                    prefetchMetaData(connection, metaData, PREFETCH_INDICES,
+                            getSqlForAllIndices(), getColumnsForIndex());
+                }
+            }
+        } catch (SQLException ex) {
+            log.debug("Could not read meta data for all tables at once.  Tables will be read one at a time", ex);
+        }
+    }
+
+    protected void prefetchMetaData(Connection connection, DatabaseMetaDataWrapper metaData,
+            String type, String sql, List<MetaDataColumnDescriptor> columnDescriptors)
+            throws SQLException {
+        if (sql != null) {
+            PreparedStatement stmt = null;
+            ResultSet rs = null;
+            try {
+                stmt = connection.prepareStatement(sql);
+                setPrefetchParameters(stmt, metaData);
+                rs = stmt.executeQuery();
+                metaData.setPrefetched(type, groupByTable(rs, columnDescriptors));
+            } finally {
+                close(rs);
+                close(stmt);
+            }
+        }
+    }
+
+    /*
+     * Binds the catalog and schema patterns of the wrapper to a bulk meta data
+     * query. Platforms whose queries only filter on one of the two override
+     * this.
+     */
+    protected void setPrefetchParameters(PreparedStatement stmt, DatabaseMetaDataWrapper metaData)
+            throws SQLException {
+        stmt.setString(1, metaData.getCatalog() == null ? "%" : metaData.getCatalog());
+        stmt.setString(2, metaData.getSchemaPattern() == null ? "%" : metaData.getSchemaPattern());
+    }
+
+    protected Map<String, List<Map<String, Object>>> groupByTable(ResultSet resultSet,
+            List<MetaDataColumnDescriptor> columnDescriptors) throws SQLException {
+        Map<String, List<Map<String, Object>>> rowsByTable = new HashMap<String, List<Map<String, Object>>>();
+        while (resultSet.next()) {
+            Map<String, Object> values = readMetaData(resultSet, columnDescriptors);
+            String catalog = (String) values.get(getResultSetCatalogName());
+            if (catalog == null) {
+                catalog = (String) values.get("TABLE_CAT");
+            }
+            String schema = (String) values.get(getResultSetSchemaName());
+            if (schema == null) {
+                schema = (String) values.get("TABLE_SCHEM");
+            }
+            String key = DatabaseMetaDataWrapper.getPrefetchKey(catalog, schema,
+                    (String) values.get("TABLE_NAME"));
+            List<Map<String, Object>> rows = rowsByTable.get(key);
+            if (rows == null) {
+                rows = new ArrayList<Map<String, Object>>();
+                rowsByTable.put(key, rows);
+            }
+            rows.add(values);
+        }
+        return rowsByTable;
+    }
+
+    /*
+     * Returns a query that reads the primary key meta data of all tables in a
+     * catalog and schema at once, or null if the platform has none. The query
+     * takes the bind variables set by setPrefetchParameters() and returns the
+     * columns of DatabaseMetaData.getPrimaryKeys() named after
+     * getResultSetCatalogName() and getResultSetSchemaName().
+     */
+    protected String getSqlForAllPrimaryKeys() {
+        return null;
+    }
+
+    /*
+     * Like getSqlForAllPrimaryKeys() but for the columns of
+     * DatabaseMetaData.getImportedKeys(). The catalog, schema and TABLE_NAME
+     * columns identify the table that owns the foreign key.
+     */
+    protected String getSqlForAllForeignKeys() {
+        return null;
+    }
+
+    /*
+     * Like getSqlForAllPrimaryKeys() but for the columns of
+     * DatabaseMetaData.getIndexInfo().
+     */
+    protected String getSqlForAllIndices() {
+        return null;
+    }
+
+    public boolean isBulkReadSupported() {
+        return getSqlForAllPrimaryKeys() != null
+                && (!getPlatformInfo().isForeignKeysSupported() || getSqlForAllForeignKeys() != null)
+                && (!getPlatformInfo().isIndicesSupported() || getSqlForAllIndices() != null);
+    }
+
     public Table readTable(final String catalog, final String schema, final String table) {
         try {
             log.debug("reading table: " + table);
@@ -862,28 +1046,33 @@ public abstract class AbstractJdbcDdlReader implements IDdlReader {
      */
     protected Collection<Column> readColumns(DatabaseMetaDataWrapper metaData, String tableName)
             throws SQLException {
-        ResultSet columnData = null;        
-        try {
-            Set<String> columnNames = new HashSet<String>();
-            columnData = metaData.getColumns(getTableNamePattern(tableName),
-                    getDefaultColumnPattern());
-
-            List<Column> columns = new ArrayList<Column>();
-
-            while (columnData.next()) {
-                Map<String, Object> values = readMetaData(columnData, getColumnsForColumn());
-                Column column = readColumn(metaData, values);
-                if (!columnNames.contains(column.getName())) {
-                    columnNames.add(column.getName());
-                    columns.add(column);
+        List<Map<String, Object>> rows = metaData.getPrefetched(PREFETCH_COLUMNS, tableName);
+        if (rows == null || rows.size() == 0) {
+            rows = new ArrayList<Map<String, Object>>();
+            ResultSet columnData = null;
+            try {
+                columnData = metaData.getColumns(getTableNamePattern(tableName),
+                        getDefaultColumnPattern());
+                while (columnData.next()) {
+                    rows.add(readMetaData(columnData, getColumnsForColumn()));
                 }
-                
-                genericizeDefaultValuesAndUpdatePlatformColumn(column);
+            } finally {
+                close(columnData);
             }
-            return columns;
-        } finally {
-            close(columnData);
         }
+
+        Set<String> columnNames = new HashSet<String>();
+        List<Column> columns = new ArrayList<Column>();
+        for (Map<String, Object> values : rows) {
+            Column column = readColumn(metaData, values);
+            if (!columnNames.contains(column.getName())) {
+                columnNames.add(column.getName());
+                columns.add(column);
+            }
+
+            genericizeDefaultValuesAndUpdatePlatformColumn(column);
+        }
+        return columns;
     }
     
     protected void genericizeDefaultValuesAndUpdatePlatformColumn(Column column) {
@@ -988,8 +1177,15 @@ public abstract class AbstractJdbcDdlReader implements IDdlReader {
     protected Collection<String> readPrimaryKeyNames(DatabaseMetaDataWrapper metaData,
             String tableName) throws SQLException {
         List<String> pks = new ArrayList<String>();
-        ResultSet pkData = null;
+        List<Map<String, Object>> rows = metaData.getPrefetched(PREFETCH_PRIMARY_KEYS, tableName);
+        if (rows != null) {
+            for (Map<String, Object> values : rows) {
+                pks.add(readPrimaryKeyName(metaData, values));
+            }
+            return pks;
+        }
 
+        ResultSet pkData = null;
         try {
             pkData = metaData.getPrimaryKeys(getTableNamePatternForConstraints(tableName));
             while (pkData.next()) {
@@ -1031,7 +1227,12 @@ public abstract class AbstractJdbcDdlReader implements IDdlReader {
     protected Collection<ForeignKey> readForeignKeys(Connection connection,
             DatabaseMetaDataWrapper metaData, String tableName) throws SQLException {
         Map<String, ForeignKey> fks = new LinkedHashMap<String, ForeignKey>();
-        if (getPlatformInfo().isForeignKeysSupported()) {
+        List<Map<String, Object>> rows = metaData.getPrefetched(PREFETCH_FOREIGN_KEYS, tableName);
+        if (rows != null) {
+            for (Map<String, Object> values : rows) {
+                readForeignKey(metaData, values, fks);
+            }
+        } else if (getPlatformInfo().isForeignKeysSupported()) {
             ResultSet fkData = null;
     
             try {
@@ -1094,7 +1295,12 @@ public abstract class AbstractJdbcDdlReader implements IDdlReader {
     protected Collection<IIndex> readIndices(Connection connection,
             DatabaseMetaDataWrapper metaData, String tableName) throws SQLException {
         Map<String, IIndex> indices = new LinkedHashMap<String, IIndex>();
-        if (getPlatformInfo().isIndicesSupported()) {
+        List<Map<String, Object>> rows = metaData.getPrefetched(PREFETCH_INDICES, tableName);
+        if (rows != null) {
+            for (Map<String, Object> values : rows) {
+                readIndex(metaData, values, indices);
+            }
+        } else if (getPlatformInfo().isIndicesSupported()) {
             ResultSet indexData = null;
     
             try {
@@ -111,6 +111,38 @@ public class H2DdlReader extends AbstractJdbcDdlReader {
 		return result;
 	}
 
+	/*
+	 * H2 reports the underlying column name instead of the alias in the result
+	 * set meta data, so the bulk queries apply their aliases in a derived table.
+	 */
+	@Override
+	protected String getSqlForAllPrimaryKeys() {
+		return "SELECT * FROM (SELECT TABLE_CATALOG, TABLE_SCHEMA, TABLE_NAME, COLUMN_NAME, "
+				+ "ORDINAL_POSITION AS KEY_SEQ, IFNULL(CONSTRAINT_NAME, INDEX_NAME) AS PK_NAME "
+				+ "FROM INFORMATION_SCHEMA.INDEXES "
+				+ "WHERE TABLE_CATALOG LIKE ? AND TABLE_SCHEMA LIKE ? AND PRIMARY_KEY = TRUE) "
+				+ "ORDER BY TABLE_NAME, COLUMN_NAME";
+	}
+
+	@Override
+	protected String getSqlForAllForeignKeys() {
+		return "SELECT * FROM (SELECT FKTABLE_CATALOG AS TABLE_CATALOG, FKTABLE_SCHEMA AS TABLE_SCHEMA, "
+				+ "FKTABLE_NAME AS TABLE_NAME, FKTABLE_NAME, FKCOLUMN_NAME, PKTABLE_CATALOG, PKTABLE_SCHEMA, "
+				+ "PKTABLE_NAME, PKCOLUMN_NAME, ORDINAL_POSITION AS KEY_SEQ, FK_NAME "
+				+ "FROM INFORMATION_SCHEMA.CROSS_REFERENCES "
+				+ "WHERE FKTABLE_CATALOG LIKE ? AND FKTABLE_SCHEMA LIKE ?) "
+				+ "ORDER BY PKTABLE_CATALOG, PKTABLE_SCHEMA, PKTABLE_NAME, FK_NAME, KEY_SEQ";
+	}
+
+	@Override
+	protected String getSqlForAllIndices() {
+		return "SELECT * FROM (SELECT TABLE_CATALOG, TABLE_SCHEMA, TABLE_NAME, NON_UNIQUE, INDEX_NAME, "
+				+ "INDEX_TYPE AS TYPE, ORDINAL_POSITION, COLUMN_NAME "
+				+ "FROM INFORMATION_SCHEMA.INDEXES "
+				+ "WHERE TABLE_CATALOG LIKE ? AND TABLE_SCHEMA LIKE ?) "
+				+ "ORDER BY NON_UNIQUE, TYPE, TABLE_SCHEMA, INDEX_NAME, ORDINAL_POSITION";
+	}
+
 	@Override
 	protected boolean isInternalForeignKeyIndex(Connection connection,
 			DatabaseMetaDataWrapper metaData, Table table, ForeignKey fk,
@@ -23,6 +23,7 @@ import static org.apache.commons.lang.StringUtils.isNotBlank;
 
 import java.sql.Connection;
 import java.sql.Date;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Time;
@@ -43,8 +44,10 @@ import org.jumpmind.db.model.Trigger.TriggerType;
 import org.jumpmind.db.model.TypeMap;
 import org.jumpmind.db.platform.AbstractJdbcDdlReader;
 import org.jumpmind.db.platform.DatabaseMetaDataWrapper;
+import org.jumpmind.db.platform.DatabaseNamesConstants;
 import org.jumpmind.db.platform.DdlException;
 import org.jumpmind.db.platform.IDatabasePlatform;
+import org.jumpmind.db.platform.MetaDataColumnDescriptor;
 import org.jumpmind.db.sql.ChangeCatalogConnectionHandler;
 import org.jumpmind.db.sql.IConnectionHandler;
 import org.jumpmind.db.sql.ISqlRowMapper;
@@ -140,6 +143,15 @@ public class MsSqlDdlReader extends AbstractJdbcDdlReader {
      * @return <code>true</code> if there is such a pk
      */
     private boolean existsPKWithName(DatabaseMetaDataWrapper metaData, Table table, String name) {
+        List<Map<String, Object>> rows = metaData.getPrefetched(PREFETCH_PRIMARY_KEYS, table.getName());
+        if (rows != null) {
+            for (Map<String, Object> values : rows) {
+                if (name.equals(values.get("PK_NAME"))) {
+                    return true;
+                }
+            }
+            return false;
+        }
         try {
             ResultSet pks = metaData.getPrimaryKeys(table.getName());
             boolean found = false;
@@ -156,6 +168,87 @@ public class MsSqlDdlReader extends AbstractJdbcDdlReader {
         }
     }
 
+    /*
+     * The catalog views only cover the database of the connection, so tables
+     * of any other catalog are read one at a time.
+     */
+    @Override
+    protected void prefetchMetaData(Connection connection, DatabaseMetaDataWrapper metaData,
+            String type, String sql, List<MetaDataColumnDescriptor> columnDescriptors)
+            throws SQLException {
+        String catalog = metaData.getCatalog();
+        if (catalog == null || catalog.equalsIgnoreCase(connection.getCatalog())) {
+            super.prefetchMetaData(connection, metaData, type, sql, columnDescriptors);
+        }
+    }
+
+    @Override
+    protected void setPrefetchParameters(PreparedStatement stmt, DatabaseMetaDataWrapper metaData)
+            throws SQLException {
+        stmt.setString(1, metaData.getSchemaPattern() == null ? "%" : metaData.getSchemaPattern());
+    }
+
+    /*
+     * The sys catalog views the bulk queries use were added in Sql Server 2005.
+     */
+    protected boolean isCatalogViewsSupported() {
+        return !DatabaseNamesConstants.MSSQL2000.equals(getPlatform().getName());
+    }
+
+    @Override
+    protected String getSqlForAllPrimaryKeys() {
+        if (!isCatalogViewsSupported()) {
+            return null;
+        }
+        return "select db_name() as TABLE_CAT, s.name as TABLE_SCHEM, t.name as TABLE_NAME, "
+                + "c.name as COLUMN_NAME, ic.key_ordinal as KEY_SEQ, i.name as PK_NAME "
+                + "from sys.indexes i "
+                + "join sys.tables t on t.object_id = i.object_id "
+                + "join sys.schemas s on s.schema_id = t.schema_id "
+                + "join sys.index_columns ic on ic.object_id = i.object_id and ic.index_id = i.index_id "
+                + "join sys.columns c on c.object_id = ic.object_id and c.column_id = ic.column_id "
+                + "where i.is_primary_key = 1 and s.name like ? "
+                + "order by s.name, t.name, ic.key_ordinal";
+    }
+
+    @Override
+    protected String getSqlForAllForeignKeys() {
+        if (!isCatalogViewsSupported()) {
+            return null;
+        }
+        return "select db_name() as TABLE_CAT, fs.name as TABLE_SCHEM, ft.name as TABLE_NAME, "
+                + "ft.name as FKTABLE_NAME, fc.name as FKCOLUMN_NAME, pt.name as PKTABLE_NAME, "
+                + "pc.name as PKCOLUMN_NAME, fkc.constraint_column_id as KEY_SEQ, fk.name as FK_NAME "
+                + "from sys.foreign_keys fk "
+                + "join sys.foreign_key_columns fkc on fkc.constraint_object_id = fk.object_id "
+                + "join sys.tables ft on ft.object_id = fk.parent_object_id "
+                + "join sys.schemas fs on fs.schema_id = ft.schema_id "
+                + "join sys.columns fc on fc.object_id = fkc.parent_object_id and fc.column_id = fkc.parent_column_id "
+                + "join sys.tables pt on pt.object_id = fk.referenced_object_id "
+                + "join sys.schemas ps on ps.schema_id = pt.schema_id "
+                + "join sys.columns pc on pc.object_id = fkc.referenced_object_id and pc.column_id = fkc.referenced_column_id "
+                + "where fs.name like ? "
+                + "order by ps.name, pt.name, fk.name, fkc.constraint_column_id";
+    }
+
+    @Override
+    protected String getSqlForAllIndices() {
+        if (!isCatalogViewsSupported()) {
+            return null;
+        }
+        return "select db_name() as TABLE_CAT, s.name as TABLE_SCHEM, t.name as TABLE_NAME, "
+                + "case when i.is_unique = 1 then 0 else 1 end as NON_UNIQUE, i.name as INDEX_NAME, "
+                + "case when i.type = 1 then 1 else 3 end as TYPE, "
+                + "ic.key_ordinal as ORDINAL_POSITION, c.name as COLUMN_NAME "
+                + "from sys.indexes i "
+                + "join sys.tables t on t.object_id = i.object_id "
+                + "join sys.schemas s on s.schema_id = t.schema_id "
+                + "join sys.index_columns ic on ic.object_id = i.object_id and ic.index_id = i.index_id "
+                + "join sys.columns c on c.object_id = ic.object_id and c.column_id = ic.column_id "
+                + "where i.index_id > 0 and i.is_hypothetical = 0 and ic.key_ordinal > 0 and s.name like ? "
+                + "order by NON_UNIQUE, TYPE, INDEX_NAME, ORDINAL_POSITION";
+    }
+
     protected Integer mapUnknownJdbcTypeForColumn(Map<String, Object> values) {
         String typeName = (String) values.get("TYPE_NAME");
         int size = -1;
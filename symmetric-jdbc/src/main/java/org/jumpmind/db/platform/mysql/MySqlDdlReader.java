@@ -20,6 +20,7 @@ package org.jumpmind.db.platform.mysql;
  */
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
@@ -184,6 +185,51 @@ public class MySqlDdlReader extends AbstractJdbcDdlReader {
         return getPlatform().getDdlBuilder().getForeignKeyName(table, fk).equals(index.getName());
     }
 
+    /*
+     * MySQL reports databases as catalogs, so the bulk queries only take the
+     * catalog pattern.
+     */
+    @Override
+    protected void setPrefetchParameters(PreparedStatement stmt, DatabaseMetaDataWrapper metaData)
+            throws SQLException {
+        stmt.setString(1, metaData.getCatalog() == null ? "%" : metaData.getCatalog());
+    }
+
+    /*
+     * The driver reports the underlying column name instead of the alias in the
+     * result set meta data, so the bulk queries apply their aliases in a
+     * derived table.
+     */
+    @Override
+    protected String getSqlForAllPrimaryKeys() {
+        return "select * from (select TABLE_SCHEMA as TABLE_CAT, TABLE_NAME, COLUMN_NAME, "
+                + "SEQ_IN_INDEX as KEY_SEQ, INDEX_NAME as PK_NAME "
+                + "from INFORMATION_SCHEMA.STATISTICS "
+                + "where TABLE_SCHEMA like ? and INDEX_NAME = 'PRIMARY') t "
+                + "order by TABLE_CAT, TABLE_NAME, COLUMN_NAME";
+    }
+
+    @Override
+    protected String getSqlForAllForeignKeys() {
+        return "select * from (select TABLE_SCHEMA as TABLE_CAT, TABLE_NAME, TABLE_NAME as FKTABLE_NAME, "
+                + "COLUMN_NAME as FKCOLUMN_NAME, REFERENCED_TABLE_SCHEMA as PKTABLE_CAT, "
+                + "REFERENCED_TABLE_NAME as PKTABLE_NAME, REFERENCED_COLUMN_NAME as PKCOLUMN_NAME, "
+                + "ORDINAL_POSITION as KEY_SEQ, CONSTRAINT_NAME as FK_NAME "
+                + "from INFORMATION_SCHEMA.KEY_COLUMN_USAGE "
+                + "where TABLE_SCHEMA like ? and REFERENCED_TABLE_NAME is not null) t "
+                + "order by PKTABLE_CAT, PKTABLE_NAME, FK_NAME, KEY_SEQ";
+    }
+
+    @Override
+    protected String getSqlForAllIndices() {
+        return "select * from (select TABLE_SCHEMA as TABLE_CAT, TABLE_NAME, NON_UNIQUE, INDEX_NAME, "
+                + "case when INDEX_TYPE = 'HASH' then 2 else 3 end as TYPE, "
+                + "SEQ_IN_INDEX as ORDINAL_POSITION, COLUMN_NAME "
+                + "from INFORMATION_SCHEMA.STATISTICS "
+                + "where TABLE_SCHEMA like ?) t "
+                + "order by NON_UNIQUE, TYPE, INDEX_NAME, ORDINAL_POSITION";
+    }
+
     protected boolean isMariaDbDriver() {
         if (mariaDbDriver == null) {
             mariaDbDriver = "mariadb-jdbc".equals(getPlatform().getSqlTemplate().getDriverName());
@@ -194,7 +240,7 @@ public class MySqlDdlReader extends AbstractJdbcDdlReader {
     @Override
     protected Collection<ForeignKey> readForeignKeys(Connection connection,
             DatabaseMetaDataWrapper metaData, String tableName) throws SQLException {
-        if (!isMariaDbDriver()) {
+        if (!isMariaDbDriver() || metaData.getPrefetched(PREFETCH_FOREIGN_KEYS, tableName) != null) {
             return super.readForeignKeys(connection, metaData, tableName);
         } else {
             Map<String, ForeignKey> fks = new LinkedHashMap<String, ForeignKey>();
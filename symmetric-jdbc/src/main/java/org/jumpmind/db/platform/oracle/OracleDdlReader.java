@@ -332,6 +332,15 @@ public class OracleDdlReader extends AbstractJdbcDdlReader {
         // being equal to the
         // name of the primary key of the table
 
+        Map<String, IIndex> indices = new LinkedHashMap<String, IIndex>();
+        List<Map<String, Object>> rows = metaData.getPrefetched(PREFETCH_INDICES, tableName);
+        if (rows != null) {
+            for (Map<String, Object> values : rows) {
+                readIndex(metaData, values, indices);
+            }
+            return indices.values();
+        }
+
         StringBuilder query = new StringBuilder();
 
         query.append("SELECT a.INDEX_NAME, a.INDEX_TYPE, a.UNIQUENESS, b.COLUMN_NAME, b.COLUMN_POSITION FROM USER_INDEXES a, USER_IND_COLUMNS b WHERE ");
@@ -343,7 +352,6 @@ public class OracleDdlReader extends AbstractJdbcDdlReader {
             query.append(")");
         }
 
-        Map<String, IIndex> indices = new LinkedHashMap<String, IIndex>();
         PreparedStatement stmt = null;
 
         try {
@@ -390,6 +398,56 @@ public class OracleDdlReader extends AbstractJdbcDdlReader {
         }
         return indices.values();
     }
+
+    /*
+     * Oracle has no catalogs, so the bulk queries only take the schema pattern.
+     */
+    @Override
+    protected void setPrefetchParameters(PreparedStatement stmt, DatabaseMetaDataWrapper metaData)
+            throws SQLException {
+        stmt.setString(1, metaData.getSchemaPattern() == null ? "%" : metaData.getSchemaPattern());
+    }
+
+    @Override
+    protected String getSqlForAllPrimaryKeys() {
+        return "SELECT c.OWNER AS TABLE_SCHEM, c.TABLE_NAME, c.COLUMN_NAME, c.POSITION AS KEY_SEQ, "
+                + "c.CONSTRAINT_NAME AS PK_NAME FROM ALL_CONS_COLUMNS c, ALL_CONSTRAINTS k "
+                + "WHERE k.CONSTRAINT_TYPE='P' AND k.OWNER LIKE ? AND k.OWNER=c.OWNER "
+                + "AND k.CONSTRAINT_NAME=c.CONSTRAINT_NAME AND k.TABLE_NAME=c.TABLE_NAME "
+                + "ORDER BY c.TABLE_NAME, c.COLUMN_NAME";
+    }
+
+    @Override
+    protected String getSqlForAllForeignKeys() {
+        return "SELECT f.OWNER AS TABLE_SCHEM, f.TABLE_NAME, f.TABLE_NAME AS FKTABLE_NAME, "
+                + "fc.COLUMN_NAME AS FKCOLUMN_NAME, p.TABLE_NAME AS PKTABLE_NAME, "
+                + "pc.COLUMN_NAME AS PKCOLUMN_NAME, fc.POSITION AS KEY_SEQ, f.CONSTRAINT_NAME AS FK_NAME "
+                + "FROM ALL_CONSTRAINTS f, ALL_CONS_COLUMNS fc, ALL_CONSTRAINTS p, ALL_CONS_COLUMNS pc "
+                + "WHERE f.CONSTRAINT_TYPE='R' AND f.OWNER LIKE ? "
+                + "AND p.OWNER=f.R_OWNER AND p.CONSTRAINT_NAME=f.R_CONSTRAINT_NAME AND p.CONSTRAINT_TYPE IN ('P','U') "
+                + "AND fc.OWNER=f.OWNER AND fc.CONSTRAINT_NAME=f.CONSTRAINT_NAME AND fc.TABLE_NAME=f.TABLE_NAME "
+                + "AND pc.OWNER=p.OWNER AND pc.CONSTRAINT_NAME=p.CONSTRAINT_NAME AND pc.TABLE_NAME=p.TABLE_NAME "
+                + "AND pc.POSITION=fc.POSITION "
+                + "ORDER BY p.OWNER, p.TABLE_NAME, f.CONSTRAINT_NAME, fc.POSITION";
+    }
+
+    /*
+     * Follows readIndices(): only normal, non system generated indices that do
+     * not back the primary key.
+     */
+    @Override
+    protected String getSqlForAllIndices() {
+        return "SELECT a.TABLE_OWNER AS TABLE_SCHEM, a.TABLE_NAME, a.INDEX_NAME, "
+                + "CASE WHEN a.UNIQUENESS='UNIQUE' THEN 0 ELSE 1 END AS NON_UNIQUE, "
+                + DatabaseMetaData.tableIndexOther + " AS TYPE, b.COLUMN_NAME, b.COLUMN_POSITION AS ORDINAL_POSITION "
+                + "FROM ALL_INDEXES a, ALL_IND_COLUMNS b "
+                + "WHERE a.TABLE_OWNER LIKE ? AND a.GENERATED='N' AND a.TABLE_TYPE='TABLE' AND a.INDEX_TYPE LIKE 'NORMAL%' "
+                + "AND b.INDEX_OWNER=a.OWNER AND b.INDEX_NAME=a.INDEX_NAME "
+                + "AND b.TABLE_OWNER=a.TABLE_OWNER AND b.TABLE_NAME=a.TABLE_NAME "
+                + "AND a.INDEX_NAME NOT IN (SELECT c.CONSTRAINT_NAME FROM ALL_CONSTRAINTS c "
+                + "WHERE c.CONSTRAINT_TYPE='P' AND c.OWNER=a.TABLE_OWNER AND c.TABLE_NAME=a.TABLE_NAME) "
+                + "ORDER BY a.TABLE_NAME, a.INDEX_NAME, b.COLUMN_POSITION";
+    }
     
     @Override
     protected String getTableNamePattern(String tableName) {
@@ -110,6 +110,64 @@ public class PostgreSqlDdlReader extends AbstractJdbcDdlReader {
         }
     }
 
+    /*
+     * The driver does not report a catalog for PostgreSQL tables, so the bulk
+     * queries only take the schema pattern.
+     */
+    @Override
+    protected void setPrefetchParameters(PreparedStatement stmt, DatabaseMetaDataWrapper metaData)
+            throws SQLException {
+        stmt.setString(1, metaData.getSchemaPattern() == null ? "%" : metaData.getSchemaPattern());
+    }
+
+    @Override
+    protected String getSqlForAllPrimaryKeys() {
+        return "select n.nspname as \"TABLE_SCHEM\", c.relname as \"TABLE_NAME\", a.attname as \"COLUMN_NAME\", "
+                + "s.n + 1 as \"KEY_SEQ\", ci.relname as \"PK_NAME\" "
+                + "from pg_catalog.pg_index i "
+                + "join pg_catalog.pg_class c on c.oid = i.indrelid "
+                + "join pg_catalog.pg_namespace n on n.oid = c.relnamespace "
+                + "join pg_catalog.pg_class ci on ci.oid = i.indexrelid "
+                + "join generate_series(0, 31) s(n) on s.n < i.indnatts "
+                + "join pg_catalog.pg_attribute a on a.attrelid = c.oid and a.attnum = i.indkey[s.n] "
+                + "where i.indisprimary and n.nspname like ? "
+                + "order by n.nspname, c.relname, s.n";
+    }
+
+    @Override
+    protected String getSqlForAllForeignKeys() {
+        return "select n.nspname as \"TABLE_SCHEM\", c.relname as \"TABLE_NAME\", c.relname as \"FKTABLE_NAME\", "
+                + "fa.attname as \"FKCOLUMN_NAME\", pc.relname as \"PKTABLE_NAME\", pa.attname as \"PKCOLUMN_NAME\", "
+                + "s.n as \"KEY_SEQ\", con.conname as \"FK_NAME\" "
+                + "from pg_catalog.pg_constraint con "
+                + "join pg_catalog.pg_class c on c.oid = con.conrelid "
+                + "join pg_catalog.pg_namespace n on n.oid = c.relnamespace "
+                + "join pg_catalog.pg_class pc on pc.oid = con.confrelid "
+                + "join pg_catalog.pg_namespace pn on pn.oid = pc.relnamespace "
+                + "join generate_series(1, 32) s(n) on s.n <= array_upper(con.conkey, 1) "
+                + "join pg_catalog.pg_attribute fa on fa.attrelid = con.conrelid and fa.attnum = con.conkey[s.n] "
+                + "join pg_catalog.pg_attribute pa on pa.attrelid = con.confrelid and pa.attnum = con.confkey[s.n] "
+                + "where con.contype = 'f' and n.nspname like ? "
+                + "order by pn.nspname, pc.relname, con.conname, s.n";
+    }
+
+    @Override
+    protected String getSqlForAllIndices() {
+        return "select n.nspname as \"TABLE_SCHEM\", c.relname as \"TABLE_NAME\", not i.indisunique as \"NON_UNIQUE\", "
+                + "ci.relname as \"INDEX_NAME\", "
+                + "case when i.indisclustered then 1 when am.amname = 'hash' then 2 else 3 end as \"TYPE\", "
+                + "s.n + 1 as \"ORDINAL_POSITION\", "
+                + "trim(both '\"' from pg_catalog.pg_get_indexdef(ci.oid, s.n + 1, false)) as \"COLUMN_NAME\" "
+                + "from pg_catalog.pg_index i "
+                + "join pg_catalog.pg_class c on c.oid = i.indrelid "
+                + "join pg_catalog.pg_namespace n on n.oid = c.relnamespace "
+                + "join pg_catalog.pg_class ci on ci.oid = i.indexrelid "
+                + "join pg_catalog.pg_am am on am.oid = ci.relam "
+                + "join generate_series(0, 31) s(n) on s.n < i.indnatts "
+                + "where n.nspname like ? "
+                + "order by \"NON_UNIQUE\", \"TYPE\", \"INDEX_NAME\", \"ORDINAL_POSITION\"";
+    }
+
     @Override
     protected Integer mapUnknownJdbcTypeForColumn(Map<String, Object> values) {
         String typeName = (String) values.get("TYPE_NAME");
@@ -54,6 +54,8 @@ public class JdbcSqlReadCursor<T> implements ISqlReadCursor<T> {
     
     protected int rsColumnCount;
 
+    protected IndexedRow indexedRow;
+
     protected IConnectionHandler connectionHandler;
     
     public JdbcSqlReadCursor() {
@@ -132,8 +134,17 @@ public class JdbcSqlReadCursor<T> implements ISqlReadCursor<T> {
                     rsColumnCount = rsMetaData.getColumnCount();
                 }
                 
-                Row row = getMapForRow(rs, rsMetaData, rsColumnCount, sqlTemplate.getSettings().isReadStringsAsBytes());
-                T value = mapper.mapRow(row);
+                T value = null;
+                if (mapper instanceof ISqlIndexedRowMapper) {
+                    if (indexedRow == null) {
+                        indexedRow = new IndexedRow(getColumnNames(rsMetaData, rsColumnCount));
+                    }
+                    fillIndexedRow(rs, rsMetaData, indexedRow, sqlTemplate.getSettings().isReadStringsAsBytes());
+                    value = ((ISqlIndexedRowMapper<T>) mapper).mapRow(indexedRow);
+                } else {
+                    Row row = getMapForRow(rs, rsMetaData, rsColumnCount, sqlTemplate.getSettings().isReadStringsAsBytes());
+                    value = mapper.mapRow(row);
+                }
                 if (value != null) {
                     return value;
                 }
@@ -155,6 +166,23 @@ public class JdbcSqlReadCursor<T> implements ISqlReadCursor<T> {
         return mapOfColValues;
     }
 
+    protected static String[] getColumnNames(ResultSetMetaData argResultSetMetaData, int columnCount)
+            throws SQLException {
+        String[] columnNames = new String[columnCount];
+        for (int i = 1; i <= columnCount; i++) {
+            columnNames[i - 1] = JdbcSqlTemplate.lookupColumnName(argResultSetMetaData, i);
+        }
+        return columnNames;
+    }
+
+    protected static void fillIndexedRow(ResultSet rs, ResultSetMetaData argResultSetMetaData,
+            IndexedRow row, boolean readStringsAsBytes) throws SQLException {
+        int columnCount = row.getColumnCount();
+        for (int i = 1; i <= columnCount; i++) {
+            row.setValue(i - 1, JdbcSqlTemplate.getResultSetValue(rs, argResultSetMetaData, i, readStringsAsBytes));
+        }
+    }
+
 	public void close() {
 	    if (this.connectionHandler != null) {
 	        this.connectionHandler.after(c);
@@ -20,8 +20,14 @@
  */
 package org.jumpmind.db;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStreamReader;
+import java.io.ObjectOutputStream;
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
@@ -29,7 +35,12 @@ import org.jumpmind.db.io.DatabaseXmlUtil;
 import org.jumpmind.db.model.Column;
 import org.jumpmind.db.model.ColumnTypes;
 import org.jumpmind.db.model.Database;
+import org.jumpmind.db.model.ForeignKey;
+import org.jumpmind.db.model.IndexColumn;
+import org.jumpmind.db.model.NonUniqueIndex;
+import org.jumpmind.db.model.Reference;
 import org.jumpmind.db.model.Table;
+import org.jumpmind.db.model.UniqueIndex;
 import org.jumpmind.db.platform.DatabaseNamesConstants;
 import org.jumpmind.db.platform.IDatabasePlatform;
 import org.jumpmind.db.platform.IDdlBuilder;
@@ -287,6 +298,131 @@ public class DatabasePlatformTest {
     }
     
     
+    @Test
+    public void testBulkReadMatchesTableRead() throws Exception {
+        Table parent = new Table("TEST_BULK_PARENT");
+        parent.addColumn(new Column("ID", true, Types.INTEGER, 0, 0));
+        parent.getColumnWithName("ID").setRequired(true);
+        parent.addColumn(new Column("NAME", false, Types.VARCHAR, 50, 0));
+        UniqueIndex uniqueIndex = new UniqueIndex("IDX_BULK_PARENT_NAME");
+        uniqueIndex.addColumn(new IndexColumn(parent.getColumnWithName("NAME")));
+        parent.addIndex(uniqueIndex);
+
+        Table detail = new Table("TEST_BULK_DETAIL");
+        detail.addColumn(new Column("PARENT_ID", true, Types.INTEGER, 0, 0));
+        detail.getColumnWithName("PARENT_ID").setRequired(true);
+        detail.addColumn(new Column("LINE", true, Types.INTEGER, 0, 0));
+        detail.getColumnWithName("LINE").setRequired(true);
+        detail.addColumn(new Column("AMOUNT", false, Types.INTEGER, 0, 0));
+
+        Table child = new Table("TEST_BULK_CHILD");
+        child.addColumn(new Column("ID", true, Types.INTEGER, 0, 0));
+        child.getColumnWithName("ID").setRequired(true);
+        child.addColumn(new Column("PARENT_ID", false, Types.INTEGER, 0, 0));
+        child.addColumn(new Column("NOTES", false, Types.VARCHAR, 100, 0));
+        ForeignKey fk = new ForeignKey("FK_BULK_CHILD_PARENT");
+        fk.setForeignTable(parent);
+        fk.addReference(new Reference(child.getColumnWithName("PARENT_ID"), parent
+                .getColumnWithName("ID")));
+        child.addForeignKey(fk);
+        NonUniqueIndex index = new NonUniqueIndex("IDX_BULK_CHILD_NOTES");
+        index.addColumn(new IndexColumn(child.getColumnWithName("NOTES")));
+        child.addIndex(index);
+        NonUniqueIndex twoColumnIndex = new NonUniqueIndex("IDX_BULK_CHILD_PARENT_NOTES");
+        twoColumnIndex.addColumn(new IndexColumn(child.getColumnWithName("PARENT_ID")));
+        twoColumnIndex.addColumn(new IndexColumn(child.getColumnWithName("NOTES")));
+        child.addIndex(twoColumnIndex);
+
+        Database database = new Database();
+        database.addTable(parent);
+        database.addTable(child);
+        database.addTable(detail);
+        platform.alterCaseToMatchDatabaseDefaultCase(database);
+        platform.createDatabase(database, true, false);
+
+        Database bulkRead = platform.readDatabase(platform.getDefaultCatalog(),
+                platform.getDefaultSchema(), null);
+        for (Table table : database.getTables()) {
+            Table fromBulkRead = bulkRead.findTable(table.getName(), false);
+            assertNotNull(fromBulkRead);
+            Table fromTableRead = platform.readTableFromDatabase(platform.getDefaultCatalog(),
+                    platform.getDefaultSchema(), table.getName());
+            assertEquals(fromTableRead.toVerboseString(), fromBulkRead.toVerboseString());
+        }
+
+        Table childFromBulkRead = bulkRead.findTable(child.getName(), false);
+        assertEquals(1, childFromBulkRead.getForeignKeyCount());
+        assertEquals(2, childFromBulkRead.getIndexCount());
+        assertEquals(1, childFromBulkRead.getPrimaryKeyColumnCount());
+        assertEquals(1, bulkRead.findTable(parent.getName(), false).getIndexCount());
+        assertEquals(2, bulkRead.findTable(detail.getName(), false).getPrimaryKeyColumnCount());
+
+        String name = platform.getName();
+        if (name.equals(DatabaseNamesConstants.H2) || name.equals(DatabaseNamesConstants.ORACLE)
+                || name.equals(DatabaseNamesConstants.POSTGRESQL)
+                || name.equals(DatabaseNamesConstants.MYSQL)
+                || name.equals(DatabaseNamesConstants.MSSQL2005)
+                || name.equals(DatabaseNamesConstants.MSSQL2008)) {
+            assertTrue(platform.getDdlReader().isBulkReadSupported());
+        }
+    }
+
+    @Test
+    public void testCachedTableModelRevalidation() throws Exception {
+        Table table = new Table("TEST_CACHE_REVALIDATE");
+        table.addColumn(new Column("ID", true, Types.INTEGER, 0, 0));
+        table.getColumnWithName("ID").setRequired(true);
+        table.addColumn(new Column("NOTES", false, Types.VARCHAR, 20, 0));
+        platform.alterCaseToMatchDatabaseDefaultCase(table);
+        dropCreateAndThenReadTable(table);
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        platform.writeCachedTableModel(os);
+        platform.resetCachedTableModel();
+        assertTrue(platform.readCachedTableModel(new ByteArrayInputStream(os.toByteArray())) > 0);
+        assertEquals(0, platform.revalidateCachedTableModel());
+
+        table.addColumn(new Column("NOTES2", false, Types.VARCHAR, 20, 0));
+        platform.alterCaseToMatchDatabaseDefaultCase(table);
+        platform.alterTables(false, table);
+        platform.resetCachedTableModel();
+        platform.readCachedTableModel(new ByteArrayInputStream(os.toByteArray()));
+        assertEquals(2, platform.getTableFromCache(table.getName(), false).getColumnCount());
+        assertEquals(1, platform.revalidateCachedTableModel());
+        assertEquals(3, platform.getTableFromCache(table.getName(), false).getColumnCount());
+    }
+
+    @Test
+    public void testCachedTableModelFromOtherFormatIsIgnored() throws Exception {
+        Table table = new Table("TEST_CACHE_FORMAT");
+        table.addColumn(new Column("ID", true, Types.INTEGER, 0, 0));
+        HashMap<String, Table> tables = new HashMap<String, Table>();
+        tables.put(table.getName(), table);
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(os);
+        oos.writeInt(-1);
+        oos.writeObject(tables);
+        oos.flush();
+
+        platform.resetCachedTableModel();
+        assertEquals(0, platform.readCachedTableModel(new ByteArrayInputStream(os.toByteArray())));
+    }
+
+    @Test
+    public void testLoadTablesIntoCache() throws Exception {
+        platform.resetCachedTableModel();
+        List<String> tableNames = new ArrayList<String>();
+        tableNames.add(UPPERCASE_TABLE);
+        tableNames.add("DOES_NOT_EXIST");
+        assertEquals(1, platform.loadTablesIntoCache(null, null, tableNames));
+        assertEquals(0, platform.loadTablesIntoCache(null, null, tableNames));
+        Table table = platform.getTableFromCache(null, null, UPPERCASE_TABLE, false);
+        assertNotNull(table);
+        assertEquals(platform.readTableFromDatabase(null, null, UPPERCASE_TABLE)
+                .toVerboseString(), table.toVerboseString());
+    }
+
     @Test
     public void testNvarcharType() {
         Table table = new Table("test_nvarchar");
@@ -0,0 +1,153 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.microbenchmark;
+
+import java.sql.Types;
+import java.util.Random;
+
+import org.jumpmind.db.model.Column;
+import org.jumpmind.db.model.Table;
+import org.jumpmind.db.platform.IDatabasePlatform;
+import org.jumpmind.db.platform.JdbcDatabasePlatformFactory;
+import org.jumpmind.db.sql.SqlTemplateSettings;
+import org.jumpmind.db.util.BasicDataSourceFactory;
+import org.jumpmind.db.util.BasicDataSourcePropertyConstants;
+import org.jumpmind.db.util.BinaryEncoding;
+import org.jumpmind.db.util.ResettableBasicDataSource;
+import org.jumpmind.properties.TypedProperties;
+import org.jumpmind.symmetric.io.data.CsvConstants;
+import org.jumpmind.symmetric.io.data.CsvUtils;
+
+/**
+ * Synthetic rows of a point of sale table shared by the benchmarks.
+ */
+public class BenchmarkData {
+
+    public static final String TABLE_NAME = "sale_return_line_item";
+
+    public static final String SOURCE_NODE_ID = "00000";
+
+    public static final String TARGET_NODE_ID = "00001";
+
+    public static final String CHANNEL_ID = "sale_transaction";
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * @return a platform on an in-memory H2 database with the benchmark table
+     *         created
+     */
+    public static IDatabasePlatform createDatabasePlatform(String name) {
+        TypedProperties properties = new TypedProperties();
+        properties.setProperty(BasicDataSourcePropertyConstants.DB_POOL_DRIVER, "org.h2.Driver");
+        properties.setProperty(BasicDataSourcePropertyConstants.DB_POOL_URL, "jdbc:h2:mem:" + name);
+        properties.setProperty(BasicDataSourcePropertyConstants.DB_POOL_USER, "sa");
+        properties.setProperty(BasicDataSourcePropertyConstants.DB_POOL_PASSWORD, "");
+        ResettableBasicDataSource dataSource = BasicDataSourceFactory.create(properties);
+        IDatabasePlatform platform = JdbcDatabasePlatformFactory.createNewPlatformInstance(dataSource,
+                new SqlTemplateSettings(), false, false);
+        Table table = createTable();
+        platform.alterCaseToMatchDatabaseDefaultCase(table);
+        platform.createTables(false, false, table);
+        return platform;
+    }
+
+    public static void close(IDatabasePlatform platform) {
+        if (platform != null) {
+            ResettableBasicDataSource dataSource = platform.getDataSource();
+            try {
+                dataSource.close();
+            } catch (Exception e) {
+            }
+        }
+    }
+
+    public static Table createTable() {
+        Table table = new Table(TABLE_NAME);
+        table.addColumn(new Column("tran_id", true, Types.BIGINT, 0, 0));
+        table.addColumn(new Column("line_item_seq", true, Types.INTEGER, 0, 0));
+        table.addColumn(new Column("store_id", false, Types.VARCHAR, 10, 0));
+        table.addColumn(new Column("item_id", false, Types.VARCHAR, 20, 0));
+        table.addColumn(new Column("quantity", false, Types.INTEGER, 0, 0));
+        table.addColumn(new Column("unit_price", false, Types.DECIMAL, 12, 2));
+        table.addColumn(new Column("description", false, Types.VARCHAR, 255, 0));
+        table.addColumn(new Column("last_update_time", false, Types.TIMESTAMP, 0, 0));
+        return table;
+    }
+
+    /**
+     * @return rows in the column order of {@link #createTable()} for a random
+     *         store out of the given number of stores
+     */
+    public static String[][] createRows(int count, int stores) {
+        Random random = new Random(count);
+        String[][] rows = new String[count][];
+        for (int i = 0; i < count; i++) {
+            rows[i] = new String[] { Integer.toString(100000 + i / 4), Integer.toString(i % 4),
+                    getStoreId(random.nextInt(stores)), "ITEM-" + random.nextInt(50000),
+                    Integer.toString(1 + random.nextInt(5)),
+                    random.nextInt(500) + "." + (10 + random.nextInt(90)),
+                    random.nextBoolean() ? null : "Item \"" + random.nextInt(50000) + "\", size " + random.nextInt(12),
+                    "2016-05-1" + random.nextInt(10) + " 1" + random.nextInt(10) + ":3" + random.nextInt(10) + ":00.000" };
+        }
+        return rows;
+    }
+
+    public static String getStoreId(int store) {
+        return "store" + store;
+    }
+
+    /**
+     * @return a batch as it is staged and sent by the extract. Most rows are
+     *         inserts, every third row is an update and every tenth row a
+     *         delete.
+     */
+    public static String createBatch(long batchId, int count) {
+        Table table = createTable();
+        String[][] rows = createRows(count, 100);
+        StringBuilder batch = new StringBuilder(count * 150);
+        batch.append(CsvConstants.NODEID).append(",").append(SOURCE_NODE_ID).append("\n");
+        batch.append(CsvConstants.BINARY).append(",").append(BinaryEncoding.BASE64).append("\n");
+        batch.append(CsvConstants.CHANNEL).append(",").append(CHANNEL_ID).append("\n");
+        batch.append(CsvConstants.BATCH).append(",").append(batchId).append("\n");
+        batch.append(CsvConstants.TABLE).append(",").append(table.getName()).append("\n");
+        batch.append(CsvConstants.KEYS).append(",").append(CsvUtils.escapeCsvData(table.getPrimaryKeyColumnNames()))
+                .append("\n");
+        batch.append(CsvConstants.COLUMNS).append(",").append(CsvUtils.escapeCsvData(table.getColumnNames()))
+                .append("\n");
+        for (int i = 0; i < rows.length; i++) {
+            String[] pk = new String[] { rows[i][0], rows[i][1] };
+            if (i % 10 == 9) {
+                batch.append(CsvConstants.DELETE).append(",").append(CsvUtils.escapeCsvData(pk));
+            } else if (i % 3 == 2) {
+                batch.append(CsvConstants.UPDATE).append(",").append(CsvUtils.escapeCsvData(rows[i])).append(",")
+                        .append(CsvUtils.escapeCsvData(pk));
+            } else {
+                batch.append(CsvConstants.INSERT).append(",").append(CsvUtils.escapeCsvData(rows[i]));
+            }
+            batch.append("\n");
+        }
+        batch.append(CsvConstants.COMMIT).append(",").append(batchId).append("\n");
+        return batch.toString();
+    }
+
+}
@@ -0,0 +1,124 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.microbenchmark;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.jumpmind.db.model.Table;
+import org.jumpmind.symmetric.io.data.CsvUtils;
+import org.jumpmind.symmetric.io.data.DataEventType;
+import org.jumpmind.symmetric.model.Data;
+import org.jumpmind.symmetric.model.DataMetaData;
+import org.jumpmind.symmetric.model.Node;
+import org.jumpmind.symmetric.model.NodeChannel;
+import org.jumpmind.symmetric.model.Router;
+import org.jumpmind.symmetric.model.TriggerHistory;
+import org.jumpmind.symmetric.route.ColumnMatchDataRouter;
+import org.jumpmind.symmetric.route.SimpleRouterContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Routes one captured row to the store whose external id matches a column of
+ * the row. A new {@link Data} is created for every row, as the route reader
+ * does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ColumnMatchDataRouterBenchmark {
+
+    @Param({ "10", "3000" })
+    int stores;
+
+    @Param({ "STORE_ID=:EXTERNAL_ID" })
+    String expression;
+
+    ColumnMatchDataRouter router;
+
+    SimpleRouterContext context;
+
+    Set<Node> nodes;
+
+    String[] rowData;
+
+    TriggerHistory triggerHistory;
+
+    Table table;
+
+    Router routerConfig;
+
+    NodeChannel nodeChannel;
+
+    int index;
+
+    @Setup
+    public void setup() {
+        router = new ColumnMatchDataRouter();
+        nodeChannel = new NodeChannel(BenchmarkData.CHANNEL_ID);
+        context = new SimpleRouterContext(BenchmarkData.SOURCE_NODE_ID, nodeChannel);
+        nodes = new HashSet<Node>();
+        for (int i = 0; i < stores; i++) {
+            Node node = new Node(Integer.toString(1000 + i), "store");
+            node.setExternalId(BenchmarkData.getStoreId(i));
+            nodes.add(node);
+        }
+
+        table = BenchmarkData.createTable();
+        triggerHistory = new TriggerHistory(table.getName(), "TRAN_ID,LINE_ITEM_SEQ",
+                "TRAN_ID,LINE_ITEM_SEQ,STORE_ID,ITEM_ID,QUANTITY,UNIT_PRICE,DESCRIPTION,LAST_UPDATE_TIME");
+        routerConfig = new Router();
+        routerConfig.setRouterId("corp_2_store");
+        routerConfig.setRouterExpression(expression);
+
+        String[][] rows = BenchmarkData.createRows(1024, stores);
+        rowData = new String[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            rowData[i] = CsvUtils.escapeCsvData(rows[i]);
+        }
+    }
+
+    @Benchmark
+    public Set<String> routeToNodes() {
+        Data data = new Data();
+        data.setDataId(index);
+        data.setDataEventType(DataEventType.INSERT);
+        data.setRowData(rowData[index++ & (rowData.length - 1)]);
+        data.setTriggerHistory(triggerHistory);
+        DataMetaData dataMetaData = new DataMetaData(data, table, routerConfig, nodeChannel);
+        return router.routeToNodes(context, dataMetaData, nodes, false, false, null);
+    }
+
+}
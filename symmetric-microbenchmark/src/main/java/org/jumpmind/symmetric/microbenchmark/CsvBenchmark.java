@@ -0,0 +1,127 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.microbenchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.jumpmind.symmetric.csv.CsvReader;
+import org.jumpmind.symmetric.csv.CsvWriter;
+import org.jumpmind.symmetric.io.data.CsvTokenizer;
+import org.jumpmind.symmetric.io.data.CsvUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reads and writes one row of captured data, the way the triggers, the
+ * extract and the load see it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CsvBenchmark {
+
+    @Param({ "10", "50" })
+    int columns;
+
+    String[] values;
+
+    String csv;
+
+    StringWriter stringWriter;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(columns);
+        values = new String[columns];
+        for (int i = 0; i < columns; i++) {
+            switch (i % 5) {
+                case 0:
+                    values[i] = Integer.toString(random.nextInt(1000000));
+                    break;
+                case 1:
+                    values[i] = "Store " + random.nextInt(3000) + " \"main\", aisle " + random.nextInt(40);
+                    break;
+                case 2:
+                    values[i] = "2016-0" + (1 + random.nextInt(9)) + "-1" + random.nextInt(10) + " 12:34:56.789";
+                    break;
+                case 3:
+                    values[i] = null;
+                    break;
+                default:
+                    values[i] = random.nextInt(100000) + "." + random.nextInt(100);
+            }
+        }
+        csv = CsvUtils.escapeCsvData(values);
+        stringWriter = new StringWriter(csv.length() * 2);
+    }
+
+    @Benchmark
+    public String escapeCsvData() {
+        return CsvUtils.escapeCsvData(values);
+    }
+
+    @Benchmark
+    public String[] tokenizeWithCsvReader() throws IOException {
+        CsvReader reader = CsvUtils.getCsvReader(new StringReader(csv));
+        try {
+            reader.readRecord();
+            return reader.getValues();
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Benchmark
+    public String[] tokenizeWithCsvTokenizer() {
+        return CsvTokenizer.get().tokenize(csv);
+    }
+
+    @Benchmark
+    public void writeRecord(Blackhole blackhole) throws IOException {
+        stringWriter.getBuffer().setLength(0);
+        CsvWriter writer = new CsvWriter(stringWriter, ',');
+        writer.setEscapeMode(CsvWriter.ESCAPE_MODE_BACKSLASH);
+        writer.setTextQualifier('\"');
+        writer.setUseTextQualifier(true);
+        writer.setForceQualifier(true);
+        writer.writeRecord(values);
+        writer.flush();
+        blackhole.consume(stringWriter.getBuffer().length());
+    }
+
+}
@@ -0,0 +1,141 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.microbenchmark;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.jumpmind.db.platform.IDatabasePlatform;
+import org.jumpmind.db.sql.ISqlTemplate;
+import org.jumpmind.db.sql.ISqlTransaction;
+import org.jumpmind.symmetric.common.ParameterConstants;
+import org.jumpmind.symmetric.db.ISymmetricDialect;
+import org.jumpmind.symmetric.model.DataGap;
+import org.jumpmind.symmetric.model.ProcessInfo;
+import org.jumpmind.symmetric.route.DataGapFastDetector;
+import org.jumpmind.symmetric.route.DataIdList;
+import org.jumpmind.symmetric.service.IContextService;
+import org.jumpmind.symmetric.service.IDataService;
+import org.jumpmind.symmetric.service.INodeService;
+import org.jumpmind.symmetric.service.IParameterService;
+import org.jumpmind.symmetric.service.IRouterService;
+import org.jumpmind.symmetric.statistic.IStatisticManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs gap detection for one routing pass over synthetic gaps. A third of the
+ * gaps are filled by routed data, a third have expired and the rest stay open,
+ * followed by the last gap that new data is routed from. The services are
+ * stubs, so saving the gap changes costs nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DataGapFastDetectorBenchmark {
+
+    @Param({ "100", "10000" })
+    int gaps;
+
+    @Param({ "1000" })
+    int newDataIds;
+
+    DataGapFastDetector detector;
+
+    DataIdList dataIds;
+
+    @Setup
+    public void setup() {
+        Map<String, String> parameters = new HashMap<String, String>();
+        /* Have the detector read the gaps from the data service every time */
+        parameters.put(ParameterConstants.CLUSTER_LOCKING_ENABLED, "true");
+        parameters.put(ParameterConstants.ROUTING_MAX_GAP_CHANGES, Integer.toString(Integer.MAX_VALUE));
+        IParameterService parameterService = Stubs.parameterService(parameters);
+        long largestGapSize = parameterService.getLong(ParameterConstants.ROUTING_LARGEST_GAP_SIZE);
+
+        List<DataGap> dataGaps = new ArrayList<DataGap>(gaps + 1);
+        dataIds = new DataIdList(gaps + newDataIds);
+        Date now = new Date();
+        Date expired = new Date(0);
+        for (int i = 0; i < gaps; i++) {
+            long startId = i * 10 + 1;
+            if (i % 3 == 0) {
+                dataGaps.add(new DataGap(startId, startId + 4, now));
+                dataIds.add(startId);
+                dataIds.add(startId + 2);
+            } else {
+                dataGaps.add(new DataGap(startId, startId + 4, i % 3 == 1 ? expired : now));
+            }
+        }
+        long lastStartId = gaps * 10 + 1;
+        dataGaps.add(new DataGap(lastStartId, lastStartId + largestGapSize - 1, now));
+        for (int i = 0; i < newDataIds; i++) {
+            dataIds.add(lastStartId + i);
+        }
+
+        Map<String, Object> dataServiceResults = new HashMap<String, Object>();
+        dataServiceResults.put("findDataGaps", dataGaps);
+
+        Map<String, Object> sqlTemplateResults = new HashMap<String, Object>();
+        sqlTemplateResults.put("startSqlTransaction", Stubs.stub(ISqlTransaction.class));
+        Map<String, Object> platformResults = new HashMap<String, Object>();
+        platformResults.put("getSqlTemplate", Stubs.stub(ISqlTemplate.class, sqlTemplateResults));
+        Map<String, Object> dialectResults = new HashMap<String, Object>();
+        dialectResults.put("getPlatform", Stubs.stub(IDatabasePlatform.class, platformResults));
+
+        Map<String, Object> statisticResults = new HashMap<String, Object>();
+        statisticResults.put("newProcessInfo", new ProcessInfo());
+        Map<String, Object> nodeResults = new HashMap<String, Object>();
+        nodeResults.put("findIdentityNodeId", BenchmarkData.SOURCE_NODE_ID);
+
+        detector = new DataGapFastDetector(Stubs.stub(IDataService.class, dataServiceResults), parameterService,
+                Stubs.stub(IContextService.class), Stubs.stub(ISymmetricDialect.class, dialectResults),
+                Stubs.stub(IRouterService.class), Stubs.stub(IStatisticManager.class, statisticResults),
+                Stubs.stub(INodeService.class, nodeResults));
+        detector.setFullGapAnalysis(false);
+    }
+
+    @Benchmark
+    public DataGapFastDetector afterRouting() {
+        detector.beforeRouting();
+        detector.addDataIds(dataIds);
+        detector.setIsAllDataRead(true);
+        detector.afterRouting();
+        return detector;
+    }
+
+}
@@ -0,0 +1,103 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.microbenchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jumpmind.db.model.Table;
+import org.jumpmind.db.platform.IDatabasePlatform;
+import org.jumpmind.db.sql.DmlStatement;
+import org.jumpmind.db.sql.DmlStatement.DmlType;
+import org.jumpmind.db.util.BinaryEncoding;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The statement work the default database writer does for each row, without
+ * executing the statement. Inserts reuse the statement of the table and
+ * convert the values, while updates build a statement for the columns that
+ * changed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DmlStatementBenchmark {
+
+    IDatabasePlatform platform;
+
+    Table table;
+
+    DmlStatement insertStatement;
+
+    String[][] rows;
+
+    int index;
+
+    @Setup
+    public void setup() {
+        platform = BenchmarkData.createDatabasePlatform("dml");
+        table = BenchmarkData.createTable();
+        platform.alterCaseToMatchDatabaseDefaultCase(table);
+        insertStatement = platform.createDmlStatement(DmlType.INSERT, table, null);
+        rows = BenchmarkData.createRows(1024, 100);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkData.close(platform);
+    }
+
+    @Benchmark
+    public DmlStatement buildInsertStatement() {
+        DmlStatement statement = platform.createDmlStatement(DmlType.INSERT, table, null);
+        statement.getSql();
+        return statement;
+    }
+
+    @Benchmark
+    public Object[] insertValues() {
+        return platform.getObjectValues(BinaryEncoding.BASE64, rows[index++ & (rows.length - 1)],
+                insertStatement.getMetaData(), false, false);
+    }
+
+    @Benchmark
+    public Object[] updateStatementAndValues() {
+        String[] row = rows[index++ & (rows.length - 1)];
+        DmlStatement statement = platform.createDmlStatement(DmlType.UPDATE, table.getCatalog(), table.getSchema(),
+                table.getName(), table.getPrimaryKeyColumns(), table.getColumns(), null, null);
+        statement.getSql();
+        String[] values = statement.getValueArray(row, new String[] { row[0], row[1] });
+        return platform.getObjectValues(BinaryEncoding.BASE64, values, statement.getMetaData(), false, false);
+    }
+
+}
@@ -0,0 +1,82 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.microbenchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jumpmind.symmetric.io.data.Batch.BatchType;
+import org.jumpmind.symmetric.io.data.CsvData;
+import org.jumpmind.symmetric.io.data.DataContext;
+import org.jumpmind.symmetric.io.data.DataEventType;
+import org.jumpmind.symmetric.io.data.reader.ProtocolDataReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parses a staged batch into rows the way the data loader does. One operation
+ * is one batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ProtocolDataReaderBenchmark {
+
+    @Param({ "100", "1000" })
+    int rows;
+
+    String batch;
+
+    @Setup
+    public void setup() {
+        batch = BenchmarkData.createBatch(1, rows);
+    }
+
+    @Benchmark
+    public void readBatch(Blackhole blackhole) {
+        ProtocolDataReader reader = new ProtocolDataReader(BatchType.LOAD, BenchmarkData.TARGET_NODE_ID, batch);
+        DataContext context = new DataContext(reader);
+        reader.open(context);
+        while (reader.nextBatch() != null) {
+            while (reader.nextTable() != null) {
+                CsvData data = null;
+                while ((data = reader.nextData()) != null) {
+                    blackhole.consume(data.getParsedData(data.getDataEventType() == DataEventType.DELETE ? CsvData.PK_DATA
+                            : CsvData.ROW_DATA));
+                }
+            }
+        }
+        reader.close();
+    }
+
+}
@@ -0,0 +1,104 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.microbenchmark;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.jumpmind.symmetric.io.stage.IStagedResource;
+import org.jumpmind.symmetric.io.stage.IStagedResource.State;
+import org.jumpmind.symmetric.io.stage.StagingManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Stages a batch and reads it back. A threshold of 0 always writes to a file,
+ * while the larger threshold keeps the batch in memory.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StagedResourceBenchmark {
+
+    @Param({ "1000" })
+    int rows;
+
+    @Param({ "0", "10000000" })
+    long threshold;
+
+    File directory;
+
+    StagingManager stagingManager;
+
+    String[] lines;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = File.createTempFile("staging", "");
+        directory.delete();
+        stagingManager = new StagingManager(directory.getAbsolutePath());
+        lines = BenchmarkData.createBatch(1, rows).split("\n");
+    }
+
+    @TearDown
+    public void tearDown() {
+        FileUtils.deleteQuietly(directory);
+    }
+
+    @Benchmark
+    public long writeAndRead() throws IOException {
+        IStagedResource resource = stagingManager.create("outgoing", BenchmarkData.TARGET_NODE_ID, 1l);
+        BufferedWriter writer = resource.getWriter(threshold);
+        for (String line : lines) {
+            writer.write(line);
+            writer.write("\n");
+        }
+        resource.close();
+        resource.setState(State.READY);
+
+        long length = 0;
+        BufferedReader reader = resource.getReader();
+        String line = null;
+        while ((line = reader.readLine()) != null) {
+            length += line.length();
+        }
+        resource.close();
+        resource.delete();
+        return length;
+    }
+
+}
@@ -0,0 +1,135 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.microbenchmark;
+
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.jumpmind.properties.TypedProperties;
+import org.jumpmind.symmetric.service.IParameterService;
+
+/**
+ * Lightweight stand-ins for the services a component needs. Unlike mocks they
+ * do not record invocations, so they add little to the allocation rate being
+ * measured.
+ */
+public class Stubs {
+
+    private Stubs() {
+    }
+
+    /**
+     * @param results
+     *            return values by method name. Methods that are not listed
+     *            return null, false or zero.
+     */
+    public static <T> T stub(Class<T> type, final Map<String, Object> results) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        String name = method.getName();
+                        if (name.equals("hashCode") && args == null) {
+                            return System.identityHashCode(proxy);
+                        } else if (name.equals("equals") && args != null && args.length == 1) {
+                            return proxy == args[0];
+                        } else if (name.equals("toString") && args == null) {
+                            return "Stub " + method.getDeclaringClass().getSimpleName();
+                        } else if (results.containsKey(name)) {
+                            return results.get(name);
+                        } else {
+                            return defaultValue(method.getReturnType());
+                        }
+                    }
+                }));
+    }
+
+    public static <T> T stub(Class<T> type) {
+        return stub(type, Collections.<String, Object> emptyMap());
+    }
+
+    /**
+     * @return a parameter service that answers from the default parameters
+     *         overridden by the given parameters
+     */
+    public static IParameterService parameterService(Map<String, String> parameters) {
+        final TypedProperties properties = new TypedProperties();
+        InputStream is = Stubs.class.getResourceAsStream("/symmetric-default.properties");
+        try {
+            properties.load(is);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
+        properties.putAll(parameters);
+
+        return (IParameterService) Proxy.newProxyInstance(IParameterService.class.getClassLoader(),
+                new Class<?>[] { IParameterService.class }, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        String name = method.getName();
+                        if (args != null && args.length > 0 && args[0] instanceof String) {
+                            String key = (String) args[0];
+                            if (name.equals("is")) {
+                                return args.length > 1 ? properties.is(key, (Boolean) args[1]) : properties.is(key);
+                            } else if (name.equals("getInt")) {
+                                return args.length > 1 ? properties.getInt(key, (Integer) args[1]) : properties.getInt(key);
+                            } else if (name.equals("getLong")) {
+                                return args.length > 1 ? properties.getLong(key, (Long) args[1]) : properties.getLong(key);
+                            } else if (name.equals("getString")) {
+                                return args.length > 1 ? properties.get(key, (String) args[1]) : properties.get(key);
+                            }
+                        }
+                        if (name.equals("getAllParameters")) {
+                            return properties;
+                        }
+                        return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    protected static Object defaultValue(Class<?> type) {
+        if (type == Boolean.TYPE) {
+            return Boolean.FALSE;
+        } else if (type == Integer.TYPE) {
+            return 0;
+        } else if (type == Long.TYPE) {
+            return 0l;
+        } else if (type == Short.TYPE) {
+            return (short) 0;
+        } else if (type == Byte.TYPE) {
+            return (byte) 0;
+        } else if (type == Double.TYPE) {
+            return 0d;
+        } else if (type == Float.TYPE) {
+            return 0f;
+        } else if (type == Character.TYPE) {
+            return (char) 0;
+        } else {
+            return null;
+        }
+    }
+
+}
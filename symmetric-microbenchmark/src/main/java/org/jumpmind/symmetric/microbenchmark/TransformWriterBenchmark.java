@@ -0,0 +1,125 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.microbenchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.jumpmind.db.model.Table;
+import org.jumpmind.db.platform.IDatabasePlatform;
+import org.jumpmind.db.util.BinaryEncoding;
+import org.jumpmind.symmetric.io.data.Batch;
+import org.jumpmind.symmetric.io.data.Batch.BatchType;
+import org.jumpmind.symmetric.io.data.CsvData;
+import org.jumpmind.symmetric.io.data.DataContext;
+import org.jumpmind.symmetric.io.data.DataEventType;
+import org.jumpmind.symmetric.io.data.transform.ConstantColumnTransform;
+import org.jumpmind.symmetric.io.data.transform.CopyColumnTransform;
+import org.jumpmind.symmetric.io.data.transform.IColumnTransform;
+import org.jumpmind.symmetric.io.data.transform.SubstrColumnTransform;
+import org.jumpmind.symmetric.io.data.transform.TransformColumn;
+import org.jumpmind.symmetric.io.data.transform.TransformPoint;
+import org.jumpmind.symmetric.io.data.transform.TransformTable;
+import org.jumpmind.symmetric.io.data.writer.TransformWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Transforms one inserted row into a differently shaped target table using
+ * copy, constant and substring column transforms.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TransformWriterBenchmark {
+
+    IDatabasePlatform platform;
+
+    CountingDataWriter targetWriter;
+
+    TransformWriter writer;
+
+    Batch batch;
+
+    Table table;
+
+    String[][] rows;
+
+    int index;
+
+    @Setup
+    public void setup() {
+        platform = BenchmarkData.createDatabasePlatform("transform");
+        Map<String, IColumnTransform<?>> columnTransforms = new HashMap<String, IColumnTransform<?>>();
+        columnTransforms.put(CopyColumnTransform.NAME, new CopyColumnTransform());
+        columnTransforms.put(ConstantColumnTransform.NAME, new ConstantColumnTransform());
+        columnTransforms.put(SubstrColumnTransform.NAME, new SubstrColumnTransform());
+
+        TransformTable transform = new TransformTable(BenchmarkData.TABLE_NAME, "store_sale", TransformPoint.LOAD,
+                new TransformColumn("tran_id", "sale_id", true),
+                new TransformColumn("line_item_seq", "line_number", true),
+                new TransformColumn("store_id", "location_id", false),
+                new TransformColumn("item_id", "sku", false, SubstrColumnTransform.NAME, "5"),
+                new TransformColumn("quantity", "quantity", false),
+                new TransformColumn("unit_price", "price", false, CopyColumnTransform.NAME, null),
+                new TransformColumn(null, "source_system", false, ConstantColumnTransform.NAME, "pos"));
+        transform.setTransformId("sale_to_store_sale");
+
+        targetWriter = new CountingDataWriter();
+        writer = new TransformWriter(platform, TransformPoint.LOAD, targetWriter, columnTransforms, transform);
+        table = BenchmarkData.createTable();
+        batch = new Batch(BatchType.LOAD, 1, BenchmarkData.CHANNEL_ID, BinaryEncoding.BASE64,
+                BenchmarkData.SOURCE_NODE_ID, BenchmarkData.TARGET_NODE_ID, false);
+        rows = BenchmarkData.createRows(1024, 100);
+
+        writer.open(new DataContext());
+        writer.start(batch);
+        writer.start(table);
+    }
+
+    @TearDown
+    public void tearDown() {
+        writer.end(table);
+        writer.end(batch, false);
+        writer.close();
+        BenchmarkData.close(platform);
+    }
+
+    @Benchmark
+    public long transformInsert() {
+        writer.write(new CsvData(DataEventType.INSERT, rows[index++ & (rows.length - 1)]));
+        return targetWriter.getCount();
+    }
+
+}
@@ -81,6 +81,8 @@ import org.jumpmind.symmetric.service.IOutgoingBatchService;
 import org.jumpmind.symmetric.service.IRegistrationService;
 import org.jumpmind.symmetric.service.ITriggerRouterService;
 import org.jumpmind.symmetric.statistic.IStatisticManager;
+import org.jumpmind.symmetric.transport.ConcurrentConnectionManager.ReservationStatistics;
+import org.jumpmind.symmetric.transport.IConcurrentConnectionManager;
 import org.jumpmind.symmetric.web.ServerSymmetricEngine;
 import org.jumpmind.symmetric.web.SymmetricEngineHolder;
 import org.jumpmind.symmetric.web.WebConstants;
@@ -91,6 +93,7 @@ import org.jumpmind.symmetric.web.rest.model.BatchResults;
 import org.jumpmind.symmetric.web.rest.model.BatchSummaries;
 import org.jumpmind.symmetric.web.rest.model.BatchSummary;
 import org.jumpmind.symmetric.web.rest.model.ChannelStatus;
+import org.jumpmind.symmetric.web.rest.model.ConnectionPoolStatus;
 import org.jumpmind.symmetric.web.rest.model.Engine;
 import org.jumpmind.symmetric.web.rest.model.EngineList;
 import org.jumpmind.symmetric.web.rest.model.Heartbeat;
@@ -786,6 +789,33 @@ public class RestService {
         return channelStatusImpl(getSymmetricEngine(engineName));
     }
 
+    /**
+     * Returns the connection reservation statistics of each connection pool
+     * for the single engine of the node.
+     * 
+     * @return Set<{@link ConnectionPoolStatus}>
+     */
+    @ApiOperation(value = "Obtain the connection pool status of the single engine")
+    @RequestMapping(value = "/engine/connectionpoolstatus", method = RequestMethod.GET)
+    @ResponseBody
+    public final Set<ConnectionPoolStatus> getConnectionPoolStatus() {
+        return connectionPoolStatusImpl(getSymmetricEngine());
+    }
+
+    /**
+     * Returns the connection reservation statistics of each connection pool
+     * for the specified engine of the node.
+     * 
+     * @return Set<{@link ConnectionPoolStatus}>
+     */
+    @ApiOperation(value = "Obtain the connection pool status of the specified engine")
+    @RequestMapping(value = "/engine/{engine}/connectionpoolstatus", method = RequestMethod.GET)
+    @ResponseBody
+    public final Set<ConnectionPoolStatus> getConnectionPoolStatusByEngine(
+            @PathVariable("engine") String engineName) {
+        return connectionPoolStatusImpl(getSymmetricEngine(engineName));
+    }
+
     /**
      * Removes (unregisters and cleans up) a node for the single engine
      */
@@ -1667,6 +1697,27 @@ public class RestService {
         return channelStatus;
     }
 
+    private Set<ConnectionPoolStatus> connectionPoolStatusImpl(ISymmetricEngine engine) {
+        HashSet<ConnectionPoolStatus> poolStatus = new HashSet<ConnectionPoolStatus>();
+        IConcurrentConnectionManager connectionManager = engine.getConcurrentConnectionManager();
+        Map<String, ReservationStatistics> statsByPool = connectionManager
+                .getReservationStatisticsByPool();
+        for (String poolId : statsByPool.keySet()) {
+            ReservationStatistics stats = statsByPool.get(poolId);
+            ConnectionPoolStatus status = new ConnectionPoolStatus();
+            status.setPoolId(poolId);
+            status.setActiveCount(connectionManager.getReservationCount(poolId));
+            status.setGrantedCount(stats.getGrantedCount());
+            status.setRejectedCount(stats.getRejectedCount());
+            status.setReleasedCount(stats.getReleasedCount());
+            status.setTimedOutCount(stats.getTimedOutCount());
+            status.setAverageWaitTimeMicros(stats.getAverageWaitTimeMicros());
+            status.setMaxWaitTimeMicros(stats.getMaxWaitTimeMicros());
+            poolStatus.add(status);
+        }
+        return poolStatus;
+    }
+
     private QueryResults queryNodeImpl(ISymmetricEngine engine, String sql, boolean isQuery) {
 
         QueryResults results = new QueryResults();
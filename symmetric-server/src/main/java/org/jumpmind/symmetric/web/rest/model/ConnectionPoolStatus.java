@@ -0,0 +1,133 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.web.rest.model;
+
+public class ConnectionPoolStatus {
+
+    /**
+     * The pool the connections are reserved from. This is the request uri
+     * (e.g., '/sync/corp-000/pull')
+     */
+    private String poolId;
+
+    /**
+     * The number of connections currently reserved.
+     */
+    private int activeCount;
+
+    /**
+     * The number of reservations that have been granted.
+     */
+    private long grantedCount;
+
+    /**
+     * The number of reservations that have been rejected because the node
+     * was too busy.
+     */
+    private long rejectedCount;
+
+    /**
+     * The number of reservations that have been released.
+     */
+    private long releasedCount;
+
+    /**
+     * The number of soft reservations that timed out and were removed.
+     */
+    private long timedOutCount;
+
+    /**
+     * The average time in microseconds a request waited to reserve a
+     * connection.
+     */
+    private long averageWaitTimeMicros;
+
+    /**
+     * The longest time in microseconds a request waited to reserve a
+     * connection.
+     */
+    private long maxWaitTimeMicros;
+
+    public String getPoolId() {
+        return poolId;
+    }
+
+    public void setPoolId(String poolId) {
+        this.poolId = poolId;
+    }
+
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    public void setActiveCount(int activeCount) {
+        this.activeCount = activeCount;
+    }
+
+    public long getGrantedCount() {
+        return grantedCount;
+    }
+
+    public void setGrantedCount(long grantedCount) {
+        this.grantedCount = grantedCount;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public void setRejectedCount(long rejectedCount) {
+        this.rejectedCount = rejectedCount;
+    }
+
+    public long getReleasedCount() {
+        return releasedCount;
+    }
+
+    public void setReleasedCount(long releasedCount) {
+        this.releasedCount = releasedCount;
+    }
+
+    public long getTimedOutCount() {
+        return timedOutCount;
+    }
+
+    public void setTimedOutCount(long timedOutCount) {
+        this.timedOutCount = timedOutCount;
+    }
+
+    public long getAverageWaitTimeMicros() {
+        return averageWaitTimeMicros;
+    }
+
+    public void setAverageWaitTimeMicros(long averageWaitTimeMicros) {
+        this.averageWaitTimeMicros = averageWaitTimeMicros;
+    }
+
+    public long getMaxWaitTimeMicros() {
+        return maxWaitTimeMicros;
+    }
+
+    public void setMaxWaitTimeMicros(long maxWaitTimeMicros) {
+        this.maxWaitTimeMicros = maxWaitTimeMicros;
+    }
+
+}
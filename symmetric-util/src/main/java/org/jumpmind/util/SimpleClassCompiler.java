@@ -70,6 +70,14 @@ public class SimpleClassCompiler {
     }
     
     public Object getCompiledClass(String javaCode) throws Exception {
+        return getCompiledClass(javaCode, true);
+    }
+
+    /**
+     * @param logErrors when false, compilation errors are only logged at debug level.  Used by callers that
+     * expect some code not to compile and have another way to handle it.
+     */
+    public Object getCompiledClass(String javaCode, boolean logErrors) throws Exception {
 
         Integer id = javaCode.hashCode();
         Object javaObject = objectMap.get(id);
@@ -109,10 +117,19 @@ public class SimpleClassCompiler {
                     throw new SimpleClassCompilerException("The '"+className+"' class could not be located");
                 }
             } else {
-                log.error("Compilation of '" + origClassName + "' failed");
+                if (logErrors) {
+                    log.error("Compilation of '" + origClassName + "' failed");
+                } else {
+                    log.debug("Compilation of '" + origClassName + "' failed");
+                }
                 for (Diagnostic diagnostic : diag.getDiagnostics()) {
-                    log.error(origClassName + " at line " + diagnostic.getLineNumber() + ", column " + diagnostic.getColumnNumber() + ": " + 
-                            diagnostic.getMessage(null));
+                    String message = origClassName + " at line " + diagnostic.getLineNumber() + ", column " + diagnostic.getColumnNumber() + ": " + 
+                            diagnostic.getMessage(null);
+                    if (logErrors) {
+                        log.error(message);
+                    } else {
+                        log.debug(message);
+                    }
                 }
                 throw new SimpleClassCompilerException(diag.getDiagnostics());
             }